@@ -0,0 +1,167 @@
+package com.mshernandez.coinaccount.benchmark;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.service.util.BinarySearchCoinSelector;
+import com.mshernandez.coinaccount.service.util.CoinSelectionBuilder;
+import com.mshernandez.coinaccount.service.util.CoinSelectionState;
+import com.mshernandez.coinaccount.service.util.DepositShareEvaluator;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time taken by a single withdraw coin selection
+ * over synthetic deposit pools of different sizes and amount
+ * distributions.
+ * <p>
+ * Run with <code>-prof gc</code> to also report allocation
+ * per selection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoinSelectionBenchmark
+{
+    // Matches The Default Minimum Deposit Amount
+    private static final long MIN_DEPOSIT = 20000000L;
+
+    // Fee Rate Used For Every Selection, In sat/kvB
+    private static final long FEE_RATE = 10000L;
+
+    // Typical Withdrawals Are Worth A Few Average Deposits
+    private static final int TARGET_DEPOSITS = 5;
+
+    /**
+     * Shapes of synthetic deposit amount distributions.
+     */
+    public enum Distribution
+    {
+        /**
+         * Amounts spread evenly between the minimum
+         * deposit and 100 times the minimum.
+         */
+        UNIFORM,
+
+        /**
+         * Pareto distributed amounts, mostly small
+         * deposits with a few very large ones.
+         */
+        POWER_LAW,
+
+        /**
+         * Nine in ten deposits barely above the minimum,
+         * the rest spread evenly up to 100 times the minimum.
+         */
+        DUST_HEAVY
+    }
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    int poolSize;
+
+    @Param({"UNIFORM", "POWER_LAW", "DUST_HEAVY"})
+    Distribution distribution;
+
+    @Param({"-1", "0", "10", "50"})
+    int maxRewind;
+
+    @Param({"true", "false"})
+    boolean coverFees;
+
+    private Set<Deposit> deposits;
+    private DepositShareEvaluator evaluator;
+    private long target;
+
+    /**
+     * Generate the deposit pool, the same pool is
+     * generated for every run with the same parameters.
+     */
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Random random = new Random(poolSize * 31L + distribution.ordinal());
+        deposits = new LinkedHashSet<>(poolSize);
+        long total = 0L;
+        for (int i = 0; i < poolSize; i++)
+        {
+            long amount = nextAmount(random);
+            deposits.add(new Deposit(nextTxid(random), random.nextInt(4), nextType(random), amount));
+            total += amount;
+        }
+        evaluator = new DepositShareEvaluator(FEE_RATE);
+        target = Math.min(total / 2L, TARGET_DEPOSITS * (total / poolSize));
+    }
+
+    @Benchmark
+    public CoinSelectionState<Deposit> binarySearchSelection()
+    {
+        return new CoinSelectionBuilder<Deposit>()
+            .step(new BinarySearchCoinSelector<>(maxRewind, coverFees), deposits)
+            .evaluator(evaluator)
+            .target(target)
+            .select();
+    }
+
+    private long nextAmount(Random random)
+    {
+        switch (distribution)
+        {
+            case POWER_LAW:
+                // Pareto With Shape 1.16, The 80/20 Rule
+                double pareto = MIN_DEPOSIT / Math.pow(1.0 - random.nextDouble(), 1.0 / 1.16);
+                return (long) Math.min(pareto, MIN_DEPOSIT * 100000.0);
+            case DUST_HEAVY:
+                if (random.nextInt(10) != 0)
+                {
+                    return MIN_DEPOSIT + (long) (random.nextDouble() * MIN_DEPOSIT * 0.1);
+                }
+                return MIN_DEPOSIT + (long) (random.nextDouble() * MIN_DEPOSIT * 99.0);
+            case UNIFORM:
+            default:
+                return MIN_DEPOSIT + (long) (random.nextDouble() * MIN_DEPOSIT * 99.0);
+        }
+    }
+
+    private DepositType nextType(Random random)
+    {
+        // Mostly Native Segwit With Some Older Address Types
+        int roll = random.nextInt(10);
+        if (roll == 0)
+        {
+            return DepositType.P2PKH;
+        }
+        else if (roll == 1)
+        {
+            return DepositType.P2SH_P2WPKH;
+        }
+        return DepositType.P2WPKH;
+    }
+
+    private String nextTxid(Random random)
+    {
+        StringBuilder txid = new StringBuilder(64);
+        for (int i = 0; i < 8; i++)
+        {
+            txid.append(String.format("%08x", random.nextInt()));
+        }
+        return txid.toString();
+    }
+}
@@ -8,11 +8,13 @@ import com.mshernandez.coinaccount.grpc.AccountInfoProtos.GetBalanceInfoRequest;
 import com.mshernandez.coinaccount.grpc.AccountInfoProtos.GetBalanceInfoResponse;
 import com.mshernandez.coinaccount.grpc.AccountInfoProtos.GetDepositAddressRequest;
 import com.mshernandez.coinaccount.grpc.AccountInfoProtos.GetDepositAddressResponse;
+import com.mshernandez.coinaccount.grpc.AccountInfoProtos.GetPoolFeeInfoResponse;
 import com.mshernandez.coinaccount.grpc.AccountInfoProtos.GetReturnAddressRequest;
 import com.mshernandez.coinaccount.grpc.AccountInfoProtos.GetReturnAddressResponse;
 import com.mshernandez.coinaccount.grpc.AccountInfoProtos.SetReturnAddressRequest;
 import com.mshernandez.coinaccount.grpc.AccountInfoProtos.SetReturnAddressResponse;
 import com.mshernandez.coinaccount.grpc.AccountInfoServiceGrpc.AccountInfoServiceImplBase;
+import com.mshernandez.coinaccount.grpc.CoinAccountProtos.Empty;
 import com.mshernandez.coinaccount.grpc.CoinAccountProtos.ResponseType;
 import com.mshernandez.coinaccount.service.AccountInfoService;
 import com.mshernandez.coinaccount.service.exception.InvalidAddressException;
@@ -209,4 +211,28 @@ public class AccountInfoController extends AccountInfoServiceImplBase
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
+
+    @Override
+    @Blocking
+    public void getPoolFeeInfo(Empty empty, StreamObserver<GetPoolFeeInfoResponse> responseObserver)
+    {
+        GetPoolFeeInfoResponse response;
+        try
+        {
+            response = GetPoolFeeInfoResponse.newBuilder()
+                .setResponseType(ResponseType.SUCCESS)
+                .setFeesPaid(accountInfoService.getPoolFeesPaid())
+                .build();
+        }
+        catch (Exception e)
+        {
+            logger.warn("getPoolFeeInfo: Unexpected Exception: " + e.getMessage());
+            response = GetPoolFeeInfoResponse.newBuilder()
+                .setResponseType(ResponseType.ERROR_INTERNAL)
+                .setFeesPaid(0L)
+                .build();
+        }
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
 }
@@ -14,7 +14,9 @@ import com.mshernandez.coinaccount.grpc.NotificationProtos.NotificationRequest;
 import com.mshernandez.coinaccount.grpc.NotificationProtos.NotificationType;
 import com.mshernandez.coinaccount.grpc.NotificationServiceGrpc.NotificationServiceImplBase;
 import com.mshernandez.coinaccount.task.DepositConfirmedEvent;
+import com.mshernandez.coinaccount.task.WithdrawFailedEvent;
 import com.mshernandez.coinaccount.task.WithdrawRequestExpiredEvent;
+import com.mshernandez.coinaccount.task.WithdrawSentEvent;
 
 import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
@@ -60,6 +62,36 @@ public class NotificationController extends NotificationServiceImplBase
         pushNotification(notification);
     }
 
+    @ConsumeEvent(value = "withdraw-sent")
+    void handleSentWithdrawEvent(WithdrawSentEvent e)
+    {
+        AccountIdentifier accountIdentifier  = AccountIdentifier.newBuilder()
+            .setUuid(e.getAccountId().toString())
+            .build();
+        Notification notification = Notification.newBuilder()
+            .setNotificationType(NotificationType.WITHDRAW_SENT)
+            .setAccount(accountIdentifier)
+            .setAmount(e.getAmount())
+            .setTxid(e.getTxid())
+            .build();
+        pushNotification(notification);
+    }
+
+    @ConsumeEvent(value = "withdraw-failed")
+    void handleFailedWithdrawEvent(WithdrawFailedEvent e)
+    {
+        AccountIdentifier accountIdentifier  = AccountIdentifier.newBuilder()
+            .setUuid(e.getAccountId().toString())
+            .build();
+        Notification notification = Notification.newBuilder()
+            .setNotificationType(NotificationType.WITHDRAW_FAILED)
+            .setAccount(accountIdentifier)
+            .setAmount(e.getAmount())
+            .setTxid(e.getTxid())
+            .build();
+        pushNotification(notification);
+    }
+
     private void pushNotification(Notification notification)
     {
         Iterator<Entry<ServerCallStreamObserver<Notification>, Set<String>>> it = observers.entrySet().iterator();
@@ -0,0 +1,83 @@
+package com.mshernandez.coinaccount;
+
+import jakarta.inject.Inject;
+
+import com.mshernandez.coinaccount.grpc.CoinAccountProtos.ResponseType;
+import com.mshernandez.coinaccount.grpc.RefundProtos.RefundAccountsProgress;
+import com.mshernandez.coinaccount.grpc.RefundProtos.RefundAccountsRequest;
+import com.mshernandez.coinaccount.grpc.RefundServiceGrpc.RefundServiceImplBase;
+import com.mshernandez.coinaccount.service.exception.FeeEstimationException;
+import com.mshernandez.coinaccount.service.exception.RefundUnavailableException;
+import com.mshernandez.coinaccount.service.result.RefundProgress;
+import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletRequestException;
+import com.mshernandez.coinaccount.task.RefundTask;
+
+import org.jboss.logging.Logger;
+
+import io.grpc.stub.StreamObserver;
+import io.quarkus.grpc.GrpcService;
+import io.smallrye.common.annotation.Blocking;
+
+@GrpcService
+public class RefundController extends RefundServiceImplBase
+{
+    @Inject
+    Logger logger;
+
+    @Inject
+    RefundTask refundTask;
+
+    @Override
+    @Blocking
+    public void refundAccounts(RefundAccountsRequest request, StreamObserver<RefundAccountsProgress> responseObserver)
+    {
+        RefundAccountsProgress response;
+        try
+        {
+            RefundProgress progress = refundTask.refundAccounts(request.getMaxBatches(),
+                p -> responseObserver.onNext(toResponse(ResponseType.SUCCESS, p)));
+            response = toResponse(ResponseType.SUCCESS, progress);
+        }
+        catch (Exception e)
+        {
+            ResponseType responseType = ResponseType.ERROR_UNKNOWN;
+            if (e instanceof RefundUnavailableException)
+            {
+                responseType = ResponseType.ERROR_REFUND_UNAVAILABLE;
+            }
+            else if (e instanceof FeeEstimationException)
+            {
+                responseType = ResponseType.ERROR_CANNOT_ESTIMATE_FEES;
+            }
+            else if (e instanceof WalletRequestException)
+            {
+                responseType = ResponseType.ERROR_NO_WALLET_CONNECTION;
+            }
+            else
+            {
+                logger.warn("refundAccounts: Unexpected Exception: " + e.getMessage());
+                responseType = ResponseType.ERROR_INTERNAL;
+            }
+            response = toResponse(responseType, new RefundProgress());
+        }
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    private static RefundAccountsProgress toResponse(ResponseType responseType, RefundProgress progress)
+    {
+        double seconds = progress.getElapsedMillis() / 1000.0;
+        return RefundAccountsProgress.newBuilder()
+            .setResponseType(responseType)
+            .setBatches(progress.getBatches())
+            .setRefundedAccounts(progress.getRefundedAccounts())
+            .setRefundedAmount(progress.getRefundedAmount())
+            .setFeeAmount(progress.getFeeAmount())
+            .setSkippedAccounts(progress.getSkippedAccounts())
+            .setLastTxid(progress.getLastTxid() == null ? "" : progress.getLastTxid())
+            .setElapsedTime(progress.getElapsedMillis())
+            .setAccountsPerSecond(seconds > 0.0 ? progress.getRefundedAccounts() / seconds : 0.0)
+            .setDone(progress.isDone())
+            .build();
+    }
+}
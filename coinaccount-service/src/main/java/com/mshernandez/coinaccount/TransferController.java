@@ -3,6 +3,7 @@ package com.mshernandez.coinaccount;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 
 import jakarta.inject.Inject;
 
@@ -12,24 +13,38 @@ import com.mshernandez.coinaccount.grpc.TransferProtos.BatchTransferBalanceReque
 import com.mshernandez.coinaccount.grpc.TransferProtos.BatchTransferBalanceResponse;
 import com.mshernandez.coinaccount.grpc.TransferProtos.TransferBalanceRequest;
 import com.mshernandez.coinaccount.grpc.TransferProtos.TransferBalanceResponse;
+import com.mshernandez.coinaccount.grpc.TransferProtos.TransferStreamRequest;
+import com.mshernandez.coinaccount.grpc.TransferProtos.TransferStreamResponse;
 import com.mshernandez.coinaccount.grpc.TransferServiceGrpc.TransferServiceImplBase;
 import com.mshernandez.coinaccount.service.TransferService;
 import com.mshernandez.coinaccount.service.exception.InsufficientFundsException;
 import com.mshernandez.coinaccount.service.exception.UnaccountedFundsException;
 import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletRequestException;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import io.quarkus.grpc.GrpcService;
 import io.smallrye.common.annotation.Blocking;
+import io.vertx.core.Vertx;
 
 @GrpcService
 public class TransferController extends TransferServiceImplBase
 {
+    @ConfigProperty(name = "coinaccount.transfer.stream.window")
+    int streamWindow;
+
+    @ConfigProperty(name = "coinaccount.transfer.group.enabled")
+    boolean groupCommit;
+
     @Inject
     Logger logger;
 
+    @Inject
+    Vertx vertx;
+
     @Inject
     TransferService transferService;
 
@@ -37,44 +52,23 @@ public class TransferController extends TransferServiceImplBase
     @Blocking
     public void transferBalance(TransferBalanceRequest request, StreamObserver<TransferBalanceResponse> responseObserver)
     {
-        TransferBalanceResponse response;
-        try
-        {
-            UUID senderUUID = UUID.fromString(request.getSender().getUuid());
-            UUID receiverUUID = UUID.fromString(request.getReceiver().getUuid());
-            transferService.transferBalance(senderUUID, receiverUUID, request.getTransferAll(), request.getAmount());
-            response = TransferBalanceResponse.newBuilder()
-                .setResponseType(ResponseType.SUCCESS)
-                .build();
-        }
-        catch (Exception e)
-        {
-            ResponseType responseType = ResponseType.ERROR_UNKNOWN;
-            if (e instanceof IllegalArgumentException)
-            {
-                responseType = ResponseType.ERROR_INVALID_ACCOUNT_IDENTIFIER;
-            }
-            else if (e instanceof InsufficientFundsException)
-            {
-                responseType = ResponseType.ERROR_INSUFFICIENT_FUNDS;
-            }
-            else if (e instanceof WalletRequestException)
-            {
-                responseType = ResponseType.ERROR_NO_WALLET_CONNECTION;
-            }
-            else
-            {
-                logger.warn("transferBalance: Unexpected Exception: " + e.getMessage());
-                responseType = ResponseType.ERROR_INTERNAL;
-            }
-            response = TransferBalanceResponse.newBuilder()
-                .setResponseType(responseType)
-                .build();
-        }
+        TransferBalanceResponse response = TransferBalanceResponse.newBuilder()
+            .setResponseType(transfer(request, "transferBalance"))
+            .build();
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
 
+    @Override
+    public StreamObserver<TransferStreamRequest> transferStream(StreamObserver<TransferStreamResponse> responseObserver)
+    {
+        // Only Accept As Many Transfers As The Window Allows, Accept Another As Each Completes
+        ServerCallStreamObserver<TransferStreamResponse> serverObserver = (ServerCallStreamObserver<TransferStreamResponse>) responseObserver;
+        serverObserver.disableAutoRequest();
+        serverObserver.request(streamWindow);
+        return new TransferStreamObserver(serverObserver);
+    }
+
     @Override
     @Blocking
     public void batchTransferBalance(BatchTransferBalanceRequest request, StreamObserver<BatchTransferBalanceResponse> responseObserver)
@@ -120,4 +114,159 @@ public class TransferController extends TransferServiceImplBase
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
+
+    /**
+     * Makes a single transfer, waiting for it
+     * to be committed.
+     * 
+     * @param request The transfer request.
+     * @param methodName The name of the calling method, used for logging.
+     * @return The response type for the transfer.
+     */
+    private ResponseType transfer(TransferBalanceRequest request, String methodName)
+    {
+        try
+        {
+            UUID senderUUID = UUID.fromString(request.getSender().getUuid());
+            UUID receiverUUID = UUID.fromString(request.getReceiver().getUuid());
+            transferService.submitTransfer(senderUUID, receiverUUID, request.getTransferAll(), request.getAmount()).join();
+            return ResponseType.SUCCESS;
+        }
+        catch (Exception e)
+        {
+            return toResponseType(e, methodName);
+        }
+    }
+
+    /**
+     * Gets the response type for a failed transfer.
+     * 
+     * @param e The reason the transfer failed.
+     * @param methodName The name of the calling method, used for logging.
+     * @return The response type for the transfer.
+     */
+    private ResponseType toResponseType(Throwable e, String methodName)
+    {
+        if (e instanceof CompletionException && e.getCause() != null)
+        {
+            e = e.getCause();
+        }
+        if (e instanceof IllegalArgumentException)
+        {
+            return ResponseType.ERROR_INVALID_ACCOUNT_IDENTIFIER;
+        }
+        else if (e instanceof InsufficientFundsException)
+        {
+            return ResponseType.ERROR_INSUFFICIENT_FUNDS;
+        }
+        else if (e instanceof WalletRequestException)
+        {
+            return ResponseType.ERROR_NO_WALLET_CONNECTION;
+        }
+        logger.warn(methodName + ": Unexpected Exception: " + e.getMessage());
+        return ResponseType.ERROR_INTERNAL;
+    }
+
+    /**
+     * Receives the transfers of a single transfer stream,
+     * making them concurrently on worker threads, or queuing
+     * them for group commits if enabled, and answering each
+     * as it completes.
+     * <p>
+     * The stream is completed once the client stops sending
+     * and every accepted transfer has been answered.
+     */
+    private class TransferStreamObserver implements StreamObserver<TransferStreamRequest>
+    {
+        private final ServerCallStreamObserver<TransferStreamResponse> responseObserver;
+
+        private int inProgress;
+
+        private boolean halfClosed;
+
+        private boolean completed;
+
+        TransferStreamObserver(ServerCallStreamObserver<TransferStreamResponse> responseObserver)
+        {
+            this.responseObserver = responseObserver;
+            inProgress = 0;
+            halfClosed = false;
+            completed = false;
+        }
+
+        @Override
+        public void onNext(TransferStreamRequest request)
+        {
+            synchronized (this)
+            {
+                inProgress++;
+            }
+            long correlationId = request.getCorrelationId();
+            if (!groupCommit)
+            {
+                // Transfers Block On The Database, Unordered So They Run Concurrently
+                vertx.<ResponseType>executeBlocking(
+                    promise -> promise.complete(transfer(request.getTransfer(), "transferStream")),
+                    false,
+                    result -> respond(correlationId, result.succeeded() ? result.result() : ResponseType.ERROR_INTERNAL));
+                return;
+            }
+            // Queued Transfers Are Answered Once Their Group Commits, Nothing Blocks Here
+            try
+            {
+                TransferBalanceRequest transfer = request.getTransfer();
+                UUID senderUUID = UUID.fromString(transfer.getSender().getUuid());
+                UUID receiverUUID = UUID.fromString(transfer.getReceiver().getUuid());
+                transferService.submitTransfer(senderUUID, receiverUUID, transfer.getTransferAll(), transfer.getAmount())
+                    .whenComplete((v, e) -> respond(correlationId, e == null ? ResponseType.SUCCESS : toResponseType(e, "transferStream")));
+            }
+            catch (IllegalArgumentException e)
+            {
+                respond(correlationId, ResponseType.ERROR_INVALID_ACCOUNT_IDENTIFIER);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            // Client Canceled, Transfers In Progress Still Complete But Are Not Answered
+            synchronized (this)
+            {
+                completed = true;
+            }
+        }
+
+        @Override
+        public void onCompleted()
+        {
+            synchronized (this)
+            {
+                halfClosed = true;
+                completeIfDone();
+            }
+        }
+
+        private synchronized void respond(long correlationId, ResponseType responseType)
+        {
+            inProgress--;
+            if (!completed && !responseObserver.isCancelled())
+            {
+                responseObserver.onNext(TransferStreamResponse.newBuilder()
+                    .setCorrelationId(correlationId)
+                    .setResponseType(responseType)
+                    .build());
+                responseObserver.request(1);
+            }
+            completeIfDone();
+        }
+
+        private void completeIfDone()
+        {
+            if (halfClosed && inProgress == 0 && !completed)
+            {
+                completed = true;
+                responseObserver.onCompleted();
+            }
+        }
+    }
 }
\ No newline at end of file
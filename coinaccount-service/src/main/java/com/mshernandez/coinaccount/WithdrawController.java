@@ -1,5 +1,8 @@
 package com.mshernandez.coinaccount;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import jakarta.inject.Inject;
@@ -13,6 +16,10 @@ import com.mshernandez.coinaccount.grpc.WithdrawProtos.CompleteWithdrawRequest;
 import com.mshernandez.coinaccount.grpc.WithdrawProtos.CompleteWithdrawResponse;
 import com.mshernandez.coinaccount.grpc.WithdrawProtos.InitiateWithdrawRequest;
 import com.mshernandez.coinaccount.grpc.WithdrawProtos.InitiateWithdrawResponse;
+import com.mshernandez.coinaccount.grpc.WithdrawProtos.PendingWithdraw;
+import com.mshernandez.coinaccount.grpc.WithdrawProtos.QuoteWithdrawRequest;
+import com.mshernandez.coinaccount.grpc.WithdrawProtos.QuoteWithdrawResponse;
+import com.mshernandez.coinaccount.grpc.WithdrawProtos.WithdrawRecipient;
 import com.mshernandez.coinaccount.grpc.WithdrawServiceGrpc.WithdrawServiceImplBase;
 import com.mshernandez.coinaccount.service.WithdrawService;
 import com.mshernandez.coinaccount.service.exception.CannotAffordFeesException;
@@ -20,6 +27,7 @@ import com.mshernandez.coinaccount.service.exception.FeeEstimationException;
 import com.mshernandez.coinaccount.service.exception.InsufficientFundsException;
 import com.mshernandez.coinaccount.service.exception.InvalidAddressException;
 import com.mshernandez.coinaccount.service.exception.NotEnoughWithdrawableFundsException;
+import com.mshernandez.coinaccount.service.exception.TooManyRecipientsException;
 import com.mshernandez.coinaccount.service.exception.WithdrawRequestAlreadyExistsException;
 import com.mshernandez.coinaccount.service.exception.WithdrawRequestNotFoundException;
 import com.mshernandez.coinaccount.service.result.WithdrawRequestResult;
@@ -48,12 +56,27 @@ public class WithdrawController extends WithdrawServiceImplBase
         try
         {
             UUID initiatorUUID = UUID.fromString(request.getAccount().getUuid());
-            WithdrawRequestResult result = withdrawService.initiateWithdrawRequest(initiatorUUID, request.getDestAddress(), request.getWithdrawAll(), request.getAmount());
+            WithdrawRequestResult result;
+            if (request.getRecipientsCount() == 0)
+            {
+                result = withdrawService.initiateWithdrawRequest(initiatorUUID, request.getDestAddress(), request.getWithdrawAll(), request.getAmount());
+            }
+            else
+            {
+                // Combine Amounts Sent To The Same Address
+                Map<String, Long> recipients = new HashMap<>();
+                for (WithdrawRecipient recipient : request.getRecipientsList())
+                {
+                    recipients.merge(recipient.getDestAddress(), recipient.getAmount(), Long::sum);
+                }
+                result = withdrawService.initiateWithdrawRequest(initiatorUUID, recipients);
+            }
             response = InitiateWithdrawResponse.newBuilder()
                 .setResponseType(ResponseType.SUCCESS)
                 .setWithdrawAmount(result.getWithdrawAmount())
                 .setFeeAmount(result.getFeeAmount())
                 .setTotalCost(result.getTotalCost())
+                .setRequestId(result.getTxid())
                 .build();
         }
         catch (Exception e)
@@ -91,6 +114,10 @@ public class WithdrawController extends WithdrawServiceImplBase
             {
                 responseType = ResponseType.ERROR_WITHDRAW_REQUEST_ALREADY_EXISTS;
             }
+            else if (e instanceof TooManyRecipientsException)
+            {
+                responseType = ResponseType.ERROR_TOO_MANY_RECIPIENTS;
+            }
             else
             {
                 logger.warn("initiateWithdraw: Unexpected Exception: " + e.getMessage());
@@ -107,6 +134,65 @@ public class WithdrawController extends WithdrawServiceImplBase
         responseObserver.onCompleted();
     }
 
+    @Override
+    @Blocking
+    public void quoteWithdraw(QuoteWithdrawRequest request, StreamObserver<QuoteWithdrawResponse> responseObserver)
+    {
+        QuoteWithdrawResponse response;
+        try
+        {
+            UUID initiatorUUID = UUID.fromString(request.getAccount().getUuid());
+            WithdrawRequestResult result = withdrawService.quoteWithdraw(initiatorUUID, request.getDestAddress(), request.getWithdrawAll(), request.getAmount());
+            response = QuoteWithdrawResponse.newBuilder()
+                .setResponseType(ResponseType.SUCCESS)
+                .setWithdrawAmount(result.getWithdrawAmount())
+                .setFeeAmount(result.getFeeAmount())
+                .setTotalCost(result.getTotalCost())
+                .build();
+        }
+        catch (Exception e)
+        {
+            ResponseType responseType = ResponseType.ERROR_UNKNOWN;
+            if (e instanceof IllegalArgumentException)
+            {
+                responseType = ResponseType.ERROR_INVALID_ACCOUNT_IDENTIFIER;
+            }
+            else if (e instanceof WalletRequestException)
+            {
+                responseType = ResponseType.ERROR_NO_WALLET_CONNECTION;
+            }
+            else if (e instanceof InvalidAddressException)
+            {
+                responseType = ResponseType.ERROR_INVALID_ADDRESS;
+            }
+            else if (e instanceof NotEnoughWithdrawableFundsException)
+            {
+                responseType = ResponseType.ERROR_NOT_ENOUGH_WITHDRAWABLE_FUNDS;
+            }
+            else if (e instanceof CannotAffordFeesException)
+            {
+                responseType = ResponseType.ERROR_CANNOT_AFFORD_FEES;
+            }
+            else if (e instanceof FeeEstimationException)
+            {
+                responseType = ResponseType.ERROR_CANNOT_ESTIMATE_FEES;
+            }
+            else
+            {
+                logger.warn("quoteWithdraw: Unexpected Exception: " + e.getMessage());
+                responseType = ResponseType.ERROR_INTERNAL;
+            }
+            response = QuoteWithdrawResponse.newBuilder()
+                .setResponseType(responseType)
+                .setWithdrawAmount(0L)
+                .setFeeAmount(0L)
+                .setTotalCost(0L)
+                .build();
+        }
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
     @Override
     @Blocking
     public void cancelWithdraw(CancelWithdrawRequest request, StreamObserver<CancelWithdrawResponse> responseObserver)
@@ -115,7 +201,14 @@ public class WithdrawController extends WithdrawServiceImplBase
         try
         {
             UUID initiatorUUID = UUID.fromString(request.getAccount().getUuid());
-            withdrawService.cancelWithdraw(initiatorUUID);
+            if (request.getRequestId().isEmpty())
+            {
+                withdrawService.cancelWithdraw(initiatorUUID);
+            }
+            else
+            {
+                withdrawService.cancelWithdraw(initiatorUUID, request.getRequestId());
+            }
             response = CancelWithdrawResponse.newBuilder()
                 .setResponseType(ResponseType.SUCCESS)
                 .build();
@@ -152,9 +245,13 @@ public class WithdrawController extends WithdrawServiceImplBase
         try
         {
             UUID initiatorUUID = UUID.fromString(request.getAccount().getUuid());
+            String txid = request.getRequestId().isEmpty()
+                ? withdrawService.completeWithdraw(initiatorUUID)
+                : withdrawService.completeWithdraw(initiatorUUID, request.getRequestId());
             response = CompleteWithdrawResponse.newBuilder()
                 .setResponseType(ResponseType.SUCCESS)
-                .setTxid(withdrawService.completeWithdraw(initiatorUUID))
+                .setTxid(txid == null ? "" : txid)
+                .setBatched(txid == null)
                 .build();
         }
         catch (Exception e)
@@ -172,6 +269,10 @@ public class WithdrawController extends WithdrawServiceImplBase
             {
                 responseType = ResponseType.ERROR_WITHDRAW_REQUEST_NOT_FOUND;
             }
+            else if (e instanceof InsufficientFundsException)
+            {
+                responseType = ResponseType.ERROR_INSUFFICIENT_FUNDS;
+            }
             else
             {
                 logger.warn("completeWithdraw: Unexpected Exception: " + e.getMessage());
@@ -194,14 +295,28 @@ public class WithdrawController extends WithdrawServiceImplBase
         try
         {
             UUID initiatorUUID = UUID.fromString(accountId.getUuid());
-            WithdrawRequestResult result = withdrawService.getWithdrawRequest(initiatorUUID);
-            response = CheckForPendingWithdrawResponse.newBuilder()
+            List<WithdrawRequestResult> results = withdrawService.getWithdrawRequests(initiatorUUID);
+            CheckForPendingWithdrawResponse.Builder builder = CheckForPendingWithdrawResponse.newBuilder()
                 .setResponseType(ResponseType.SUCCESS)
-                .setWithdrawRequestExists(true)
-                .setWithdrawAmount(result.getWithdrawAmount())
-                .setFeeAmount(result.getFeeAmount())
-                .setTotalCost(result.getTotalCost())
-                .build();
+                .setWithdrawRequestExists(!results.isEmpty());
+            if (!results.isEmpty())
+            {
+                // Oldest Request Fills Single Request Fields
+                WithdrawRequestResult oldest = results.get(0);
+                builder.setWithdrawAmount(oldest.getWithdrawAmount())
+                    .setFeeAmount(oldest.getFeeAmount())
+                    .setTotalCost(oldest.getTotalCost())
+                    .setRequestId(oldest.getTxid());
+            }
+            for (WithdrawRequestResult result : results)
+            {
+                builder.addPendingWithdraws(PendingWithdraw.newBuilder()
+                    .setRequestId(result.getTxid())
+                    .setWithdrawAmount(result.getWithdrawAmount())
+                    .setFeeAmount(result.getFeeAmount())
+                    .setTotalCost(result.getTotalCost()));
+            }
+            response = builder.build();
         }
         catch (Exception e)
         {
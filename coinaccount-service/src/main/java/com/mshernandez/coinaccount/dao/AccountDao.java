@@ -1,6 +1,7 @@
 package com.mshernandez.coinaccount.dao;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import com.mshernandez.coinaccount.entity.Account;
@@ -15,6 +16,53 @@ public interface AccountDao
      */
     Account find(UUID id);
 
+    /**
+     * Gets an account, locking it until the current
+     * transaction completes so that concurrent balance
+     * changes wait instead of conflicting.
+     * 
+     * @param id The account UUID.
+     * @return An account reference or null if no account was found.
+     */
+    Account findForUpdate(UUID id);
+
+    /**
+     * Gets the accounts with the given UUIDs, locking them
+     * until the current transaction completes.
+     * <p>
+     * Accounts are loaded in a single query and locked in
+     * UUID order, so that transactions locking overlapping
+     * accounts take turns instead of deadlocking.
+     * 
+     * @param ids The account UUIDs.
+     * @return The accounts found, ordered by UUID.
+     */
+    List<Account> findAllForUpdate(Collection<UUID> ids);
+
+    /**
+     * Gets the current balance of an account from the
+     * database, including changes made by <code>changeBalance</code>.
+     * 
+     * @param id The account UUID.
+     * @return The account balance, or null if no account was found.
+     */
+    Long findBalance(UUID id);
+
+    /**
+     * Changes an account balance with a single conditional
+     * update, unless the balance would fall below the given
+     * minimum, without loading the account.
+     * <p>
+     * Accounts already loaded in the current
+     * transaction do not reflect the change.
+     * 
+     * @param id The account UUID.
+     * @param delta The change to be applied.
+     * @param minBalance The lowest balance the account may be left with.
+     * @return True if the balance was changed, false if no account was found or the balance would fall below the minimum.
+     */
+    boolean changeBalance(UUID id, long delta, long minBalance);
+
     /**
      * Gets an account or creates a new one
      * if one does not already exist.
@@ -31,6 +79,20 @@ public interface AccountDao
      */
     Collection<Account> findAll();
 
+    /**
+     * Finds accounts with a positive balance and a return
+     * address, ordered by UUID and starting after the given
+     * UUID, without locking them.
+     * <p>
+     * Pages through every refundable account without
+     * loading them all at once.
+     * 
+     * @param after The UUID to start after.
+     * @param limit The max number of accounts to return.
+     * @return The refundable accounts, ordered by UUID.
+     */
+    List<Account> findRefundable(UUID after, int limit);
+
     /**
      * Merges any changes made to the account.
      * 
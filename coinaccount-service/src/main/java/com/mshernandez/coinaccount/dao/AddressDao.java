@@ -23,8 +23,21 @@ public interface AddressDao
      */
     Collection<Address> findAll();
 
+    /**
+     * Finds an address matching the specified criteria.
+     * 
+     * @param account The owning account.
+     * @param type The type of address to find.
+     * @param requireUnused Whether the address must be unused.
+     * @return An address matching the criteria or null if none was found.
+     */
+    Address find(Account account, DepositType type, boolean requireUnused);
+
     /**
      * Finds or creates an address matching the specified criteria.
+     * <p>
+     * Creating an address contacts the wallet, avoid
+     * within transactions holding locks others may need.
      * 
      * @param account The owning account.
      * @param type The type of address to find.
@@ -33,6 +46,26 @@ public interface AddressDao
      */
     Address findOrCreate(Account account, DepositType type, boolean requireUnused);
 
+    /**
+     * Creates a new wallet address for the account.
+     * 
+     * @param account The owning account.
+     * @param type The type of address to create.
+     * @return The newly created address.
+     */
+    Address create(Account account, DepositType type);
+
+    /**
+     * Records an address already created by the
+     * wallet for the account.
+     * 
+     * @param account The owning account.
+     * @param type The address type.
+     * @param address The address string returned by the wallet.
+     * @return The newly recorded address.
+     */
+    Address create(Account account, DepositType type, String address);
+
     /**
      * Merges any changes made to the address information.
      * 
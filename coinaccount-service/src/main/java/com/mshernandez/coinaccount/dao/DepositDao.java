@@ -1,5 +1,6 @@
 package com.mshernandez.coinaccount.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import com.mshernandez.coinaccount.entity.Deposit;
@@ -15,6 +16,13 @@ public interface DepositDao
      */
     Deposit find(String txid, int vout);
 
+    /**
+     * Finds all deposits, including locked deposits.
+     * 
+     * @return A list of all deposits.
+     */
+    List<Deposit> findAll();
+
     /**
      * Finds all deposits available for use
      * as transaction inputs, sorted by value.
@@ -23,6 +31,24 @@ public interface DepositDao
      */
     List<Deposit> findAllWithdrawable();
 
+    /**
+     * Finds the given deposits if unlocked, locking their
+     * database rows until the current transaction ends.
+     * <p>
+     * Deposits whose rows are already locked by another
+     * transaction are skipped instead of waited on, so
+     * concurrent withdrawals never claim the same deposit.
+     * <p>
+     * Deposits are claimed together in as few queries as
+     * possible. If fewer deposits are claimed than needed,
+     * the transaction should end before selecting others
+     * so the claimed rows are not held while waiting.
+     * 
+     * @param deposits The deposits to claim, possibly detached copies.
+     * @return The claimed deposits, excluding any that were missing, locked, or claimed by another transaction.
+     */
+    List<Deposit> claim(Collection<Deposit> deposits);
+
     /**
      * Persist a newly created deposit.
      * 
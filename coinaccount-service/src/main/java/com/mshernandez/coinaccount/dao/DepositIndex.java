@@ -0,0 +1,482 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.DepositKey;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * An in-memory index of deposits available for use as
+ * transaction inputs, so that coin selection does not
+ * need to load every deposit from the database.
+ * <p>
+ * Deposits are kept in ordered sets per deposit type,
+ * sorted by amount. Deposits of the same type have the
+ * same input cost, so this is also their effective value
+ * order at any fee rate.
+ * <p>
+ * The index holds detached copies of deposits and is only
+ * updated once the transaction making a change commits.
+ * Changes are recorded by <code>JPADepositDao</code>, which
+ * should be used for every deposit change. This assumes only
+ * one service instance uses the database.
+ * <p>
+ * Deposits may be reserved for the rest of a transaction
+ * to keep concurrent withdrawals from selecting the same
+ * inputs before their withdraw locks are committed, or
+ * held until released by withdraw requests kept in memory.
+ * <p>
+ * Locked deposits are also tracked so that running pool
+ * aggregates can be maintained without querying the
+ * database.
+ */
+@ApplicationScoped
+public class DepositIndex
+{
+    // Same Type Deposits Ordered By Amount, Ties Broken By Key
+    private static final Comparator<Deposit> AMOUNT_ORDER = Comparator
+        .comparingLong(Deposit::getAmount)
+        .thenComparing(Deposit::getTXID)
+        .thenComparingInt(Deposit::getVout);
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @Inject
+    DepositDao depositDao;
+
+    // Unlocked Deposits By Type
+    private final Map<DepositType, ConcurrentSkipListSet<Deposit>> unlocked;
+
+    // Indexed Deposit Copies By Key
+    private final Map<DepositKey, Deposit> entries;
+
+    // Locked Deposit Copies By Key
+    private final Map<DepositKey, Deposit> locked;
+
+    // Running Pool Totals, Replaced On Every Change
+    private volatile PoolAggregates aggregates;
+
+    // Deposits Reserved By Uncommitted Transactions
+    private final Set<DepositKey> reserved;
+
+    // Deposits Held By In-Memory Withdraw Requests
+    private final Set<DepositKey> held;
+
+    /**
+     * Create an empty deposit index.
+     */
+    public DepositIndex()
+    {
+        unlocked = new EnumMap<>(DepositType.class);
+        for (DepositType type : DepositType.values())
+        {
+            unlocked.put(type, new ConcurrentSkipListSet<>(AMOUNT_ORDER));
+        }
+        entries = new ConcurrentHashMap<>();
+        locked = new ConcurrentHashMap<>();
+        reserved = ConcurrentHashMap.newKeySet();
+        held = ConcurrentHashMap.newKeySet();
+        aggregates = PoolAggregates.EMPTY;
+    }
+
+    /**
+     * Load the index on startup.
+     *
+     * @param event The startup event.
+     */
+    void onStart(@Observes StartupEvent event)
+    {
+        rebuild();
+    }
+
+    /**
+     * Replace the contents of the index with all
+     * deposits currently in the database.
+     */
+    public synchronized void rebuild()
+    {
+        for (ConcurrentSkipListSet<Deposit> deposits : unlocked.values())
+        {
+            deposits.clear();
+        }
+        entries.clear();
+        locked.clear();
+        aggregates = PoolAggregates.EMPTY;
+        for (Deposit deposit : depositDao.findAll())
+        {
+            put(copyOf(deposit), deposit.hasWithdrawLock());
+        }
+    }
+
+    /**
+     * Get the current pool aggregates, including
+     * deposits reserved by uncommitted transactions.
+     *
+     * @return The current pool aggregates.
+     */
+    public PoolAggregates getAggregates()
+    {
+        return aggregates;
+    }
+
+    /**
+     * Get a snapshot of all indexed deposits that are not
+     * reserved or held, sorted by amount within each deposit type.
+     * <p>
+     * The returned deposits are detached copies which should
+     * be used to find the actual deposit entities once chosen.
+     *
+     * @return A snapshot of available deposits.
+     */
+    public Set<Deposit> snapshot()
+    {
+        Set<Deposit> snapshot = new LinkedHashSet<>(entries.size());
+        for (ConcurrentSkipListSet<Deposit> deposits : unlocked.values())
+        {
+            for (Deposit deposit : deposits)
+            {
+                if (isAvailable(key(deposit)))
+                {
+                    snapshot.add(deposit);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Get the indexed deposits that are not reserved or held
+     * with amounts nearest the given target, walking each deposit
+     * type's ordered set outward from the target instead of
+     * copying every available deposit.
+     * <p>
+     * For each deposit type, takes up to <code>limit</code>
+     * deposits at or below the target, largest first, and up to
+     * <code>limit</code> deposits above the target, smallest first.
+     * <p>
+     * The returned deposits are detached copies which should
+     * be used to find the actual deposit entities once chosen.
+     *
+     * @param target The amount to look around, in sats.
+     * @param limit The max number of deposits to take on each side of the target, per deposit type.
+     * @return Available deposits near the target.
+     */
+    public Set<Deposit> nearest(long target, int limit)
+    {
+        Set<Deposit> nearest = new LinkedHashSet<>();
+        for (Map.Entry<DepositType, ConcurrentSkipListSet<Deposit>> entry : unlocked.entrySet())
+        {
+            // Sorts After Every Deposit At Or Below The Target
+            Deposit bound = new Deposit("", 0, entry.getKey(), target == Long.MAX_VALUE ? target : target + 1L);
+            takeAvailable(entry.getValue().headSet(bound, false).descendingIterator(), limit, nearest);
+            takeAvailable(entry.getValue().tailSet(bound, true).iterator(), limit, nearest);
+        }
+        return nearest;
+    }
+
+    /**
+     * Get the smallest indexed deposits that are not reserved
+     * or held, across all deposit types, smallest first.
+     *
+     * @param limit The maximum number of deposits to return.
+     * @return Up to <code>limit</code> of the smallest available deposits.
+     */
+    public List<Deposit> smallest(int limit)
+    {
+        // Smallest Overall Are Among The Smallest Of Each Type
+        List<Deposit> smallest = new ArrayList<>();
+        for (ConcurrentSkipListSet<Deposit> deposits : unlocked.values())
+        {
+            takeAvailable(deposits.iterator(), limit, smallest);
+        }
+        smallest.sort(AMOUNT_ORDER);
+        return smallest.size() > limit ? new ArrayList<>(smallest.subList(0, limit)) : smallest;
+    }
+
+    /**
+     * Reserve the given deposits until the current transaction
+     * completes, whether it is committed or rolled back.
+     * <p>
+     * Either every deposit is reserved or none are.
+     *
+     * @param deposits The deposits to reserve.
+     * @return True if reserved, false if any deposit is no longer available.
+     * @throws IllegalStateException If there is no active transaction.
+     */
+    public synchronized boolean reserve(Collection<Deposit> deposits)
+    {
+        if (transactionRegistry.getTransactionKey() == null)
+        {
+            throw new IllegalStateException("Deposits can only be reserved within a transaction!");
+        }
+        for (Deposit deposit : deposits)
+        {
+            DepositKey key = key(deposit);
+            if (!entries.containsKey(key) || !isAvailable(key))
+            {
+                return false;
+            }
+        }
+        Set<DepositKey> keys = new LinkedHashSet<>();
+        for (Deposit deposit : deposits)
+        {
+            keys.add(key(deposit));
+        }
+        reserved.addAll(keys);
+        transactionRegistry.registerInterposedSynchronization(new Synchronization()
+        {
+            @Override
+            public void beforeCompletion()
+            {
+                // Nothing To Do
+            }
+
+            @Override
+            public void afterCompletion(int status)
+            {
+                reserved.removeAll(keys);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Reserve every unlocked deposit until the current
+     * transaction completes, but only if the pool still
+     * matches the given aggregates and no deposit is
+     * already reserved or held.
+     * <p>
+     * This allows a transaction spending the whole pool to
+     * be sized from aggregates before reserving the deposits.
+     *
+     * @param expected Aggregates previously returned by <code>getAggregates()</code>.
+     * @return The reserved deposits, or null if the pool has changed or is partially reserved.
+     * @throws IllegalStateException If there is no active transaction.
+     */
+    public synchronized Set<Deposit> reserveAll(PoolAggregates expected)
+    {
+        if (aggregates != expected || !reserved.isEmpty() || !held.isEmpty())
+        {
+            return null;
+        }
+        Set<Deposit> pool = snapshot();
+        return reserve(pool) ? pool : null;
+    }
+
+    /**
+     * Hold the given deposits until released, keeping them
+     * from being selected without locking them in the database.
+     * <p>
+     * Deposits reserved by the current transaction may be held,
+     * either every deposit is held or none are.
+     *
+     * @param deposits The deposits to hold.
+     * @return True if held, false if any deposit is no longer available or already held.
+     */
+    public synchronized boolean hold(Collection<Deposit> deposits)
+    {
+        Set<DepositKey> keys = new LinkedHashSet<>();
+        for (Deposit deposit : deposits)
+        {
+            DepositKey key = key(deposit);
+            if (!entries.containsKey(key) || held.contains(key))
+            {
+                return false;
+            }
+            keys.add(key);
+        }
+        held.addAll(keys);
+        return true;
+    }
+
+    /**
+     * Release held deposits once the current transaction
+     * completes, whether it is committed or rolled back,
+     * or immediately if there is no transaction.
+     * <p>
+     * Deposits locked by the transaction remain unavailable
+     * once released since they are no longer unlocked.
+     *
+     * @param deposits The deposits to release.
+     */
+    public void release(Collection<Deposit> deposits)
+    {
+        Set<DepositKey> keys = new LinkedHashSet<>();
+        for (Deposit deposit : deposits)
+        {
+            keys.add(key(deposit));
+        }
+        if (transactionRegistry.getTransactionKey() == null)
+        {
+            held.removeAll(keys);
+            return;
+        }
+        transactionRegistry.registerInterposedSynchronization(new Synchronization()
+        {
+            @Override
+            public void beforeCompletion()
+            {
+                // Nothing To Do
+            }
+
+            @Override
+            public void afterCompletion(int status)
+            {
+                held.removeAll(keys);
+            }
+        });
+    }
+
+    /**
+     * Record that the deposit was created or changed,
+     * applied once the current transaction commits.
+     *
+     * @param deposit The deposit.
+     */
+    void recordUpdate(Deposit deposit)
+    {
+        Deposit copy = copyOf(deposit);
+        boolean isLocked = deposit.hasWithdrawLock();
+        afterCommit(() -> put(copy, isLocked));
+    }
+
+    /**
+     * Record that the deposit was removed,
+     * applied once the current transaction commits.
+     *
+     * @param deposit The deposit.
+     */
+    void recordRemoval(Deposit deposit)
+    {
+        DepositKey key = key(deposit);
+        afterCommit(() -> remove(key));
+    }
+
+    /**
+     * Run the given action once the current transaction
+     * commits, or immediately if there is no transaction.
+     * <p>
+     * Actions recorded by the same transaction run in the
+     * order they were recorded, since synchronizations may
+     * complete in any order, so a deposit changed more than
+     * once by a transaction is left in its final state.
+     *
+     * @param action The action to run.
+     */
+    private void afterCommit(Runnable action)
+    {
+        if (transactionRegistry.getTransactionKey() == null)
+        {
+            action.run();
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Runnable> actions = (List<Runnable>) transactionRegistry.getResource(this);
+        if (actions != null)
+        {
+            actions.add(action);
+            return;
+        }
+        List<Runnable> recorded = new ArrayList<>();
+        recorded.add(action);
+        transactionRegistry.putResource(this, recorded);
+        transactionRegistry.registerInterposedSynchronization(new Synchronization()
+        {
+            @Override
+            public void beforeCompletion()
+            {
+                // Nothing To Do
+            }
+
+            @Override
+            public void afterCompletion(int status)
+            {
+                if (status == Status.STATUS_COMMITTED)
+                {
+                    recorded.forEach(Runnable::run);
+                }
+            }
+        });
+    }
+
+    private synchronized void put(Deposit copy, boolean isLocked)
+    {
+        DepositKey key = key(copy);
+        remove(key);
+        if (isLocked)
+        {
+            locked.put(key, copy);
+            aggregates = aggregates.change(copy.getType(), copy.getAmount(), 0L, 0);
+        }
+        else
+        {
+            entries.put(key, copy);
+            unlocked.get(copy.getType()).add(copy);
+            aggregates = aggregates.change(copy.getType(), copy.getAmount(), copy.getAmount(), 1);
+        }
+    }
+
+    private synchronized void remove(DepositKey key)
+    {
+        Deposit previous = entries.remove(key);
+        if (previous != null)
+        {
+            unlocked.get(previous.getType()).remove(previous);
+            aggregates = aggregates.change(previous.getType(), -previous.getAmount(), -previous.getAmount(), -1);
+        }
+        previous = locked.remove(key);
+        if (previous != null)
+        {
+            aggregates = aggregates.change(previous.getType(), -previous.getAmount(), 0L, 0);
+        }
+    }
+
+    private void takeAvailable(Iterator<Deposit> deposits, int limit, Collection<Deposit> taken)
+    {
+        for (int count = 0; count < limit && deposits.hasNext();)
+        {
+            Deposit deposit = deposits.next();
+            if (isAvailable(key(deposit)))
+            {
+                taken.add(deposit);
+                count++;
+            }
+        }
+    }
+
+    private boolean isAvailable(DepositKey key)
+    {
+        return !reserved.contains(key) && !held.contains(key);
+    }
+
+    private static Deposit copyOf(Deposit deposit)
+    {
+        return new Deposit(deposit.getTXID(), deposit.getVout(), deposit.getType(), deposit.getAmount(), deposit.getUnconfirmedDepth());
+    }
+
+    private static DepositKey key(Deposit deposit)
+    {
+        return new DepositKey(deposit.getTXID(), deposit.getVout());
+    }
+}
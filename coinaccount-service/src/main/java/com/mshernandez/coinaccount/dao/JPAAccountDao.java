@@ -1,11 +1,13 @@
 package com.mshernandez.coinaccount.dao;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
 
 import com.mshernandez.coinaccount.entity.Account;
@@ -28,6 +30,45 @@ public class JPAAccountDao implements AccountDao
         return entityManager.find(Account.class, accountUUID);
     }
 
+    @Override
+    public Account findForUpdate(UUID accountUUID)
+    {
+        return entityManager.find(Account.class, accountUUID, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    @Override
+    public List<Account> findAllForUpdate(Collection<UUID> accountUUIDs)
+    {
+        String jpql = "SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id";
+        return entityManager.createQuery(jpql, Account.class)
+            .setParameter("ids", accountUUIDs)
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .getResultList();
+    }
+
+    @Override
+    public Long findBalance(UUID accountUUID)
+    {
+        String jpql = "SELECT a.balance FROM Account a WHERE a.id = :id";
+        List<Long> result = entityManager.createQuery(jpql, Long.class)
+            .setParameter("id", accountUUID)
+            .getResultList();
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    @Override
+    public boolean changeBalance(UUID accountUUID, long delta, long minBalance)
+    {
+        // Bump Version So Concurrent Writers Holding The Loaded Account Still Conflict
+        String jpql = "UPDATE Account a SET a.balance = a.balance + :delta, a.version = a.version + 1 "
+            + "WHERE a.id = :id AND a.balance + :delta >= :minBalance";
+        return entityManager.createQuery(jpql)
+            .setParameter("delta", delta)
+            .setParameter("id", accountUUID)
+            .setParameter("minBalance", minBalance)
+            .executeUpdate() == 1;
+    }
+
     @Override
     public Account findOrCreate(UUID accountUUID)
     {
@@ -48,6 +89,16 @@ public class JPAAccountDao implements AccountDao
             .getResultList();
     }
 
+    @Override
+    public List<Account> findRefundable(UUID after, int limit)
+    {
+        String jpql = "SELECT a FROM Account a WHERE a.balance > 0 AND a.returnAddress IS NOT NULL AND a.id > :after ORDER BY a.id";
+        return entityManager.createQuery(jpql, Account.class)
+            .setParameter("after", after)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
     @Override
     public Account update(Account account)
     {
@@ -45,7 +45,7 @@ public class JPAAddressDao implements AddressDao
     }
 
     @Override
-    public Address findOrCreate(Account account, DepositType type, boolean requireUnused)
+    public Address find(Account account, DepositType type, boolean requireUnused)
     {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Address> query = cb.createQuery(Address.class);
@@ -56,11 +56,26 @@ public class JPAAddressDao implements AddressDao
         predicates[2] = cb.isFalse(address.get("used"));
         query.select(address).where(requireUnused ? predicates : Arrays.copyOf(predicates, 2));
         List<Address> results = entityManager.createQuery(query).getResultList();
-        if (!results.isEmpty())
-        {
-            return results.get(0);
-        }
-        Address created = new Address(walletService.getNewAddress(account.getAccountUUID().toString(), type), type, account);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    @Override
+    public Address findOrCreate(Account account, DepositType type, boolean requireUnused)
+    {
+        Address found = find(account, type, requireUnused);
+        return found != null ? found : create(account, type);
+    }
+
+    @Override
+    public Address create(Account account, DepositType type)
+    {
+        return create(account, type, walletService.getNewAddress(account.getAccountUUID().toString(), type));
+    }
+
+    @Override
+    public Address create(Account account, DepositType type, String address)
+    {
+        Address created = new Address(address, type, account);
         entityManager.persist(created);
         account.addNewAddress(created);
         accountDao.update(account);
@@ -1,22 +1,37 @@
 package com.mshernandez.coinaccount.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
 import jakarta.transaction.Transactional;
 
 import com.mshernandez.coinaccount.entity.Deposit;
 import com.mshernandez.coinaccount.entity.DepositKey;
 
+import org.hibernate.LockOptions;
+
 @ApplicationScoped
 @Transactional
 public class JPADepositDao implements DepositDao
 {
+    // Standard Lock Timeout Hint, Hibernate Maps SKIP_LOCKED To SKIP LOCKED
+    private static final String LOCK_TIMEOUT_HINT = "jakarta.persistence.lock.timeout";
+
+    // Max Deposits Claimed Per Query, Keeps Statements Within Parameter Limits
+    private static final int MAX_CLAIM_KEYS = 500;
+
     @Inject
     EntityManager entityManager;
 
+    @Inject
+    DepositIndex depositIndex;
+
     @Override
     public Deposit find(String txid, int vout)
     {
@@ -24,6 +39,13 @@ public class JPADepositDao implements DepositDao
         return entityManager.find(Deposit.class, key);
     }
 
+    @Override
+    public List<Deposit> findAll()
+    {
+        String jpql = "SELECT d FROM Deposit d";
+        return entityManager.createQuery(jpql, Deposit.class).getResultList();
+    }
+
     @Override
     public List<Deposit> findAllWithdrawable()
     {
@@ -31,16 +53,49 @@ public class JPADepositDao implements DepositDao
         return entityManager.createQuery(jpql, Deposit.class).getResultList();
     }
 
+    @Override
+    public List<Deposit> claim(Collection<Deposit> deposits)
+    {
+        List<Deposit> claimed = new ArrayList<>(deposits.size());
+        List<Deposit> keys = new ArrayList<>(deposits);
+        for (int start = 0; start < keys.size(); start += MAX_CLAIM_KEYS)
+        {
+            List<Deposit> chunk = keys.subList(start, Math.min(start + MAX_CLAIM_KEYS, keys.size()));
+            // One SELECT ... WHERE (TXID, VOUT) IN (...) FOR UPDATE SKIP LOCKED Per Chunk
+            StringBuilder jpql = new StringBuilder("SELECT d FROM Deposit d WHERE d.withdrawLock IS NULL AND (d.TXID, d.vout) IN (");
+            for (int i = 0; i < chunk.size(); i++)
+            {
+                jpql.append(i == 0 ? "" : ", ").append("(:txid").append(i).append(", :vout").append(i).append(')');
+            }
+            jpql.append(')');
+            TypedQuery<Deposit> query = entityManager.createQuery(jpql.toString(), Deposit.class);
+            for (int i = 0; i < chunk.size(); i++)
+            {
+                query.setParameter("txid" + i, chunk.get(i).getTXID());
+                query.setParameter("vout" + i, chunk.get(i).getVout());
+            }
+            // Rows Claimed Elsewhere Are Left Out
+            claimed.addAll(query
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(LOCK_TIMEOUT_HINT, LockOptions.SKIP_LOCKED)
+                .getResultList());
+        }
+        return claimed;
+    }
+
     @Override
     public void persist(Deposit deposit)
     {
         entityManager.persist(deposit);
+        depositIndex.recordUpdate(deposit);
     }
 
     @Override
     public Deposit update(Deposit deposit)
     {
-        return entityManager.merge(deposit);
+        Deposit merged = entityManager.merge(deposit);
+        depositIndex.recordUpdate(merged);
+        return merged;
     }
 
     @Override
@@ -53,6 +108,7 @@ public class JPADepositDao implements DepositDao
     public void remove(Deposit deposit)
     {
         entityManager.remove(deposit);
+        depositIndex.recordRemoval(deposit);
     }
 
     @Override
@@ -0,0 +1,49 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.List;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+
+import com.mshernandez.coinaccount.entity.SentWithdraw;
+
+@ApplicationScoped
+@Transactional
+public class JPASentWithdrawDao implements SentWithdrawDao
+{
+    @Inject
+    EntityManager entityManager;
+
+    @Override
+    public SentWithdraw find(String txid)
+    {
+        return entityManager.find(SentWithdraw.class, txid);
+    }
+
+    @Override
+    public List<SentWithdraw> findAll()
+    {
+        return entityManager.createQuery("SELECT s FROM SentWithdraw s", SentWithdraw.class)
+            .getResultList();
+    }
+
+    @Override
+    public void persist(SentWithdraw sentWithdraw)
+    {
+        entityManager.persist(sentWithdraw);
+    }
+
+    @Override
+    public SentWithdraw update(SentWithdraw sentWithdraw)
+    {
+        return entityManager.merge(sentWithdraw);
+    }
+
+    @Override
+    public void remove(SentWithdraw sentWithdraw)
+    {
+        entityManager.remove(sentWithdraw);
+    }
+}
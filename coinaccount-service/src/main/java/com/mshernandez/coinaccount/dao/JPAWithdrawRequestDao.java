@@ -1,6 +1,7 @@
 package com.mshernandez.coinaccount.dao;
 
 import java.util.Collection;
+import java.util.List;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -16,6 +17,9 @@ public class JPAWithdrawRequestDao implements WithdrawRequestDao
     @Inject
     EntityManager entityManager;
 
+    @Inject
+    WithdrawExpiryQueue withdrawExpiryQueue;
+
     @Override
     public WithdrawRequest find(String txid)
     {
@@ -36,10 +40,26 @@ public class JPAWithdrawRequestDao implements WithdrawRequestDao
             .getResultList();
     }
 
+    @Override
+    public List<WithdrawRequest> findBatched(int limit)
+    {
+        return entityManager.createQuery("SELECT w FROM WithdrawRequest w WHERE w.complete = TRUE AND w.batched = TRUE ORDER BY w.timestamp", WithdrawRequest.class)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    @Override
+    public Collection<WithdrawRequest> findBroadcastPending()
+    {
+        return entityManager.createQuery("SELECT w FROM WithdrawRequest w WHERE w.complete = TRUE AND w.batched = FALSE AND w.failed = FALSE", WithdrawRequest.class)
+            .getResultList();
+    }
+
     @Override
     public void persist(WithdrawRequest withdrawRequest)
     {
         entityManager.persist(withdrawRequest);
+        withdrawExpiryQueue.recordPersist(withdrawRequest);
     }
 
     @Override
@@ -0,0 +1,174 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+
+/**
+ * Keeps withdraw requests that have not been completed in
+ * memory instead of the database, so that initiating and
+ * canceling withdrawals writes nothing durable.
+ * <p>
+ * Stored requests are never persisted, they only reference
+ * detached accounts and deposits. Their input deposits are
+ * held in the <code>DepositIndex</code> and their total cost is
+ * held from the account balance until they are removed.
+ * <p>
+ * Requests expire through the <code>WithdrawExpiryQueue</code>
+ * like persisted requests. Stored requests are lost on restart,
+ * which releases their holds without changing any balances.
+ */
+@ApplicationScoped
+public class PendingWithdrawStore
+{
+    @Inject
+    DepositIndex depositIndex;
+
+    @Inject
+    WithdrawExpiryQueue withdrawExpiryQueue;
+
+    // Pending Requests By TXID Or Request ID
+    private final Map<String, WithdrawRequest> requests;
+
+    // Pending Requests By Initiating Account, Oldest First
+    private final Map<UUID, List<WithdrawRequest>> accountRequests;
+
+    /**
+     * Create an empty pending withdraw store.
+     */
+    public PendingWithdrawStore()
+    {
+        requests = new ConcurrentHashMap<>();
+        accountRequests = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Add a new withdraw request, holding its input deposits
+     * and total cost, unless any input is no longer available.
+     * <p>
+     * Callers should check the account can afford the request
+     * while holding a lock on the account.
+     *
+     * @param request The unpersisted withdraw request.
+     * @return True if added, false if an input is unavailable.
+     */
+    public synchronized boolean add(WithdrawRequest request)
+    {
+        if (!depositIndex.hold(request.getInputs()))
+        {
+            return false;
+        }
+        requests.put(request.getTxid(), request);
+        accountRequests.computeIfAbsent(request.getAccount().getAccountUUID(), id -> new ArrayList<>()).add(request);
+        withdrawExpiryQueue.add(request.getTxid(), request.getTimestamp());
+        return true;
+    }
+
+    /**
+     * Replace a pending withdraw request with one identified
+     * by a different ID, keeping its holds.
+     *
+     * @param previousId The TXID or request ID of the pending request.
+     * @param request The replacement request, using the same account and inputs.
+     * @return True if replaced, false if the previous request is no longer pending.
+     */
+    public synchronized boolean replace(String previousId, WithdrawRequest request)
+    {
+        WithdrawRequest previous = requests.remove(previousId);
+        if (previous == null)
+        {
+            return false;
+        }
+        requests.put(request.getTxid(), request);
+        List<WithdrawRequest> pending = accountRequests.get(request.getAccount().getAccountUUID());
+        pending.set(pending.indexOf(previous), request);
+        withdrawExpiryQueue.add(request.getTxid(), request.getTimestamp());
+        return true;
+    }
+
+    /**
+     * Find a pending withdraw request.
+     *
+     * @param txid The TXID or request ID of the request.
+     * @return The pending request, or null if none was found.
+     */
+    public WithdrawRequest find(String txid)
+    {
+        return requests.get(txid);
+    }
+
+    /**
+     * Find the oldest pending withdraw request of an account.
+     *
+     * @param accountId The UUID of the initiating account.
+     * @return The oldest pending request, or null if the account has none.
+     */
+    public synchronized WithdrawRequest findByAccount(UUID accountId)
+    {
+        List<WithdrawRequest> pending = accountRequests.get(accountId);
+        return pending == null ? null : pending.get(0);
+    }
+
+    /**
+     * Find every pending withdraw request of an account.
+     *
+     * @param accountId The UUID of the initiating account.
+     * @return The pending requests, oldest first.
+     */
+    public synchronized List<WithdrawRequest> findAllByAccount(UUID accountId)
+    {
+        List<WithdrawRequest> pending = accountRequests.get(accountId);
+        return pending == null ? Collections.emptyList() : new ArrayList<>(pending);
+    }
+
+    /**
+     * Get the amount held from the account balance
+     * by its pending withdraw requests.
+     *
+     * @param accountId The UUID of the account.
+     * @return The total cost of the pending requests, or zero if the account has none.
+     */
+    public synchronized long getHeldAmount(UUID accountId)
+    {
+        long heldAmount = 0L;
+        for (WithdrawRequest request : accountRequests.getOrDefault(accountId, Collections.emptyList()))
+        {
+            heldAmount += request.getTotalCost();
+        }
+        return heldAmount;
+    }
+
+    /**
+     * Remove a pending withdraw request so that it can only be
+     * completed or canceled once, releasing the hold on its input
+     * deposits once the current transaction completes.
+     *
+     * @param txid The TXID or request ID of the request.
+     * @return The removed request, or null if it was not pending.
+     */
+    public synchronized WithdrawRequest remove(String txid)
+    {
+        WithdrawRequest request = requests.remove(txid);
+        if (request == null)
+        {
+            return null;
+        }
+        UUID accountId = request.getAccount().getAccountUUID();
+        List<WithdrawRequest> pending = accountRequests.get(accountId);
+        pending.remove(request);
+        if (pending.isEmpty())
+        {
+            accountRequests.remove(accountId);
+        }
+        depositIndex.release(request.getInputs());
+        return request;
+    }
+}
@@ -0,0 +1,131 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.Arrays;
+
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+/**
+ * Running totals over the deposit pool, kept
+ * per deposit type.
+ * <p>
+ * Instances are immutable, every change to the
+ * pool produces a new instance.
+ */
+public final class PoolAggregates
+{
+    /**
+     * Aggregates for an empty pool.
+     */
+    public static final PoolAggregates EMPTY = new PoolAggregates(
+        new long[DepositType.values().length],
+        new long[DepositType.values().length],
+        new int[DepositType.values().length]);
+
+    // Per Type Aggregates, Indexed By Deposit Type Ordinal
+    private final long[] totalBalances;
+    private final long[] withdrawableBalances;
+    private final int[] withdrawableCounts;
+
+    // Aggregates Across All Types
+    private final long totalBalance;
+    private final long withdrawableBalance;
+    private final int withdrawableCount;
+
+    private PoolAggregates(long[] totalBalances, long[] withdrawableBalances, int[] withdrawableCounts)
+    {
+        this.totalBalances = totalBalances;
+        this.withdrawableBalances = withdrawableBalances;
+        this.withdrawableCounts = withdrawableCounts;
+        totalBalance = Arrays.stream(totalBalances).sum();
+        withdrawableBalance = Arrays.stream(withdrawableBalances).sum();
+        withdrawableCount = Arrays.stream(withdrawableCounts).sum();
+    }
+
+    /**
+     * Get aggregates reflecting a change to
+     * deposits of the given type.
+     *
+     * @param type The deposit type.
+     * @param totalDelta The change in total balance.
+     * @param withdrawableDelta The change in withdrawable balance.
+     * @param countDelta The change in the number of withdrawable deposits.
+     * @return The updated aggregates.
+     */
+    PoolAggregates change(DepositType type, long totalDelta, long withdrawableDelta, int countDelta)
+    {
+        long[] totals = totalBalances.clone();
+        long[] withdrawables = withdrawableBalances.clone();
+        int[] counts = withdrawableCounts.clone();
+        totals[type.ordinal()] += totalDelta;
+        withdrawables[type.ordinal()] += withdrawableDelta;
+        counts[type.ordinal()] += countDelta;
+        return new PoolAggregates(totals, withdrawables, counts);
+    }
+
+    /**
+     * Get the total balance of all deposits,
+     * including locked deposits.
+     *
+     * @return The total balance, in sats.
+     */
+    public long getTotalBalance()
+    {
+        return totalBalance;
+    }
+
+    /**
+     * Get the total balance of deposits of the
+     * given type, including locked deposits.
+     *
+     * @param type The deposit type.
+     * @return The total balance, in sats.
+     */
+    public long getTotalBalance(DepositType type)
+    {
+        return totalBalances[type.ordinal()];
+    }
+
+    /**
+     * Get the total balance of unlocked deposits.
+     *
+     * @return The withdrawable balance, in sats.
+     */
+    public long getWithdrawableBalance()
+    {
+        return withdrawableBalance;
+    }
+
+    /**
+     * Get the total balance of unlocked
+     * deposits of the given type.
+     *
+     * @param type The deposit type.
+     * @return The withdrawable balance, in sats.
+     */
+    public long getWithdrawableBalance(DepositType type)
+    {
+        return withdrawableBalances[type.ordinal()];
+    }
+
+    /**
+     * Get the number of unlocked deposits.
+     *
+     * @return The number of withdrawable deposits.
+     */
+    public int getWithdrawableCount()
+    {
+        return withdrawableCount;
+    }
+
+    /**
+     * Get the number of unlocked deposits
+     * of the given type.
+     *
+     * @param type The deposit type.
+     * @return The number of withdrawable deposits.
+     */
+    public int getWithdrawableCount(DepositType type)
+    {
+        return withdrawableCounts[type.ordinal()];
+    }
+}
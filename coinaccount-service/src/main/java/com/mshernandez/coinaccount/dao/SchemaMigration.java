@@ -0,0 +1,140 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Moves data left behind by older schemas that automatic
+ * schema updates cannot move, since they only add columns.
+ * <p>
+ * Runs on startup before anything loads from the database.
+ */
+@ApplicationScoped
+public class SchemaMigration
+{
+    private static final String ACCOUNT_TABLE = "ACCOUNT";
+    private static final String LEGACY_WITHDRAW_REQUEST_COLUMN = "WITHDRAW_REQUEST";
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    /**
+     * Migrate the schema on startup, before any other
+     * startup observer reads from the database.
+     *
+     * @param event The startup event.
+     */
+    void onStart(@Observes @Priority(1) StartupEvent event)
+    {
+        migrateWithdrawRequestAccounts();
+    }
+
+    /**
+     * Accounts used to reference their single withdraw request
+     * through an <code>ACCOUNT.WITHDRAW_REQUEST</code> column,
+     * requests now reference their account instead so that an
+     * account may have several.
+     * <p>
+     * Copies each reference into <code>WITHDRAW_REQUEST.ACCOUNT</code>,
+     * then drops the old column along with its foreign key, which
+     * would otherwise prevent removing withdraw requests.
+     * Does nothing if the old column does not exist.
+     *
+     * @throws IllegalStateException If the migration failed.
+     */
+    public void migrateWithdrawRequestAccounts()
+    {
+        try (Connection connection = dataSource.getConnection())
+        {
+            if (!hasColumn(connection, ACCOUNT_TABLE, LEGACY_WITHDRAW_REQUEST_COLUMN))
+            {
+                return;
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement())
+            {
+                int migrated = statement.executeUpdate("UPDATE WITHDRAW_REQUEST SET ACCOUNT = "
+                    + "(SELECT ACCOUNT.ID FROM ACCOUNT WHERE ACCOUNT.WITHDRAW_REQUEST = WITHDRAW_REQUEST.TXID) "
+                    + "WHERE ACCOUNT IS NULL");
+                connection.commit();
+                // Foreign Keys Must Be Dropped Before The Column They Use
+                for (String foreignKey : findForeignKeys(connection, ACCOUNT_TABLE, LEGACY_WITHDRAW_REQUEST_COLUMN))
+                {
+                    statement.executeUpdate(String.format(isMariaDb()
+                        ? "ALTER TABLE ACCOUNT DROP FOREIGN KEY %s"
+                        : "ALTER TABLE ACCOUNT DROP CONSTRAINT %s", foreignKey));
+                }
+                statement.executeUpdate("ALTER TABLE ACCOUNT DROP COLUMN WITHDRAW_REQUEST");
+                connection.commit();
+                logger.info(String.format("Migrated Withdraw Requests To Reference Their Accounts: Requests: %d", migrated));
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                throw e;
+            }
+            finally
+            {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new IllegalStateException("Failed To Migrate Withdraw Requests: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean isMariaDb()
+    {
+        return "mariadb".equalsIgnoreCase(dbKind) || "mysql".equalsIgnoreCase(dbKind);
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException
+    {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, column))
+        {
+            return columns.next();
+        }
+    }
+
+    private static List<String> findForeignKeys(Connection connection, String table, String column) throws SQLException
+    {
+        DatabaseMetaData metaData = connection.getMetaData();
+        List<String> foreignKeys = new ArrayList<>();
+        try (ResultSet importedKeys = metaData.getImportedKeys(connection.getCatalog(), connection.getSchema(), table))
+        {
+            while (importedKeys.next())
+            {
+                if (column.equalsIgnoreCase(importedKeys.getString("FKCOLUMN_NAME")))
+                {
+                    foreignKeys.add(importedKeys.getString("FK_NAME"));
+                }
+            }
+        }
+        return foreignKeys;
+    }
+}
@@ -0,0 +1,46 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.List;
+
+import com.mshernandez.coinaccount.entity.SentWithdraw;
+
+public interface SentWithdrawDao
+{
+    /**
+     * Finds a sent withdraw record based
+     * on the TXID of its transaction.
+     * 
+     * @param txid The TXID of the sent transaction.
+     * @return The sent withdraw record, or null if none was found.
+     */
+    SentWithdraw find(String txid);
+
+    /**
+     * Finds all sent withdraw records.
+     * 
+     * @return A list of all sent withdraw records.
+     */
+    List<SentWithdraw> findAll();
+
+    /**
+     * Persist a newly created sent withdraw record.
+     * 
+     * @param sentWithdraw The sent withdraw record.
+     */
+    void persist(SentWithdraw sentWithdraw);
+
+    /**
+     * Merges any changes made to the sent withdraw record.
+     * 
+     * @param sentWithdraw The sent withdraw record.
+     * @return A reference to the updated sent withdraw record.
+     */
+    SentWithdraw update(SentWithdraw sentWithdraw);
+
+    /**
+     * Remove the sent withdraw record.
+     * 
+     * @param sentWithdraw The sent withdraw record to remove.
+     */
+    void remove(SentWithdraw sentWithdraw);
+}
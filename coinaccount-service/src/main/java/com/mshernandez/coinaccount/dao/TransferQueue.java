@@ -0,0 +1,164 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Holds transfers waiting to be applied together
+ * in a shared database transaction.
+ * <p>
+ * Transfers are taken in groups, waiting a short time
+ * after the first transfer arrives for others to join it.
+ * Queued transfers are lost on restart, their callers
+ * are never answered and no balances change.
+ */
+@ApplicationScoped
+public class TransferQueue
+{
+    @ConfigProperty(name = "coinaccount.transfer.group.size")
+    int maxGroupSize;
+
+    @ConfigProperty(name = "coinaccount.transfer.group.wait")
+    long maxGroupWait;
+
+    // Transfers In The Order They Were Made
+    private final BlockingQueue<PendingTransfer> transfers;
+
+    /**
+     * Create an empty transfer queue.
+     */
+    public TransferQueue()
+    {
+        transfers = new LinkedBlockingQueue<>();
+    }
+
+    /**
+     * Queue a transfer to be applied.
+     *
+     * @param senderId The sending account ID.
+     * @param receiverId The receiving account ID.
+     * @param transferAll If true, ignores the amount and transfers all possible balances.
+     * @param amount The amount to transfer, in sats.
+     * @return Completes once the transfer is committed, or completes exceptionally if it was rejected.
+     */
+    public CompletableFuture<Void> add(UUID senderId, UUID receiverId, boolean transferAll, long amount)
+    {
+        PendingTransfer transfer = new PendingTransfer(senderId, receiverId, transferAll, amount);
+        transfers.add(transfer);
+        return transfer.result;
+    }
+
+    /**
+     * Wait until a transfer is queued, then take it along with
+     * any others queued before the group is full or the max
+     * wait time passes.
+     *
+     * @return The group of transfers, in the order they were made.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public List<PendingTransfer> takeGroup() throws InterruptedException
+    {
+        List<PendingTransfer> group = new ArrayList<>();
+        group.add(transfers.take());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxGroupWait);
+        while (group.size() < maxGroupSize)
+        {
+            PendingTransfer transfer = transfers.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (transfer == null)
+            {
+                break;
+            }
+            group.add(transfer);
+        }
+        return group;
+    }
+
+    /**
+     * A transfer waiting to be applied.
+     */
+    public static final class PendingTransfer
+    {
+        private final UUID senderId;
+        private final UUID receiverId;
+        private final boolean transferAll;
+        private final long amount;
+        private final CompletableFuture<Void> result;
+
+        private PendingTransfer(UUID senderId, UUID receiverId, boolean transferAll, long amount)
+        {
+            this.senderId = senderId;
+            this.receiverId = receiverId;
+            this.transferAll = transferAll;
+            this.amount = amount;
+            result = new CompletableFuture<>();
+        }
+
+        /**
+         * Get the sending account ID.
+         *
+         * @return The sending account ID.
+         */
+        public UUID getSenderId()
+        {
+            return senderId;
+        }
+
+        /**
+         * Get the receiving account ID.
+         *
+         * @return The receiving account ID.
+         */
+        public UUID getReceiverId()
+        {
+            return receiverId;
+        }
+
+        /**
+         * Whether to ignore the amount and
+         * transfer all possible balances.
+         *
+         * @return True if all possible balances are transferred.
+         */
+        public boolean isTransferAll()
+        {
+            return transferAll;
+        }
+
+        /**
+         * Get the amount to transfer.
+         *
+         * @return The amount to transfer, in sats.
+         */
+        public long getAmount()
+        {
+            return amount;
+        }
+
+        /**
+         * Answer the caller once the transfer is committed.
+         */
+        public void complete()
+        {
+            result.complete(null);
+        }
+
+        /**
+         * Answer the caller that the transfer was rejected.
+         *
+         * @param cause The reason the transfer was rejected.
+         */
+        public void reject(RuntimeException cause)
+        {
+            result.completeExceptionally(cause);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Holds completed withdraw requests waiting for their
+ * transactions to be sent out to the network, along
+ * with the number of attempts made to send them.
+ * <p>
+ * Requests are added once the transaction completing
+ * them commits, and failed attempts may be retried
+ * after a delay.
+ */
+@ApplicationScoped
+public class WithdrawBroadcastQueue
+{
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @Inject
+    WithdrawRequestDao withdrawRequestDao;
+
+    // Pending Broadcasts Ordered By Next Attempt Time
+    private final DelayQueue<Broadcast> broadcasts;
+
+    /**
+     * Create an empty broadcast queue.
+     */
+    public WithdrawBroadcastQueue()
+    {
+        broadcasts = new DelayQueue<>();
+    }
+
+    /**
+     * Load pending broadcasts on startup.
+     *
+     * @param event The startup event.
+     */
+    void onStart(@Observes StartupEvent event)
+    {
+        rebuild();
+    }
+
+    /**
+     * Replace the contents of the queue with all
+     * requests pending broadcast in the database.
+     */
+    public synchronized void rebuild()
+    {
+        broadcasts.clear();
+        long now = System.currentTimeMillis();
+        for (WithdrawRequest request : withdrawRequestDao.findBroadcastPending())
+        {
+            broadcasts.add(new Broadcast(request.getTxid(), 0, now));
+        }
+    }
+
+    /**
+     * Add a completed request, applied once
+     * the current transaction commits.
+     *
+     * @param txid The TXID of the withdraw request.
+     */
+    public void add(String txid)
+    {
+        if (transactionRegistry.getTransactionKey() == null)
+        {
+            broadcasts.add(new Broadcast(txid, 0, System.currentTimeMillis()));
+            return;
+        }
+        transactionRegistry.registerInterposedSynchronization(new Synchronization()
+        {
+            @Override
+            public void beforeCompletion()
+            {
+                // Nothing To Do
+            }
+
+            @Override
+            public void afterCompletion(int status)
+            {
+                if (status == Status.STATUS_COMMITTED)
+                {
+                    broadcasts.add(new Broadcast(txid, 0, System.currentTimeMillis()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Wait until a broadcast is due, then take it.
+     *
+     * @return The broadcast to attempt.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public Broadcast take() throws InterruptedException
+    {
+        return broadcasts.take();
+    }
+
+    /**
+     * Attempt the failed broadcast again after a delay.
+     *
+     * @param broadcast The failed broadcast.
+     * @param delay The time to wait in milliseconds.
+     */
+    public void retry(Broadcast broadcast, long delay)
+    {
+        broadcasts.add(new Broadcast(broadcast.txid, broadcast.attempts + 1, System.currentTimeMillis() + delay));
+    }
+
+    /**
+     * A withdraw request waiting to be broadcast.
+     */
+    public static final class Broadcast implements Delayed
+    {
+        private final String txid;
+        private final int attempts;
+        private final long attemptTime;
+
+        private Broadcast(String txid, int attempts, long attemptTime)
+        {
+            this.txid = txid;
+            this.attempts = attempts;
+            this.attemptTime = attemptTime;
+        }
+
+        /**
+         * Get the TXID of the withdraw request.
+         *
+         * @return The TXID of the withdraw request.
+         */
+        public String getTxid()
+        {
+            return txid;
+        }
+
+        /**
+         * Get the number of failed attempts
+         * made so far.
+         *
+         * @return The number of failed attempts.
+         */
+        public int getAttempts()
+        {
+            return attempts;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit)
+        {
+            return unit.convert(attemptTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other)
+        {
+            return Long.compare(attemptTime, ((Broadcast) other).attemptTime);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Tracks when pending withdraw requests expire so that
+ * expired requests can be found without scanning every
+ * request in the database.
+ * <p>
+ * Requests are added once the transaction persisting
+ * them commits, as recorded by <code>JPAWithdrawRequestDao</code>.
+ * Requests kept in memory are added by <code>PendingWithdrawStore</code>.
+ * Requests completed or canceled before expiring are not
+ * removed, they are returned as usual once their expiration
+ * passes and should be ignored by the caller.
+ */
+@ApplicationScoped
+public class WithdrawExpiryQueue
+{
+    @ConfigProperty(name = "coinaccount.withdraw.expire")
+    long withdrawExpireTime;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @Inject
+    WithdrawRequestDao withdrawRequestDao;
+
+    // Pending Requests Ordered By Expiration Time
+    private final DelayQueue<Expiration> expirations;
+
+    /**
+     * Create an empty expiry queue.
+     */
+    public WithdrawExpiryQueue()
+    {
+        expirations = new DelayQueue<>();
+    }
+
+    /**
+     * Load pending requests on startup.
+     *
+     * @param event The startup event.
+     */
+    void onStart(@Observes StartupEvent event)
+    {
+        rebuild();
+    }
+
+    /**
+     * Replace the contents of the queue with all
+     * incomplete requests currently in the database.
+     */
+    public synchronized void rebuild()
+    {
+        expirations.clear();
+        for (WithdrawRequest request : withdrawRequestDao.findAllIncomplete())
+        {
+            expirations.add(new Expiration(request.getTxid(), request.getTimestamp() + withdrawExpireTime));
+        }
+    }
+
+    /**
+     * Wait until at least one request expires, then take
+     * every request that has expired.
+     *
+     * @return The TXIDs of expired requests.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public List<String> takeExpired() throws InterruptedException
+    {
+        List<Expiration> expired = new ArrayList<>();
+        expired.add(expirations.take());
+        expirations.drainTo(expired);
+        List<String> txids = new ArrayList<>(expired.size());
+        for (Expiration expiration : expired)
+        {
+            txids.add(expiration.txid);
+        }
+        return txids;
+    }
+
+    /**
+     * Track a request that is not stored in the database.
+     *
+     * @param txid The TXID or request ID of the withdraw request.
+     * @param timestamp A timestamp of when the request was made.
+     */
+    public void add(String txid, long timestamp)
+    {
+        expirations.add(new Expiration(txid, timestamp + withdrawExpireTime));
+    }
+
+    /**
+     * Record that the request was created,
+     * applied once the current transaction commits.
+     *
+     * @param request The withdraw request.
+     */
+    void recordPersist(WithdrawRequest request)
+    {
+        Expiration expiration = new Expiration(request.getTxid(), request.getTimestamp() + withdrawExpireTime);
+        if (transactionRegistry.getTransactionKey() == null)
+        {
+            expirations.add(expiration);
+            return;
+        }
+        transactionRegistry.registerInterposedSynchronization(new Synchronization()
+        {
+            @Override
+            public void beforeCompletion()
+            {
+                // Nothing To Do
+            }
+
+            @Override
+            public void afterCompletion(int status)
+            {
+                if (status == Status.STATUS_COMMITTED)
+                {
+                    expirations.add(expiration);
+                }
+            }
+        });
+    }
+
+    /**
+     * A withdraw request and the system time (millis)
+     * it expires at.
+     */
+    private static final class Expiration implements Delayed
+    {
+        private final String txid;
+        private final long expireTime;
+
+        private Expiration(String txid, long expireTime)
+        {
+            this.txid = txid;
+            this.expireTime = expireTime;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit)
+        {
+            return unit.convert(expireTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other)
+        {
+            return Long.compare(expireTime, ((Expiration) other).expireTime);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.mshernandez.coinaccount.dao;
 
 import java.util.Collection;
+import java.util.List;
 
 import com.mshernandez.coinaccount.entity.WithdrawRequest;
 
@@ -29,6 +30,23 @@ public interface WithdrawRequestDao
      */
     Collection<WithdrawRequest> findAllIncomplete();
 
+    /**
+     * Finds completed withdraw requests waiting to be
+     * sent in a batch, oldest first.
+     * 
+     * @param limit The max number of requests to find.
+     * @return A list of batched withdraw requests.
+     */
+    List<WithdrawRequest> findBatched(int limit);
+
+    /**
+     * Finds completed withdraw requests waiting to
+     * send their own transactions, excluding failed requests.
+     * 
+     * @return A collection of withdraw requests pending broadcast.
+     */
+    Collection<WithdrawRequest> findBroadcastPending();
+
     /**
      * Persist a newly created withdraw request.
      * 
@@ -1,5 +1,6 @@
 package com.mshernandez.coinaccount.entity;
 
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -8,9 +9,7 @@ import java.util.UUID;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
-import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.Version;
 
@@ -58,12 +57,11 @@ public class Account
     private String returnAddress;
 
     /**
-     * Save any active withdraw request the user has
+     * Any active withdraw requests the user has
      * created but not yet confirmed.
      */
-    @OneToOne
-    @JoinColumn(name = "WITHDRAW_REQUEST", referencedColumnName = "TXID")
-    private WithdrawRequest withdrawRequest;
+    @OneToMany(mappedBy = "account")
+    private Set<WithdrawRequest> withdrawRequests;
 
     /**
      * Used for optimistic locking to prevent concurrent
@@ -87,6 +85,7 @@ public class Account
         balance = 0L;
         pendingBalance = 0L;
         addresses = new HashSet<>();
+        withdrawRequests = new HashSet<>();
         version = 0L;
     }
 
@@ -217,24 +216,69 @@ public class Account
     }
 
     /**
-     * Get the active withdraw request for this account,
-     * or null if there is no active withdraw request.
+     * Get the oldest open withdraw request for this
+     * account, or null if there is no open withdraw request.
+     * <p>
+     * Requests already sent, batched, or failed are
+     * skipped since they can no longer be completed
+     * or canceled by the account.
      * 
-     * @return The active withdraw request, or null if none exists.
+     * @return The oldest open withdraw request, or null if none exists.
      */
     public WithdrawRequest getWithdrawRequest()
     {
-        return withdrawRequest;
+        return withdrawRequests.stream()
+            .filter(Account::isOpen)
+            .min(Comparator.comparingLong(WithdrawRequest::getTimestamp))
+            .orElse(null);
+    }
+
+    /**
+     * Count the withdraw requests for this account which
+     * have not been sent, batched, or failed yet.
+     * 
+     * @return The number of open withdraw requests.
+     */
+    public int countOpenWithdrawRequests()
+    {
+        return (int) withdrawRequests.stream()
+            .filter(Account::isOpen)
+            .count();
+    }
+
+    /**
+     * Return a set of every active withdraw
+     * request for this account.
+     * 
+     * @return Active withdraw requests for this account.
+     */
+    public Set<WithdrawRequest> getWithdrawRequests()
+    {
+        return new HashSet<>(withdrawRequests);
     }
 
     /**
-     * Sets an active withdraw request for this account.
+     * Associate a new active withdraw request
+     * with this account.
+     * 
+     * @param withdrawRequest The withdraw request.
+     * @return True if the request was added, or false if it is a duplicate.
+     */
+    public boolean addWithdrawRequest(WithdrawRequest withdrawRequest)
+    {
+        return withdrawRequests.add(withdrawRequest);
+    }
+
+    /**
+     * Remove a withdraw request that is no
+     * longer active from this account.
      * 
-     * @param withdrawRequest The withdraw request to associate with this account.
+     * @param withdrawRequest The withdraw request.
+     * @return True if the request was removed, or false if it was not associated with this account.
      */
-    public void setWithdrawRequest(WithdrawRequest withdrawRequest)
+    public boolean removeWithdrawRequest(WithdrawRequest withdrawRequest)
     {
-        this.withdrawRequest = withdrawRequest;
+        return withdrawRequests.remove(withdrawRequest);
     }
 
     @Override
@@ -262,4 +306,16 @@ public class Account
     {
         return String.format("Account: %s, Balance: %d", id.toString(), getBalance());
     }
+
+    /**
+     * Check whether a withdraw request can still
+     * be completed or canceled by its account.
+     * 
+     * @param withdrawRequest The withdraw request.
+     * @return True if the request is neither complete nor failed.
+     */
+    private static boolean isOpen(WithdrawRequest withdrawRequest)
+    {
+        return !withdrawRequest.isComplete() && !withdrawRequest.isFailed();
+    }
 }
\ No newline at end of file
@@ -74,6 +74,16 @@ public class Address
         return type;
     }
 
+    /**
+     * Get the account owning this address.
+     * 
+     * @return The address owner.
+     */
+    public Account getOwner()
+    {
+        return owner;
+    }
+
     /**
      * Mark the address as used.
      */
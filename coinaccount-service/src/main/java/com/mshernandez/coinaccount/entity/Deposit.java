@@ -42,6 +42,16 @@ public class Deposit
     @Column(name = "TYPE")
     private DepositType type;
 
+    /**
+     * The number of unconfirmed transactions in the chain
+     * that created this deposit, including its own, or
+     * zero once the deposit is confirmed.
+     * <p>
+     * Only change trusted before confirming is unconfirmed.
+     */
+    @Column(name = "UNCONFIRMED_DEPTH")
+    private int unconfirmedDepth;
+
     /**
      * Identifies any lock on the deposit for
      * pending withdrawal, null if no lock exists.
@@ -75,10 +85,27 @@ public class Deposit
         this.vout = vout;
         this.type = type;
         this.amount = amount;
+        unconfirmedDepth = 0;
         withdrawLock = null;
         version = 0L;
     }
 
+    /**
+     * Create a new deposit from change that has
+     * not been confirmed yet.
+     * 
+     * @param TXID The deposit transaction ID.
+     * @param vout The vout index for this output.
+     * @param type The deposit type: P2PKH, P2WPKH, etc.
+     * @param amount The total number of sats received in the output.
+     * @param unconfirmedDepth The number of unconfirmed transactions in the chain creating the deposit.
+     */
+    public Deposit(String TXID, int vout, DepositType type, long amount, int unconfirmedDepth)
+    {
+        this(TXID, vout, type, amount);
+        this.unconfirmedDepth = unconfirmedDepth;
+    }
+
     /**
      * Needed for Hibernate to instantiate the class,
      * not for manual use.
@@ -129,6 +156,36 @@ public class Deposit
         return amount;
     }
 
+    /**
+     * Get the number of unconfirmed transactions in
+     * the chain that created this deposit.
+     * 
+     * @return The unconfirmed chain length, zero if confirmed.
+     */
+    public int getUnconfirmedDepth()
+    {
+        return unconfirmedDepth;
+    }
+
+    /**
+     * Whether the transaction creating this
+     * deposit has been confirmed.
+     * 
+     * @return True if the deposit is confirmed.
+     */
+    public boolean isConfirmed()
+    {
+        return unconfirmedDepth == 0;
+    }
+
+    /**
+     * Mark this deposit as confirmed.
+     */
+    public void setConfirmed()
+    {
+        unconfirmedDepth = 0;
+    }
+
     /**
      * Set a withdraw lock on this transaction by
      * the given withdraw request.
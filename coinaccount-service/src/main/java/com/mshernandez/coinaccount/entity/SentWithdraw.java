@@ -0,0 +1,148 @@
+package com.mshernandez.coinaccount.entity;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Lob;
+import jakarta.persistence.MapKeyColumn;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+/**
+ * Tracks a withdraw transaction sent out to the
+ * network until it confirms, so that its fees can
+ * be raised if it confirms later than targeted.
+ */
+@Entity
+@Table(name = "SENT_WITHDRAW")
+public class SentWithdraw
+{
+    @Id
+    @Column(name = "TXID")
+    private String txid;
+
+    @Lob
+    @Column(name = "TX_HEX")
+    private String txHex;
+
+    @Column(name = "INPUT_AMOUNT")
+    private long inputAmount;
+
+    @Column(name = "SENT_HEIGHT")
+    private long sentHeight;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "SENT_WITHDRAW_AMOUNT", joinColumns = @JoinColumn(name = "TXID"))
+    @MapKeyColumn(name = "ACCOUNT", length = 16)
+    @Column(name = "AMOUNT")
+    private Map<UUID, Long> withdrawAmounts;
+
+    /**
+     * Used for optimistic locking to prevent concurrent
+     * modification of the same record.
+     */
+    @Version
+    @Column(name = "VERSION")
+    private long version;
+
+    /**
+     * Create a new sent withdraw record.
+     * 
+     * @param txid The TXID of the sent transaction.
+     * @param txHex The signed, hex-encoded transaction.
+     * @param inputAmount The combined amount of the transaction inputs.
+     * @param sentHeight The block height when sent, or zero if not known yet.
+     * @param withdrawAmounts The amount withdrawn by each account.
+     */
+    public SentWithdraw(String txid, String txHex, long inputAmount, long sentHeight, Map<UUID, Long> withdrawAmounts)
+    {
+        this.txid = txid;
+        this.txHex = txHex;
+        this.inputAmount = inputAmount;
+        this.sentHeight = sentHeight;
+        this.withdrawAmounts = new HashMap<>(withdrawAmounts);
+        version = 0L;
+    }
+
+    /**
+     * Needed for Hibernate to instantiate the class,
+     * not for manual use.
+     */
+    SentWithdraw()
+    {
+        // Required for Hibernate
+    }
+
+    /**
+     * Get the TXID of the sent transaction.
+     * 
+     * @return The TXID of the sent transaction.
+     */
+    public String getTxid()
+    {
+        return txid;
+    }
+
+    /**
+     * Get the signed hex-encoded transaction
+     * that was sent to the network.
+     * 
+     * @return The signed hex-encoded transaction.
+     */
+    public String getTxHex()
+    {
+        return txHex;
+    }
+
+    /**
+     * Get the combined amount of the transaction inputs,
+     * used to find the fees paid by the transaction.
+     * 
+     * @return The combined input amount.
+     */
+    public long getInputAmount()
+    {
+        return inputAmount;
+    }
+
+    /**
+     * Get the block height when the transaction
+     * was first seen unconfirmed after being sent.
+     * 
+     * @return The block height, or zero if not known yet.
+     */
+    public long getSentHeight()
+    {
+        return sentHeight;
+    }
+
+    /**
+     * Set the block height when the transaction
+     * was first seen unconfirmed after being sent.
+     * 
+     * @param sentHeight The block height.
+     */
+    public void setSentHeight(long sentHeight)
+    {
+        this.sentHeight = sentHeight;
+    }
+
+    /**
+     * Get the amount withdrawn by each account
+     * through the sent transaction.
+     * 
+     * @return The withdraw amounts by account UUID.
+     */
+    public Map<UUID, Long> getWithdrawAmounts()
+    {
+        return new HashMap<>(withdrawAmounts);
+    }
+}
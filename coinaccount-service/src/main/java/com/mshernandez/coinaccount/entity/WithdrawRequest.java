@@ -2,13 +2,15 @@ package com.mshernandez.coinaccount.entity;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.UUID;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
-import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.Version;
 
@@ -16,6 +18,11 @@ import jakarta.persistence.Version;
  * Stores information about a pending withdraw
  * initiated by a user but still waiting for
  * confirmation before execution.
+ * <p>
+ * Requests are usually signed when created and identified
+ * by the TXID of their transaction. Requests with deferred
+ * signing are instead identified by a generated request ID
+ * and store what is needed to build their transaction later.
  */
 @Entity
 @Table(name = "WITHDRAW_REQUEST")
@@ -28,12 +35,27 @@ public class WithdrawRequest
     @Column(name = "COMPLETE")
     private boolean complete;
 
+    @Column(name = "BATCHED")
+    private boolean batched;
+
+    @Column(name = "FAILED")
+    private boolean failed;
+
+    @Column(name = "DEST_ADDRESS")
+    private String destAddress;
+
     @Column(name = "WITHDRAW_AMOUNT")
     private long withdrawAmount;
 
     @Column(name = "FEE_AMOUNT")
     private long feeAmount;
 
+    @Column(name = "CHANGE_AMOUNT")
+    private long changeAmount;
+
+    @Column(name = "CHANGE_FEE_AMOUNT")
+    private long changeFeeAmount;
+
     @Lob
     @Column(name = "TX_HEX")
     private String txHex;
@@ -41,7 +63,8 @@ public class WithdrawRequest
     @Column(name = "TIMESTAMP")
     private long timestamp;
 
-    @OneToOne(mappedBy = "withdrawRequest")
+    @ManyToOne
+    @JoinColumn(name = "ACCOUNT", referencedColumnName = "ID")
     private Account account;
 
     @OneToMany(mappedBy = "withdrawLock")
@@ -61,22 +84,59 @@ public class WithdrawRequest
      * @param txid The TXID of the withdraw transaction.
      * @param account The account initiating the request.
      * @param inputs The deposits contributing to the withdrawal.
+     * @param destAddress The address receiving the withdrawal, or null if the transaction has no single recipient.
      * @param withdrawAmount The amount being withdrawn excluding fees.
      * @param fees The fees being paid to withdraw.
      * @param txHex The signed, hex-encoded transaction.
      * @param timestamp A timestamp of when the request was made.
      */
-    public WithdrawRequest(String txid, Account account, Set<Deposit> inputs,
+    public WithdrawRequest(String txid, Account account, Set<Deposit> inputs, String destAddress,
                            long withdrawAmount, long fees, String txHex, long timestamp)
     {
         this.txid = txid;
         this.account = account;
         this.inputs = new HashSet<>(inputs);
+        this.destAddress = destAddress;
         this.withdrawAmount = withdrawAmount;
         this.feeAmount = fees;
         this.txHex = txHex;
         this.timestamp = timestamp;
+        changeAmount = 0L;
+        changeFeeAmount = 0L;
+        complete = false;
+        batched = false;
+        failed = false;
+        version = 0L;
+    }
+
+    /**
+     * Create a new withdraw request to be signed once
+     * completed, identified by a generated request ID.
+     * 
+     * @param account The account initiating the request.
+     * @param inputs The deposits contributing to the withdrawal.
+     * @param destAddress The address receiving the withdrawal.
+     * @param withdrawAmount The amount being withdrawn excluding fees.
+     * @param fees The fees being paid to withdraw.
+     * @param changeAmount The amount to send to a change address, zero if no change output is needed.
+     * @param timestamp A timestamp of when the request was made.
+     */
+    public WithdrawRequest(Account account, Set<Deposit> inputs, String destAddress,
+                           long withdrawAmount, long fees, long changeAmount, long timestamp)
+    {
+        this.txid = UUID.randomUUID().toString();
+        this.account = account;
+        this.inputs = new HashSet<>(inputs);
+        this.destAddress = destAddress;
+        this.withdrawAmount = withdrawAmount;
+        this.feeAmount = fees;
+        this.changeAmount = changeAmount;
+        this.timestamp = timestamp;
+        changeFeeAmount = 0L;
+        txHex = null;
         complete = false;
+        batched = false;
+        failed = false;
         version = 0L;
     }
 
@@ -90,9 +150,10 @@ public class WithdrawRequest
     }
 
     /**
-     * Get the TXID of the unsent withdraw transaction.
+     * Get the TXID of the unsent withdraw transaction,
+     * or the generated request ID if not yet signed.
      * 
-     * @return The TXID of the unsent withdraw transaction.
+     * @return The TXID of the unsent withdraw transaction or request ID.
      */
     public String getTxid()
     {
@@ -110,14 +171,61 @@ public class WithdrawRequest
         return complete;
     }
 
+    /**
+     * Whether this completed request is waiting
+     * to be sent as part of a batch transaction
+     * instead of sending its own transaction.
+     * 
+     * @return True if the request is batched.
+     */
+    public boolean isBatched()
+    {
+        return batched;
+    }
+
     /**
      * Marks this request as complete,
-     * indicating the withdraw transaction
-     * has been sent out to the blockchain.
+     * indicating the account confirmed the
+     * withdrawal and it is queued to be sent
+     * out to the network.
+     * 
+     * @param batched Whether to send the withdrawal as part of a batch transaction.
      */
-    public void setComplete()
+    public void setComplete(boolean batched)
     {
         complete = true;
+        this.batched = batched;
+    }
+
+    /**
+     * Whether the transaction of this completed request
+     * could not be sent and will not be retried.
+     * 
+     * @return True if sending the transaction failed.
+     */
+    public boolean isFailed()
+    {
+        return failed;
+    }
+
+    /**
+     * Marks this completed request as failed, indicating
+     * its transaction could not be sent and its inputs
+     * stay locked until resolved manually.
+     */
+    public void setFailed()
+    {
+        failed = true;
+    }
+
+    /**
+     * Get the address receiving the withdrawal.
+     * 
+     * @return The recipient address, or null if the transaction has no single recipient.
+     */
+    public String getDestAddress()
+    {
+        return destAddress;
     }
 
     /**
@@ -151,10 +259,55 @@ public class WithdrawRequest
     }
 
     /**
-     * Get the unsigned hex-encoded transaction
-     * waiting to be signed and sent to the network.
+     * Get the amount to send to a change address
+     * when building a deferred transaction.
+     * 
+     * @return The change amount, zero for requests signed when created.
+     */
+    public long getChangeAmount()
+    {
+        return changeAmount;
+    }
+
+    /**
+     * Get the fees paid by the change account for splitting
+     * change into several outputs, charged once the
+     * transaction is sent.
+     * 
+     * @return The fees paid by the change account, zero if change is not split.
+     */
+    public long getChangeFeeAmount()
+    {
+        return changeFeeAmount;
+    }
+
+    /**
+     * Set the fees paid by the change account for
+     * splitting change into several outputs.
+     * 
+     * @param changeFeeAmount The fees paid by the change account.
+     */
+    public void setChangeFeeAmount(long changeFeeAmount)
+    {
+        this.changeFeeAmount = changeFeeAmount;
+    }
+
+    /**
+     * Whether the withdraw transaction has
+     * already been built and signed.
+     * 
+     * @return True if the request holds a signed transaction.
+     */
+    public boolean isSigned()
+    {
+        return txHex != null;
+    }
+
+    /**
+     * Get the signed hex-encoded transaction
+     * waiting to be sent to the network.
      * 
-     * @return The unsigned hex-encoded transaction.
+     * @return The signed hex-encoded transaction, or null if not yet signed.
      */
     public String getTxHex()
     {
@@ -8,8 +8,8 @@ import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 
 import com.mshernandez.coinaccount.dao.AccountDao;
-import com.mshernandez.coinaccount.dao.AddressDao;
-import com.mshernandez.coinaccount.dao.DepositDao;
+import com.mshernandez.coinaccount.dao.DepositIndex;
+import com.mshernandez.coinaccount.dao.PendingWithdrawStore;
 import com.mshernandez.coinaccount.entity.Account;
 import com.mshernandez.coinaccount.service.exception.InvalidAddressException;
 import com.mshernandez.coinaccount.service.result.AccountBalanceInfo;
@@ -25,6 +25,9 @@ public class AccountInfoService
     // Match sus Address Patterns
     private static final Pattern SUS_PATTERN = Pattern.compile(".*[^a-zA-Z0-9].*");
     
+    @ConfigProperty(name = "coinaccount.account.change")
+    UUID changeAccountId;
+
     @ConfigProperty(name = "coinaccount.address.type")
     DepositType defaultAddressType;
 
@@ -38,34 +41,47 @@ public class AccountInfoService
     AccountDao accountDao;
 
     @Inject
-    AddressDao addressDao;
+    DepositIndex depositIndex;
+
+    @Inject
+    AddressService addressService;
+
+    @Inject
+    PendingWithdrawStore pendingWithdrawStore;
 
     @Inject
-    DepositDao depositDao;
+    PoolFeeService poolFeeService;
 
     @Transactional
     public AccountBalanceInfo getBalanceInfo(UUID accountId)
     {
         Account account = accountDao.find(accountId);
-        if (account == null)
+        // Change Account Only Holds Pool Fees, See getPoolFeesPaid()
+        if (account == null || accountId.equals(changeAccountId))
         {
             return new AccountBalanceInfo(0L, 0L, 0L);
         }
+        // Exclude Balance Held By A Pending Withdraw Request Kept In Memory
+        long balance = account.getBalance() - pendingWithdrawStore.getHeldAmount(accountId);
         return new AccountBalanceInfo()
-            .setConfirmedBalance(account.getBalance())
-            .setWithdrawableBalance(Math.min(account.getBalance(), depositDao.getWithdrawableBalance()))
+            .setConfirmedBalance(balance)
+            .setWithdrawableBalance(Math.min(balance, depositIndex.getAggregates().getWithdrawableBalance()))
             .setUnconfirmedBalance(account.getPendingBalance());
     }
 
-    @Transactional
+    public long getPoolFeesPaid()
+    {
+        return poolFeeService.getFeesPaid();
+    }
+
     public String getDepositAddress(UUID accountId, DepositType type)
     {
-        Account account = accountDao.findOrCreate(accountId);
         if (type == null)
         {
             type = defaultAddressType;
         }
-        return addressDao.findOrCreate(account, type, !reuseUserAddresses).getAddress();
+        // New Addresses Are Generated Outside Of Any Transaction
+        return addressService.findOrCreate(accountId, type, !reuseUserAddresses);
     }
 
     @Transactional
@@ -79,7 +95,6 @@ public class AccountInfoService
         return account.getReturnAddress();
     }
 
-    @Transactional
     public void setReturnAddress(UUID accountId, String returnAddress)
     {
         // Prevent Possibility Of JSON-RPC Injection, Just In Case
@@ -92,6 +107,13 @@ public class AccountInfoService
         {
             throw new InvalidAddressException();
         }
+        // Only Save Once Validated By The Wallet
+        saveReturnAddress(accountId, returnAddress);
+    }
+
+    @Transactional
+    void saveReturnAddress(UUID accountId, String returnAddress)
+    {
         Account account = accountDao.findOrCreate(accountId);
         account.setReturnAddress(returnAddress);
         accountDao.update(account);
@@ -0,0 +1,134 @@
+package com.mshernandez.coinaccount.service;
+
+import java.util.UUID;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import com.mshernandez.coinaccount.dao.AccountDao;
+import com.mshernandez.coinaccount.dao.AddressDao;
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.Address;
+import com.mshernandez.coinaccount.service.wallet_rpc.WalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletRequestException;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+/**
+ * Finds or creates account addresses without holding
+ * a database transaction open while the wallet
+ * generates new addresses.
+ * <p>
+ * Addresses are looked up in one short transaction,
+ * generated by the wallet outside of any transaction
+ * if needed, then recorded in another short transaction.
+ */
+@ApplicationScoped
+public class AddressService
+{
+    @Inject
+    WalletService walletService;
+
+    @Inject
+    AccountDao accountDao;
+
+    @Inject
+    AddressDao addressDao;
+
+    /**
+     * Finds or creates an address matching the specified criteria,
+     * creating the account if it does not exist yet.
+     * <p>
+     * Must not be called within a transaction, otherwise
+     * the wallet is contacted while it is held open.
+     *
+     * @param accountId The ID of the owning account.
+     * @param type The type of address to find.
+     * @param requireUnused Whether the address must be unused.
+     * @return An address matching the criteria.
+     * @throws WalletRequestException If an error occured contacting the wallet.
+     */
+    public String findOrCreate(UUID accountId, DepositType type, boolean requireUnused)
+    {
+        String address = find(accountId, type, requireUnused);
+        if (address != null)
+        {
+            return address;
+        }
+        String newAddress = walletService.getNewAddress(accountId.toString(), type);
+        return record(accountId, type, requireUnused, newAddress);
+    }
+
+    /**
+     * Creates a new address, creating the account
+     * if it does not exist yet.
+     * <p>
+     * Must not be called within a transaction, otherwise
+     * the wallet is contacted while it is held open.
+     *
+     * @param accountId The ID of the owning account.
+     * @param type The type of address to create.
+     * @return The new address.
+     * @throws WalletRequestException If an error occured contacting the wallet.
+     */
+    public String create(UUID accountId, DepositType type)
+    {
+        String newAddress = walletService.getNewAddress(accountId.toString(), type);
+        return save(accountId, type, newAddress);
+    }
+
+    /**
+     * Finds an address matching the specified criteria,
+     * creating the account if it does not exist yet.
+     *
+     * @param accountId The ID of the owning account.
+     * @param type The type of address to find.
+     * @param requireUnused Whether the address must be unused.
+     * @return An address matching the criteria or null if none was found.
+     */
+    @Transactional
+    String find(UUID accountId, DepositType type, boolean requireUnused)
+    {
+        Account account = accountDao.findOrCreate(accountId);
+        Address found = addressDao.find(account, type, requireUnused);
+        return found == null ? null : found.getAddress();
+    }
+
+    /**
+     * Records a newly generated address unless a matching
+     * address was recorded since it was last looked up.
+     *
+     * @param accountId The ID of the owning account.
+     * @param type The address type.
+     * @param requireUnused Whether the address must be unused.
+     * @param newAddress The address generated by the wallet.
+     * @return The matching address, either previously recorded or the new address.
+     */
+    @Transactional
+    String record(UUID accountId, DepositType type, boolean requireUnused, String newAddress)
+    {
+        Account account = accountDao.findOrCreate(accountId);
+        Address found = addressDao.find(account, type, requireUnused);
+        if (found != null)
+        {
+            // Another Request Recorded One First, New Address Is Left Unused
+            return found.getAddress();
+        }
+        return addressDao.create(account, type, newAddress).getAddress();
+    }
+
+    /**
+     * Records a newly generated address.
+     *
+     * @param accountId The ID of the owning account.
+     * @param type The address type.
+     * @param newAddress The address generated by the wallet.
+     * @return The new address.
+     */
+    @Transactional
+    String save(UUID accountId, DepositType type, String newAddress)
+    {
+        Account account = accountDao.findOrCreate(accountId);
+        return addressDao.create(account, type, newAddress).getAddress();
+    }
+}
@@ -0,0 +1,210 @@
+package com.mshernandez.coinaccount.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import com.mshernandez.coinaccount.dao.AccountDao;
+import com.mshernandez.coinaccount.dao.AddressDao;
+import com.mshernandez.coinaccount.dao.DepositDao;
+import com.mshernandez.coinaccount.dao.DepositIndex;
+import com.mshernandez.coinaccount.dao.WithdrawRequestDao;
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+import com.mshernandez.coinaccount.service.exception.FeeEstimationException;
+import com.mshernandez.coinaccount.service.util.DepositShareEvaluator;
+import com.mshernandez.coinaccount.service.wallet_rpc.WalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.CreateRawTransactionInput;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.EstimateSmartFeeResult;
+
+import static com.mshernandez.coinaccount.service.util.TXFeeUtilities.*;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+/**
+ * Merges many small deposits into a few larger
+ * change deposits while fees are low, keeping the
+ * deposit pool small and future withdrawals cheap.
+ * <p>
+ * A consolidation is created as a withdraw request
+ * owned by the change account, locking its input
+ * deposits until it is broadcast through
+ * <code>WithdrawService.completeWithdraw</code>.
+ * <p>
+ * Consolidation fees are charged to the change
+ * account through <code>PoolFeeService</code>.
+ */
+@ApplicationScoped
+public class ConsolidationService
+{
+    @ConfigProperty(name = "coinaccount.account.change")
+    UUID changeAccountId;
+
+    @ConfigProperty(name = "coinaccount.address.type")
+    DepositType defaultAddressType;
+
+    @ConfigProperty(name = "coinaccount.consolidate.target")
+    int blockConfirmationTarget;
+
+    @ConfigProperty(name = "coinaccount.consolidate.feerate.max")
+    long maxFeeRate;
+
+    @ConfigProperty(name = "coinaccount.consolidate.inputs.min")
+    int minInputs;
+
+    @ConfigProperty(name = "coinaccount.consolidate.inputs.max")
+    int maxInputs;
+
+    @ConfigProperty(name = "coinaccount.consolidate.outputs")
+    int numOutputs;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    WalletService walletService;
+
+    @Inject
+    AccountDao accountDao;
+
+    @Inject
+    PoolFeeService poolFeeService;
+
+    @Inject
+    AddressDao addressDao;
+
+    @Inject
+    DepositDao depositDao;
+
+    @Inject
+    DepositIndex depositIndex;
+
+    @Inject
+    WithdrawRequestDao withdrawRequestDao;
+
+    /**
+     * Creates a consolidation transaction merging the smallest
+     * unlocked deposits if fees are currently low enough.
+     * <p>
+     * The transaction is not sent to the network, complete it
+     * as a withdraw request using the returned TXID.
+     *
+     * @return The TXID of the consolidation request, or null if no consolidation is needed or worthwhile.
+     * @throws FeeEstimationException If the node could not estimate fees.
+     */
+    @Transactional
+    public String createConsolidation()
+    {
+        // Only Consolidate When Fees Are Low
+        long feeRate = estimateFeeRate(blockConfirmationTarget);
+        if (feeRate > maxFeeRate)
+        {
+            return null;
+        }
+        // Only One Consolidation At A Time
+        Account changeAccount = accountDao.findOrCreate(changeAccountId);
+        if (!changeAccount.getWithdrawRequests().isEmpty())
+        {
+            return null;
+        }
+        // Take The Smallest Deposits, Reserving Them Until Locked
+        List<Deposit> candidates = depositIndex.smallest(maxInputs);
+        if (candidates.size() < minInputs || !depositIndex.reserve(candidates))
+        {
+            return null;
+        }
+        // Claim Rows, Leaving Out Deposits Concurrent Withdrawals Took First
+        Set<Deposit> inputDeposits = new LinkedHashSet<>(depositDao.claim(candidates));
+        if (inputDeposits.size() < minInputs)
+        {
+            return null;
+        }
+        // Calculate TX Weight
+        int outputCount = Math.max(1, numOutputs);
+        long weight = TX_VERSION_WEIGHT + TX_LOCKTIME_WEIGHT + TX_SEGWIT_MARKER_WEIGHT + getCounterWeight(outputCount);
+        DepositShareEvaluator evaluator = new DepositShareEvaluator(feeRate);
+        long totalValue = 0L;
+        int inputIndex = 0;
+        Set<CreateRawTransactionInput> txInputs = new HashSet<>();
+        for (Deposit inputDeposit : inputDeposits)
+        {
+            txInputs.add(new CreateRawTransactionInput(inputDeposit.getTXID(), inputDeposit.getVout()));
+            weight += evaluator.cost(inputDeposit) + evaluator.nthInputCost(inputIndex++);
+            totalValue += inputDeposit.getAmount();
+        }
+        Set<String> outputAddresses = new LinkedHashSet<>();
+        for (int i = 0; i < outputCount; i++)
+        {
+            String address = addressDao.create(changeAccount, defaultAddressType).getAddress();
+            weight += getOutputWeight(walletService.getAddressInfo(address).getScriptPubKey());
+            outputAddresses.add(address);
+        }
+        long totalFees = getFee(weight, feeRate);
+        long outputTotal = totalValue - totalFees;
+        if (outputTotal <= 0L)
+        {
+            return null;
+        }
+        // Split Value Evenly Between Outputs, Remainder Goes To First Output
+        Map<String, Long> txOutputs = new HashMap<>();
+        long outputAmount = outputTotal / outputCount;
+        long remainder = outputTotal % outputCount;
+        for (String address : outputAddresses)
+        {
+            txOutputs.put(address, outputAmount + remainder);
+            remainder = 0L;
+        }
+        // Build & Sign Consolidation TX
+        String unsignedTxHex = walletService.createRawTransaction(txInputs, txOutputs);
+        String signedTxHex = walletService.signRawTransactionWithWallet(unsignedTxHex).getHex();
+        String txid = walletService.decodeRawTransaction(signedTxHex).getTxid();
+        // Persist As Change Account Withdraw Request, Change Account Pays Fees
+        WithdrawRequest request = new WithdrawRequest(txid, changeAccount, inputDeposits, null, 0L, totalFees, signedTxHex, System.currentTimeMillis());
+        withdrawRequestDao.persist(request);
+        // Lock Input Deposits While Consolidation Is In Flight
+        for (Deposit inputDeposit : request.getInputs())
+        {
+            inputDeposit.setWithdrawLock(request);
+            depositDao.update(inputDeposit);
+        }
+        poolFeeService.chargeFee(totalFees);
+        changeAccount.addWithdrawRequest(request);
+        accountDao.update(changeAccount);
+        logger.log(Level.INFO, String.format("Consolidation Created: Inputs: %d, vsize: %d, Fees: %d", inputDeposits.size(), getVsize(weight), totalFees));
+        return txid;
+    }
+
+    /**
+     * Estimate the fee rate needed for a transaction to
+     * confirm within the given number of blocks.
+     *
+     * @param confirmationTarget The block confirmation target.
+     * @return The estimated fee rate, in sat/kvB.
+     * @throws FeeEstimationException If the node could not estimate fees.
+     */
+    private long estimateFeeRate(int confirmationTarget)
+    {
+        EstimateSmartFeeResult estimateSmartFeeResult = walletService.estimateSmartFee(confirmationTarget);
+        if (estimateSmartFeeResult.getErrors() != null)
+        {
+            for (String errorMessage : estimateSmartFeeResult.getErrors())
+            {
+                logger.log(Level.WARN, "Error estimating fees for consolidation! Error Message: " + errorMessage);
+            }
+            throw new FeeEstimationException();
+        }
+        return estimateSmartFeeResult.getFeeRate().getSatAmount();
+    }
+}
@@ -1,5 +1,6 @@
 package com.mshernandez.coinaccount.service;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -65,45 +66,69 @@ public class DepositService
     /**
      * Registers new deposits and updates pending balances
      * for the given account.
+     * <p>
+     * The wallet is queried outside of any transaction,
+     * the results are then applied in a short transaction.
      * 
      * @param accountId The account ID to check for new deposits.
      * @return A response object indicating success/failure and the amount added to the account balance.
      * @throws WalletRequestException If an error occured contacting the wallet.
      */
-    @Transactional
     public long registerDeposits(UUID accountId)
     {
-        Account account = accountDao.find(accountId);
-        if (account == null)
-        {
-            return 0L;
-        }
-        Set<String> addresses = account.getAddresses()
-            .stream()
-            .map(a -> a.getAddress())
-            .collect(Collectors.toSet());
+        Set<String> addresses = findAddresses(accountId);
         if (addresses.isEmpty())
         {
             return 0L;
         }
-        long minAmount;
-        int minConfirmations;
-        if (accountId.equals(changeAccountId))
-        {
-            minAmount = 0L;
-            minConfirmations = minChangeConfirmations;
-        }
-        else
-        {
-            minAmount = minDepositAmount;
-            minConfirmations = minDepositConfirmations;
-        }
+        long minAmount = accountId.equals(changeAccountId) ? 0L : minDepositAmount;
         // Get UTXOs For Account
         ListUnspentQuery utxoQuery = new ListUnspentQuery()
             .setMinConfirmations(0)
             .setAddresses(addresses)
             .setMinimumAmount(minAmount);
         List<ListUnspentUTXO> utxos = walletService.listUnspent(utxoQuery);
+        return applyUnspent(accountId, utxos);
+    }
+
+    /**
+     * Get every address belonging to the given account.
+     * 
+     * @param accountId The account ID.
+     * @return The address strings, empty if the account does not exist.
+     */
+    @Transactional
+    Set<String> findAddresses(UUID accountId)
+    {
+        Account account = accountDao.find(accountId);
+        if (account == null)
+        {
+            return Collections.emptySet();
+        }
+        return account.getAddresses()
+            .stream()
+            .map(a -> a.getAddress())
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Registers new deposits and updates pending balances
+     * for the given account from unspent outputs listed by
+     * the wallet, skipping any already registered.
+     * 
+     * @param accountId The account ID.
+     * @param utxos The unspent outputs sent to the account addresses.
+     * @return The amount added to the account balance.
+     */
+    @Transactional
+    long applyUnspent(UUID accountId, List<ListUnspentUTXO> utxos)
+    {
+        Account account = accountDao.find(accountId);
+        if (account == null)
+        {
+            return 0L;
+        }
+        int minConfirmations = accountId.equals(changeAccountId) ? minChangeConfirmations : minDepositConfirmations;
         // Process UTXOs
         long addedBalance = 0L;
         long unconfirmedBalance = 0L;
@@ -112,7 +137,14 @@ public class DepositService
             if (utxo.getConfirmations() >= minConfirmations
                 && utxo.isSpendable() && utxo.isSafe() && utxo.isSolvable())
             {
-                if (depositDao.find(utxo.getTxid(), utxo.getVout()) == null)
+                Deposit existing = depositDao.find(utxo.getTxid(), utxo.getVout());
+                if (existing != null && !existing.isConfirmed())
+                {
+                    // Change Registered Before Confirming Is Now Confirmed
+                    existing.setConfirmed();
+                    depositDao.update(existing);
+                }
+                else if (existing == null)
                 {
                     // Determine Deposit Type
                     DepositType type = getDepositType(utxo.getDesc());
@@ -140,7 +172,7 @@ public class DepositService
             address.setUsed();
             addressDao.update(address);
         }
-        // Change Account Should Not Have Balance
+        // Change Account Should Not Have Balance, Only Pool Fees Charged Through PoolFeeService
         if (!accountId.equals(changeAccountId))
         {
             account.setBalance(account.getBalance() + addedBalance);
@@ -0,0 +1,283 @@
+package com.mshernandez.coinaccount.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import com.mshernandez.coinaccount.dao.AccountDao;
+import com.mshernandez.coinaccount.dao.DepositDao;
+import com.mshernandez.coinaccount.dao.DepositIndex;
+import com.mshernandez.coinaccount.dao.WithdrawRequestDao;
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+import com.mshernandez.coinaccount.service.exception.FeeEstimationException;
+import com.mshernandez.coinaccount.service.util.DepositShareEvaluator;
+import com.mshernandez.coinaccount.service.wallet_rpc.WalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.CreateRawTransactionInput;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.EstimateSmartFeeResult;
+
+import static com.mshernandez.coinaccount.service.util.TXFeeUtilities.*;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+/**
+ * Splits a large deposit into several deposits of a
+ * target denomination whenever too few are available,
+ * so concurrent withdrawals can each find inputs
+ * instead of waiting on the same change output to confirm.
+ * <p>
+ * Deposits worth at least the denomination but less
+ * than twice as much are considered ready to spend.
+ * Whatever is left after splitting gets its own output,
+ * unless it is dust, in which case it is paid as fees.
+ * <p>
+ * Like a consolidation, a fan-out is created as a
+ * withdraw request owned by the change account, which
+ * is charged its fees through <code>PoolFeeService</code>,
+ * and is broadcast through
+ * <code>WithdrawService.completeWithdraw</code>.
+ */
+@ApplicationScoped
+public class FanOutService
+{
+    @ConfigProperty(name = "coinaccount.account.change")
+    UUID changeAccountId;
+
+    @ConfigProperty(name = "coinaccount.address.type")
+    DepositType defaultAddressType;
+
+    @ConfigProperty(name = "coinaccount.fanout.target")
+    int blockConfirmationTarget;
+
+    @ConfigProperty(name = "coinaccount.fanout.denomination")
+    long denomination;
+
+    @ConfigProperty(name = "coinaccount.fanout.ready.min")
+    int minReady;
+
+    @ConfigProperty(name = "coinaccount.fanout.outputs.max")
+    int maxOutputs;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    WalletService walletService;
+
+    @Inject
+    AccountDao accountDao;
+
+    @Inject
+    PoolFeeService poolFeeService;
+
+    @Inject
+    AddressService addressService;
+
+    @Inject
+    DepositDao depositDao;
+
+    @Inject
+    DepositIndex depositIndex;
+
+    @Inject
+    WithdrawRequestDao withdrawRequestDao;
+
+    /**
+     * Creates a transaction splitting the largest unlocked
+     * deposit if fewer than the minimum number of ready to
+     * spend deposits are available.
+     * <p>
+     * The transaction is built and signed without holding a
+     * database transaction, then the deposit is claimed and the
+     * request persisted in a short transaction, unless the deposit
+     * was taken or another change account request was created
+     * in the meantime.
+     * <p>
+     * The transaction is not sent to the network, complete it
+     * as a withdraw request using the returned TXID.
+     *
+     * @return The TXID of the fan-out request, or null if no fan-out is needed or possible.
+     * @throws FeeEstimationException If the node could not estimate fees.
+     */
+    public String createFanOut()
+    {
+        // Only One Change Account Request At A Time, Shared With Consolidations
+        if (hasChangeAccountRequest(false))
+        {
+            return null;
+        }
+        // Count Ready Deposits & Find The Largest Deposit Worth Splitting
+        int ready = 0;
+        Deposit largest = null;
+        for (Deposit deposit : depositIndex.snapshot())
+        {
+            if (deposit.getAmount() >= denomination && deposit.getAmount() < 2L * denomination)
+            {
+                ready++;
+            }
+            else if (largest == null || deposit.getAmount() > largest.getAmount())
+            {
+                largest = deposit;
+            }
+        }
+        if (ready >= minReady || largest == null || largest.getAmount() < 2L * denomination)
+        {
+            return null;
+        }
+        // Create As Many Denomination Outputs As Needed, Leaving A Remainder Worth At Least One More
+        long feeRate = estimateFeeRate(blockConfirmationTarget);
+        DepositShareEvaluator evaluator = new DepositShareEvaluator(feeRate);
+        long outputWeight = getOutputWeight(defaultAddressType);
+        long dustLimit = getDustLimit(defaultAddressType);
+        long baseWeight = TX_VERSION_WEIGHT + TX_LOCKTIME_WEIGHT + TX_SEGWIT_MARKER_WEIGHT
+            + evaluator.cost(largest) + evaluator.nthInputCost(0);
+        int splitCount = Math.min(minReady - ready, maxOutputs);
+        long weight = 0L;
+        long remainder = 0L;
+        boolean remainderOutput = true;
+        for (; splitCount > 0; splitCount--)
+        {
+            int outputCount = splitCount + 1;
+            weight = baseWeight + getCounterWeight(outputCount) + outputCount * outputWeight;
+            remainder = largest.getAmount() - (splitCount * denomination + getFee(weight, feeRate));
+            if (remainder >= denomination && remainder > dustLimit)
+            {
+                break;
+            }
+            // Or Leaving Only Dust, Which Would Cost More To Spend Than It Is Worth
+            weight = baseWeight + getCounterWeight(splitCount) + splitCount * outputWeight;
+            remainder = largest.getAmount() - (splitCount * denomination + getFee(weight, feeRate));
+            if (remainder >= 0L && remainder <= dustLimit)
+            {
+                remainderOutput = false;
+                break;
+            }
+        }
+        if (splitCount == 0)
+        {
+            return null;
+        }
+        long totalFees = getFee(weight, feeRate);
+        if (!remainderOutput)
+        {
+            // Dust Remainder Given Up As Fees
+            totalFees += remainder;
+        }
+        // Specify Input & Outputs, Remainder Goes To Its Own Output
+        Set<CreateRawTransactionInput> txInputs = new HashSet<>();
+        txInputs.add(new CreateRawTransactionInput(largest.getTXID(), largest.getVout()));
+        Map<String, Long> txOutputs = new HashMap<>();
+        for (int i = 0; i < splitCount; i++)
+        {
+            txOutputs.put(addressService.create(changeAccountId, defaultAddressType), denomination);
+        }
+        if (remainderOutput)
+        {
+            txOutputs.put(addressService.create(changeAccountId, defaultAddressType), remainder);
+        }
+        // Build & Sign Fan-Out TX
+        String unsignedTxHex = walletService.createRawTransaction(txInputs, txOutputs);
+        String signedTxHex = walletService.signRawTransactionWithWallet(unsignedTxHex).getHex();
+        String txid = walletService.decodeRawTransaction(signedTxHex).getTxid();
+        if (!persistFanOut(largest, txid, signedTxHex, totalFees))
+        {
+            logger.log(Level.DEBUG, "Skipped Fan-Out: Deposit Or Change Account Taken While Signing");
+            return null;
+        }
+        logger.log(Level.INFO, String.format("Fan-Out Created: Outputs: %d, vsize: %d, Fees: %d", txOutputs.size(), getVsize(weight), totalFees));
+        return txid;
+    }
+
+    /**
+     * Check whether the change account already has a withdraw
+     * request, such as a fan-out or consolidation in flight.
+     *
+     * @param lock Whether to lock the change account until the current transaction ends.
+     * @return True if the change account has a withdraw request.
+     */
+    @Transactional
+    boolean hasChangeAccountRequest(boolean lock)
+    {
+        Account changeAccount = lock ? accountDao.findForUpdate(changeAccountId) : accountDao.find(changeAccountId);
+        return changeAccount != null && !changeAccount.getWithdrawRequests().isEmpty();
+    }
+
+    /**
+     * Claims the deposit spent by a signed fan-out and persists
+     * the fan-out as a change account withdraw request, the change
+     * account paying its fees.
+     *
+     * @param deposit The deposit being split.
+     * @param txid The TXID of the signed fan-out.
+     * @param signedTxHex The signed, hex-encoded fan-out.
+     * @param totalFees The fees paid by the fan-out.
+     * @return True if persisted, false if the deposit was taken or the change account already has a request.
+     */
+    @Transactional
+    boolean persistFanOut(Deposit deposit, String txid, String signedTxHex, long totalFees)
+    {
+        // Lock Change Account So Concurrent Change Account Requests Take Turns
+        if (hasChangeAccountRequest(true))
+        {
+            return false;
+        }
+        // Reserve & Claim The Deposit, Unless A Concurrent Withdrawal Took It First
+        List<Deposit> candidates = Collections.singletonList(deposit);
+        if (!depositIndex.reserve(candidates))
+        {
+            return false;
+        }
+        List<Deposit> claimed = depositDao.claim(candidates);
+        if (claimed.isEmpty())
+        {
+            return false;
+        }
+        Deposit inputDeposit = claimed.get(0);
+        // Persist As Change Account Withdraw Request, Change Account Pays Fees
+        Account changeAccount = accountDao.findOrCreate(changeAccountId);
+        Set<Deposit> inputDeposits = Collections.singleton(inputDeposit);
+        WithdrawRequest request = new WithdrawRequest(txid, changeAccount, inputDeposits, null, 0L, totalFees, signedTxHex, System.currentTimeMillis());
+        withdrawRequestDao.persist(request);
+        // Lock Input Deposit While Fan-Out Is In Flight
+        inputDeposit.setWithdrawLock(request);
+        depositDao.update(inputDeposit);
+        poolFeeService.chargeFee(totalFees);
+        changeAccount.addWithdrawRequest(request);
+        accountDao.update(changeAccount);
+        return true;
+    }
+
+    /**
+     * Estimate the fee rate needed for a transaction to
+     * confirm within the given number of blocks.
+     *
+     * @param confirmationTarget The block confirmation target.
+     * @return The estimated fee rate, in sat/kvB.
+     * @throws FeeEstimationException If the node could not estimate fees.
+     */
+    private long estimateFeeRate(int confirmationTarget)
+    {
+        EstimateSmartFeeResult estimateSmartFeeResult = walletService.estimateSmartFee(confirmationTarget);
+        if (estimateSmartFeeResult.getErrors() != null)
+        {
+            for (String errorMessage : estimateSmartFeeResult.getErrors())
+            {
+                logger.log(Level.WARN, "Error estimating fees for fan-out! Error Message: " + errorMessage);
+            }
+            throw new FeeEstimationException();
+        }
+        return estimateSmartFeeResult.getFeeRate().getSatAmount();
+    }
+}
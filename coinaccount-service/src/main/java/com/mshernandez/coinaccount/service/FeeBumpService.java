@@ -0,0 +1,401 @@
+package com.mshernandez.coinaccount.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import com.mshernandez.coinaccount.dao.AddressDao;
+import com.mshernandez.coinaccount.dao.DepositDao;
+import com.mshernandez.coinaccount.dao.DepositIndex;
+import com.mshernandez.coinaccount.dao.SentWithdrawDao;
+import com.mshernandez.coinaccount.entity.Address;
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.SentWithdraw;
+import com.mshernandez.coinaccount.service.exception.FeeEstimationException;
+import com.mshernandez.coinaccount.service.result.WithdrawSentResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.WalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletRequestException;
+import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletResponseException;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.CreateRawTransactionInput;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.DecodeRawTransactionInput;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.DecodeRawTransactionOutput;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.DecodeRawTransactionResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.EstimateSmartFeeResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.GetTransactionResult;
+
+import static com.mshernandez.coinaccount.service.util.TXFeeUtilities.*;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+/**
+ * Raises the fees of sent withdraw transactions that
+ * confirm later than targeted, replacing them through
+ * BIP125 with transactions paying higher fees.
+ * <p>
+ * Replacements spend the same inputs and pay the same
+ * recipients, the extra fees are taken from the largest
+ * change output. Like other fees spent on keeping the
+ * deposit pool usable, extra fees are charged to the
+ * change account through <code>PoolFeeService</code>.
+ * <p>
+ * The wallet is only contacted outside of database
+ * transactions.
+ */
+@ApplicationScoped
+public class FeeBumpService
+{
+    // Default Node Incremental Relay Fee, The Least A Replacement Must Raise The Fee Rate, In sat/kvB
+    private static final long INCREMENTAL_RELAY_FEE_RATE = 1000L;
+
+    @ConfigProperty(name = "coinaccount.account.change")
+    UUID changeAccountId;
+
+    @ConfigProperty(name = "coinaccount.address.type")
+    DepositType defaultAddressType;
+
+    @ConfigProperty(name = "coinaccount.withdraw.target")
+    int blockConfirmationTarget;
+
+    @ConfigProperty(name = "coinaccount.withdraw.bump.margin")
+    int bumpMargin;
+
+    @ConfigProperty(name = "coinaccount.withdraw.bump.feerate.max")
+    long maxFeeRate;
+
+    @ConfigProperty(name = "coinaccount.change.unconfirmed.enabled")
+    boolean trustUnconfirmedChange;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    WalletService walletService;
+
+    @Inject
+    PoolFeeService poolFeeService;
+
+    @Inject
+    AddressDao addressDao;
+
+    @Inject
+    DepositDao depositDao;
+
+    @Inject
+    DepositIndex depositIndex;
+
+    @Inject
+    SentWithdrawDao sentWithdrawDao;
+
+    /**
+     * Checks every tracked withdraw transaction, replacing those
+     * still unconfirmed once the confirmation target has been
+     * missed by the configured margin.
+     * <p>
+     * Transactions stop being tracked once confirmed or
+     * if they can no longer be replaced.
+     *
+     * @return Information about each replacement transaction sent.
+     * @throws WalletRequestException If an error occured contacting the wallet.
+     */
+    public List<WithdrawSentResult> bumpStuckWithdrawals()
+    {
+        List<WithdrawSentResult> replacements = new ArrayList<>();
+        List<SentWithdraw> tracked = findTracked();
+        if (tracked.isEmpty())
+        {
+            return replacements;
+        }
+        long height = walletService.getBlockCount();
+        for (SentWithdraw sent : tracked)
+        {
+            try
+            {
+                GetTransactionResult transaction = walletService.getTransaction(sent.getTxid());
+                if (transaction.getConfirmations() != 0 || "no".equals(transaction.getReplaceable()))
+                {
+                    // Confirmed, Replaced Elsewhere, Or Not Replaceable
+                    untrack(sent.getTxid());
+                    continue;
+                }
+                if (sent.getSentHeight() == 0L)
+                {
+                    // Count Blocks From When First Seen Unconfirmed
+                    recordSentHeight(sent.getTxid(), height);
+                    continue;
+                }
+                if (height - sent.getSentHeight() < blockConfirmationTarget + bumpMargin)
+                {
+                    continue;
+                }
+                WithdrawSentResult replacement = replace(sent, height);
+                if (replacement != null)
+                {
+                    replacements.add(replacement);
+                }
+            }
+            catch (WalletResponseException | FeeEstimationException e)
+            {
+                logger.log(Level.WARN, String.format("Failed To Raise Withdraw Fees: TXID: %s, %s", sent.getTxid(), e.getMessage()));
+            }
+        }
+        return replacements;
+    }
+
+    /**
+     * Replaces a sent withdraw transaction with one paying
+     * the currently estimated fee rate, taking the extra fees
+     * from its largest change output.
+     *
+     * @param sent The sent withdrawal.
+     * @param height The current block height.
+     * @return Information about the replacement transaction, or null if the transaction could not be replaced.
+     */
+    private WithdrawSentResult replace(SentWithdraw sent, long height)
+    {
+        DecodeRawTransactionResult decoded = walletService.decodeRawTransaction(sent.getTxHex());
+        Set<String> outputAddresses = new HashSet<>();
+        for (DecodeRawTransactionOutput output : decoded.getOutputs())
+        {
+            if (output.getRecipientAddress() == null)
+            {
+                return null;
+            }
+            outputAddresses.add(output.getRecipientAddress());
+        }
+        Set<String> changeAddresses = findChangeAddresses(outputAddresses);
+        // Keep Every Output, Finding The Largest Change Output
+        Map<String, Long> txOutputs = new HashMap<>();
+        long outputAmount = 0L;
+        DecodeRawTransactionOutput changeOutput = null;
+        for (DecodeRawTransactionOutput output : decoded.getOutputs())
+        {
+            long amount = output.getValue().getSatAmount();
+            txOutputs.put(output.getRecipientAddress(), amount);
+            outputAmount += amount;
+            if (changeAddresses.contains(output.getRecipientAddress())
+                && (changeOutput == null || amount > changeOutput.getValue().getSatAmount()))
+            {
+                changeOutput = output;
+            }
+        }
+        if (changeOutput == null)
+        {
+            logger.log(Level.WARN, "Cannot Raise Withdraw Fees Without Change: TXID: " + sent.getTxid());
+            return null;
+        }
+        // Raise Fees To The Current Estimate, At Least By The Incremental Relay Fee
+        long weight = decoded.getWeight();
+        long feeRate = Math.min(estimateFeeRate(blockConfirmationTarget), maxFeeRate);
+        long previousFee = sent.getInputAmount() - outputAmount;
+        long fee = Math.max(getFee(weight, feeRate), previousFee + getFee(weight, INCREMENTAL_RELAY_FEE_RATE));
+        if (fee > getFee(weight, maxFeeRate))
+        {
+            logger.log(Level.WARN, "Withdraw Fees Already At Max Fee Rate: TXID: " + sent.getTxid());
+            return null;
+        }
+        long extraFee = fee - previousFee;
+        long changeAmount = changeOutput.getValue().getSatAmount() - extraFee;
+        long costOfChange = getFee(getOutputWeight(defaultAddressType)
+            + getInputWeight(defaultAddressType) + TX_INPUT_WITNESS_ITEM_COUNTER_WEIGHT, feeRate);
+        if (changeAmount <= costOfChange)
+        {
+            logger.log(Level.WARN, "Withdraw Change Too Small To Raise Fees: TXID: " + sent.getTxid());
+            return null;
+        }
+        String changeAddress = changeOutput.getRecipientAddress();
+        txOutputs.put(changeAddress, changeAmount);
+        // Hold Change Registered Before Confirming, Replacing Change Already Spent Would Evict The Spending TX
+        Deposit trustedChange = findDeposit(sent.getTxid(), changeOutput.getIndex());
+        if (trustedChange == null && trustUnconfirmedChange)
+        {
+            return null;
+        }
+        if (trustedChange != null && (trustedChange.hasWithdrawLock() || !depositIndex.hold(Collections.singletonList(trustedChange))))
+        {
+            return null;
+        }
+        // Build, Sign, & Send Replacement, Releasing Held Change If It Fails
+        String txid;
+        String signedTxHex;
+        int changeVout = changeOutput.getIndex();
+        try
+        {
+            Set<CreateRawTransactionInput> txInputs = new HashSet<>();
+            for (DecodeRawTransactionInput input : decoded.getInputs())
+            {
+                txInputs.add(new CreateRawTransactionInput(input.getTxid(), input.getVout()));
+            }
+            String unsignedTxHex = walletService.createRawTransaction(txInputs, txOutputs, true);
+            signedTxHex = walletService.signRawTransactionWithWallet(unsignedTxHex).getHex();
+            for (DecodeRawTransactionOutput output : walletService.decodeRawTransaction(signedTxHex).getOutputs())
+            {
+                if (changeAddress.equals(output.getRecipientAddress()))
+                {
+                    changeVout = output.getIndex();
+                }
+            }
+            txid = walletService.sendRawTransaction(signedTxHex);
+        }
+        catch (RuntimeException e)
+        {
+            if (trustedChange != null)
+            {
+                depositIndex.release(Collections.singletonList(trustedChange));
+            }
+            throw e;
+        }
+        recordReplacement(sent, txid, signedTxHex, height, extraFee, trustedChange, changeVout, changeAmount);
+        logger.log(Level.INFO, String.format("Withdraw Fees Raised: TXID: %s, Replaced By: %s, Extra Fees: %d", sent.getTxid(), txid, extraFee));
+        return new WithdrawSentResult()
+            .setTxid(txid)
+            .setWithdrawAmounts(sent.getWithdrawAmounts())
+            .setFeeAmount(fee);
+    }
+
+    /**
+     * Get every tracked withdraw transaction.
+     *
+     * @return The sent withdrawals.
+     */
+    @Transactional
+    List<SentWithdraw> findTracked()
+    {
+        return sentWithdrawDao.findAll();
+    }
+
+    /**
+     * Stop tracking a withdraw transaction.
+     *
+     * @param txid The TXID of the sent withdrawal.
+     */
+    @Transactional
+    void untrack(String txid)
+    {
+        SentWithdraw sent = sentWithdrawDao.find(txid);
+        if (sent != null)
+        {
+            sentWithdrawDao.remove(sent);
+        }
+    }
+
+    /**
+     * Record the block height when a withdraw
+     * transaction was first seen unconfirmed.
+     *
+     * @param txid The TXID of the sent withdrawal.
+     * @param height The current block height.
+     */
+    @Transactional
+    void recordSentHeight(String txid, long height)
+    {
+        SentWithdraw sent = sentWithdrawDao.find(txid);
+        if (sent != null)
+        {
+            sent.setSentHeight(height);
+            sentWithdrawDao.update(sent);
+        }
+    }
+
+    /**
+     * Find which of the given addresses belong
+     * to the change account.
+     *
+     * @param addresses The addresses to check.
+     * @return The change account addresses.
+     */
+    @Transactional
+    Set<String> findChangeAddresses(Set<String> addresses)
+    {
+        Set<String> changeAddresses = new HashSet<>();
+        for (String address : addresses)
+        {
+            Address found = addressDao.find(address);
+            if (found != null && changeAccountId.equals(found.getOwner().getAccountUUID()))
+            {
+                changeAddresses.add(address);
+            }
+        }
+        return changeAddresses;
+    }
+
+    /**
+     * Find a registered deposit.
+     *
+     * @param txid The deposit transaction ID.
+     * @param vout The vout index of the deposit.
+     * @return The deposit, or null if it is not registered.
+     */
+    @Transactional
+    Deposit findDeposit(String txid, int vout)
+    {
+        return depositDao.find(txid, vout);
+    }
+
+    /**
+     * Tracks a replacement transaction in place of the one it
+     * replaced, charging the extra fees to the change account
+     * and moving any trusted change deposit to the replacement.
+     *
+     * @param replaced The replaced withdrawal.
+     * @param txid The TXID of the replacement transaction.
+     * @param signedTxHex The signed, hex-encoded replacement transaction.
+     * @param height The current block height.
+     * @param extraFee The fees paid on top of those of the replaced transaction.
+     * @param trustedChange The held change deposit of the replaced transaction, or null if none.
+     * @param changeVout The vout index of the change output paying the extra fees in the replacement.
+     * @param changeAmount The amount of the change output paying the extra fees in the replacement.
+     */
+    @Transactional
+    void recordReplacement(SentWithdraw replaced, String txid, String signedTxHex, long height,
+        long extraFee, Deposit trustedChange, int changeVout, long changeAmount)
+    {
+        untrack(replaced.getTxid());
+        sentWithdrawDao.persist(new SentWithdraw(txid, signedTxHex, replaced.getInputAmount(), height, replaced.getWithdrawAmounts()));
+        // Pool Pays The Extra Fees
+        poolFeeService.chargeFee(extraFee);
+        if (trustedChange != null)
+        {
+            Deposit previousChange = depositDao.find(trustedChange.getTXID(), trustedChange.getVout());
+            if (previousChange != null)
+            {
+                depositDao.remove(previousChange);
+            }
+            depositDao.persist(new Deposit(txid, changeVout, trustedChange.getType(), changeAmount, trustedChange.getUnconfirmedDepth()));
+            depositIndex.release(Collections.singletonList(trustedChange));
+        }
+    }
+
+    /**
+     * Estimate the fee rate needed for a transaction to
+     * confirm within the given number of blocks.
+     *
+     * @param confirmationTarget The block confirmation target.
+     * @return The estimated fee rate, in sat/kvB.
+     * @throws FeeEstimationException If the node could not estimate fees.
+     */
+    private long estimateFeeRate(int confirmationTarget)
+    {
+        EstimateSmartFeeResult estimateSmartFeeResult = walletService.estimateSmartFee(confirmationTarget);
+        if (estimateSmartFeeResult.getErrors() != null)
+        {
+            for (String errorMessage : estimateSmartFeeResult.getErrors())
+            {
+                logger.log(Level.WARN, "Error estimating fees for replacement! Error Message: " + errorMessage);
+            }
+            throw new FeeEstimationException();
+        }
+        return estimateSmartFeeResult.getFeeRate().getSatAmount();
+    }
+}
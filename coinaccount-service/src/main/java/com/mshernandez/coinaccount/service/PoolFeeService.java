@@ -0,0 +1,73 @@
+package com.mshernandez.coinaccount.service;
+
+import java.util.UUID;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.transaction.Transactional.TxType;
+
+import com.mshernandez.coinaccount.dao.AccountDao;
+import com.mshernandez.coinaccount.entity.Account;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Charges fees paid for the deposit pool itself, rather
+ * than for any one account, to the change account.
+ * <p>
+ * Fan-outs, consolidations, fee bumps, split change, and
+ * change given up as fees all spend pool deposits without
+ * debiting any account. Charging them to the change account
+ * keeps the sum of every account balance, including the
+ * change account, equal to the sum of every deposit.
+ * <p>
+ * Deposits paying change addresses are never credited to
+ * the change account, since the accounts spending them were
+ * already debited. As a result the change account balance
+ * is never positive: it is the negative of the total fees
+ * the pool has paid for itself.
+ * <p>
+ * Every pool fee should be charged through this service, and
+ * the fees paid should be read through <code>getFeesPaid()</code>
+ * rather than as a balance.
+ */
+@ApplicationScoped
+public class PoolFeeService
+{
+    @ConfigProperty(name = "coinaccount.account.change")
+    UUID changeAccountId;
+
+    @Inject
+    AccountDao accountDao;
+
+    /**
+     * Charge a fee paid for the deposit pool to the change
+     * account, as part of the transaction spending the fee.
+     *
+     * @param fee The fee paid, in sats.
+     */
+    @Transactional(TxType.MANDATORY)
+    public void chargeFee(long fee)
+    {
+        if (fee == 0L)
+        {
+            return;
+        }
+        Account changeAccount = accountDao.findOrCreate(changeAccountId);
+        changeAccount.changeBalance(-fee);
+        accountDao.update(changeAccount);
+    }
+
+    /**
+     * Get the total fees the deposit pool has paid for itself.
+     *
+     * @return The fees paid, in sats.
+     */
+    @Transactional
+    public long getFeesPaid()
+    {
+        Long balance = accountDao.findBalance(changeAccountId);
+        return balance == null ? 0L : -balance;
+    }
+}
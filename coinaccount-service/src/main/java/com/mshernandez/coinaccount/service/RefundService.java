@@ -0,0 +1,458 @@
+package com.mshernandez.coinaccount.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import com.mshernandez.coinaccount.dao.AccountDao;
+import com.mshernandez.coinaccount.dao.DepositDao;
+import com.mshernandez.coinaccount.dao.DepositIndex;
+import com.mshernandez.coinaccount.dao.PendingWithdrawStore;
+import com.mshernandez.coinaccount.dao.WithdrawRequestDao;
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+import com.mshernandez.coinaccount.service.exception.FeeEstimationException;
+import com.mshernandez.coinaccount.service.result.RefundBatchResult;
+import com.mshernandez.coinaccount.service.util.CoinSelectionBuilder;
+import com.mshernandez.coinaccount.service.util.CoinSelectionState;
+import com.mshernandez.coinaccount.service.util.DepositShareEvaluator;
+import com.mshernandez.coinaccount.service.util.LargestFirstCoinSelector;
+import com.mshernandez.coinaccount.service.wallet_rpc.WalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.CreateRawTransactionInput;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.EstimateSmartFeeResult;
+
+import static com.mshernandez.coinaccount.service.util.TXFeeUtilities.*;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+/**
+ * Refunds account balances to their return addresses,
+ * paying many accounts with each transaction.
+ * <p>
+ * Each batch debits its accounts and persists its signed
+ * transaction together, as a withdraw request owned by the
+ * change account that is pending broadcast. A batch committed
+ * before a crash is sent once the service restarts, and refunded
+ * accounts are left without a balance, so refunding again picks
+ * up where it stopped.
+ */
+@ApplicationScoped
+public class RefundService
+{
+    // Max Times To Build A Batch When Concurrent Changes Take Its Accounts Or Inputs
+    private static final int MAX_BUILD_ATTEMPTS = 3;
+
+    @ConfigProperty(name = "coinaccount.account.change")
+    UUID changeAccountId;
+
+    @ConfigProperty(name = "coinaccount.address.type")
+    DepositType defaultAddressType;
+
+    @ConfigProperty(name = "coinaccount.address.change.reuse")
+    boolean reuseChangeAddresses;
+
+    @ConfigProperty(name = "coinaccount.refund.target")
+    int blockConfirmationTarget;
+
+    @ConfigProperty(name = "coinaccount.refund.batch.recipients")
+    int maxBatchRecipients;
+
+    @ConfigProperty(name = "coinaccount.refund.minimum")
+    long minRefund;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    WalletService walletService;
+
+    @Inject
+    AccountDao accountDao;
+
+    @Inject
+    PoolFeeService poolFeeService;
+
+    @Inject
+    AddressService addressService;
+
+    @Inject
+    DepositDao depositDao;
+
+    @Inject
+    DepositIndex depositIndex;
+
+    @Inject
+    WithdrawRequestDao withdrawRequestDao;
+
+    @Inject
+    PendingWithdrawStore pendingWithdrawStore;
+
+    /**
+     * Refunds the next accounts after the given UUID in a
+     * single transaction, each account paying the fee for its
+     * own output plus an even share of the rest.
+     * <p>
+     * Accounts are skipped if their refund would be too small,
+     * they have withdrawals in progress, or the deposit pool
+     * cannot currently cover them.
+     * <p>
+     * No database transaction is held while waiting on the wallet.
+     * Accounts are read, the transaction is built and signed, then
+     * the accounts are debited in a short transaction that checks
+     * their balances did not change. The batch is built again if
+     * an account changed or its inputs were taken, and every account
+     * is skipped if that keeps happening.
+     * <p>
+     * The transaction is not sent to the network, broadcast it
+     * as a withdraw request using the returned TXID.
+     *
+     * @param after The UUID of the last account already checked.
+     * @return Information about the batch, without a TXID if every account was skipped, or null if no accounts are left.
+     * @throws FeeEstimationException If the node could not estimate fees.
+     */
+    public RefundBatchResult createRefundBatch(UUID after)
+    {
+        List<RefundCandidate> candidates = findCandidates(after);
+        if (candidates.isEmpty())
+        {
+            return null;
+        }
+        long feeRate = estimateFeeRate(blockConfirmationTarget);
+        String changeAddress = addressService.findOrCreate(changeAccountId, defaultAddressType, !reuseChangeAddresses);
+        long changeOutputWeight = getOutputWeight(walletService.getAddressInfo(changeAddress).getScriptPubKey());
+        Map<String, Long> returnOutputWeights = new HashMap<>();
+        for (int attempt = 1; ; attempt++)
+        {
+            RefundBatchResult result = buildRefundBatch(candidates, feeRate, changeAddress, changeOutputWeight,
+                returnOutputWeights, attempt >= MAX_BUILD_ATTEMPTS);
+            if (result != null)
+            {
+                return result;
+            }
+            // Read Accounts Again, Balances Or Withdrawals Changed While Signing
+            candidates = findCandidates(after);
+            if (candidates.isEmpty())
+            {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Reads the next refundable accounts after the given UUID.
+     *
+     * @param after The UUID of the last account already checked.
+     * @return The next refundable accounts, ordered by UUID.
+     */
+    @Transactional
+    List<RefundCandidate> findCandidates(UUID after)
+    {
+        List<RefundCandidate> candidates = new ArrayList<>();
+        for (Account account : accountDao.findRefundable(after, maxBatchRecipients))
+        {
+            candidates.add(new RefundCandidate(account.getAccountUUID(), account.getBalance(),
+                account.getReturnAddress(), isBusy(account)));
+        }
+        return candidates;
+    }
+
+    /**
+     * Builds and signs a refund batch for the given accounts
+     * without holding a database transaction, then persists it.
+     *
+     * @param candidates The next refundable accounts, ordered by UUID.
+     * @param feeRate The fee rate, in sat/kvB.
+     * @param changeAddress The address to send change to.
+     * @param changeOutputWeight The weight of the change output.
+     * @param returnOutputWeights The weight of each return address output already looked up, added to as needed.
+     * @param lastAttempt Whether to skip every account instead of building the batch again if it could not be persisted.
+     * @return Information about the batch, or null if it should be built again.
+     */
+    private RefundBatchResult buildRefundBatch(List<RefundCandidate> candidates, long feeRate, String changeAddress,
+        long changeOutputWeight, Map<String, Long> returnOutputWeights, boolean lastAttempt)
+    {
+        DepositShareEvaluator evaluator = new DepositShareEvaluator(feeRate);
+        // Skip Internal Accounts, Accounts With Withdrawals In Progress, & Balances Too Small Or Not Yet Withdrawable
+        List<RefundCandidate> recipients = new ArrayList<>();
+        List<Long> outputWeights = new ArrayList<>();
+        long withdrawable = depositIndex.getAggregates().getWithdrawableBalance();
+        for (RefundCandidate candidate : candidates)
+        {
+            if (candidate.busy || candidate.balance < minRefund || candidate.balance > withdrawable)
+            {
+                continue;
+            }
+            recipients.add(candidate);
+            outputWeights.add(returnOutputWeights.computeIfAbsent(candidate.returnAddress,
+                address -> getOutputWeight(walletService.getAddressInfo(address).getScriptPubKey())));
+            withdrawable -= candidate.balance;
+        }
+        // Select Inputs, Refunding Fewer Accounts Until The TX Is Standard & Every Refund Still Covers Its Fees
+        Set<Deposit> inputDeposits = null;
+        long[] fees = null;
+        long weight = 0L;
+        boolean trimmed = false;
+        while (inputDeposits == null && !recipients.isEmpty())
+        {
+            long target = 0L;
+            long recipientWeight = 0L;
+            for (int i = 0; i < recipients.size(); i++)
+            {
+                target += recipients.get(i).balance;
+                recipientWeight += outputWeights.get(i);
+            }
+            CoinSelectionState<Deposit> selection = new CoinSelectionBuilder<Deposit>()
+                .step(new LargestFirstCoinSelector<>(false), depositIndex.snapshot())
+                .evaluator(evaluator)
+                .target(target)
+                .select();
+            long sharedWeight = TX_VERSION_WEIGHT + TX_LOCKTIME_WEIGHT + TX_SEGWIT_MARKER_WEIGHT
+                + getCounterWeight(recipients.size() + 1) + changeOutputWeight + selection.getCost();
+            if (!selection.isComplete() || sharedWeight + recipientWeight > TX_MAX_STANDARD_WEIGHT)
+            {
+                // Refund The First Half Now, The Rest In Later Batches
+                int keep = recipients.size() / 2;
+                recipients.subList(keep, recipients.size()).clear();
+                outputWeights.subList(keep, outputWeights.size()).clear();
+                trimmed = true;
+                continue;
+            }
+            // Apportion Fees, Remainder Of Shared Weight Goes To The First Account
+            fees = new long[recipients.size()];
+            boolean tooSmall = false;
+            for (int i = recipients.size() - 1; i >= 0; i--)
+            {
+                long shareWeight = outputWeights.get(i) + sharedWeight / recipients.size();
+                if (i == 0)
+                {
+                    shareWeight += sharedWeight % recipients.size();
+                }
+                fees[i] = getFee(shareWeight, feeRate);
+                if (recipients.get(i).balance - fees[i] < minRefund)
+                {
+                    recipients.remove(i);
+                    outputWeights.remove(i);
+                    tooSmall = true;
+                }
+            }
+            if (tooSmall)
+            {
+                continue;
+            }
+            inputDeposits = new LinkedHashSet<>(selection.getSelection());
+            weight = sharedWeight + recipientWeight;
+        }
+        // Accounts Left Out By Trimming Are Checked Again Next Batch
+        UUID lastAccountId = (trimmed && !recipients.isEmpty())
+            ? recipients.get(recipients.size() - 1).accountId
+            : candidates.get(candidates.size() - 1).accountId;
+        int checkedAccounts = 0;
+        while (checkedAccounts < candidates.size() && !candidates.get(checkedAccounts).accountId.equals(lastAccountId))
+        {
+            checkedAccounts++;
+        }
+        RefundBatchResult result = new RefundBatchResult()
+            .setLastAccountId(lastAccountId)
+            .setRefundAmounts(new HashMap<>())
+            .setSkippedAccounts(checkedAccounts + 1 - recipients.size());
+        if (inputDeposits == null)
+        {
+            return result;
+        }
+        // Specify Inputs & Outputs, Accounts Sharing A Return Address Share An Output
+        Set<CreateRawTransactionInput> txInputs = new HashSet<>();
+        long totalValue = 0L;
+        for (Deposit inputDeposit : inputDeposits)
+        {
+            txInputs.add(new CreateRawTransactionInput(inputDeposit.getTXID(), inputDeposit.getVout()));
+            totalValue += inputDeposit.getAmount();
+        }
+        Map<String, Long> txOutputs = new HashMap<>();
+        Map<UUID, Long> debitedAmounts = new HashMap<>();
+        long totalDebited = 0L;
+        long totalRefunded = 0L;
+        long totalFees = 0L;
+        for (int i = 0; i < recipients.size(); i++)
+        {
+            RefundCandidate recipient = recipients.get(i);
+            long refundAmount = recipient.balance - fees[i];
+            txOutputs.merge(recipient.returnAddress, refundAmount, Long::sum);
+            result.getRefundAmounts().put(recipient.accountId, refundAmount);
+            debitedAmounts.put(recipient.accountId, recipient.balance);
+            totalDebited += recipient.balance;
+            totalRefunded += refundAmount;
+            totalFees += fees[i];
+        }
+        // Keep Change Only If Worth Keeping, Otherwise Change Account Gives It Up As Fees
+        long changeAmount = totalValue - totalDebited;
+        long costOfChange = evaluator.costImpactOnTarget(changeOutputWeight
+            + getInputWeight(defaultAddressType) + TX_INPUT_WITNESS_ITEM_COUNTER_WEIGHT);
+        long forfeitedChange = 0L;
+        if (changeAmount > costOfChange)
+        {
+            txOutputs.put(changeAddress, changeAmount);
+        }
+        else
+        {
+            forfeitedChange = changeAmount;
+            totalFees += changeAmount;
+        }
+        // Build & Sign Refund TX
+        String unsignedTxHex = walletService.createRawTransaction(txInputs, txOutputs);
+        String signedTxHex = walletService.signRawTransactionWithWallet(unsignedTxHex).getHex();
+        String txid = walletService.decodeRawTransaction(signedTxHex).getTxid();
+        if (!persistRefundBatch(txid, signedTxHex, inputDeposits, debitedAmounts, totalRefunded, totalFees, forfeitedChange))
+        {
+            if (!lastAttempt)
+            {
+                return null;
+            }
+            // Accounts Or Inputs Keep Changing, Skip Every Account Until The Next Run
+            logger.log(Level.WARN, String.format("Refund Batch Skipped: Accounts Or Inputs Changed While Signing: Accounts: %d", recipients.size()));
+            return result
+                .setRefundAmounts(new HashMap<>())
+                .setSkippedAccounts(checkedAccounts + 1);
+        }
+        logger.log(Level.INFO, String.format("Refund Batch Created: Accounts: %d, vsize: %d, Fees: %d, TXID: %s",
+            recipients.size(), getVsize(weight), totalFees, txid));
+        return result
+            .setTxid(txid)
+            .setFeeAmount(totalFees);
+    }
+
+    /**
+     * Claims the inputs of a signed refund batch and persists it
+     * as a change account request pending broadcast, debiting the
+     * refunded accounts together.
+     * <p>
+     * Nothing is written if any account balance changed, an account
+     * started a withdrawal, or an input was taken since the batch
+     * was built, since the signed transaction no longer matches.
+     *
+     * @param txid The TXID of the signed refund batch.
+     * @param signedTxHex The signed, hex-encoded refund batch.
+     * @param inputDeposits The deposits spent by the batch.
+     * @param debitedAmounts The balance each account had when the batch was built, debited in full.
+     * @param totalRefunded The total amount refunded.
+     * @param totalFees The total fees paid.
+     * @param forfeitedChange Change given up as fees by the change account.
+     * @return True if persisted, false if the batch no longer matches.
+     */
+    @Transactional
+    boolean persistRefundBatch(String txid, String signedTxHex, Set<Deposit> inputDeposits, Map<UUID, Long> debitedAmounts,
+        long totalRefunded, long totalFees, long forfeitedChange)
+    {
+        // Lock Refunded Accounts In Order, Their Balances Must Not Have Changed
+        List<UUID> accountIds = new ArrayList<>(debitedAmounts.keySet());
+        Collections.sort(accountIds);
+        List<Account> accounts = new ArrayList<>();
+        for (UUID accountId : accountIds)
+        {
+            Account account = accountDao.findForUpdate(accountId);
+            if (account == null || account.getBalance() != debitedAmounts.get(accountId) || isBusy(account))
+            {
+                return false;
+            }
+            accounts.add(account);
+        }
+        // Reserve & Claim Inputs, Unless A Concurrent Withdrawal Took Them First
+        if (!depositIndex.reserve(inputDeposits))
+        {
+            return false;
+        }
+        List<Deposit> claimed = depositDao.claim(inputDeposits);
+        if (claimed.size() != inputDeposits.size())
+        {
+            return false;
+        }
+        // Persist As Change Account Request Pending Broadcast, Debiting Refunded Accounts Together
+        Account changeAccount = accountDao.findOrCreate(changeAccountId);
+        poolFeeService.chargeFee(forfeitedChange);
+        WithdrawRequest request = new WithdrawRequest(txid, changeAccount, new LinkedHashSet<>(claimed), null,
+            totalRefunded, totalFees, signedTxHex, System.currentTimeMillis());
+        request.setComplete(false);
+        withdrawRequestDao.persist(request);
+        for (Deposit inputDeposit : claimed)
+        {
+            inputDeposit.setWithdrawLock(request);
+            depositDao.update(inputDeposit);
+        }
+        changeAccount.addWithdrawRequest(request);
+        accountDao.update(changeAccount);
+        for (Account account : accounts)
+        {
+            account.changeBalance(-account.getBalance());
+            accountDao.update(account);
+        }
+        return true;
+    }
+
+    /**
+     * Check whether an account cannot be refunded right now,
+     * either because it is internal or has withdrawals in progress.
+     *
+     * @param account The account.
+     * @return True if the account cannot be refunded right now.
+     */
+    private boolean isBusy(Account account)
+    {
+        UUID accountId = account.getAccountUUID();
+        return changeAccountId.equals(accountId) || !account.getWithdrawRequests().isEmpty()
+            || !pendingWithdrawStore.findAllByAccount(accountId).isEmpty();
+    }
+
+    /**
+     * Estimate the fee rate needed for a transaction to
+     * confirm within the given number of blocks.
+     *
+     * @param confirmationTarget The block confirmation target.
+     * @return The estimated fee rate, in sat/kvB.
+     * @throws FeeEstimationException If the node could not estimate fees.
+     */
+    private long estimateFeeRate(int confirmationTarget)
+    {
+        EstimateSmartFeeResult estimateSmartFeeResult = walletService.estimateSmartFee(confirmationTarget);
+        if (estimateSmartFeeResult.getErrors() != null)
+        {
+            for (String errorMessage : estimateSmartFeeResult.getErrors())
+            {
+                logger.log(Level.WARN, "Error estimating fees for refund! Error Message: " + errorMessage);
+            }
+            throw new FeeEstimationException();
+        }
+        return estimateSmartFeeResult.getFeeRate().getSatAmount();
+    }
+
+    /**
+     * The state of a refundable account when a batch was built.
+     */
+    static final class RefundCandidate
+    {
+        private final UUID accountId;
+        private final long balance;
+        private final String returnAddress;
+        private final boolean busy;
+
+        private RefundCandidate(UUID accountId, long balance, String returnAddress, boolean busy)
+        {
+            this.accountId = accountId;
+            this.balance = balance;
+            this.returnAddress = returnAddress;
+            this.busy = busy;
+        }
+    }
+}
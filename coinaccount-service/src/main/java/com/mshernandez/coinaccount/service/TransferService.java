@@ -1,8 +1,12 @@
 package com.mshernandez.coinaccount.service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -10,10 +14,14 @@ import jakarta.transaction.Transactional;
 
 import com.mshernandez.coinaccount.dao.AccountDao;
 import com.mshernandez.coinaccount.dao.DepositDao;
+import com.mshernandez.coinaccount.dao.PendingWithdrawStore;
+import com.mshernandez.coinaccount.dao.TransferQueue;
+import com.mshernandez.coinaccount.dao.TransferQueue.PendingTransfer;
 import com.mshernandez.coinaccount.entity.Account;
 import com.mshernandez.coinaccount.service.exception.InsufficientFundsException;
 import com.mshernandez.coinaccount.service.exception.UnaccountedFundsException;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 /**
@@ -22,6 +30,9 @@ import org.jboss.logging.Logger;
 @ApplicationScoped
 public class TransferService
 {
+    @ConfigProperty(name = "coinaccount.transfer.group.enabled")
+    boolean groupCommit;
+
     @Inject
     Logger logger;
 
@@ -31,10 +42,19 @@ public class TransferService
     @Inject
     DepositDao depositDao;
 
+    @Inject
+    PendingWithdrawStore pendingWithdrawStore;
+
+    @Inject
+    TransferQueue transferQueue;
+
     /**
      * Transfer balances from one account to
      * another, internally redistributing
      * deposit shares.
+     * <p>
+     * Balances held by pending withdraw requests
+     * kept in memory cannot be transferred.
      * 
      * @param senderId The sending account ID.
      * @param receiverId The receiving account ID.
@@ -45,25 +65,111 @@ public class TransferService
     @Transactional
     public void transferBalance(UUID senderId, UUID receiverId, boolean transferAll, long amount)
     {
-        Account sender = accountDao.find(senderId);
-        if (sender == null || (!transferAll && (amount <= 0L || sender.getBalance() < amount)))
+        transfer(senderId, receiverId, transferAll, amount);
+    }
+
+    /**
+     * Transfer balances from one account to another,
+     * or queue the transfer to be applied together with
+     * others in a shared transaction if group commits
+     * are enabled.
+     * 
+     * @param senderId The sending account ID.
+     * @param receiverId The receiving account ID.
+     * @param transferAll If true, ignores the amount and transfers all possible balances.
+     * @param amount The amount to transfer, in sats.
+     * @return Completes once the transfer is committed, or completes exceptionally if it was rejected.
+     */
+    public CompletableFuture<Void> submitTransfer(UUID senderId, UUID receiverId, boolean transferAll, long amount)
+    {
+        if (groupCommit)
         {
-            throw new InsufficientFundsException();
+            return transferQueue.add(senderId, receiverId, transferAll, amount);
+        }
+        try
+        {
+            transferBalance(senderId, receiverId, transferAll, amount);
+            return CompletableFuture.completedFuture(null);
+        }
+        catch (RuntimeException e)
+        {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Apply a group of queued transfers in order within a
+     * single transaction.
+     * <p>
+     * Each transfer is checked against the balances left by
+     * the transfers before it, a rejected transfer changes
+     * nothing and does not affect the others.
+     * <p>
+     * Callers should only answer the transfers once
+     * the transaction commits.
+     * 
+     * @param transfers The queued transfers.
+     * @return The reason each transfer was rejected, or null for applied transfers, in the same order.
+     */
+    @Transactional
+    public List<RuntimeException> applyTransfers(List<PendingTransfer> transfers)
+    {
+        List<RuntimeException> rejections = new ArrayList<>(transfers.size());
+        for (PendingTransfer transfer : transfers)
+        {
+            try
+            {
+                transfer(transfer.getSenderId(), transfer.getReceiverId(), transfer.isTransferAll(), transfer.getAmount());
+                rejections.add(null);
+            }
+            catch (InsufficientFundsException e)
+            {
+                rejections.add(e);
+            }
         }
-        Account receiver = accountDao.findOrCreate(receiverId);
-        // Transfer Balances
-        long senderBalance = sender.getBalance();
+        return rejections;
+    }
+
+    /**
+     * Transfer balances within the current transaction
+     * using conditional updates, so concurrent transfers
+     * involving the same accounts never conflict.
+     * <p>
+     * The sender is debited before the receiver is credited,
+     * nothing changes if the sender cannot afford the transfer.
+     * 
+     * @param senderId The sending account ID.
+     * @param receiverId The receiving account ID.
+     * @param transferAll If true, ignores the amount and transfers all possible balances.
+     * @param amount The amount to transfer, in sats.
+     * @throws InsufficientFundsException If the sender cannot afford the transfer.
+     */
+    private void transfer(UUID senderId, UUID receiverId, boolean transferAll, long amount)
+    {
+        // Sender Keeps Any Balance Held By Pending Withdraw Requests In Memory
+        long heldAmount = pendingWithdrawStore.getHeldAmount(senderId);
         if (transferAll)
         {
-            receiver.setBalance(receiver.getBalance() + senderBalance);
-            senderBalance = 0L;
+            Long senderBalance = accountDao.findBalance(senderId);
+            if (senderBalance == null)
+            {
+                throw new InsufficientFundsException();
+            }
+            amount = senderBalance - heldAmount;
+            if (amount <= 0L)
+            {
+                return;
+            }
         }
-        else
+        if (amount <= 0L || !accountDao.changeBalance(senderId, -amount, heldAmount))
         {
-            receiver.setBalance(receiver.getBalance() + amount);
-            senderBalance -= amount;
+            throw new InsufficientFundsException();
+        }
+        // Create Receiving Account If Needed
+        if (!accountDao.changeBalance(receiverId, amount, Long.MIN_VALUE))
+        {
+            accountDao.findOrCreate(receiverId).changeBalance(amount);
         }
-        sender.setBalance(senderBalance);
     }
 
     /**
@@ -114,24 +220,30 @@ public class TransferService
         {
             throw new UnaccountedFundsException();
         }
+        // Load & Lock Every Account At Once, In A Consistent Order
+        Map<UUID, Account> accounts = new HashMap<>();
+        for (Account account : accountDao.findAllForUpdate(changes.keySet()))
+        {
+            accounts.put(account.getAccountUUID(), account);
+        }
         // Attempt To Make Changes
         for (Entry<UUID, Long> change : changes.entrySet())
         {
             UUID accountId = change.getKey();
             long delta = change.getValue();
             // Find Account, Must Already Exist For Negative Amounts
-            Account account;
-            if (delta < 0L)
-            {
-                account = accountDao.find(accountId);
-            }
-            else
+            Account account = accounts.get(accountId);
+            if (account == null)
             {
+                if (delta < 0L)
+                {
+                    throw new InsufficientFundsException();
+                }
                 account = accountDao.findOrCreate(accountId);
             }
-            // Ensure Account Can Afford Changes
+            // Ensure Account Can Afford Changes, Including Any Held Balance
             long updatedBalance = account.getBalance() + delta;
-            if (updatedBalance < 0L)
+            if (updatedBalance - pendingWithdrawStore.getHeldAmount(accountId) < 0L)
             {
                 throw new InsufficientFundsException();
             }
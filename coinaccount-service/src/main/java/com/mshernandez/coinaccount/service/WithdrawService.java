@@ -1,12 +1,18 @@
 package com.mshernandez.coinaccount.service;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -16,26 +22,44 @@ import jakarta.transaction.Transactional;
 import com.mshernandez.coinaccount.dao.AccountDao;
 import com.mshernandez.coinaccount.dao.AddressDao;
 import com.mshernandez.coinaccount.dao.DepositDao;
+import com.mshernandez.coinaccount.dao.DepositIndex;
+import com.mshernandez.coinaccount.dao.PendingWithdrawStore;
+import com.mshernandez.coinaccount.dao.PoolAggregates;
+import com.mshernandez.coinaccount.dao.SentWithdrawDao;
+import com.mshernandez.coinaccount.dao.WithdrawBroadcastQueue;
 import com.mshernandez.coinaccount.dao.WithdrawRequestDao;
 import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.Address;
 import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.SentWithdraw;
 import com.mshernandez.coinaccount.entity.WithdrawRequest;
 import com.mshernandez.coinaccount.service.exception.CannotAffordFeesException;
 import com.mshernandez.coinaccount.service.exception.FeeEstimationException;
+import com.mshernandez.coinaccount.service.exception.InsufficientFundsException;
 import com.mshernandez.coinaccount.service.exception.InvalidAddressException;
 import com.mshernandez.coinaccount.service.exception.NotEnoughWithdrawableFundsException;
+import com.mshernandez.coinaccount.service.exception.TooManyRecipientsException;
 import com.mshernandez.coinaccount.service.exception.WithdrawRequestAlreadyExistsException;
 import com.mshernandez.coinaccount.service.exception.WithdrawRequestNotFoundException;
+import com.mshernandez.coinaccount.service.result.WithdrawFailedResult;
 import com.mshernandez.coinaccount.service.result.WithdrawRequestResult;
+import com.mshernandez.coinaccount.service.result.WithdrawSentResult;
 import com.mshernandez.coinaccount.service.util.BinarySearchCoinSelector;
+import com.mshernandez.coinaccount.service.util.BranchAndBoundCoinSelector;
 import com.mshernandez.coinaccount.service.util.CoinSelectionState;
 import com.mshernandez.coinaccount.service.util.CoinSelectionBuilder;
 import com.mshernandez.coinaccount.service.util.DepositShareEvaluator;
+import com.mshernandez.coinaccount.service.util.LargestFirstCoinSelector;
+import com.mshernandez.coinaccount.service.util.SingleRandomDrawCoinSelector;
 import com.mshernandez.coinaccount.service.wallet_rpc.WalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletRequestException;
+import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletResponseError;
 import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletResponseException;
 import com.mshernandez.coinaccount.service.wallet_rpc.parameter.CreateRawTransactionInput;
 import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.DecodeRawTransactionOutput;
 import com.mshernandez.coinaccount.service.wallet_rpc.result.EstimateSmartFeeResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.ValidateAddressResult;
 
 import static com.mshernandez.coinaccount.service.util.TXFeeUtilities.*;
 
@@ -52,14 +76,74 @@ public class WithdrawService
     // Match sus Address Patterns
     private static final Pattern SUS_PATTERN = Pattern.compile(".*[^a-zA-Z0-9].*");
 
+    // Max Selections To Try When Concurrent Withdrawals Take The Same Inputs
+    private static final int MAX_SELECTION_ATTEMPTS = 3;
+
     @ConfigProperty(name = "coinaccount.account.change")
     UUID changeAccountId;
 
     @ConfigProperty(name = "coinaccount.withdraw.target")
     int blockConfirmationTarget;
 
-    @ConfigProperty(name = "coinaccount.withdraw.expire")
-    long withdrawExpireTime;
+    @ConfigProperty(name = "coinaccount.withdraw.bnb.iterations")
+    int bnbMaxIterations;
+
+    @ConfigProperty(name = "coinaccount.withdraw.bnb.time")
+    long bnbMaxTime;
+
+    @ConfigProperty(name = "coinaccount.withdraw.selection.race")
+    boolean raceSelectors;
+
+    @ConfigProperty(name = "coinaccount.withdraw.selection.deadline")
+    long selectionDeadline;
+
+    @ConfigProperty(name = "coinaccount.withdraw.selection.wait")
+    long selectionMaxWait;
+
+    @ConfigProperty(name = "coinaccount.withdraw.selection.window")
+    int selectionWindow;
+
+    @ConfigProperty(name = "coinaccount.withdraw.longterm.target")
+    int longTermConfirmationTarget;
+
+    @ConfigProperty(name = "coinaccount.withdraw.batch.enabled")
+    boolean batchWithdrawals;
+
+    @ConfigProperty(name = "coinaccount.withdraw.batch.recipients")
+    int maxBatchRecipients;
+
+    @ConfigProperty(name = "coinaccount.withdraw.broadcast.async")
+    boolean asyncBroadcast;
+
+    @ConfigProperty(name = "coinaccount.withdraw.sign.deferred")
+    boolean deferSigning;
+
+    @ConfigProperty(name = "coinaccount.withdraw.pending.memory")
+    boolean keepPendingInMemory;
+
+    @ConfigProperty(name = "coinaccount.withdraw.requests.max")
+    int maxAccountRequests;
+
+    @ConfigProperty(name = "coinaccount.withdraw.recipients.max")
+    int maxWithdrawRecipients;
+
+    @ConfigProperty(name = "coinaccount.withdraw.change.split")
+    boolean splitLargeChange;
+
+    @ConfigProperty(name = "coinaccount.fanout.denomination")
+    long splitDenomination;
+
+    @ConfigProperty(name = "coinaccount.fanout.outputs.max")
+    int maxSplitOutputs;
+
+    @ConfigProperty(name = "coinaccount.change.unconfirmed.enabled")
+    boolean trustUnconfirmedChange;
+
+    @ConfigProperty(name = "coinaccount.change.unconfirmed.depth")
+    int maxUnconfirmedDepth;
+
+    @ConfigProperty(name = "coinaccount.withdraw.bump.enabled")
+    boolean bumpFees;
 
     @ConfigProperty(name = "coinaccount.address.type")
     DepositType defaultAddressType;
@@ -76,18 +160,49 @@ public class WithdrawService
     @Inject
     AccountDao accountDao;
 
+    @Inject
+    PoolFeeService poolFeeService;
+
     @Inject
     AddressDao addressDao;
 
     @Inject
     DepositDao depositDao;
 
+    @Inject
+    DepositIndex depositIndex;
+
     @Inject
     WithdrawRequestDao withdrawRequestDao;
 
+    @Inject
+    WithdrawBroadcastQueue withdrawBroadcastQueue;
+
+    @Inject
+    AddressService addressService;
+
+    @Inject
+    PendingWithdrawStore pendingWithdrawStore;
+
+    @Inject
+    SentWithdrawDao sentWithdrawDao;
+
+    private final AtomicBoolean sendingBatch = new AtomicBoolean();
+
     /**
      * Initiates a withdrawal that will not be sent to the network
      * until further confirmation is received.
+     * <p>
+     * The wallet is only contacted outside of database transactions,
+     * inputs are reserved in one short transaction and the signed
+     * transaction is attached to the request in another.
+     * <p>
+     * If signing is deferred, inputs are only reserved and the
+     * transaction is built and signed once the request is completed,
+     * so the returned result holds a request ID instead of a TXID.
+     * <p>
+     * If pending requests are kept in memory, nothing is written to
+     * the database until the request is completed.
      * 
      * @param initiatorId The ID of the account initiating the withdrawal.
      * @param destAddress The wallet address the account is attempting to withdraw to.
@@ -96,139 +211,272 @@ public class WithdrawService
      * @return An object holding withdraw details including determined fees.
      * @throws InvalidAddressException If an invalid address is given.
      * @throws NotEnoughWithdrawableFundsException If the account does not have enough funds to complete the withdrawal.
-     * @throws CannotAffordFeesException If the account cannot afford the fees to complete the withdrawal.
+     * @throws CannotAffordFeesException If the account cannot afford the fees to complete the withdrawal, or the amount is at or below the dust limit.
      */
-    @Transactional
     public WithdrawRequestResult initiateWithdrawRequest(UUID initiatorId, String destAddress, boolean withdrawAll, long amount)
     {
-        // Prevent Possibility Of JSON-RPC Injection, Just In Case
-        if (SUS_PATTERN.matcher(destAddress).matches())
+        Map<String, Long> recipients = new HashMap<>();
+        recipients.put(destAddress, amount);
+        return initiate(initiatorId, recipients, withdrawAll);
+    }
+
+    /**
+     * Initiates a withdrawal paying several recipients in a single
+     * transaction, with the total cost charged to the initiating account.
+     * <p>
+     * Inputs are selected once for all recipients, so the withdrawal
+     * pays for a single transaction overhead and at most one change
+     * output. Amounts sent to the same address are combined.
+     * <p>
+     * Requests with more than one recipient are always signed when
+     * initiated and are never batched, since only their transaction
+     * records every recipient.
+     * 
+     * @param initiatorId The ID of the account initiating the withdrawal.
+     * @param recipients The amount to send to each recipient address, excluding fees.
+     * @return An object holding withdraw details including determined fees, the withdraw amount covering every recipient.
+     * @throws TooManyRecipientsException If there are no recipients or more than the configured max.
+     * @throws InvalidAddressException If an invalid address is given.
+     * @throws NotEnoughWithdrawableFundsException If the account does not have enough funds to complete the withdrawal.
+     * @throws CannotAffordFeesException If the account cannot afford the fees or any recipient amount is at or below the dust limit.
+     */
+    public WithdrawRequestResult initiateWithdrawRequest(UUID initiatorId, Map<String, Long> recipients)
+    {
+        if (recipients.isEmpty() || recipients.size() > maxWithdrawRecipients)
         {
-            String logMsg = String.format("User %s provided a potentially malicious address string! \"%s\"", initiatorId, destAddress);
-            logger.log(Level.WARN, logMsg);
-            throw new InvalidAddressException();
+            throw new TooManyRecipientsException();
         }
-        // Validate Address
-        if (!walletService.validateAddress(destAddress).isValid())
+        long totalAmount = 0L;
+        for (long recipientAmount : recipients.values())
         {
-            throw new InvalidAddressException();
+            if (recipientAmount <= 0L)
+            {
+                throw new CannotAffordFeesException();
+            }
+            // Reject Totals No Balance Could Cover
+            totalAmount += recipientAmount;
+            if (totalAmount < 0L)
+            {
+                throw new NotEnoughWithdrawableFundsException();
+            }
         }
-        // Account Must Already Exist (Otherwise Zero Balance)
-        Account initiator = accountDao.find(initiatorId);
-        if (initiator == null)
+        return initiate(initiatorId, new HashMap<>(recipients), false);
+    }
+
+    /**
+     * Validates the recipients of a new withdrawal, reserves its
+     * inputs, then builds and signs its transaction unless signing
+     * is deferred.
+     * 
+     * @param initiatorId The ID of the account initiating the withdrawal.
+     * @param recipients The amount to send to each recipient address, excluding fees.
+     * @param withdrawAll If true, the single recipient receives all balances greater than the fees required to withdraw them.
+     * @return An object holding withdraw details including determined fees.
+     */
+    private WithdrawRequestResult initiate(UUID initiatorId, Map<String, Long> recipients, boolean withdrawAll)
+    {
+        long amount = 0L;
+        long recipientOutputWeight = 0L;
+        for (Map.Entry<String, Long> recipient : recipients.entrySet())
         {
-            throw new NotEnoughWithdrawableFundsException();
+            ValidateAddressResult addressResult = validateRecipient(initiatorId, recipient.getKey());
+            long outputWeight = getOutputWeight(addressResult.getScriptPubKey());
+            // Nodes Would Not Relay A TX Paying Dust, Amount Withdrawing Everything Is Checked Once Known
+            if (!withdrawAll && recipient.getValue() <= getDustLimit(outputWeight, addressResult.isWitness()))
+            {
+                throw new CannotAffordFeesException();
+            }
+            recipientOutputWeight += outputWeight;
+            amount += recipient.getValue();
         }
-        // Make Sure No Existing Request Already Exists
-        if (initiator.getWithdrawRequest() != null)
+        // Single Recipient Requests Keep Their Address, Others Are Only Described By Their TX
+        String destAddress = recipients.size() == 1 ? recipients.keySet().iterator().next() : null;
+        boolean signNow = !deferSigning || destAddress == null;
+        // Calculate Weight Of Change Output, Only Added If Change Is Worth Keeping
+        String changeAddress = null;
+        long changeOutputWeight;
+        if (!signNow)
         {
-            throw new WithdrawRequestAlreadyExistsException();
+            // Change Address Only Created Once Signed, Size By Address Type
+            changeOutputWeight = getOutputWeight(defaultAddressType);
         }
-        // Initial Check That Initiator Has Enough Funds (Ignoring Fees For Now)
-        long withdrawableBalance = Math.min(initiator.getBalance(), depositDao.getWithdrawableBalance());
-        if ((!withdrawAll && withdrawableBalance < amount) || withdrawableBalance == 0)
+        else
         {
-            throw new NotEnoughWithdrawableFundsException();
+            changeAddress = addressService.findOrCreate(changeAccountId, defaultAddressType, !reuseChangeAddresses);
+            changeOutputWeight = getOutputWeight(walletService.getAddressInfo(changeAddress).getScriptPubKey());
         }
-        // Begin Creating New Withdraw Request
-        Account changeAccount = accountDao.findOrCreate(changeAccountId);
-        // Calculate Base TX Size Excluding Input Counter & Inputs (Unknown At This Point)
-        double vsize = TX_VERSION_VSIZE + TX_LOCKTIME_VSIZE + TX_SEGWIT_MARKER_VSIZE + getCounterByteSize(2);
-        // Calculate Size Of Output To External Address
-        try
+        // Get Current Fee Rate Estimate
+        long feeRate = estimateFeeRate(blockConfirmationTarget);
+        DepositShareEvaluator evaluator = createEvaluator(feeRate, withdrawAll);
+        // Reserve Inputs & Amounts Under A Request ID, Reselect In A New Transaction If Another Withdrawal Takes Them First
+        // Requests Signed Now Are Held In Memory While Signing, Then Written Once Signed
+        WithdrawRequest request = null;
+        for (int attempt = 0; request == null && attempt < MAX_SELECTION_ATTEMPTS; attempt++)
         {
-            vsize += getOutputSize(walletService.getAddressInfo(destAddress).getScriptPubKey());
+            request = reserveWithdraw(initiatorId, destAddress, withdrawAll, amount, recipients.size(),
+                recipientOutputWeight, changeOutputWeight, feeRate, evaluator, keepPendingInMemory || signNow);
         }
-        catch (WalletResponseException e)
+        if (request == null)
         {
-            throw new InvalidAddressException();
+            throw new CannotAffordFeesException();
         }
-        // Calculate Size Of Change Output
-        String changeAddress = addressDao.findOrCreate(changeAccount, defaultAddressType, !reuseChangeAddresses).getAddress();
-        vsize += getOutputSize(walletService.getAddressInfo(changeAddress).getScriptPubKey());
-        // Get Current Fee Rate Estimate
-        EstimateSmartFeeResult estimateSmartFeeResult = walletService.estimateSmartFee(blockConfirmationTarget);
-        if (estimateSmartFeeResult.getErrors() != null)
+        if (signNow)
         {
-            for (String errorMessage : estimateSmartFeeResult.getErrors())
+            // Single Recipient Amount Is Only Known Once Reserved When Withdrawing Everything
+            if (destAddress != null)
             {
-                logger.log(Level.WARN, "Error estimating fees for withdrawal!"
-                    + " Your node may not have been running long enough to properly estimate fees."
-                    + " Error Message: " + errorMessage);
+                recipients.put(destAddress, request.getWithdrawAmount());
+            }
+            // Split Large Change Into Ready To Spend Outputs, If Enabled
+            long[] changeAmounts = splitChange(request.getChangeAmount(), changeOutputWeight, feeRate);
+            long changeFee = request.getChangeAmount();
+            // Build & Sign TX, Releasing The Reservation If The Wallet Fails
+            String signedTxHex;
+            String withdrawTxid;
+            try
+            {
+                Map<String, Long> changeOutputs = new HashMap<>();
+                for (int i = 0; i < changeAmounts.length; i++)
+                {
+                    String address = (i == 0) ? changeAddress : addressService.create(changeAccountId, defaultAddressType);
+                    changeOutputs.put(address, changeAmounts[i]);
+                    changeFee -= changeAmounts[i];
+                }
+                signedTxHex = buildWithdrawTransaction(request.getInputs(), recipients, changeOutputs);
+                withdrawTxid = walletService.decodeRawTransaction(signedTxHex).getTxid();
+            }
+            catch (WalletRequestException e)
+            {
+                cancelWithdraw(request.getTxid());
+                throw e;
+            }
+            try
+            {
+                request = attachSignedTransaction(request.getTxid(), withdrawTxid, signedTxHex, changeFee);
+            }
+            catch (RuntimeException e)
+            {
+                // Release The Signed Request If It Could Not Be Written
+                if (!keepPendingInMemory)
+                {
+                    pendingWithdrawStore.remove(withdrawTxid);
+                }
+                throw e;
             }
-            throw new FeeEstimationException();
         }
-        long feeRateKb = estimateSmartFeeResult.getFeeRate().getSatAmount();
-        double feeRateByte = feeRateKb / 1000.0;
-        long totalFees = (long) Math.ceil(vsize * feeRateByte);
-        // Select Input Deposits Considering Fees
-        DepositShareEvaluator evaluator = new DepositShareEvaluator(feeRateByte);
-        CoinSelectionState<Deposit> selectionResult;
-        if (withdrawAll)
+        return new WithdrawRequestResult()
+            .setTxid(request.getTxid())
+            .setWithdrawAmount(request.getWithdrawAmount())
+            .setFeeAmount(request.getFeeAmount())
+            .setTotalCost(request.getTotalCost());
+    }
+
+    /**
+     * Selects and locks the inputs of a new withdrawal, holding
+     * the total cost from the account balance, and records the
+     * request without a transaction.
+     * <p>
+     * Requests held in memory are only written once completed,
+     * or once signed if pending requests are not kept in memory.
+     * 
+     * @param initiatorId The ID of the account initiating the withdrawal.
+     * @param destAddress The wallet address the account is attempting to withdraw to, or null if there are several recipients.
+     * @param withdrawAll If true, ignores the amount and withdraws all balances greater than the fees required to withdraw them.
+     * @param amount The amount the account is attempting to withdraw, excluding fees.
+     * @param recipientCount The number of recipient outputs.
+     * @param recipientOutputWeight The combined weight of the recipient outputs.
+     * @param changeOutputWeight The weight of a change output.
+     * @param feeRate The fee rate, in sat/kvB.
+     * @param evaluator The evaluator to select inputs with.
+     * @param holdInMemory Whether to hold the inputs and balance in memory instead of writing the request.
+     * @return The unsigned withdraw request, or null if the selected inputs were taken by another withdrawal.
+     * @throws NotEnoughWithdrawableFundsException If the account does not have enough funds to complete the withdrawal.
+     * @throws CannotAffordFeesException If the account cannot afford the fees to complete the withdrawal.
+     */
+    @Transactional
+    WithdrawRequest reserveWithdraw(UUID initiatorId, String destAddress, boolean withdrawAll, long amount, int recipientCount,
+        long recipientOutputWeight, long changeOutputWeight, long feeRate, DepositShareEvaluator evaluator, boolean holdInMemory)
+    {
+        // Account Must Already Exist (Otherwise Zero Balance), Lock So Concurrent Requests Take Turns
+        Account initiator = accountDao.findForUpdate(initiatorId);
+        if (initiator == null)
         {
-            selectionResult = new CoinSelectionBuilder<Deposit>()
-                .step(new BinarySearchCoinSelector<>(-1, false), new LinkedHashSet<>(depositDao.findAllWithdrawable()))
-                .evaluator(evaluator)
-                .target(withdrawableBalance)
-                .select();
+            throw new NotEnoughWithdrawableFundsException();
         }
-        else
+        // Make Sure Account Does Not Have Too Many Open Requests, Sent & Failed Requests No Longer Count
+        List<WithdrawRequest> pendingRequests = pendingWithdrawStore.findAllByAccount(initiatorId);
+        if (initiator.countOpenWithdrawRequests() + pendingRequests.size() >= maxAccountRequests)
         {
-            selectionResult = new CoinSelectionBuilder<Deposit>()
-                .step(new BinarySearchCoinSelector<>(), new LinkedHashSet<>(depositDao.findAllWithdrawable()))
-                .evaluator(evaluator)
-                .target(amount)
-                .select();
+            throw new WithdrawRequestAlreadyExistsException();
         }
-        if (!selectionResult.isComplete())
+        // Initial Check That Initiator Has Enough Funds (Ignoring Fees For Now), Excluding Balance Held In Memory
+        long balance = initiator.getBalance() - pendingWithdrawStore.getHeldAmount(initiatorId);
+        PoolAggregates aggregates = depositIndex.getAggregates();
+        long withdrawableBalance = Math.min(balance, aggregates.getWithdrawableBalance());
+        if ((!withdrawAll && withdrawableBalance < amount) || withdrawableBalance == 0)
         {
-            throw new CannotAffordFeesException();
+            throw new NotEnoughWithdrawableFundsException();
         }
-        Set<Deposit> inputDeposits = selectionResult.getSelection();
-        // Calculate Final TX Size Based On Selected Inputs
-        vsize += selectionResult.getCost();
-        totalFees = (long) Math.ceil(vsize * feeRateByte);
-        // Begin Building TX, Specify Selected Transaction Inputs
-        long totalValue = 0L;
-        Set<CreateRawTransactionInput> txInputs = new HashSet<>();
-        for (Deposit inputDeposit : inputDeposits)
+        // Calculate Base TX Weight Excluding Input Counter, Inputs, & Change (Unknown At This Point)
+        long weight = getBaseWeight(recipientCount, recipientOutputWeight);
+        // Cost Of Change: Creating The Change Output Now & Spending It Later
+        long costOfChange = evaluator.costImpactOnTarget(changeOutputWeight
+            + getInputWeight(defaultAddressType) + TX_INPUT_WITNESS_ITEM_COUNTER_WEIGHT);
+        // Select Input Deposits Considering Fees
+        long target = withdrawAll ? withdrawableBalance : amount + evaluator.costImpactOnTarget(weight);
+        Set<Deposit> selection = null;
+        long inputWeight = 0L;
+        if (withdrawAll && balance >= aggregates.getWithdrawableBalance())
         {
-            txInputs.add(new CreateRawTransactionInput(inputDeposit.getTXID(), inputDeposit.getVout()));
-            totalValue += inputDeposit.getAmount();
+            // Spending The Whole Pool, Weigh Inputs From Pool Aggregates Instead Of Selecting
+            selection = depositIndex.reserveAll(aggregates);
+            inputWeight = getPoolInputWeight(aggregates);
         }
-        // Specify Recipient TX Output
-        Map<String, Long> txOutputs = new HashMap<>();
-        long recipientAmount = withdrawAll ? (withdrawableBalance - totalFees) : amount;
-        txOutputs.put(destAddress, recipientAmount);
-        // Final Check Whether Total Cost Exceeds Balance
-        long totalCost = recipientAmount + totalFees;
-        if (totalCost > withdrawableBalance)
+        if (selection == null)
         {
-            throw new CannotAffordFeesException();
+            CoinSelectionState<Deposit> selectionResult = selectPreferringConfirmed(evaluator, withdrawAll, target, costOfChange);
+            if (!selectionResult.isComplete())
+            {
+                throw new CannotAffordFeesException();
+            }
+            if (!depositIndex.reserve(selectionResult.getSelection()))
+            {
+                return null;
+            }
+            selection = selectionResult.getSelection();
+            inputWeight = selectionResult.getCost();
         }
-        initiator.changeBalance(-totalCost);
-        // Specify Change TX Output
-        long changeAmount = totalValue - (recipientAmount + totalFees);
-        if (changeAmount > 0L)
+        // Nothing Written Yet, Ending The Transaction Releases Any Rows Claimed Before Reselecting
+        Set<Deposit> inputDeposits = claimDeposits(selection);
+        if (inputDeposits == null)
         {
-            txOutputs.put(changeAddress, changeAmount);
+            return null;
         }
-        // Build Withdraw TX
-        String unsignedTxHex;
-        try
+        // Calculate TX Weight Based On Selected Inputs
+        weight += inputWeight;
+        long totalValue = 0L;
+        for (Deposit inputDeposit : inputDeposits)
         {
-            unsignedTxHex = walletService.createRawTransaction(txInputs, txOutputs);
+            totalValue += inputDeposit.getAmount();
         }
-        catch (WalletResponseException e)
+        // Determine Fees & Whether Change Output Is Needed
+        WithdrawAmounts amounts = divideInputValue(totalValue, weight, changeOutputWeight, feeRate, costOfChange, withdrawAll, withdrawableBalance, amount);
+        long totalCost = amounts.recipientAmount + amounts.totalFees;
+        long timestamp = System.currentTimeMillis();
+        WithdrawRequest request = new WithdrawRequest(initiator, inputDeposits, destAddress,
+            amounts.recipientAmount, amounts.totalFees, amounts.changeAmount, timestamp);
+        if (holdInMemory)
         {
-            logger.error("Failed to create withdraw transaction! Error: " + e.getMessage());
-            throw e;
+            // Hold Inputs & Balance In Memory, Nothing Written Until Signed Or Completed
+            if (!pendingWithdrawStore.add(request))
+            {
+                throw new CannotAffordFeesException();
+            }
+            logger.log(Level.INFO, String.format("Withdraw Request Created: Account %s, vsize: %d, Fees: %d", initiatorId, getVsize(amounts.weight), amounts.totalFees));
+            return request;
         }
-        String signedTxHex = walletService.signRawTransactionWithWallet(unsignedTxHex).getHex();
-        String withdrawTxid = walletService.decodeRawTransaction(signedTxHex).getTxid();
+        initiator.changeBalance(-totalCost);
         // Persist Withdraw Request For Future Confirmation With Timestamp
-        long timestamp = System.currentTimeMillis();
-        WithdrawRequest request = new WithdrawRequest(withdrawTxid, initiator, inputDeposits, recipientAmount, totalFees, signedTxHex, timestamp);
         withdrawRequestDao.persist(request);
         // Lock Input Deposits, Prevent Attempts To Spend Same UTXOs
         for (Deposit inputDeposit : request.getInputs())
@@ -236,15 +484,122 @@ public class WithdrawService
             inputDeposit.setWithdrawLock(request);
             depositDao.update(inputDeposit);
         }
-        initiator.setWithdrawRequest(request);
+        initiator.addWithdrawRequest(request);
         accountDao.update(initiator);
-        accountDao.update(changeAccount);
-        logger.log(Level.INFO, String.format("Withdraw Request Created: Account %s, vsize: %.2f, Fees: %d", initiatorId, vsize, totalFees));
+        logger.log(Level.INFO, String.format("Withdraw Request Created: Account %s, vsize: %d, Fees: %d", initiatorId, getVsize(amounts.weight), amounts.totalFees));
+        return request;
+    }
+
+    /**
+     * Attaches a signed transaction to a withdraw request
+     * reserved without one, after checking the request was
+     * not canceled or expired while it was being signed.
+     * <p>
+     * Requests held in memory while signing are written once,
+     * already signed, unless pending requests are kept in memory.
+     * Persisted requests with deferred signing are replaced,
+     * since their ID changes to the TXID once signed.
+     * 
+     * @param requestId The ID of the unsigned withdraw request.
+     * @param txid The TXID of the signed transaction.
+     * @param signedTxHex The signed, hex-encoded transaction.
+     * @param changeFee The fees paid by the change account for splitting change.
+     * @return The signed withdraw request now holding the input locks.
+     * @throws WithdrawRequestNotFoundException If the request no longer exists.
+     */
+    @Transactional
+    WithdrawRequest attachSignedTransaction(String requestId, String txid, String signedTxHex, long changeFee)
+    {
+        WithdrawRequest pendingRequest = pendingWithdrawStore.find(requestId);
+        if (pendingRequest != null)
+        {
+            // Still Only In Memory, Replace Without Writing
+            WithdrawRequest signedRequest = new WithdrawRequest(txid, pendingRequest.getAccount(), pendingRequest.getInputs(),
+                pendingRequest.getDestAddress(), pendingRequest.getWithdrawAmount(), pendingRequest.getFeeAmount(),
+                signedTxHex, pendingRequest.getTimestamp());
+            signedRequest.setChangeFeeAmount(changeFee);
+            if (!pendingWithdrawStore.replace(requestId, signedRequest))
+            {
+                throw new WithdrawRequestNotFoundException();
+            }
+            return keepPendingInMemory ? signedRequest : persistPending(txid);
+        }
+        WithdrawRequest deferredRequest = withdrawRequestDao.find(requestId);
+        if (deferredRequest == null || deferredRequest.isComplete() || deferredRequest.isSigned())
+        {
+            throw new WithdrawRequestNotFoundException();
+        }
+        return replaceRequest(deferredRequest, txid, signedTxHex, changeFee);
+    }
+
+    /**
+     * Estimates the amounts of a withdrawal without creating a
+     * withdraw request, transaction, or change address.
+     * <p>
+     * Inputs are selected but not reserved, so a later withdraw
+     * request may select different inputs and pay different fees.
+     * No database transaction is held while waiting on the wallet,
+     * and balances held by pending requests are not quotable.
+     * 
+     * @param initiatorId The ID of the account quoting the withdrawal.
+     * @param destAddress The wallet address the account would withdraw to.
+     * @param withdrawAll If true, ignores the amount and quotes withdrawing all balances greater than the fees required to withdraw them.
+     * @param amount The amount the account would withdraw, excluding fees.
+     * @return An object holding the estimated withdraw amount, fees, and total cost, without a TXID.
+     * @throws InvalidAddressException If an invalid address is given.
+     * @throws NotEnoughWithdrawableFundsException If the account does not have enough funds to make the withdrawal.
+     * @throws CannotAffordFeesException If the account cannot afford the fees to make the withdrawal.
+     */
+    public WithdrawRequestResult quoteWithdraw(UUID initiatorId, String destAddress, boolean withdrawAll, long amount)
+    {
+        long recipientOutputWeight = getRecipientOutputWeight(initiatorId, destAddress);
+        // Check That Account Has Enough Funds (Ignoring Fees For Now), Excluding Balance Held In Memory
+        Long storedBalance = accountDao.findBalance(initiatorId);
+        if (storedBalance == null)
+        {
+            throw new NotEnoughWithdrawableFundsException();
+        }
+        long balance = storedBalance - pendingWithdrawStore.getHeldAmount(initiatorId);
+        PoolAggregates aggregates = depositIndex.getAggregates();
+        long withdrawableBalance = Math.min(balance, aggregates.getWithdrawableBalance());
+        if ((!withdrawAll && withdrawableBalance < amount) || withdrawableBalance <= 0)
+        {
+            throw new NotEnoughWithdrawableFundsException();
+        }
+        // Size TX Like A Single Recipient Request, Change Output Sized By Address Type Instead Of Creating An Address
+        long weight = getBaseWeight(1, recipientOutputWeight);
+        long changeOutputWeight = getOutputWeight(defaultAddressType);
+        long feeRate = estimateFeeRate(blockConfirmationTarget);
+        DepositShareEvaluator evaluator = createEvaluator(feeRate, withdrawAll);
+        long costOfChange = evaluator.costImpactOnTarget(changeOutputWeight
+            + getInputWeight(defaultAddressType) + TX_INPUT_WITNESS_ITEM_COUNTER_WEIGHT);
+        // Select Inputs Without Reserving Them
+        long target = withdrawAll ? withdrawableBalance : amount + evaluator.costImpactOnTarget(weight);
+        long totalValue;
+        if (withdrawAll && balance >= aggregates.getWithdrawableBalance())
+        {
+            totalValue = aggregates.getWithdrawableBalance();
+            weight += getPoolInputWeight(aggregates);
+        }
+        else
+        {
+            CoinSelectionState<Deposit> selectionResult = selectPreferringConfirmed(evaluator, withdrawAll, target, costOfChange);
+            if (!selectionResult.isComplete())
+            {
+                throw new CannotAffordFeesException();
+            }
+            totalValue = 0L;
+            for (Deposit deposit : selectionResult.getSelection())
+            {
+                totalValue += deposit.getAmount();
+            }
+            weight += selectionResult.getCost();
+        }
+        WithdrawAmounts amounts = divideInputValue(totalValue, weight, changeOutputWeight, feeRate, costOfChange, withdrawAll, withdrawableBalance, amount);
         return new WithdrawRequestResult()
-            .setTxid(withdrawTxid)
-            .setWithdrawAmount(recipientAmount)
-            .setFeeAmount(totalFees)
-            .setTotalCost(totalCost);
+            .setWithdrawAmount(amounts.recipientAmount)
+            .setFeeAmount(amounts.totalFees)
+            .setTotalCost(amounts.recipientAmount + amounts.totalFees);
     }
 
     /**
@@ -257,12 +612,46 @@ public class WithdrawService
     @Transactional
     public void cancelWithdraw(String withdrawTxid)
     {
+        if (cancelPending(withdrawTxid) != null)
+        {
+            return;
+        }
         WithdrawRequest withdrawRequest = withdrawRequestDao.find(withdrawTxid);
         if (withdrawRequest == null || withdrawRequest.isComplete())
         {
             throw new WithdrawRequestNotFoundException();
         }
-        Account initiatorAccount = withdrawRequest.getAccount();
+        cancel(withdrawRequest);
+    }
+
+    /**
+     * Cancel the given withdraw request if kept in memory,
+     * releasing the deposits and balance it holds.
+     * 
+     * @param withdrawTxid The TXID or request ID of the withdraw request.
+     * @return The UUID of the initiating account, or null if the request was not in memory.
+     */
+    private UUID cancelPending(String withdrawTxid)
+    {
+        WithdrawRequest pendingRequest = pendingWithdrawStore.remove(withdrawTxid);
+        if (pendingRequest == null)
+        {
+            return null;
+        }
+        UUID accountId = pendingRequest.getAccount().getAccountUUID();
+        logger.log(Level.INFO, String.format("Withdraw Request Canceled: Account %s", accountId));
+        return accountId;
+    }
+
+    /**
+     * Cancel the given withdraw request, unlocking the
+     * deposits involved for future withdrawals.
+     * 
+     * @param withdrawRequest The incomplete withdraw request.
+     */
+    private void cancel(WithdrawRequest withdrawRequest)
+    {
+        Account initiatorAccount = accountDao.findForUpdate(withdrawRequest.getAccount().getAccountUUID());
         // Unlock UTXOs For Future Use
         Set<Deposit> lockedDeposits = withdrawRequest.getInputs();
         for (Deposit lockedDeposit : lockedDeposits)
@@ -273,23 +662,28 @@ public class WithdrawService
         // Restore Funds
         initiatorAccount.changeBalance(withdrawRequest.getTotalCost());
         // Remove Withdraw Request
-        initiatorAccount.setWithdrawRequest(null);
+        initiatorAccount.removeWithdrawRequest(withdrawRequest);
         accountDao.update(initiatorAccount);
         withdrawRequestDao.remove(withdrawRequest);
         logger.log(Level.INFO, String.format("Withdraw Request Canceled: Account %s", initiatorAccount.getAccountUUID()));
     }
 
     /**
-     * Cancel the given withdraw request, unlocking the
-     * deposits involved for future withdrawals.
+     * Cancel the oldest withdraw request of the given account,
+     * unlocking the deposits involved for future withdrawals.
      * 
      * @param initiatorId The UUID of the initiating account.
-     * @return True if the request was found and canceled.
      * @throws WithdrawRequestNotFoundException If the request was not found.
      */
     @Transactional
     public void cancelWithdraw(UUID initiatorId)
     {
+        WithdrawRequest pendingRequest = pendingWithdrawStore.findByAccount(initiatorId);
+        if (pendingRequest != null)
+        {
+            cancelWithdraw(pendingRequest.getTxid());
+            return;
+        }
         Account initiator = accountDao.find(initiatorId);
         if (initiator == null || initiator.getWithdrawRequest() == null)
         {
@@ -299,102 +693,1293 @@ public class WithdrawService
     }
 
     /**
-     * Sends a pending withdraw transaction out to the network.
+     * Cancel a withdraw request of the given account,
+     * unlocking the deposits involved for future withdrawals.
      * 
-     * @param withdrawTxid The TXID of the withdraw request.
-     * @return The TXID of the sent transaction.
-     * @throws WithdrawRequestNotFoundException If the request was not found.
+     * @param initiatorId The UUID of the initiating account.
+     * @param withdrawTxid The TXID or request ID of the withdraw request.
+     * @throws WithdrawRequestNotFoundException If the account has no such request.
      */
     @Transactional
-    public String completeWithdraw(String withdrawTxid)
+    public void cancelWithdraw(UUID initiatorId, String withdrawTxid)
     {
-        WithdrawRequest withdrawRequest = withdrawRequestDao.find(withdrawTxid);
-        if (withdrawRequest == null)
+        if (!isOwnRequest(initiatorId, withdrawTxid))
         {
             throw new WithdrawRequestNotFoundException();
         }
-        // Broadcast Transaction
-        String txid = walletService.sendRawTransaction(withdrawRequest.getTxHex());
-        // Clear Request From Initiator Account
-        Account initiator = withdrawRequest.getAccount();
-        initiator.setWithdrawRequest(null);
-        // Remove Withdraw Request & Spent TX Output Records
-        Set<Deposit> inputs = withdrawRequest.getInputs();
-        for (Deposit input : inputs)
-        {
-            depositDao.remove(input);
-        }
-        withdrawRequestDao.remove(withdrawRequest);
-        accountDao.update(initiator);
-        // Log Broadcasted Withdraw
-        logger.info(String.format("Withdraw Request Completed: Account: %s, TXID: %s", initiator.getAccountUUID(), txid));
-        return txid;
+        cancelWithdraw(withdrawTxid);
     }
 
     /**
-     * Sends a pending withdraw transaction out to the network.
+     * Check whether a pending withdraw request
+     * was initiated by the given account.
      * 
-     * @param initiatorId The UUID of the initiating account.
-     * @return The TXID of the sent transaction.
-     * @throws WithdrawRequestNotFoundException If the request was not found.
+     * @param initiatorId The UUID of the account.
+     * @param withdrawTxid The TXID or request ID of the withdraw request.
+     * @return True if the request exists and was initiated by the account.
      */
-    @Transactional
-    public String completeWithdraw(UUID initiatorId)
+    private boolean isOwnRequest(UUID initiatorId, String withdrawTxid)
     {
-        Account initiator = accountDao.find(initiatorId);
-        if (initiator == null || initiator.getWithdrawRequest() == null)
+        WithdrawRequest request = pendingWithdrawStore.find(withdrawTxid);
+        if (request == null)
         {
-            throw new WithdrawRequestNotFoundException();
+            request = withdrawRequestDao.find(withdrawTxid);
         }
-        return completeWithdraw(initiator.getWithdrawRequest().getTxid());
+        return request != null && request.getAccount().getAccountUUID().equals(initiatorId);
     }
 
     /**
-     * Get any active withdraw request for the
-     * given account.
+     * Sends a pending withdraw transaction out to the network.
+     * <p>
+     * If withdraw batching is enabled, withdrawals to a single
+     * recipient are instead queued to be sent together
+     * by <code>sendWithdrawBatch</code>.
+     * <p>
+     * Requests with deferred signing have their transaction
+     * built and signed first, after which the request is
+     * identified by the TXID of the signed transaction.
+     * <p>
+     * No database transaction is held while waiting on the wallet.
+     * The request is marked pending broadcast before its transaction
+     * is sent, so it can no longer be canceled or expire. If sending
+     * fails, it is retried in the background.
      * 
-     * @param initiatorId The UUID of the initiating account.
-     * @return An object containing information about the request or null if no request exists.
+     * @param withdrawTxid The TXID or request ID of the withdraw request.
+     * @return The TXID of the sent transaction, or null if the withdrawal was queued.
+     * @throws WithdrawRequestNotFoundException If the request was not found.
+     * @throws InsufficientFundsException If a request kept in memory is no longer affordable.
      */
-    @Transactional
-    public WithdrawRequestResult getWithdrawRequest(UUID initiatorId)
+    public String completeWithdraw(String withdrawTxid)
     {
-        Account initiator = accountDao.find(initiatorId);
-        if (initiator == null)
+        WithdrawRequest withdrawRequest = markComplete(withdrawTxid);
+        if (withdrawRequest.isBatched())
         {
             return null;
         }
-        WithdrawRequest request = initiator.getWithdrawRequest();
-        if (request == null)
+        // Build & Sign Deferred Transaction Now That It Will Be Sent
+        if (!withdrawRequest.isSigned())
         {
-            return null;
+            withdrawRequest = signDeferredWithdraw(withdrawRequest);
         }
-        return new WithdrawRequestResult()
-            .setTxid(request.getTxid())
-            .setWithdrawAmount(request.getWithdrawAmount())
-            .setFeeAmount(request.getFeeAmount())
-            .setTotalCost(request.getTotalCost());
-    }
+        if (asyncBroadcast)
+        {
+            return withdrawRequest.getTxid();
+        }
+        // Broadcast Transaction, Retry In The Background If It Fails
+        try
+        {
+            broadcastWithdraw(withdrawRequest.getTxid());
+        }
+        catch (RuntimeException e)
+        {
+            logger.log(Level.WARN, String.format("Failed To Broadcast Withdraw, Retrying In Background: TXID: %s, %s",
+                withdrawRequest.getTxid(), e.getMessage()));
+            withdrawBroadcastQueue.add(withdrawRequest.getTxid());
+        }
+        return withdrawRequest.getTxid();
+    }
+
+    /**
+     * Marks a withdraw request as complete, queuing it for the
+     * next batch or to be broadcast, unless it still needs to be
+     * signed. Requests kept in memory are written first.
+     * 
+     * @param withdrawTxid The TXID or request ID of the withdraw request.
+     * @return The complete request, or the incomplete request with its inputs loaded if it still needs to be signed.
+     * @throws WithdrawRequestNotFoundException If the request was not found.
+     * @throws InsufficientFundsException If a request kept in memory is no longer affordable.
+     */
+    @Transactional
+    WithdrawRequest markComplete(String withdrawTxid)
+    {
+        WithdrawRequest withdrawRequest = withdrawRequestDao.find(withdrawTxid);
+        if (withdrawRequest == null)
+        {
+            withdrawRequest = persistPending(withdrawTxid);
+        }
+        if (withdrawRequest == null)
+        {
+            throw new WithdrawRequestNotFoundException();
+        }
+        // Already Queued To Be Sent
+        if (withdrawRequest.isComplete())
+        {
+            return withdrawRequest;
+        }
+        // Queue Withdrawal For The Next Batch Transaction
+        if (batchWithdrawals && withdrawRequest.getDestAddress() != null)
+        {
+            withdrawRequest.setComplete(true);
+            withdrawRequestDao.update(withdrawRequest);
+            logger.info(String.format("Withdraw Request Queued: Account: %s", withdrawRequest.getAccount().getAccountUUID()));
+            return withdrawRequest;
+        }
+        if (!withdrawRequest.isSigned())
+        {
+            // Inputs Are Needed To Sign Once This Transaction Ends
+            withdrawRequest.getInputs();
+            return withdrawRequest;
+        }
+        return markPendingBroadcast(withdrawRequest);
+    }
+
+    /**
+     * Marks a signed withdraw request as pending broadcast,
+     * queuing it to be broadcast once committed if
+     * broadcasting asynchronously.
+     * 
+     * @param withdrawRequest The signed withdraw request.
+     * @return The withdraw request.
+     */
+    private WithdrawRequest markPendingBroadcast(WithdrawRequest withdrawRequest)
+    {
+        withdrawRequest.setComplete(false);
+        withdrawRequestDao.update(withdrawRequest);
+        if (asyncBroadcast)
+        {
+            withdrawBroadcastQueue.add(withdrawRequest.getTxid());
+        }
+        logger.info(String.format("Withdraw Request Pending Broadcast: Account: %s, TXID: %s",
+            withdrawRequest.getAccount().getAccountUUID(), withdrawRequest.getTxid()));
+        return withdrawRequest;
+    }
+
+    /**
+     * Sends the transaction of a withdraw request pending broadcast
+     * out to the network, without holding a database transaction
+     * while waiting on the wallet.
+     * <p>
+     * A transaction the wallet reports as already in the
+     * blockchain is treated as sent.
+     * 
+     * @param withdrawTxid The TXID of the withdraw request.
+     * @return Information about the sent withdrawal, or null if the request is no longer pending broadcast.
+     * @throws WalletRequestException If the transaction could not be sent.
+     */
+    public WithdrawSentResult broadcastWithdraw(String withdrawTxid)
+    {
+        WithdrawRequest withdrawRequest = withdrawRequestDao.find(withdrawTxid);
+        if (withdrawRequest == null || !withdrawRequest.isComplete() || withdrawRequest.isBatched() || withdrawRequest.isFailed())
+        {
+            return null;
+        }
+        try
+        {
+            walletService.sendRawTransaction(withdrawRequest.getTxHex());
+        }
+        catch (WalletResponseException e)
+        {
+            if (e.getError() != WalletResponseError.RPC_VERIFY_ALREADY_IN_CHAIN)
+            {
+                throw e;
+            }
+        }
+        return finishBroadcast(withdrawTxid, decodeTrustedChange(withdrawRequest.getTxHex()));
+    }
+
+    /**
+     * Removes a withdraw request whose transaction was
+     * broadcast along with its spent inputs.
+     * <p>
+     * Change outputs are decoded before the database
+     * transaction starts, so no locks are held while
+     * waiting on the wallet.
+     * 
+     * @param withdrawTxid The TXID of the withdraw request.
+     * @return Information about the sent withdrawal, or null if the request was already removed.
+     */
+    public WithdrawSentResult finishBroadcast(String withdrawTxid)
+    {
+        WithdrawRequest withdrawRequest = withdrawRequestDao.find(withdrawTxid);
+        if (withdrawRequest == null)
+        {
+            return null;
+        }
+        return finishBroadcast(withdrawTxid, decodeTrustedChange(withdrawRequest.getTxHex()));
+    }
+
+    /**
+     * Removes a withdraw request whose transaction was
+     * broadcast along with its spent inputs.
+     * 
+     * @param withdrawTxid The TXID of the withdraw request.
+     * @param outputs The decoded transaction outputs to register trusted change from.
+     * @return Information about the sent withdrawal, or null if the request was already removed.
+     */
+    @Transactional
+    WithdrawSentResult finishBroadcast(String withdrawTxid, List<DecodeRawTransactionOutput> outputs)
+    {
+        WithdrawRequest withdrawRequest = withdrawRequestDao.find(withdrawTxid);
+        if (withdrawRequest == null)
+        {
+            return null;
+        }
+        finish(withdrawRequest, outputs);
+        UUID accountId = withdrawRequest.getAccount().getAccountUUID();
+        logger.info(String.format("Withdraw Request Completed: Account: %s, TXID: %s", accountId, withdrawTxid));
+        Map<UUID, Long> withdrawAmounts = new HashMap<>();
+        withdrawAmounts.put(accountId, withdrawRequest.getWithdrawAmount());
+        return new WithdrawSentResult()
+            .setTxid(withdrawTxid)
+            .setWithdrawAmounts(withdrawAmounts)
+            .setFeeAmount(withdrawRequest.getFeeAmount());
+    }
+
+    /**
+     * Checks whether the wallet knows the transaction of a
+     * withdraw request, meaning it reached the network even
+     * though sending it appeared to fail.
+     * 
+     * @param withdrawTxid The TXID of the withdraw request.
+     * @return True if the wallet knows the transaction.
+     * @throws WalletRequestException If the wallet could not be asked.
+     */
+    public boolean isKnownTransaction(String withdrawTxid)
+    {
+        try
+        {
+            walletService.getTransaction(withdrawTxid);
+            return true;
+        }
+        catch (WalletResponseException e)
+        {
+            if (e.getError() != WalletResponseError.RPC_INVALID_ADDRESS_OR_KEY)
+            {
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Gives up on sending the transaction of a withdraw
+     * request pending broadcast.
+     * <p>
+     * If the transaction is known to be unsent, the request is
+     * canceled, unlocking its inputs and restoring the account
+     * balance. Otherwise, or if the request belongs to the change
+     * account and debited other accounts, such as a refund batch,
+     * the request is marked as failed and keeps its inputs and
+     * balance held until resolved manually.
+     * 
+     * @param withdrawTxid The TXID of the withdraw request.
+     * @param unsent True if the transaction can not have reached the network.
+     * @return The balance restored to each affected account, or null if the request is no longer pending broadcast.
+     */
+    @Transactional
+    public WithdrawFailedResult failBroadcast(String withdrawTxid, boolean unsent)
+    {
+        WithdrawRequest withdrawRequest = withdrawRequestDao.find(withdrawTxid);
+        if (withdrawRequest == null || !withdrawRequest.isComplete() || withdrawRequest.isBatched() || withdrawRequest.isFailed())
+        {
+            return null;
+        }
+        UUID accountId = withdrawRequest.getAccount().getAccountUUID();
+        Map<UUID, Long> restoredAmounts = new HashMap<>();
+        if (unsent && !changeAccountId.equals(accountId))
+        {
+            cancel(withdrawRequest);
+            restoredAmounts.put(accountId, withdrawRequest.getTotalCost());
+        }
+        else
+        {
+            withdrawRequest.setFailed();
+            withdrawRequestDao.update(withdrawRequest);
+            logger.log(Level.ERROR, String.format("Withdraw Request Failed, Held Until Resolved: Account: %s, TXID: %s", accountId, withdrawTxid));
+            if (!changeAccountId.equals(accountId))
+            {
+                restoredAmounts.put(accountId, 0L);
+            }
+        }
+        return new WithdrawFailedResult()
+            .setTxid(withdrawTxid)
+            .setRestoredAmounts(restoredAmounts);
+    }
+
+    /**
+     * Removes a withdraw request whose transaction was sent,
+     * along with the spent deposits.
+     * 
+     * @param withdrawRequest The withdraw request.
+     * @param outputs The decoded transaction outputs to register trusted change from.
+     */
+    private void finish(WithdrawRequest withdrawRequest, List<DecodeRawTransactionOutput> outputs)
+    {
+        // Clear Request From Initiator Account
+        Account initiator = withdrawRequest.getAccount();
+        initiator.removeWithdrawRequest(withdrawRequest);
+        // Pool Pays For Splitting Change Now That The Fees Are Spent
+        poolFeeService.chargeFee(withdrawRequest.getChangeFeeAmount());
+        // Remove Withdraw Request & Spent TX Output Records
+        Set<Deposit> inputs = withdrawRequest.getInputs();
+        registerTrustedChange(withdrawRequest.getTxid(), outputs, inputs);
+        long inputAmount = 0L;
+        for (Deposit input : inputs)
+        {
+            inputAmount += input.getAmount();
+            depositDao.remove(input);
+        }
+        // Track Replaceable Withdrawals Until Confirmed, Change Account Transactions Are Not Replaceable
+        if (bumpFees && !changeAccountId.equals(initiator.getAccountUUID()))
+        {
+            Map<UUID, Long> withdrawAmounts = new HashMap<>();
+            withdrawAmounts.put(initiator.getAccountUUID(), withdrawRequest.getWithdrawAmount());
+            sentWithdrawDao.persist(new SentWithdraw(withdrawRequest.getTxid(), withdrawRequest.getTxHex(), inputAmount, 0L, withdrawAmounts));
+        }
+        withdrawRequestDao.remove(withdrawRequest);
+        accountDao.update(initiator);
+    }
+
+    /**
+     * Persists a withdraw request kept in memory so that it can
+     * be completed, locking its inputs and deducting its total
+     * cost from the account balance.
+     * <p>
+     * The request stays in memory if the account can no longer
+     * afford it, so it can still be canceled or expire. It is
+     * canceled if any of its inputs is no longer available, since
+     * it can never be completed.
+     * 
+     * @param withdrawTxid The TXID or request ID of the withdraw request.
+     * @return The persisted withdraw request, or null if the request was not in memory.
+     * @throws InsufficientFundsException If the account balance no longer covers the request.
+     * @throws WithdrawRequestNotFoundException If any input deposit is no longer available.
+     */
+    private WithdrawRequest persistPending(String withdrawTxid)
+    {
+        WithdrawRequest pendingRequest = pendingWithdrawStore.find(withdrawTxid);
+        if (pendingRequest == null)
+        {
+            return null;
+        }
+        // Balance Is Only Held In Memory, Recheck Before Deducting, Held Amount Includes This Request
+        UUID initiatorId = pendingRequest.getAccount().getAccountUUID();
+        Account initiator = accountDao.findForUpdate(initiatorId);
+        if (initiator == null || initiator.getBalance() - pendingWithdrawStore.getHeldAmount(initiatorId) < 0L)
+        {
+            throw new InsufficientFundsException();
+        }
+        // Another Caller May Have Persisted It While Waiting For The Account Lock
+        if (pendingWithdrawStore.find(withdrawTxid) == null)
+        {
+            return withdrawRequestDao.find(withdrawTxid);
+        }
+        // Removed Even If Inputs Are Gone, Since It Can Never Be Completed Without Them
+        Set<Deposit> inputs = claimDeposits(pendingRequest.getInputs());
+        if (pendingWithdrawStore.remove(withdrawTxid) == null)
+        {
+            // Canceled Or Expired While Claiming Inputs
+            throw new WithdrawRequestNotFoundException();
+        }
+        if (inputs == null)
+        {
+            logger.log(Level.INFO, String.format("Withdraw Request Canceled, Inputs No Longer Available: Account %s", initiatorId));
+            throw new WithdrawRequestNotFoundException();
+        }
+        WithdrawRequest request;
+        if (pendingRequest.isSigned())
+        {
+            request = new WithdrawRequest(pendingRequest.getTxid(), initiator, inputs, pendingRequest.getDestAddress(),
+                pendingRequest.getWithdrawAmount(), pendingRequest.getFeeAmount(), pendingRequest.getTxHex(), pendingRequest.getTimestamp());
+            request.setChangeFeeAmount(pendingRequest.getChangeFeeAmount());
+        }
+        else
+        {
+            request = new WithdrawRequest(initiator, inputs, pendingRequest.getDestAddress(), pendingRequest.getWithdrawAmount(),
+                pendingRequest.getFeeAmount(), pendingRequest.getChangeAmount(), pendingRequest.getTimestamp());
+        }
+        withdrawRequestDao.persist(request);
+        for (Deposit input : request.getInputs())
+        {
+            input.setWithdrawLock(request);
+            depositDao.update(input);
+        }
+        initiator.changeBalance(-request.getTotalCost());
+        initiator.addWithdrawRequest(request);
+        accountDao.update(initiator);
+        return request;
+    }
+
+    /**
+     * Builds and signs the transaction of a withdraw request with
+     * deferred signing without holding a database transaction,
+     * then replaces the request with one identified by the TXID
+     * of the signed transaction, pending broadcast.
+     * <p>
+     * The change address is only created here, so requests
+     * canceled before completion never use one up.
+     * 
+     * @param deferredRequest The unsigned withdraw request, with its inputs loaded.
+     * @return The signed withdraw request now holding the input locks.
+     * @throws WithdrawRequestNotFoundException If the request was canceled or expired while being signed.
+     */
+    private WithdrawRequest signDeferredWithdraw(WithdrawRequest deferredRequest)
+    {
+        long changeAmount = deferredRequest.getChangeAmount();
+        long changeFee = changeAmount;
+        Map<String, Long> changeOutputs = new HashMap<>();
+        if (changeAmount > 0L)
+        {
+            // Only Estimate Fees Again If Change May Be Split
+            long feeRate = splitLargeChange ? estimateFeeRate(blockConfirmationTarget) : 0L;
+            long[] changeAmounts = splitChange(changeAmount, getOutputWeight(defaultAddressType), feeRate);
+            for (int i = 0; i < changeAmounts.length; i++)
+            {
+                String address = (i == 0)
+                    ? addressService.findOrCreate(changeAccountId, defaultAddressType, !reuseChangeAddresses)
+                    : addressService.create(changeAccountId, defaultAddressType);
+                changeOutputs.put(address, changeAmounts[i]);
+                changeFee -= changeAmounts[i];
+            }
+        }
+        Map<String, Long> recipients = new HashMap<>();
+        recipients.put(deferredRequest.getDestAddress(), deferredRequest.getWithdrawAmount());
+        String signedTxHex = buildWithdrawTransaction(deferredRequest.getInputs(), recipients, changeOutputs);
+        String txid = walletService.decodeRawTransaction(signedTxHex).getTxid();
+        return attachAndMarkPendingBroadcast(deferredRequest.getTxid(), txid, signedTxHex, changeFee);
+    }
+
+    /**
+     * Attaches a signed transaction to a completed withdraw
+     * request with deferred signing, then marks it pending
+     * broadcast.
+     * 
+     * @param requestId The ID of the unsigned withdraw request.
+     * @param txid The TXID of the signed transaction.
+     * @param signedTxHex The signed, hex-encoded transaction.
+     * @param changeFee The fees paid by the change account for splitting change.
+     * @return The signed withdraw request pending broadcast.
+     * @throws WithdrawRequestNotFoundException If the request no longer exists.
+     */
+    @Transactional
+    WithdrawRequest attachAndMarkPendingBroadcast(String requestId, String txid, String signedTxHex, long changeFee)
+    {
+        return markPendingBroadcast(attachSignedTransaction(requestId, txid, signedTxHex, changeFee));
+    }
+
+    /**
+     * Replaces an unsigned withdraw request with one identified
+     * by the TXID of its signed transaction, moving the input
+     * locks and account reference to the signed request.
+     * 
+     * @param deferredRequest The unsigned withdraw request.
+     * @param txid The TXID of the signed transaction.
+     * @param signedTxHex The signed, hex-encoded transaction.
+     * @param changeFee The fees paid by the change account for splitting change.
+     * @return The signed withdraw request.
+     */
+    private WithdrawRequest replaceRequest(WithdrawRequest deferredRequest, String txid, String signedTxHex, long changeFee)
+    {
+        // Move Input Locks & Account Reference To Signed Request
+        Set<Deposit> inputs = new HashSet<>(deferredRequest.getInputs());
+        Account initiator = deferredRequest.getAccount();
+        WithdrawRequest signedRequest = new WithdrawRequest(txid, initiator, inputs, deferredRequest.getDestAddress(),
+            deferredRequest.getWithdrawAmount(), deferredRequest.getFeeAmount(), signedTxHex, deferredRequest.getTimestamp());
+        signedRequest.setChangeFeeAmount(changeFee);
+        withdrawRequestDao.persist(signedRequest);
+        for (Deposit input : inputs)
+        {
+            input.setWithdrawLock(signedRequest);
+            depositDao.update(input);
+        }
+        initiator.removeWithdrawRequest(deferredRequest);
+        initiator.addWithdrawRequest(signedRequest);
+        accountDao.update(initiator);
+        withdrawRequestDao.remove(deferredRequest);
+        return signedRequest;
+    }
+
+    /**
+     * Divides change into outputs of the fan-out denomination
+     * if splitting change is enabled and the change is large
+     * enough, the last output holding the remainder.
+     * <p>
+     * Fees for every output past the first are taken from the
+     * change, so the amounts may add up to less than the change.
+     * 
+     * @param changeAmount The amount of change, zero if no change output is needed.
+     * @param changeOutputWeight The weight of a single change output.
+     * @param feeRate The fee rate, in sat/kvB.
+     * @return The amount of each change output, empty if there is no change.
+     */
+    private long[] splitChange(long changeAmount, long changeOutputWeight, long feeRate)
+    {
+        if (changeAmount <= 0L)
+        {
+            return new long[0];
+        }
+        int outputCount = splitLargeChange ? (int) Math.min(maxSplitOutputs, changeAmount / splitDenomination) : 1;
+        for (; outputCount > 1; outputCount--)
+        {
+            long splitFee = getFee((outputCount - 1) * changeOutputWeight, feeRate);
+            // Every Output, Including The Remainder, Must Be Worth At Least The Denomination
+            if (changeAmount - splitFee >= outputCount * splitDenomination)
+            {
+                long[] changeAmounts = new long[outputCount];
+                for (int i = 0; i < outputCount - 1; i++)
+                {
+                    changeAmounts[i] = splitDenomination;
+                }
+                changeAmounts[outputCount - 1] = changeAmount - splitFee - (outputCount - 1) * splitDenomination;
+                return changeAmounts;
+            }
+        }
+        return new long[] { changeAmount };
+    }
+
+    /**
+     * Builds and signs a withdraw transaction paying every
+     * recipient and, if any, every change output.
+     * 
+     * @param inputDeposits The deposits to spend.
+     * @param recipients The amount to send to each recipient address.
+     * @param changeOutputs The amount to send to each change address, empty if no change output is needed.
+     * @return The signed, hex-encoded transaction.
+     */
+    private String buildWithdrawTransaction(Set<Deposit> inputDeposits, Map<String, Long> recipients,
+        Map<String, Long> changeOutputs)
+    {
+        // Specify Selected Transaction Inputs
+        Set<CreateRawTransactionInput> txInputs = new HashSet<>();
+        for (Deposit inputDeposit : inputDeposits)
+        {
+            txInputs.add(new CreateRawTransactionInput(inputDeposit.getTXID(), inputDeposit.getVout()));
+        }
+        // Specify Recipient & Change TX Outputs
+        Map<String, Long> txOutputs = new HashMap<>(recipients);
+        txOutputs.putAll(changeOutputs);
+        // Build & Sign Withdraw TX
+        String unsignedTxHex;
+        try
+        {
+            unsignedTxHex = walletService.createRawTransaction(txInputs, txOutputs, bumpFees);
+        }
+        catch (WalletResponseException e)
+        {
+            logger.error("Failed to create withdraw transaction! Error: " + e.getMessage());
+            throw e;
+        }
+        return walletService.signRawTransactionWithWallet(unsignedTxHex).getHex();
+    }
+
+    /**
+     * Sends the oldest pending withdraw transaction of
+     * the given account out to the network.
+     * 
+     * @param initiatorId The UUID of the initiating account.
+     * @return The TXID of the sent transaction, or null if the withdrawal was queued.
+     * @throws WithdrawRequestNotFoundException If the request was not found.
+     */
+    public String completeWithdraw(UUID initiatorId)
+    {
+        WithdrawRequest pendingRequest = pendingWithdrawStore.findByAccount(initiatorId);
+        if (pendingRequest != null)
+        {
+            return completeWithdraw(pendingRequest.getTxid());
+        }
+        String withdrawTxid = findOldestRequestTxid(initiatorId);
+        if (withdrawTxid == null)
+        {
+            throw new WithdrawRequestNotFoundException();
+        }
+        return completeWithdraw(withdrawTxid);
+    }
+
+    /**
+     * Find the oldest persisted withdraw request of an account.
+     * 
+     * @param initiatorId The UUID of the initiating account.
+     * @return The TXID or request ID of the oldest request, or null if the account has none.
+     */
+    @Transactional
+    String findOldestRequestTxid(UUID initiatorId)
+    {
+        Account initiator = accountDao.find(initiatorId);
+        if (initiator == null || initiator.getWithdrawRequest() == null)
+        {
+            return null;
+        }
+        return initiator.getWithdrawRequest().getTxid();
+    }
+
+    /**
+     * Sends a pending withdraw transaction of the
+     * given account out to the network.
+     * 
+     * @param initiatorId The UUID of the initiating account.
+     * @param withdrawTxid The TXID or request ID of the withdraw request.
+     * @return The TXID of the sent transaction, or null if the withdrawal was queued.
+     * @throws WithdrawRequestNotFoundException If the account has no such request.
+     */
+    public String completeWithdraw(UUID initiatorId, String withdrawTxid)
+    {
+        if (!isOwnRequest(initiatorId, withdrawTxid))
+        {
+            throw new WithdrawRequestNotFoundException();
+        }
+        return completeWithdraw(withdrawTxid);
+    }
+
+    /**
+     * Sends queued withdrawals out to the network as a single
+     * transaction with one output per recipient and one change output.
+     * <p>
+     * Each account pays the fee for its own inputs and output
+     * plus an even share of the transaction overhead, never more
+     * than the fee it agreed to, and is refunded the difference.
+     * 
+     * <p>
+     * The batch is built, signed, and sent without holding a
+     * database transaction, then the sent requests are removed
+     * in a short transaction. Only one batch is sent at a time.
+     * 
+     * @param force Whether to send the batch even if it has fewer than the max number of recipients.
+     * @return Information about the sent batch, or null if no batch was sent.
+     * @throws FeeEstimationException If the node could not estimate fees.
+     */
+    public WithdrawSentResult sendWithdrawBatch(boolean force)
+    {
+        // Scheduled Checks May Overlap, Skip If A Batch Is Already Being Sent
+        if (!sendingBatch.compareAndSet(false, true))
+        {
+            return null;
+        }
+        try
+        {
+            List<WithdrawRequest> requests = findBatchedRequests();
+            if (requests.isEmpty() || (!force && requests.size() < maxBatchRecipients))
+            {
+                return null;
+            }
+            long feeRate = estimateFeeRate(blockConfirmationTarget);
+            DepositShareEvaluator evaluator = new DepositShareEvaluator(feeRate);
+            // Calculate Weight Of Each Request's Inputs & Recipient Output
+            long[] requestWeights = new long[requests.size()];
+            long totalValue = 0L;
+            long totalWithdrawn = 0L;
+            Set<CreateRawTransactionInput> txInputs = new HashSet<>();
+            Map<String, Long> txOutputs = new HashMap<>();
+            Map<String, Long> outputWeights = new HashMap<>();
+            for (int i = 0; i < requests.size(); i++)
+            {
+                WithdrawRequest request = requests.get(i);
+                for (Deposit input : request.getInputs())
+                {
+                    txInputs.add(new CreateRawTransactionInput(input.getTXID(), input.getVout()));
+                    requestWeights[i] += evaluator.cost(input);
+                    totalValue += input.getAmount();
+                }
+                requestWeights[i] += outputWeights.computeIfAbsent(request.getDestAddress(),
+                    address -> getOutputWeight(walletService.getAddressInfo(address).getScriptPubKey()));
+                txOutputs.merge(request.getDestAddress(), request.getWithdrawAmount(), Long::sum);
+                totalWithdrawn += request.getWithdrawAmount();
+            }
+            // Calculate Weight Shared By All Requests, Including A Change Output
+            String changeAddress = addressService.findOrCreate(changeAccountId, defaultAddressType, !reuseChangeAddresses);
+            long changeOutputWeight = getOutputWeight(walletService.getAddressInfo(changeAddress).getScriptPubKey());
+            long sharedWeight = TX_VERSION_WEIGHT + TX_LOCKTIME_WEIGHT + TX_SEGWIT_MARKER_WEIGHT
+                + getCounterWeight(txInputs.size()) + getCounterWeight(txOutputs.size() + 1) + changeOutputWeight;
+            // Apportion Fees, Remainder Of Shared Weight Goes To The Oldest Request
+            long[] requestFees = new long[requests.size()];
+            long totalFees = 0L;
+            for (int i = 0; i < requests.size(); i++)
+            {
+                long shareWeight = requestWeights[i] + sharedWeight / requests.size();
+                if (i == 0)
+                {
+                    shareWeight += sharedWeight % requests.size();
+                }
+                requestFees[i] = Math.min(getFee(shareWeight, feeRate), requests.get(i).getFeeAmount());
+                totalFees += requestFees[i];
+            }
+            // Keep Change Only If Worth Keeping, Otherwise Change Account Gives It Up As Fees
+            long changeAmount = totalValue - (totalWithdrawn + totalFees);
+            long costOfChange = evaluator.costImpactOnTarget(changeOutputWeight
+                + getInputWeight(defaultAddressType) + TX_INPUT_WITNESS_ITEM_COUNTER_WEIGHT);
+            long forfeitedChange = 0L;
+            if (changeAmount > costOfChange)
+            {
+                txOutputs.put(changeAddress, changeAmount);
+            }
+            else
+            {
+                forfeitedChange = changeAmount;
+                totalFees += changeAmount;
+            }
+            // Build, Sign, & Broadcast Batch TX
+            String unsignedTxHex = walletService.createRawTransaction(txInputs, txOutputs, bumpFees);
+            String signedTxHex = walletService.signRawTransactionWithWallet(unsignedTxHex).getHex();
+            String txid = walletService.sendRawTransaction(signedTxHex);
+            Map<String, Long> refundedFees = new HashMap<>();
+            for (int i = 0; i < requests.size(); i++)
+            {
+                refundedFees.put(requests.get(i).getTxid(), requests.get(i).getFeeAmount() - requestFees[i]);
+            }
+            WithdrawSentResult result = finishBatch(txid, signedTxHex, decodeTrustedChange(signedTxHex), totalValue, refundedFees, forfeitedChange);
+            logger.info(String.format("Withdraw Batch Sent: Recipients: %d, Fees: %d, TXID: %s", requests.size(), totalFees, txid));
+            return result.setFeeAmount(totalFees);
+        }
+        finally
+        {
+            sendingBatch.set(false);
+        }
+    }
+
+    /**
+     * Find withdraw requests queued for the next batch,
+     * oldest first, with their inputs loaded.
+     * 
+     * @return The queued withdraw requests.
+     */
+    @Transactional
+    List<WithdrawRequest> findBatchedRequests()
+    {
+        List<WithdrawRequest> requests = withdrawRequestDao.findBatched(maxBatchRecipients);
+        for (WithdrawRequest request : requests)
+        {
+            // Inputs Are Needed To Build The Batch Once This Transaction Ends
+            request.getInputs();
+        }
+        return requests;
+    }
+
+    /**
+     * Removes the withdraw requests spent by a sent batch along
+     * with their inputs, refunding each account its fee savings.
+     * <p>
+     * Queued requests cannot be canceled or expire, so every request
+     * should still exist. Any that do not are logged and skipped,
+     * since the batch was already sent.
+     * 
+     * @param txid The TXID of the batch transaction.
+     * @param signedTxHex The signed, hex-encoded batch transaction.
+     * @param outputs The decoded batch outputs to register trusted change from.
+     * @param totalValue The total value of the batch inputs.
+     * @param refundedFees The fee refunded to each request, by TXID or request ID.
+     * @param forfeitedChange Change given up as fees by the change account.
+     * @return Information about the sent batch, without the fee amount.
+     */
+    @Transactional
+    WithdrawSentResult finishBatch(String txid, String signedTxHex, List<DecodeRawTransactionOutput> outputs,
+        long totalValue, Map<String, Long> refundedFees, long forfeitedChange)
+    {
+        // Refund Fee Savings, Remove Withdraw Requests & Spent TX Output Records
+        Map<UUID, Long> withdrawAmounts = new HashMap<>();
+        Set<Deposit> spentInputs = new HashSet<>();
+        for (Map.Entry<String, Long> refund : refundedFees.entrySet())
+        {
+            WithdrawRequest request = withdrawRequestDao.find(refund.getKey());
+            if (request == null)
+            {
+                logger.log(Level.ERROR, String.format("Batched Withdraw Request Missing After Sending: Request: %s, TXID: %s", refund.getKey(), txid));
+                continue;
+            }
+            Account initiator = request.getAccount();
+            initiator.changeBalance(refund.getValue());
+            initiator.removeWithdrawRequest(request);
+            for (Deposit input : request.getInputs())
+            {
+                spentInputs.add(input);
+                depositDao.remove(input);
+            }
+            withdrawRequestDao.remove(request);
+            accountDao.update(initiator);
+            withdrawAmounts.merge(initiator.getAccountUUID(), request.getWithdrawAmount(), Long::sum);
+        }
+        poolFeeService.chargeFee(forfeitedChange);
+        registerTrustedChange(txid, outputs, spentInputs);
+        if (bumpFees)
+        {
+            sentWithdrawDao.persist(new SentWithdraw(txid, signedTxHex, totalValue, 0L, withdrawAmounts));
+        }
+        return new WithdrawSentResult()
+            .setTxid(txid)
+            .setWithdrawAmounts(withdrawAmounts);
+    }
+
+    /**
+     * Get the oldest active withdraw request for
+     * the given account.
+     * 
+     * @param initiatorId The UUID of the initiating account.
+     * @return An object containing information about the request or null if no request exists.
+     */
+    @Transactional
+    public WithdrawRequestResult getWithdrawRequest(UUID initiatorId)
+    {
+        WithdrawRequest request = pendingWithdrawStore.findByAccount(initiatorId);
+        if (request == null)
+        {
+            Account initiator = accountDao.find(initiatorId);
+            request = initiator == null ? null : initiator.getWithdrawRequest();
+        }
+        if (request == null)
+        {
+            return null;
+        }
+        return toResult(request);
+    }
+
+    /**
+     * Get every active withdraw request for
+     * the given account.
+     * 
+     * @param initiatorId The UUID of the initiating account.
+     * @return Information about each request, oldest first.
+     */
+    @Transactional
+    public List<WithdrawRequestResult> getWithdrawRequests(UUID initiatorId)
+    {
+        List<WithdrawRequest> requests = new ArrayList<>(pendingWithdrawStore.findAllByAccount(initiatorId));
+        Account initiator = accountDao.find(initiatorId);
+        if (initiator != null)
+        {
+            requests.addAll(initiator.getWithdrawRequests());
+        }
+        requests.sort(Comparator.comparingLong(WithdrawRequest::getTimestamp));
+        List<WithdrawRequestResult> results = new ArrayList<>(requests.size());
+        for (WithdrawRequest request : requests)
+        {
+            results.add(toResult(request));
+        }
+        return results;
+    }
+
+    private static WithdrawRequestResult toResult(WithdrawRequest request)
+    {
+        return new WithdrawRequestResult()
+            .setTxid(request.getTxid())
+            .setWithdrawAmount(request.getWithdrawAmount())
+            .setFeeAmount(request.getFeeAmount())
+            .setTotalCost(request.getTotalCost());
+    }
 
     /**
-     * Cancels all expired withdraw requests.
+     * Cancels the given expired withdraw requests together,
+     * skipping any already completed or canceled.
      * 
+     * @param expiredTxids The TXIDs of expired withdraw requests.
      * @return A set of UUIDs corresponding to accounts with requests that were canceled.
      */
     @Transactional
-    public Set<UUID> cancelExpiredRequests()
+    public Set<UUID> cancelExpiredRequests(Collection<String> expiredTxids)
     {
-        Collection<WithdrawRequest> requests = withdrawRequestDao.findAllIncomplete();
         Set<UUID> expiredRequestInitiatingAccounts = new HashSet<>();
-        for (WithdrawRequest request : requests)
+        for (String txid : expiredTxids)
         {
-            long timeSinceRequestInitiated = System.currentTimeMillis() - request.getTimestamp();
-            if (timeSinceRequestInitiated < 0L || timeSinceRequestInitiated > withdrawExpireTime)
+            UUID pendingAccountId = cancelPending(txid);
+            if (pendingAccountId != null)
+            {
+                expiredRequestInitiatingAccounts.add(pendingAccountId);
+                continue;
+            }
+            WithdrawRequest request = withdrawRequestDao.find(txid);
+            if (request != null && !request.isComplete())
             {
                 expiredRequestInitiatingAccounts.add(request.getAccount().getAccountUUID());
-                cancelWithdraw(request.getTxid());
+                cancel(request);
             }
         }
         return expiredRequestInitiatingAccounts;
     }
-}
\ No newline at end of file
+
+    /**
+     * Decodes the outputs of a sent transaction so that its
+     * change can be registered once the transaction is
+     * finished, without waiting on the wallet while the
+     * finishing database transaction holds locks.
+     * <p>
+     * If the wallet cannot decode the transaction, its change
+     * is left to be registered once confirmed instead.
+     * 
+     * @param signedTxHex The signed, hex-encoded transaction.
+     * @return The decoded outputs, or an empty list if unconfirmed change is not trusted.
+     */
+    private List<DecodeRawTransactionOutput> decodeTrustedChange(String signedTxHex)
+    {
+        if (!trustUnconfirmedChange)
+        {
+            return Collections.emptyList();
+        }
+        try
+        {
+            return walletService.decodeRawTransaction(signedTxHex).getOutputs();
+        }
+        catch (WalletRequestException e)
+        {
+            logger.log(Level.WARN, "Could Not Decode Sent Transaction, Change Registered Once Confirmed: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Registers the change outputs of a sent transaction as
+     * deposits right away instead of once they confirm, if
+     * spending unconfirmed change is enabled and the chain of
+     * unconfirmed transactions stays within the configured depth.
+     * <p>
+     * Only outputs paying change account addresses are trusted,
+     * since only our own transactions create them.
+     * 
+     * @param txid The TXID of the sent transaction.
+     * @param outputs The decoded transaction outputs, from <code>decodeTrustedChange()</code>.
+     * @param inputs The deposits spent by the transaction.
+     */
+    private void registerTrustedChange(String txid, List<DecodeRawTransactionOutput> outputs, Set<Deposit> inputs)
+    {
+        if (outputs.isEmpty())
+        {
+            return;
+        }
+        // Change Is One Transaction Deeper Than Its Deepest Unconfirmed Input
+        int depth = 1;
+        for (Deposit input : inputs)
+        {
+            depth = Math.max(depth, input.getUnconfirmedDepth() + 1);
+        }
+        if (depth > maxUnconfirmedDepth)
+        {
+            return;
+        }
+        for (DecodeRawTransactionOutput output : outputs)
+        {
+            String outputAddress = output.getRecipientAddress();
+            Address address = (outputAddress == null) ? null : addressDao.find(outputAddress);
+            if (address == null || !changeAccountId.equals(address.getOwner().getAccountUUID())
+                || depositDao.find(txid, output.getIndex()) != null)
+            {
+                continue;
+            }
+            Deposit deposit = new Deposit(txid, output.getIndex(), address.getType(), output.getValue().getSatAmount(), depth);
+            depositDao.persist(deposit);
+            address.setUsed();
+            addressDao.update(address);
+            logger.info(String.format("Unconfirmed Change Registered: Depth: %d, Deposit: %s", depth, deposit));
+        }
+    }
+
+    /**
+     * Select withdraw inputs from available deposits, only
+     * spending unconfirmed change if confirmed deposits are
+     * not enough.
+     * <p>
+     * Inputs are first selected from the deposits nearest the
+     * target in the index, so the cost of a selection does not
+     * grow with the pool. Every available deposit is only
+     * considered if those are not enough.
+     * 
+     * @param evaluator The evaluator to use.
+     * @param withdrawAll Whether the entire withdrawable balance is being withdrawn.
+     * @param target The selection target.
+     * @param costOfChange The cost of creating a change output and later spending it.
+     * @return The selection result.
+     */
+    private CoinSelectionState<Deposit> selectPreferringConfirmed(DepositShareEvaluator evaluator,
+        boolean withdrawAll, long target, long costOfChange)
+    {
+        Set<Deposit> nearest = depositIndex.nearest(target, selectionWindow);
+        CoinSelectionState<Deposit> selectionResult = selectPreferringConfirmed(nearest, evaluator, withdrawAll, target, costOfChange);
+        if (selectionResult.isComplete() || nearest.size() >= depositIndex.getAggregates().getWithdrawableCount())
+        {
+            return selectionResult;
+        }
+        return selectPreferringConfirmed(depositIndex.snapshot(), evaluator, withdrawAll, target, costOfChange);
+    }
+
+    /**
+     * Select withdraw inputs from the given deposits, only
+     * spending unconfirmed change if confirmed deposits are
+     * not enough.
+     * 
+     * @param available The deposits to select from.
+     * @param evaluator The evaluator to use.
+     * @param withdrawAll Whether the entire withdrawable balance is being withdrawn.
+     * @param target The selection target.
+     * @param costOfChange The cost of creating a change output and later spending it.
+     * @return The selection result.
+     */
+    private CoinSelectionState<Deposit> selectPreferringConfirmed(Set<Deposit> available, DepositShareEvaluator evaluator,
+        boolean withdrawAll, long target, long costOfChange)
+    {
+        Set<Deposit> confirmed = new LinkedHashSet<>();
+        for (Deposit deposit : available)
+        {
+            if (deposit.isConfirmed())
+            {
+                confirmed.add(deposit);
+            }
+        }
+        if (confirmed.size() < available.size())
+        {
+            CoinSelectionState<Deposit> selectionResult = selectInputs(confirmed, evaluator, withdrawAll, target, costOfChange);
+            if (selectionResult.isComplete())
+            {
+                return selectionResult;
+            }
+        }
+        return selectInputs(available, evaluator, withdrawAll, target, costOfChange);
+    }
+
+    /**
+     * Select withdraw inputs from the given deposits.
+     * 
+     * @param inputs The deposits to select from.
+     * @param evaluator The evaluator to use.
+     * @param withdrawAll Whether the entire withdrawable balance is being withdrawn.
+     * @param target The selection target.
+     * @param costOfChange The cost of creating a change output and later spending it.
+     * @return The selection result.
+     */
+    private CoinSelectionState<Deposit> selectInputs(Set<Deposit> inputs, DepositShareEvaluator evaluator,
+        boolean withdrawAll, long target, long costOfChange)
+    {
+        if (withdrawAll)
+        {
+            return new CoinSelectionBuilder<Deposit>()
+                .step(new BinarySearchCoinSelector<>(-1, false), inputs)
+                .evaluator(evaluator)
+                .target(target)
+                .select();
+        }
+        else if (raceSelectors)
+        {
+            // Run Every Strategy Concurrently, Keep The Least Wasteful Selection
+            return new CoinSelectionBuilder<Deposit>()
+                .step(new BranchAndBoundCoinSelector<>(costOfChange, bnbMaxIterations, bnbMaxTime), inputs)
+                .step(new BinarySearchCoinSelector<>(), inputs)
+                .step(new LargestFirstCoinSelector<>(), inputs)
+                .step(new SingleRandomDrawCoinSelector<>(), inputs)
+                .evaluator(evaluator)
+                .target(target)
+                .selectLowestWaste(ForkJoinPool.commonPool(), costOfChange, selectionDeadline, selectionMaxWait);
+        }
+        else
+        {
+            // Prefer Inputs Matching Amount & Fees Without Change, Otherwise Create Change
+            return new CoinSelectionBuilder<Deposit>()
+                .step(new BranchAndBoundCoinSelector<>(costOfChange, bnbMaxIterations, bnbMaxTime), inputs)
+                .step(new BinarySearchCoinSelector<>(), inputs)
+                .evaluator(evaluator)
+                .target(target)
+                .select();
+        }
+    }
+
+    /**
+     * Create the evaluator used to select withdraw inputs.
+     * 
+     * @param feeRate The current fee rate, in sat/kvB.
+     * @param withdrawAll Whether the entire withdrawable balance is being withdrawn.
+     * @return The evaluator to use.
+     * @throws FeeEstimationException If the node could not estimate fees.
+     */
+    private DepositShareEvaluator createEvaluator(long feeRate, boolean withdrawAll)
+    {
+        if (raceSelectors && !withdrawAll)
+        {
+            // Compare Selections Against Spending Inputs Later At The Long-Term Fee Rate
+            long longTermFeeRate = estimateFeeRate(longTermConfirmationTarget);
+            return new DepositShareEvaluator(feeRate, longTermFeeRate, false);
+        }
+        return new DepositShareEvaluator(feeRate);
+    }
+
+    /**
+     * Divide the value of the selected inputs between the
+     * recipient, fees, and change, adding a change output
+     * only if the change is worth keeping.
+     * 
+     * @param totalValue The total value of the selected inputs.
+     * @param weight The transaction weight excluding any change output.
+     * @param changeOutputWeight The weight of a change output.
+     * @param feeRate The fee rate, in sat/kvB.
+     * @param costOfChange The cost of creating a change output and later spending it.
+     * @param withdrawAll Whether the entire withdrawable balance is being withdrawn.
+     * @param withdrawableBalance The balance the account is able to withdraw.
+     * @param amount The amount to withdraw if not withdrawing everything.
+     * @return The divided amounts.
+     * @throws CannotAffordFeesException If the account cannot afford the fees.
+     */
+    private WithdrawAmounts divideInputValue(long totalValue, long weight, long changeOutputWeight, long feeRate,
+        long costOfChange, boolean withdrawAll, long withdrawableBalance, long amount)
+    {
+        long recipientAmount;
+        long totalFees;
+        long changeAmount;
+        if (withdrawAll)
+        {
+            if (totalValue > withdrawableBalance)
+            {
+                weight += changeOutputWeight;
+            }
+            totalFees = getFee(weight, feeRate);
+            recipientAmount = withdrawableBalance - totalFees;
+            changeAmount = totalValue - withdrawableBalance;
+        }
+        else
+        {
+            recipientAmount = amount;
+            totalFees = getFee(weight, feeRate);
+            long excess = totalValue - (recipientAmount + totalFees);
+            if (excess > costOfChange)
+            {
+                weight += changeOutputWeight;
+                totalFees = getFee(weight, feeRate);
+                changeAmount = totalValue - (recipientAmount + totalFees);
+            }
+            else
+            {
+                // Excess Too Small To Be Worth Keeping, Give Up As Fees
+                totalFees += excess;
+                changeAmount = 0L;
+            }
+        }
+        if (recipientAmount <= 0L)
+        {
+            throw new CannotAffordFeesException();
+        }
+        // Final Check Whether Total Cost Exceeds Balance
+        long totalCost = recipientAmount + totalFees;
+        if (totalCost > withdrawableBalance)
+        {
+            throw new CannotAffordFeesException();
+        }
+        return new WithdrawAmounts(recipientAmount, totalFees, changeAmount, weight);
+    }
+
+    /**
+     * Calculate the combined weight of every unlocked deposit
+     * used as transaction inputs, including the input counter.
+     * 
+     * @param aggregates The pool aggregates.
+     * @return The weight contribution of all unlocked deposits.
+     */
+    private long getPoolInputWeight(PoolAggregates aggregates)
+    {
+        long inputWeight = 0L;
+        for (DepositType type : DepositType.values())
+        {
+            inputWeight += aggregates.getWithdrawableCount(type) * (getInputWeight(type) + TX_INPUT_WITNESS_ITEM_COUNTER_WEIGHT);
+        }
+        int count = aggregates.getWithdrawableCount();
+        return count == 0 ? inputWeight : inputWeight + getCounterWeight(count);
+    }
+
+    /**
+     * Validate a recipient address, rejecting strings that
+     * could be used for JSON-RPC injection.
+     * 
+     * @param initiatorId The ID of the account sending to the address.
+     * @param destAddress The recipient address.
+     * @return The weight of an output paying the address.
+     * @throws InvalidAddressException If the address is invalid.
+     */
+    private long getRecipientOutputWeight(UUID initiatorId, String destAddress)
+    {
+        return getOutputWeight(validateRecipient(initiatorId, destAddress).getScriptPubKey());
+    }
+
+    /**
+     * Validate a recipient address, rejecting strings that
+     * could be used for JSON-RPC injection.
+     * 
+     * @param initiatorId The ID of the account sending to the address.
+     * @param destAddress The recipient address.
+     * @return The validation result, including the locking script of the address.
+     * @throws InvalidAddressException If the address is invalid.
+     */
+    private ValidateAddressResult validateRecipient(UUID initiatorId, String destAddress)
+    {
+        // Prevent Possibility Of JSON-RPC Injection, Just In Case
+        if (SUS_PATTERN.matcher(destAddress).matches())
+        {
+            String logMsg = String.format("User %s provided a potentially malicious address string! \"%s\"", initiatorId, destAddress);
+            logger.log(Level.WARN, logMsg);
+            throw new InvalidAddressException();
+        }
+        // Validate Address, Also Gives Locking Script For Sizing
+        ValidateAddressResult addressResult = walletService.validateAddress(destAddress);
+        if (!addressResult.isValid())
+        {
+            throw new InvalidAddressException();
+        }
+        return addressResult;
+    }
+
+    /**
+     * Calculate the weight of a withdraw transaction
+     * excluding its inputs and change output.
+     * 
+     * @param recipientCount The number of recipient outputs.
+     * @param recipientOutputWeight The combined weight of the recipient outputs.
+     * @return The base transaction weight, counting a change output.
+     */
+    private static long getBaseWeight(int recipientCount, long recipientOutputWeight)
+    {
+        return TX_VERSION_WEIGHT + TX_LOCKTIME_WEIGHT + TX_SEGWIT_MARKER_WEIGHT
+            + getCounterWeight(recipientCount + 1) + recipientOutputWeight;
+    }
+
+    /**
+     * Claim the deposit entities matching the given selected
+     * deposits, holding their rows until the withdraw request
+     * is saved so concurrent withdrawals pick other inputs.
+     * 
+     * @param selection The selected deposits, possibly detached copies.
+     * @return The matching deposit entities, or null if any are missing, locked, or claimed elsewhere.
+     */
+    private Set<Deposit> claimDeposits(Set<Deposit> selection)
+    {
+        List<Deposit> claimed = depositDao.claim(selection);
+        if (claimed.size() != selection.size())
+        {
+            logger.log(Level.DEBUG, String.format("Withdraw Inputs Claimed Elsewhere: %d Of %d Unavailable, Reselecting",
+                selection.size() - claimed.size(), selection.size()));
+            return null;
+        }
+        return new LinkedHashSet<>(claimed);
+    }
+
+    /**
+     * Estimate the fee rate needed for a transaction to
+     * confirm within the given number of blocks.
+     * 
+     * @param confirmationTarget The block confirmation target.
+     * @return The estimated fee rate, in sat/kvB.
+     * @throws FeeEstimationException If the node could not estimate fees.
+     */
+    private long estimateFeeRate(int confirmationTarget)
+    {
+        EstimateSmartFeeResult estimateSmartFeeResult = walletService.estimateSmartFee(confirmationTarget);
+        if (estimateSmartFeeResult.getErrors() != null)
+        {
+            for (String errorMessage : estimateSmartFeeResult.getErrors())
+            {
+                logger.log(Level.WARN, "Error estimating fees for withdrawal!"
+                    + " Your node may not have been running long enough to properly estimate fees."
+                    + " Error Message: " + errorMessage);
+            }
+            throw new FeeEstimationException();
+        }
+        return estimateSmartFeeResult.getFeeRate().getSatAmount();
+    }
+
+    /**
+     * How the value of withdraw inputs is divided.
+     */
+    private static final class WithdrawAmounts
+    {
+        private final long recipientAmount;
+        private final long totalFees;
+        private final long changeAmount;
+        private final long weight;
+
+        private WithdrawAmounts(long recipientAmount, long totalFees, long changeAmount, long weight)
+        {
+            this.recipientAmount = recipientAmount;
+            this.totalFees = totalFees;
+            this.changeAmount = changeAmount;
+            this.weight = weight;
+        }
+    }
+}
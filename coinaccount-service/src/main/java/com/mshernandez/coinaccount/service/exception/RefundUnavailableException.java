@@ -0,0 +1,14 @@
+package com.mshernandez.coinaccount.service.exception;
+
+public class RefundUnavailableException extends RuntimeException
+{
+    public RefundUnavailableException()
+    {
+        super();
+    }
+
+    public RefundUnavailableException(String message)
+    {
+        super(message);
+    }
+}
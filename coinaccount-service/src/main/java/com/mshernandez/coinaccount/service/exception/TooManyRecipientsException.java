@@ -0,0 +1,14 @@
+package com.mshernandez.coinaccount.service.exception;
+
+public class TooManyRecipientsException extends RuntimeException
+{
+    public TooManyRecipientsException()
+    {
+        super();
+    }
+
+    public TooManyRecipientsException(String message)
+    {
+        super(message);
+    }
+}
@@ -0,0 +1,24 @@
+package com.mshernandez.coinaccount.service.result;
+
+import java.util.Map;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+@Accessors(chain = true)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefundBatchResult
+{
+    private String txid;
+    private UUID lastAccountId;
+    private Map<UUID, Long> refundAmounts;
+    private long feeAmount;
+    private int skippedAccounts;
+}
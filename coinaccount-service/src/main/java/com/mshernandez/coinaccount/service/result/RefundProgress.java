@@ -0,0 +1,24 @@
+package com.mshernandez.coinaccount.service.result;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+@Accessors(chain = true)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefundProgress
+{
+    private int batches;
+    private int refundedAccounts;
+    private long refundedAmount;
+    private long feeAmount;
+    private int skippedAccounts;
+    private String lastTxid;
+    private long elapsedMillis;
+    private boolean done;
+}
@@ -0,0 +1,22 @@
+package com.mshernandez.coinaccount.service.result;
+
+import java.util.Map;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+@Accessors(chain = true)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class WithdrawSentResult
+{
+    private String txid;
+    private Map<UUID, Long> withdrawAmounts;
+    private long feeAmount;
+}
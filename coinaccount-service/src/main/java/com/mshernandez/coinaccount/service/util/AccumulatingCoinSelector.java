@@ -0,0 +1,102 @@
+package com.mshernandez.coinaccount.service.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Base for coin selectors that place usable inputs in some
+ * order and then select them one at a time until the target
+ * is met, without ever backtracking.
+ * <p>
+ * Subclasses only decide the order inputs are considered in.
+ * <p>
+ * The returned set's iterator will follow the order of selection.
+ */
+abstract class AccumulatingCoinSelector<T> implements CoinSelector<T>
+{
+    /**
+     * Whether the selection should account
+     * for fees introduced by the selection
+     * itself (cover input fees).
+     */
+    private boolean coverFees;
+
+    /**
+     * Create an accumulating coin selector.
+     * 
+     * @param coverFees Whether the selection should account for fees introduced by the selection itself.
+     */
+    AccumulatingCoinSelector(boolean coverFees)
+    {
+        this.coverFees = coverFees;
+    }
+
+    /**
+     * Arrange usable inputs in the order they should be selected.
+     * 
+     * @param usable The usable inputs, which may be reordered in place.
+     * @param evaluator The evaluator to use.
+     * @return The inputs in selection order.
+     */
+    protected abstract List<T> order(List<T> usable, CoinEvaluator<T> evaluator);
+
+    @Override
+    public void selectInputs(CoinSelectionState<T> state, Set<T> inputs, CoinEvaluator<T> evaluator)
+    {
+        // Get Inputs That Can Be Used, Only Those Adding Value When Covering Fees
+        Set<T> previousSelection = state.getSelection();
+        List<T> usable = inputs.stream()
+            .filter(o -> evaluator.isValid(o) && !previousSelection.contains(o)
+                && (!coverFees || evaluator.effectiveValue(o) > 0L))
+            .collect(Collectors.toCollection(ArrayList::new));
+        // Select Inputs In Order Until Target Value Is Met
+        Set<T> result = new LinkedHashSet<>(previousSelection);
+        long selectionValue = state.getValue();
+        long selectionCost = state.getCost();
+        long amountNeeded = amountNeeded(state, selectionValue, selectionCost, evaluator);
+        for (T input : order(usable, evaluator))
+        {
+            if (amountNeeded <= 0L)
+            {
+                break;
+            }
+            // Result No Longer Wanted, Return Without Changes
+            if (state.isCanceled())
+            {
+                return;
+            }
+            result.add(input);
+            selectionValue += evaluator.evaluate(input);
+            selectionCost += evaluator.cost(input) + evaluator.nthInputCost(result.size() - 1);
+            amountNeeded = amountNeeded(state, selectionValue, selectionCost, evaluator);
+        }
+        // Return Without Changes If Target Value Couldn't Be Fulfilled
+        if (amountNeeded > 0L)
+        {
+            return;
+        }
+        state.updateSelection(result, selectionValue, selectionCost, true);
+    }
+
+    /**
+     * Determine the remaining value needed to reach the target.
+     * 
+     * @param state The selection state holding the target.
+     * @param value The total value of the selection.
+     * @param cost The total cost of the selection.
+     * @param evaluator The evaluator to use.
+     * @return The remaining value needed, or zero or less if the target is met.
+     */
+    private long amountNeeded(CoinSelectionState<T> state, long value, long cost, CoinEvaluator<T> evaluator)
+    {
+        long amountNeeded = state.getTarget() - value;
+        if (coverFees)
+        {
+            amountNeeded += evaluator.costImpactOnTarget(cost);
+        }
+        return amountNeeded;
+    }
+}
@@ -1,12 +1,12 @@
 package com.mshernandez.coinaccount.service.util;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
+import java.util.Comparator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * This coin selector uses a binary search algorithm
@@ -26,8 +26,14 @@ import java.util.stream.Collectors;
  * However, given inputs (2,3,6) with target 5
  * the algorithm will give the unoptimal solution (6).
  * <p>
+ * Input values and costs are evaluated once into primitive
+ * arrays which keep their sorted positions. Selected inputs
+ * are only marked as removed in a Fenwick tree, so selecting
+ * or rewinding an input costs O(log(n)) instead of shifting
+ * a list.
+ * <p>
  * The returned set's iterator will follow the order of selection.
- * 
+ *
  * @author Markus Hernandez
  */
 public class BinarySearchCoinSelector<T> implements CoinSelector<T>
@@ -123,26 +129,57 @@ public class BinarySearchCoinSelector<T> implements CoinSelector<T>
             // Enable Max Rewind Despite Performance Cost
             maxRewind = inputs.size();
         }
-        // Get List Of Sorted Inputs That Can Be Used
+        // Get List Of Inputs That Can Be Used
         Set<T> previousSelection = state.getSelection();
-        List<T> sorted = inputs.stream()
+        List<T> usable = inputs.stream()
             .filter(o -> evaluator.isValid(o) && !previousSelection.contains(o))
-            .sorted(evaluator)
             .collect(Collectors.toCollection(ArrayList::new));
-        // Store Selected Inputs & Where They Were Found
-        Deque<SelectionEntry> selectedInputs = new ArrayDeque<>(sorted.size());
+        // Evaluate Each Input Once Instead Of On Every Comparison
+        int numInputs = usable.size();
+        long[] effectiveValues = new long[numInputs];
+        for (int i = 0; i < numInputs; i++)
+        {
+            effectiveValues[i] = evaluator.effectiveValue(usable.get(i));
+        }
+        // Sort By Effective Value, Sorted Positions Never Change
+        int[] order = IntStream.range(0, numInputs)
+            .boxed()
+            .sorted(Comparator.comparingLong(i -> effectiveValues[i]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        List<T> sorted = new ArrayList<>(numInputs);
+        long[] values = new long[numInputs];
+        long[] costs = new long[numInputs];
+        for (int i = 0; i < numInputs; i++)
+        {
+            T input = usable.get(order[i]);
+            sorted.add(input);
+            values[i] = coverFees ? effectiveValues[order[i]] : evaluator.evaluate(input);
+            costs[i] = evaluator.cost(input);
+        }
+        // Track Inputs Not Yet Selected, Allows Finding The nth Remaining Input In O(log(n))
+        FenwickTree remaining = new FenwickTree(numInputs);
+        // Store Selected Input Positions & Total Selection Costs As A Stack
+        int[] selectedIndices = new int[numInputs];
+        long[] selectedCostDeltas = new long[numInputs];
+        int numSelected = 0;
         // Keep Selecting Inputs Until Target Value Is Met
         long selectionValue = state.getValue(); // The total value of the selected inputs not considering their costs.
-        double selectionCost = state.getCost(); // The total costs of the selected inputs.
+        long selectionCost = state.getCost(); // The total costs of the selected inputs.
         long amountNeeded = state.getTarget() - selectionValue; // The remaining amount needed to reach the target.
         if (coverFees)
         {
             amountNeeded += evaluator.costImpactOnTarget(selectionCost);
         }
-        while (amountNeeded > 0L && !sorted.isEmpty())
+        while (amountNeeded > 0L && remaining.size() > 0)
         {
+            // Result No Longer Wanted, Return Without Changes
+            if (state.isCanceled())
+            {
+                return;
+            }
             // Keep Track Of Costs To Select Next Input
-            double costDelta = evaluator.nthInputCost(previousSelection.size() + selectedInputs.size());
+            long costDelta = evaluator.nthInputCost(previousSelection.size() + numSelected);
             selectionCost += costDelta;
             // Update New Selection Target
             amountNeeded = state.getTarget() - selectionValue;
@@ -150,47 +187,50 @@ public class BinarySearchCoinSelector<T> implements CoinSelector<T>
             {
                 amountNeeded += evaluator.costImpactOnTarget(selectionCost);
             }
-            // Binary Search For Next Input Closest To Current Target Amount
+            // Binary Search Remaining Inputs By Rank For Next Input Closest To Current Target Amount
             int first = 0,
-                last = sorted.size() - 1,
+                last = remaining.size() - 1,
                 mid;
             while (first <= last)
             {
                 mid = (first + last) / 2;
-                long value = getValue(sorted.get(mid), evaluator);
-                double difference = absDiff(value, amountNeeded);
+                int index = remaining.findByRank(mid);
+                long value = values[index];
+                long difference = absDiff(value, amountNeeded);
                 // Check If Any Smaller Deposits Closer Or Equally Close To Target Amount
                 if (mid - 1 >= first
-                    && absDiff(getValue(sorted.get(mid - 1), evaluator), amountNeeded) <= difference)
+                    && absDiff(values[remaining.findByRank(mid - 1)], amountNeeded) <= difference)
                 {
                     last = mid - 1;
                 }
                 // Check If Any Larger Deposits Closer To Target Amount
                 else if (mid + 1 <= last
-                    && absDiff(getValue(sorted.get(mid + 1), evaluator), amountNeeded) < difference)
+                    && absDiff(values[remaining.findByRank(mid + 1)], amountNeeded) < difference)
                 {
                     first = mid + 1;
                 }
                 // This Deposit Is Closest To The Target Amount
                 else
                 {
-                    T selected = sorted.get(mid);
-                    SelectionEntry lastSelected;
                     // If Selected Input Larger Than Last Selected, Try To Only Use Larger Input
                     int numRewinds = 0;
                     while (numRewinds < maxRewind
-                        && (lastSelected = selectedInputs.peek()) != null
-                        && value > lastSelected.getValue())
+                        && numSelected > 0
+                        && value > values[selectedIndices[numSelected - 1]])
                     {
                         numRewinds++;
-                        selectionValue -= lastSelected.getValue();
-                        selectionCost -= lastSelected.getTotalSelectionCosts();
-                        sorted.add(lastSelected.getIndex(), selectedInputs.pop().getInput());
+                        numSelected--;
+                        int rewoundIndex = selectedIndices[numSelected];
+                        selectionValue -= values[rewoundIndex];
+                        selectionCost -= selectedCostDeltas[numSelected];
+                        remaining.restore(rewoundIndex);
                     }
-                    double inputCost = evaluator.cost(selected);
+                    long inputCost = costs[index];
                     costDelta += inputCost;
-                    selectedInputs.push(new SelectionEntry(selected, sorted.indexOf(selected), value, costDelta));
-                    sorted.remove(selected);
+                    selectedIndices[numSelected] = index;
+                    selectedCostDeltas[numSelected] = costDelta;
+                    numSelected++;
+                    remaining.remove(index);
                     selectionValue += value;
                     selectionCost += inputCost;
                     break;
@@ -209,19 +249,14 @@ public class BinarySearchCoinSelector<T> implements CoinSelector<T>
             return;
         }
         // Set Iterator Will Follow Order Of Selection
-        Set<T> result = new LinkedHashSet<>(selectedInputs.size());
-        while (!selectedInputs.isEmpty())
+        Set<T> result = new LinkedHashSet<>(numSelected);
+        for (int i = 0; i < numSelected; i++)
         {
-            result.add(selectedInputs.removeLast().getInput());
+            result.add(sorted.get(selectedIndices[i]));
         }
         state.updateSelection(result, selectionValue, selectionCost, true);
     }
 
-    private long getValue(T input, CoinEvaluator<T> evaluator)
-    {
-        return coverFees ? evaluator.effectiveValue(input) : evaluator.evaluate(input);
-    }
-
     /**
      * Calculate the absolute difference between the two values.
      * 
@@ -229,70 +264,8 @@ public class BinarySearchCoinSelector<T> implements CoinSelector<T>
      * @param b The second value.
      * @return The absolute difference.
      */
-    private double absDiff(long a, long b)
+    private long absDiff(long a, long b)
     {
         return Math.abs(a - b);
     }
-
-    /**
-     * Used to store intermediate selection
-     * results.
-     */
-    private class SelectionEntry
-    {
-        private T input;
-        private int index;
-        private long value;
-        private double costDelta;
-
-        SelectionEntry(T input, int index, long value, double costDelta)
-        {
-            this.input = input;
-            this.index = index;
-            this.value = value;
-            this.costDelta = costDelta;
-        }
-
-        /**
-         * Get the selected input.
-         * 
-         * @return The selected input for this entry.
-         */
-        T getInput()
-        {
-            return input;
-        }
-
-        /**
-         * Get the index this input was taken from.
-         * 
-         * @return The index in the collection this input was taken from.
-         */
-        int getIndex()
-        {
-            return index;
-        }
-
-        /**
-         * Get the value of this input.
-         * 
-         * @return The value of this input.
-         */
-        long getValue()
-        {
-            return value;
-        }
-
-        /**
-         * Get the net change in total costs after
-         * selecting this input, including costs
-         * due to the number of inputs selected.
-         * 
-         * @return The net change in total selection costs.
-         */
-        double getTotalSelectionCosts()
-        {
-            return costDelta;
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,244 @@
+package com.mshernandez.coinaccount.service.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * This coin selector performs a depth-first branch and bound
+ * search for a set of inputs whose effective value matches the
+ * remaining target closely enough that no change output is needed,
+ * following the algorithm used by Bitcoin Core.
+ * <p>
+ * A selection is accepted if its effective value exceeds the
+ * amount needed by no more than the cost of change, the cost
+ * to create a change output now and to spend it later. Any such
+ * excess is cheaper to give up as fees than to keep as change.
+ * Among accepted selections, the one with the least excess wins.
+ * <p>
+ * Inputs are explored largest first, including each input before
+ * trying to omit it. A branch is abandoned once it cannot reach
+ * the target with the remaining inputs or already exceeds the
+ * target by more than the cost of change.
+ * <p>
+ * The search is exponential in the worst case, so it stops after
+ * a number of iterations or amount of time and keeps the best
+ * selection found so far, if any. When no selection is found,
+ * the selection state is left unchanged so that another selector,
+ * typically <code>BinarySearchCoinSelector</code>, can be used
+ * as a fallback that creates change.
+ * <p>
+ * Canceling the selection state also stops the search,
+ * leaving the selection state unchanged.
+ * <p>
+ * The returned set's iterator will follow the order of selection.
+ */
+public class BranchAndBoundCoinSelector<T> implements CoinSelector<T>
+{
+    /**
+     * The default maximum number of search iterations,
+     * matching Bitcoin Core.
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 100000;
+
+    /**
+     * The default maximum search time, in milliseconds.
+     */
+    public static final long DEFAULT_MAX_TIME_MILLIS = 100L;
+
+    // How Many Iterations Between Checks Of The Time Budget
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    /**
+     * The largest amount, in units of the target value,
+     * that a selection may exceed the target by while still
+     * being accepted without change.
+     */
+    private long costOfChange;
+
+    /**
+     * The maximum number of search iterations.
+     */
+    private int maxIterations;
+
+    /**
+     * The maximum search time, in milliseconds.
+     */
+    private long maxTimeMillis;
+
+    /**
+     * Create a branch and bound coin selector
+     * with the default search budget.
+     *
+     * @param costOfChange The max amount the selection may exceed the target by.
+     */
+    public BranchAndBoundCoinSelector(long costOfChange)
+    {
+        this(costOfChange, DEFAULT_MAX_ITERATIONS, DEFAULT_MAX_TIME_MILLIS);
+    }
+
+    /**
+     * Create a branch and bound coin selector
+     * with a customized search budget.
+     *
+     * @param costOfChange The max amount the selection may exceed the target by.
+     * @param maxIterations The maximum number of search iterations.
+     * @param maxTimeMillis The maximum search time, in milliseconds.
+     */
+    public BranchAndBoundCoinSelector(long costOfChange, int maxIterations, long maxTimeMillis)
+    {
+        this.costOfChange = costOfChange;
+        this.maxIterations = maxIterations;
+        this.maxTimeMillis = maxTimeMillis;
+    }
+
+    @Override
+    public void selectInputs(CoinSelectionState<T> state, Set<T> inputs, CoinEvaluator<T> evaluator)
+    {
+        long deadline = System.nanoTime() + maxTimeMillis * 1000000L;
+        // Get Inputs That Add Value, Largest Effective Value First
+        Set<T> previousSelection = state.getSelection();
+        List<T> sorted = inputs.stream()
+            .filter(o -> evaluator.isValid(o) && !previousSelection.contains(o) && evaluator.effectiveValue(o) > 0L)
+            .sorted(Comparator.comparingLong(evaluator::effectiveValue).reversed())
+            .collect(Collectors.toList());
+        int numInputs = sorted.size();
+        long[] effectiveValues = new long[numInputs];
+        long[] values = new long[numInputs];
+        long[] costs = new long[numInputs];
+        long available = 0L;
+        for (int i = 0; i < numInputs; i++)
+        {
+            T input = sorted.get(i);
+            effectiveValues[i] = evaluator.effectiveValue(input);
+            values[i] = evaluator.evaluate(input);
+            costs[i] = evaluator.cost(input);
+            available += effectiveValues[i];
+        }
+        // Determine Effective Value Needed For Each Possible Number Of Selected Inputs
+        long[] amountNeeded = new long[numInputs + 1];
+        long[] nthInputCosts = new long[numInputs + 1];
+        for (int count = 0; count <= numInputs; count++)
+        {
+            if (count > 0)
+            {
+                nthInputCosts[count] = nthInputCosts[count - 1]
+                    + evaluator.nthInputCost(previousSelection.size() + count - 1);
+            }
+            amountNeeded[count] = state.getTarget() - state.getValue()
+                + evaluator.costImpactOnTarget(state.getCost() + nthInputCosts[count]);
+        }
+        // Not Worth Searching If All Inputs Can't Reach The Target
+        if (available < amountNeeded[0])
+        {
+            return;
+        }
+        // Selected Input Positions In Order Of Selection
+        int[] selected = new int[numInputs];
+        int numSelected = 0;
+        long selectionEffectiveValue = 0L;
+        long selectionValue = 0L;
+        long selectionCost = 0L;
+        // Best Selection Found So Far
+        int[] best = null;
+        int numBest = 0;
+        long bestExcess = Long.MAX_VALUE;
+        long bestValue = 0L;
+        long bestCost = 0L;
+        // Depth-First Search, Including Each Input Before Omitting It
+        int index = 0;
+        for (int iteration = 0; iteration < maxIterations; iteration++, index++)
+        {
+            if (iteration % TIME_CHECK_INTERVAL == 0 && iteration > 0)
+            {
+                if (state.isCanceled())
+                {
+                    // Result No Longer Wanted, Return Without Changes
+                    return;
+                }
+                if (System.nanoTime() > deadline)
+                {
+                    break;
+                }
+            }
+            boolean backtrack = false;
+            long needed = amountNeeded[numSelected];
+            if (selectionEffectiveValue + available < needed
+                || selectionEffectiveValue > needed + costOfChange)
+            {
+                // Target Unreachable Or Already Exceeded Too Much On This Branch
+                backtrack = true;
+            }
+            else if (selectionEffectiveValue >= needed)
+            {
+                // Found A Selection, Remember It If Best So Far & Actually Covers Costs
+                long excess = selectionEffectiveValue - needed;
+                long totalCost = selectionCost + nthInputCosts[numSelected];
+                boolean coversCosts = state.getValue() + selectionValue
+                    >= state.getTarget() + evaluator.costImpactOnTarget(state.getCost() + totalCost);
+                if (excess < bestExcess && coversCosts)
+                {
+                    best = Arrays.copyOf(selected, numSelected);
+                    numBest = numSelected;
+                    bestExcess = excess;
+                    bestValue = selectionValue;
+                    bestCost = totalCost;
+                    if (excess == 0L)
+                    {
+                        // Can't Do Any Better
+                        break;
+                    }
+                }
+                backtrack = true;
+            }
+            if (backtrack)
+            {
+                if (numSelected == 0)
+                {
+                    // Every Branch Has Been Explored
+                    break;
+                }
+                // Restore Omitted Inputs After The Last Selected Input To The Lookahead
+                for (index--; index > selected[numSelected - 1]; index--)
+                {
+                    available += effectiveValues[index];
+                }
+                // Last Selected Input Was Included, Now Try Omitting It
+                numSelected--;
+                selectionEffectiveValue -= effectiveValues[index];
+                selectionValue -= values[index];
+                selectionCost -= costs[index];
+            }
+            else
+            {
+                available -= effectiveValues[index];
+                // Omitting An Input Equal To One Just Omitted Would Repeat The Same Search
+                if (numSelected == 0
+                    || index - 1 == selected[numSelected - 1]
+                    || effectiveValues[index] != effectiveValues[index - 1]
+                    || costs[index] != costs[index - 1])
+                {
+                    selected[numSelected++] = index;
+                    selectionEffectiveValue += effectiveValues[index];
+                    selectionValue += values[index];
+                    selectionCost += costs[index];
+                }
+            }
+        }
+        // Return Without Changes If No Selection Was Found
+        if (best == null)
+        {
+            return;
+        }
+        // Set Iterator Will Follow Order Of Selection
+        Set<T> result = new LinkedHashSet<>(previousSelection);
+        for (int i = 0; i < numBest; i++)
+        {
+            result.add(sorted.get(best[i]));
+        }
+        state.updateSelection(result, state.getValue() + bestValue, state.getCost() + bestCost, true);
+    }
+}
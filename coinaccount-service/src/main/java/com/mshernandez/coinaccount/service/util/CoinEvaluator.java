@@ -30,14 +30,17 @@ public interface CoinEvaluator<T> extends Comparator<T>
      * Determine the cost of selecting this particular input.
      * The cost may use a different scale/unit than values.
      * <p>
-     * In practice, this is used to determine the added vsize
+     * In practice, this is used to determine the added weight
      * requirement from selecting this input, excluding
      * input counter size increases.
+     * <p>
+     * Costs are integers so that summing and comparing them
+     * is exact and avoids floating-point work.
      * 
      * @param obj The object.
      * @return The cost for selecting the object.
      */
-    double cost(T obj);
+    long cost(T obj);
 
     /**
      * Determine any additional cost of selecting the nth input,
@@ -46,13 +49,13 @@ public interface CoinEvaluator<T> extends Comparator<T>
      * This may be used to add additional costs based solely on the
      * number of inputs selected.
      * <p>
-     * In practice, this is used to determine any added vsize
+     * In practice, this is used to determine any added weight
      * requirement from having to expand the input counter varint size.
      * 
      * @param index The zero-based index representing the position of the next input.
      * @return The cost of selecting the input at the given index.
      */
-    double nthInputCost(long index);
+    long nthInputCost(long index);
 
     /**
      * Determine how much the given cost raises the selection target.
@@ -60,7 +63,23 @@ public interface CoinEvaluator<T> extends Comparator<T>
      * @param cost The cost.
      * @return The impact of the cost on the selection target, in units of the target value.
      */
-    long costImpactOnTarget(double cost);
+    long costImpactOnTarget(long cost);
+
+    /**
+     * Determine how much the given cost would raise the selection
+     * target at a long-term fee rate, representing the cost of
+     * spending the same inputs at some later time instead.
+     * <p>
+     * By default this matches <code>costImpactOnTarget</code>,
+     * meaning inputs cost the same to spend now or later.
+     * 
+     * @param cost The cost.
+     * @return The long-term impact of the cost on the selection target, in units of the target value.
+     */
+    default long longTermCostImpactOnTarget(long cost)
+    {
+        return costImpactOnTarget(cost);
+    }
 
     /**
      * Get the net value of the object considering
@@ -78,9 +97,40 @@ public interface CoinEvaluator<T> extends Comparator<T>
         return evaluate(obj) - costImpactOnTarget(cost(obj));
     }
 
+    /**
+     * Score a complete selection by how much value it wastes,
+     * where a lower score is a better selection.
+     * <p>
+     * Waste combines the extra cost of spending the selected inputs
+     * now rather than at the long-term fee rate, which is negative
+     * when fees are currently low, with either the excess value
+     * given up when the selection is close enough to the target
+     * to skip change, or otherwise the cost of change itself.
+     * <p>
+     * Excess is found from the values of the selected inputs
+     * rather than the selection value, since selectors covering
+     * their own fees may already have taken costs out of it.
+     * 
+     * @param selection A complete selection which covers its own costs.
+     * @param costOfChange The cost of creating a change output and later spending it.
+     * @return The waste score of the selection, in units of the target value.
+     */
+    default long waste(CoinSelectionState<T> selection, long costOfChange)
+    {
+        long value = 0L;
+        for (T input : selection.getSelection())
+        {
+            value += evaluate(input);
+        }
+        long cost = selection.getCost();
+        long timingCost = costImpactOnTarget(cost) - longTermCostImpactOnTarget(cost);
+        long excess = value - costImpactOnTarget(cost) - selection.getTarget();
+        return timingCost + Math.min(excess, costOfChange);
+    }
+
     @Override
     default int compare(T a, T b)
     {
-        return (int) (effectiveValue(a) - effectiveValue(b));
+        return Long.compare(effectiveValue(a), effectiveValue(b));
     }
 }
\ No newline at end of file
@@ -1,11 +1,24 @@
 package com.mshernandez.coinaccount.service.util;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class CoinSelectionBuilder<T>
 {
+    /**
+     * The default time to keep waiting past the deadline when
+     * racing steps and none has finished, in milliseconds.
+     */
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 1000L;
+
     LinkedList<SelectionStep> steps;
     CoinEvaluator<T> evaluator;
     long target;
@@ -69,6 +82,164 @@ public class CoinSelectionBuilder<T>
     public CoinSelectionState<T> select()
     {
         CoinSelectionState<T> result = new CoinSelectionState<>(target);
+        validateParameters();
+        Iterator<SelectionStep> iterator = steps.iterator();
+        while (!result.isComplete() && iterator.hasNext())
+        {
+            SelectionStep nextStep = iterator.next();
+            nextStep.selector.selectInputs(result, nextStep.inputs, evaluator);
+        }
+        return result;
+    }
+
+    /**
+     * Completes the coin selection by running every step
+     * concurrently, each as an independent selection from
+     * its own input set, and keeping the complete result
+     * with the lowest waste.
+     * <p>
+     * Waits at most the default max wait past the deadline
+     * if no step has finished by the deadline.
+     * 
+     * @param pool The pool to run selection steps on.
+     * @param costOfChange The cost of creating a change output and later spending it.
+     * @param deadlineMillis How long to wait for steps to finish, in milliseconds.
+     * @return An object holding the coin selection results.
+     * @throws InvalidSelectionParameterException If the evaluator or target are missing/invalid.
+     * @see #selectLowestWaste(ForkJoinPool, long, long, long)
+     */
+    public CoinSelectionState<T> selectLowestWaste(ForkJoinPool pool, long costOfChange, long deadlineMillis)
+    {
+        return selectLowestWaste(pool, costOfChange, deadlineMillis, DEFAULT_MAX_WAIT_MILLIS);
+    }
+
+    /**
+     * Completes the coin selection by running every step
+     * concurrently, each as an independent selection from
+     * its own input set, and keeping the complete result
+     * with the lowest waste.
+     * <p>
+     * Results not finished by the deadline are discarded.
+     * If no step has finished by the deadline, waits up to
+     * the max wait for the first complete selection so that
+     * one is still returned whenever possible. Ties go to
+     * the earliest step.
+     * <p>
+     * Steps still running once a result is chosen are
+     * canceled through their selection states, so selectors
+     * checking for cancellation stop early.
+     * 
+     * @param pool The pool to run selection steps on.
+     * @param costOfChange The cost of creating a change output and later spending it.
+     * @param deadlineMillis How long to wait for steps to finish, in milliseconds.
+     * @param maxWaitMillis How long to keep waiting past the deadline if no step has finished, in milliseconds.
+     * @return An object holding the coin selection results.
+     * @throws InvalidSelectionParameterException If the evaluator or target are missing/invalid.
+     */
+    public CoinSelectionState<T> selectLowestWaste(ForkJoinPool pool, long costOfChange, long deadlineMillis, long maxWaitMillis)
+    {
+        validateParameters();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        // Run Each Step Independently
+        List<CoinSelectionState<T>> states = new ArrayList<>(steps.size());
+        List<ForkJoinTask<CoinSelectionState<T>>> tasks = new ArrayList<>(steps.size());
+        for (SelectionStep step : steps)
+        {
+            CoinSelectionState<T> state = new CoinSelectionState<>(target);
+            states.add(state);
+            tasks.add(pool.submit(() ->
+            {
+                step.selector.selectInputs(state, step.inputs, evaluator);
+                return state;
+            }));
+        }
+        CoinSelectionState<T> best = null;
+        try
+        {
+            // Keep The Lowest Waste Result Finished Before The Deadline
+            long bestWaste = Long.MAX_VALUE;
+            for (ForkJoinTask<CoinSelectionState<T>> task : tasks)
+            {
+                CoinSelectionState<T> result = awaitResult(task, deadline - System.nanoTime());
+                if (result != null && result.isComplete())
+                {
+                    long waste = evaluator.waste(result, costOfChange);
+                    if (best == null || waste < bestWaste)
+                    {
+                        best = result;
+                        bestWaste = waste;
+                    }
+                }
+            }
+            // Nothing Finished In Time, Settle For The First Complete Result Within The Max Wait
+            if (best == null)
+            {
+                long maxWaitDeadline = deadline + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                for (ForkJoinTask<CoinSelectionState<T>> task : tasks)
+                {
+                    CoinSelectionState<T> result = awaitResult(task, maxWaitDeadline - System.nanoTime());
+                    if (result != null && result.isComplete())
+                    {
+                        best = result;
+                        break;
+                    }
+                }
+            }
+            return best == null ? new CoinSelectionState<>(target) : best;
+        }
+        finally
+        {
+            // Don't Leave Unused Steps Running, Including Those Already Started
+            for (int i = 0; i < tasks.size(); i++)
+            {
+                tasks.get(i).cancel(false);
+                if (states.get(i) != best)
+                {
+                    states.get(i).cancel();
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait up to the given time for a selection step to finish.
+     * 
+     * @param task The selection step task.
+     * @param timeoutNanos The maximum time to wait, in nanoseconds.
+     * @return The step result, or null if it didn't finish in time.
+     */
+    private CoinSelectionState<T> awaitResult(ForkJoinTask<CoinSelectionState<T>> task, long timeoutNanos)
+    {
+        try
+        {
+            return task.get(Math.max(timeoutNanos, 0L), TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException e)
+        {
+            return null;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Check that the evaluator and target are set.
+     * 
+     * @throws InvalidSelectionParameterException If the evaluator or target are missing/invalid.
+     */
+    private void validateParameters()
+    {
         if (target < 0L)
         {
             throw new InvalidSelectionParameterException("Invalid selection target!");
@@ -77,13 +248,6 @@ public class CoinSelectionBuilder<T>
         {
             throw new InvalidSelectionParameterException("Invalid or missing evaluator!");
         }
-        Iterator<SelectionStep> iterator = steps.iterator();
-        while (!result.isComplete() && iterator.hasNext())
-        {
-            SelectionStep nextStep = iterator.next();
-            nextStep.selector.selectInputs(result, nextStep.inputs, evaluator);
-        }
-        return result;
     }
 
     /**
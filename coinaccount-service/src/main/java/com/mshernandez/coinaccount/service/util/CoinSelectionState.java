@@ -17,9 +17,12 @@ public class CoinSelectionState<T>
     // Selection State
     private Set<T> selected;
     private long value;
-    private double cost;
+    private long cost;
     private boolean complete;
 
+    // Set Once The Result Is No Longer Wanted
+    private volatile boolean canceled;
+
     /**
      * Create a incomplete coin selection state
      * with no selected inputs.
@@ -31,8 +34,9 @@ public class CoinSelectionState<T>
         this.target = target;
         selected = new LinkedHashSet<>();
         value = 0L;
-        cost = 0.0;
+        cost = 0L;
         complete = false;
+        canceled = false;
     }
 
     /**
@@ -44,7 +48,7 @@ public class CoinSelectionState<T>
      * @param cost The total cost of the updated selection.
      * @param complete Whether the selection has been completed.
      */
-    protected void updateSelection(Set<T> selected, long value, double cost, boolean complete)
+    protected void updateSelection(Set<T> selected, long value, long cost, boolean complete)
     {
         this.selected = selected;
         this.value = value;
@@ -63,9 +67,13 @@ public class CoinSelectionState<T>
     }
 
     /**
-     * Get the effective value of the current selection.
+     * Get the value of the current selection.
+     * <p>
+     * Selectors covering their own fees may track effective
+     * values instead, so this should not be compared across
+     * selectors.
      * 
-     * @return The effective value of the current selection.
+     * @return The value of the current selection.
      */
     public long getValue()
     {
@@ -77,7 +85,7 @@ public class CoinSelectionState<T>
      * 
      * @return The selection cost.
      */
-    public double getCost()
+    public long getCost()
     {
         return cost;
     }
@@ -105,4 +113,26 @@ public class CoinSelectionState<T>
     {
         return complete;
     }
+
+    /**
+     * Signal any selector still working on this state
+     * that its result is no longer wanted.
+     */
+    public void cancel()
+    {
+        canceled = true;
+    }
+
+    /**
+     * Indicates whether the result is no longer wanted.
+     * <p>
+     * Long running selectors should check this periodically
+     * and return without changes once it is set.
+     * 
+     * @return True if the selection was canceled.
+     */
+    public boolean isCanceled()
+    {
+        return canceled;
+    }
 }
\ No newline at end of file
@@ -4,29 +4,47 @@ import com.mshernandez.coinaccount.entity.Deposit;
 
 public class DepositShareEvaluator implements CoinEvaluator<Deposit>
 {
-    private double feeRate;
+    private long feeRate;
+    private long longTermFeeRate;
     private boolean useLockedDeposits;
 
     /**
      * Create a deposit share evaluator.
      * 
-     * @param feeRate The current fee rate in sat/byte.
+     * @param feeRate The current fee rate in sat/kvB.
      */
-    public DepositShareEvaluator(double feeRate)
+    public DepositShareEvaluator(long feeRate)
     {
         this.feeRate = feeRate;
+        longTermFeeRate = feeRate;
         useLockedDeposits = false;
     }
 
     /**
      * Create a deposit share evaluator.
      * 
-     * @param feeRate The current fee rate in sat/byte.
+     * @param feeRate The current fee rate in sat/kvB.
      * @param useLockedDeposits Whether to consider locked deposits valid.
      */
-    public DepositShareEvaluator(double feeRate, boolean useLockedDeposits)
+    public DepositShareEvaluator(long feeRate, boolean useLockedDeposits)
     {
         this.feeRate = feeRate;
+        longTermFeeRate = feeRate;
+        this.useLockedDeposits = useLockedDeposits;
+    }
+
+    /**
+     * Create a deposit share evaluator that can
+     * compare current fees against long-term fees.
+     * 
+     * @param feeRate The current fee rate in sat/kvB.
+     * @param longTermFeeRate The long-term fee rate in sat/kvB.
+     * @param useLockedDeposits Whether to consider locked deposits valid.
+     */
+    public DepositShareEvaluator(long feeRate, long longTermFeeRate, boolean useLockedDeposits)
+    {
+        this.feeRate = feeRate;
+        this.longTermFeeRate = longTermFeeRate;
         this.useLockedDeposits = useLockedDeposits;
     }
 
@@ -43,41 +61,47 @@ public class DepositShareEvaluator implements CoinEvaluator<Deposit>
     }
 
     @Override
-    public double cost(Deposit deposit)
+    public long cost(Deposit deposit)
     {
-        return TXFeeUtilities.getInputSize(deposit.getType()) + TXFeeUtilities.TX_INPUT_WITNESS_ITEM_COUNTER_VSIZE;
+        return TXFeeUtilities.getInputWeight(deposit.getType()) + TXFeeUtilities.TX_INPUT_WITNESS_ITEM_COUNTER_WEIGHT;
     }
 
     @Override
-    public double nthInputCost(long index)
+    public long nthInputCost(long index)
     {
         if (index == 0L)
         {
             // [1, 252]: 1 Byte
-            return 1.0;
+            return 1L * TXFeeUtilities.WITNESS_SCALE_FACTOR;
         }
         else if (index == 252L)
         {
             // [253, 65535]: 1 Byte Prefix + 2 Bytes (2 Bytes Additional)
-            return 2.0;
+            return 2L * TXFeeUtilities.WITNESS_SCALE_FACTOR;
         }
         else if (index == 65535L)
         {
             // [65536, 4294967295]: 1 Byte Prefix + 4 Bytes (2 Bytes Additional)
-            return 2.0;
+            return 2L * TXFeeUtilities.WITNESS_SCALE_FACTOR;
         }
         else if (index == 4294967295L)
         {
             // [4294967296, How did you get all these UTXOs?]: 1 Byte Prefix + 8 Bytes (4 Bytes Additional)
-            return 4.0;
+            return 4L * TXFeeUtilities.WITNESS_SCALE_FACTOR;
         }
         // Somewhere in between the ranges, no additional costs yet.
-        return 0.0;
+        return 0L;
+    }
+
+    @Override
+    public long costImpactOnTarget(long cost)
+    {
+        return TXFeeUtilities.getFee(cost, feeRate);
     }
 
     @Override
-    public long costImpactOnTarget(double cost)
+    public long longTermCostImpactOnTarget(long cost)
     {
-        return (long) Math.ceil(cost * feeRate);
+        return TXFeeUtilities.getFee(cost, longTermFeeRate);
     }
 }
\ No newline at end of file
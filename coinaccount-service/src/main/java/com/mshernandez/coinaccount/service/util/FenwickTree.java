@@ -0,0 +1,109 @@
+package com.mshernandez.coinaccount.service.util;
+
+/**
+ * A Fenwick (binary indexed) tree over a fixed number of
+ * slots, each of which is either present or removed.
+ * <p>
+ * Used by coin selectors to remove and restore candidate
+ * inputs without shifting the underlying arrays, while
+ * still being able to find the nth remaining input.
+ * <p>
+ * Every operation runs in O(log(n)) time.
+ */
+final class FenwickTree
+{
+    // 1-Based Tree Of Partial Counts
+    private final int[] tree;
+
+    // Highest Power Of Two Not Exceeding The Number Of Slots
+    private final int highestStep;
+
+    // Number Of Present Slots
+    private int size;
+
+    /**
+     * Create a tree where all slots are initially present.
+     *
+     * @param capacity The number of slots.
+     */
+    FenwickTree(int capacity)
+    {
+        tree = new int[capacity + 1];
+        // Build In O(n), Each Node Passes Its Count To Its Parent
+        for (int i = 1; i <= capacity; i++)
+        {
+            tree[i] += 1;
+            int parent = i + (i & -i);
+            if (parent <= capacity)
+            {
+                tree[parent] += tree[i];
+            }
+        }
+        highestStep = capacity == 0 ? 0 : Integer.highestOneBit(capacity);
+        size = capacity;
+    }
+
+    /**
+     * Get the number of slots still present.
+     *
+     * @return The number of present slots.
+     */
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * Mark the slot at the given index as removed.
+     * The slot must currently be present.
+     *
+     * @param index The zero-based slot index.
+     */
+    void remove(int index)
+    {
+        update(index, -1);
+    }
+
+    /**
+     * Mark the slot at the given index as present again.
+     * The slot must currently be removed.
+     *
+     * @param index The zero-based slot index.
+     */
+    void restore(int index)
+    {
+        update(index, 1);
+    }
+
+    /**
+     * Find the slot index of the present slot with the given rank,
+     * where rank 0 is the present slot with the lowest index.
+     *
+     * @param rank The zero-based rank among present slots, less than <code>size()</code>.
+     * @return The zero-based index of the slot.
+     */
+    int findByRank(int rank)
+    {
+        int position = 0;
+        int remaining = rank + 1;
+        for (int step = highestStep; step > 0; step >>= 1)
+        {
+            int next = position + step;
+            if (next < tree.length && tree[next] < remaining)
+            {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    private void update(int index, int delta)
+    {
+        for (int i = index + 1; i < tree.length; i += i & -i)
+        {
+            tree[i] += delta;
+        }
+        size += delta;
+    }
+}
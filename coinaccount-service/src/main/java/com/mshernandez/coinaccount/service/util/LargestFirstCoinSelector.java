@@ -0,0 +1,45 @@
+package com.mshernandez.coinaccount.service.util;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This coin selector selects the inputs with the
+ * largest effective values first until the target
+ * amount is met.
+ * <p>
+ * Using few large inputs keeps fees low right now,
+ * but tends to create change and leaves smaller inputs
+ * behind to be spent later.
+ * <p>
+ * The returned set's iterator will follow the order of selection.
+ */
+public class LargestFirstCoinSelector<T> extends AccumulatingCoinSelector<T>
+{
+    /**
+     * Create a largest first coin selector
+     * which covers the fees of its own inputs.
+     */
+    public LargestFirstCoinSelector()
+    {
+        super(true);
+    }
+
+    /**
+     * Create a largest first coin selector
+     * with customized parameters.
+     * 
+     * @param coverFees Whether the selection should account for fees introduced by the selection itself.
+     */
+    public LargestFirstCoinSelector(boolean coverFees)
+    {
+        super(coverFees);
+    }
+
+    @Override
+    protected List<T> order(List<T> usable, CoinEvaluator<T> evaluator)
+    {
+        usable.sort(Comparator.comparingLong(evaluator::effectiveValue).reversed());
+        return usable;
+    }
+}
@@ -0,0 +1,52 @@
+package com.mshernandez.coinaccount.service.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This coin selector selects inputs in a random order
+ * until the target amount is met.
+ * <p>
+ * Random selection does not try to minimize fees but
+ * spends inputs of all sizes over time, preventing small
+ * inputs from accumulating in the pool.
+ * <p>
+ * The returned set's iterator will follow the order of selection.
+ */
+public class SingleRandomDrawCoinSelector<T> extends AccumulatingCoinSelector<T>
+{
+    /**
+     * The source of randomness used to order inputs.
+     */
+    private Random random;
+
+    /**
+     * Create a single random draw coin selector
+     * which covers the fees of its own inputs.
+     */
+    public SingleRandomDrawCoinSelector()
+    {
+        this(new Random(), true);
+    }
+
+    /**
+     * Create a single random draw coin selector
+     * with customized parameters.
+     * 
+     * @param random The source of randomness used to order inputs.
+     * @param coverFees Whether the selection should account for fees introduced by the selection itself.
+     */
+    public SingleRandomDrawCoinSelector(Random random, boolean coverFees)
+    {
+        super(coverFees);
+        this.random = random;
+    }
+
+    @Override
+    protected List<T> order(List<T> usable, CoinEvaluator<T> evaluator)
+    {
+        Collections.shuffle(usable, random);
+        return usable;
+    }
+}
@@ -8,56 +8,65 @@ import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
  */
 public class TXFeeUtilities
 {
+    // Weight Units Per Non-Witness Byte, Witness Bytes Weigh 1 Unit Each
+    public static final long WITNESS_SCALE_FACTOR = 4L;
+
     /**
      * TX-Level Constants
      */
 
     // Transaction Version Field Takes 4 Bytes
-    public static final double TX_VERSION_VSIZE = 4.0;
+    public static final long TX_VERSION_WEIGHT = 16L;
 
     // Transaction Locksize Field Takes 4 Bytes
-    public static final double TX_LOCKTIME_VSIZE = 4.0;
+    public static final long TX_LOCKTIME_WEIGHT = 16L;
 
     // Marker For All Transactions Spending At Least 1 Segwit UTXO
-    public static final double TX_SEGWIT_MARKER_VSIZE = 0.5;
+    public static final long TX_SEGWIT_MARKER_WEIGHT = 2L;
 
     // For Every Input In A Transaction With At Least 1 Segwit Input
-    public static final double TX_INPUT_WITNESS_ITEM_COUNTER_VSIZE = 0.25;
+    public static final long TX_INPUT_WITNESS_ITEM_COUNTER_WEIGHT = 1L;
+
+    // Nodes Do Not Relay Transactions Heavier Than This By Default
+    public static final long TX_MAX_STANDARD_WEIGHT = 400000L;
 
     /**
      * Input-Level Constants
      */
 
     // Takes 32 Bytes To Reference Previous TX
-    public static final double TX_INPUT_TXID_VSIZE = 32.0;
+    public static final long TX_INPUT_TXID_WEIGHT = 128L;
 
     // Takes 4 Bytes To Specify TX vout To Spend
-    public static final double TX_INPUT_VOUT_VSIZE = 4.0;
+    public static final long TX_INPUT_VOUT_WEIGHT = 16L;
 
     // Takes 4 Bytes For Input Sequence Number
-    public static final double TX_INPUT_SEQUENCE_NUMBER_VSIZE = 4.0;
+    public static final long TX_INPUT_SEQUENCE_NUMBER_WEIGHT = 16L;
 
     // P2PKH: 1 Byte Unlocking Script Counter + 107 Byte Unlocking Script
-    public static final double P2PKH_SIG_SCRIPT_DATA_VSIZE = 108.0;
+    public static final long P2PKH_SIG_SCRIPT_DATA_WEIGHT = 432L;
 
     // P2SH-P2WPKH: 1 Byte Unlocking Script Counter + 23 Byte Unlocking Script
-    public static final double P2SH_P2WPKH_SIG_SCRIPT_DATA_VSIZE = 24.0;
+    public static final long P2SH_P2WPKH_SIG_SCRIPT_DATA_WEIGHT = 96L;
 
     // Witness Data For P2WPKH Input Including Size Counter
-    public static final double P2WPKH_WITNESS_DATA_VSIZE = 27.0;
+    public static final long P2WPKH_WITNESS_DATA_WEIGHT = 108L;
 
     // Witness Data For Taproot Input Including Size Counter
-    public static final double TAPROOT_WITNESS_DATA_VSIZE = 16.5;
+    public static final long TAPROOT_WITNESS_DATA_WEIGHT = 66L;
 
     // Witness Inputs Have Empty Script Sig But Still Require Counter
-    public static final double WITNESS_SCRIPT_SIG_COUNTER_VSIZE = 1.0;
+    public static final long WITNESS_SCRIPT_SIG_COUNTER_WEIGHT = 4L;
 
     /**
      * Output-Level Constants
      */
 
     // Takes 8 Bytes To Specify An Output Sat Amount
-    public static final double TX_OUTPUT_VALUE_VSIZE = 8.0;
+    public static final long TX_OUTPUT_VALUE_WEIGHT = 32L;
+
+    // Default Node Dust Relay Fee, Outputs Costing More To Spend At This Rate Are Not Relayed, In sat/kvB
+    public static final long DUST_RELAY_FEE_RATE = 3000L;
 
     /**
      * Gets the byte size of data represented
@@ -113,43 +122,147 @@ public class TXFeeUtilities
     }
 
     /**
-     * Get the vsize of an input based on its type.
+     * Gets the weight of a VarInt counter
+     * storing the specified amount.
+     * 
+     * @param value The amount that needs to be stored by the counter.
+     * @return The weight of the counter.
+     */
+    public static long getCounterWeight(int value)
+    {
+        return getCounterByteSize(value) * WITNESS_SCALE_FACTOR;
+    }
+
+    /**
+     * Get the weight of an input based on its type.
      * 
      * @param type The deposit type.
-     * @return The vsize contribution of this input.
+     * @return The weight contribution of this input.
      */
-    public static double getInputSize(DepositType type)
+    public static long getInputWeight(DepositType type)
     {
-        // Calculate Base Input Size, Common For All Types
-        double vsize = TX_INPUT_TXID_VSIZE + TX_INPUT_VOUT_VSIZE + TX_INPUT_SEQUENCE_NUMBER_VSIZE;
-        // Calculate Additional Size According To Input Type
+        // Calculate Base Input Weight, Common For All Types
+        long weight = TX_INPUT_TXID_WEIGHT + TX_INPUT_VOUT_WEIGHT + TX_INPUT_SEQUENCE_NUMBER_WEIGHT;
+        // Calculate Additional Weight According To Input Type
         switch (type)
         {
             case P2PKH:
-                vsize += P2PKH_SIG_SCRIPT_DATA_VSIZE;
+                weight += P2PKH_SIG_SCRIPT_DATA_WEIGHT;
                 break;
             case P2SH_P2WPKH:
-                vsize += P2SH_P2WPKH_SIG_SCRIPT_DATA_VSIZE + P2WPKH_WITNESS_DATA_VSIZE;
+                weight += P2SH_P2WPKH_SIG_SCRIPT_DATA_WEIGHT + P2WPKH_WITNESS_DATA_WEIGHT;
                 break;
             case P2WPKH:
-                vsize += P2WPKH_WITNESS_DATA_VSIZE + WITNESS_SCRIPT_SIG_COUNTER_VSIZE;
+                weight += P2WPKH_WITNESS_DATA_WEIGHT + WITNESS_SCRIPT_SIG_COUNTER_WEIGHT;
                 break;
             default: // TAPROOT
-                vsize += TAPROOT_WITNESS_DATA_VSIZE + WITNESS_SCRIPT_SIG_COUNTER_VSIZE;
+                weight += TAPROOT_WITNESS_DATA_WEIGHT + WITNESS_SCRIPT_SIG_COUNTER_WEIGHT;
         }
-        return vsize;
+        return weight;
     }
 
     /**
-     * Get the vsize of an output based on its locking script.
+     * Get the weight of an output based on its locking script.
      * 
      * @param scriptPubKey The output locking script.
-     * @return The vsize contribution of the output.
+     * @return The weight contribution of the output.
      */
-    public static double getOutputSize(String scriptPubKey)
+    public static long getOutputWeight(String scriptPubKey)
     {
         int outputLockScriptSize = getHexStringByteSize(scriptPubKey);
-        int outputLockScriptCounterSize = getCounterByteSize(outputLockScriptSize);
-        return TX_OUTPUT_VALUE_VSIZE + outputLockScriptCounterSize + outputLockScriptSize;
+        long outputLockScriptCounterSize = getCounterByteSize(outputLockScriptSize);
+        return TX_OUTPUT_VALUE_WEIGHT + (outputLockScriptCounterSize + outputLockScriptSize) * WITNESS_SCALE_FACTOR;
+    }
+
+    /**
+     * Get the weight of an output paying to an
+     * address of the given type.
+     * 
+     * @param type The address type.
+     * @return The weight contribution of the output.
+     */
+    public static long getOutputWeight(DepositType type)
+    {
+        // Locking Script Size According To Address Type
+        int outputLockScriptSize;
+        switch (type)
+        {
+            case P2PKH:
+                outputLockScriptSize = 25;
+                break;
+            case P2SH_P2WPKH:
+                outputLockScriptSize = 23;
+                break;
+            case P2WPKH:
+                outputLockScriptSize = 22;
+                break;
+            default: // TAPROOT
+                outputLockScriptSize = 34;
+        }
+        long outputLockScriptCounterSize = getCounterByteSize(outputLockScriptSize);
+        return TX_OUTPUT_VALUE_WEIGHT + (outputLockScriptCounterSize + outputLockScriptSize) * WITNESS_SCALE_FACTOR;
+    }
+
+    /**
+     * Get the dust limit of an output, the amount at or below
+     * which spending the output would cost about as much as it
+     * is worth, so nodes would not relay a transaction creating it.
+     * <p>
+     * Like nodes, the output is assumed to be spent at the dust
+     * relay fee rate by a P2WPKH input if it pays a witness program,
+     * or by a P2PKH input otherwise.
+     * 
+     * @param outputWeight The weight of the output.
+     * @param isWitness Whether the output pays a witness program.
+     * @return The dust limit, in sats.
+     */
+    public static long getDustLimit(long outputWeight, boolean isWitness)
+    {
+        long spendingInputWeight = isWitness
+            ? getInputWeight(DepositType.P2WPKH) + TX_INPUT_WITNESS_ITEM_COUNTER_WEIGHT
+            : getInputWeight(DepositType.P2PKH);
+        return getFee(outputWeight + spendingInputWeight, DUST_RELAY_FEE_RATE);
+    }
+
+    /**
+     * Get the dust limit of an output paying to
+     * an address of the given type.
+     * 
+     * @param type The address type.
+     * @return The dust limit, in sats.
+     */
+    public static long getDustLimit(DepositType type)
+    {
+        return getDustLimit(getOutputWeight(type), type == DepositType.P2WPKH || type == DepositType.P2TR);
+    }
+
+    /**
+     * Get the vsize corresponding to a weight,
+     * rounded up to the next whole vbyte.
+     * 
+     * @param weight The weight.
+     * @return The vsize, in vbytes.
+     */
+    public static long getVsize(long weight)
+    {
+        return (weight + WITNESS_SCALE_FACTOR - 1L) / WITNESS_SCALE_FACTOR;
+    }
+
+    /**
+     * Calculate the fee for the given weight at the given
+     * fee rate, rounded up to the next whole sat.
+     * <p>
+     * Only integer arithmetic is used so that fees are
+     * deterministic.
+     * 
+     * @param weight The weight.
+     * @param feeRate The fee rate, in sat/kvB.
+     * @return The fee, in sats.
+     */
+    public static long getFee(long weight, long feeRate)
+    {
+        // 1 kvB = 4000 Weight Units
+        long divisor = 1000L * WITNESS_SCALE_FACTOR;
+        return (weight * feeRate + divisor - 1L) / divisor;
     }
 }
\ No newline at end of file
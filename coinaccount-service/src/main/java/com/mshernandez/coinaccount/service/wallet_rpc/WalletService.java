@@ -30,6 +30,7 @@ import com.mshernandez.coinaccount.service.wallet_rpc.parameter.ListUnspentQuery
 import com.mshernandez.coinaccount.service.wallet_rpc.result.DecodeRawTransactionResult;
 import com.mshernandez.coinaccount.service.wallet_rpc.result.EstimateSmartFeeResult;
 import com.mshernandez.coinaccount.service.wallet_rpc.result.GetAddressInfoResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.GetTransactionResult;
 import com.mshernandez.coinaccount.service.wallet_rpc.result.GetWalletInfoResult;
 import com.mshernandez.coinaccount.service.wallet_rpc.result.ListUnspentUTXO;
 import com.mshernandez.coinaccount.service.wallet_rpc.result.SignRawTransactionWithWalletResult;
@@ -179,6 +180,23 @@ public class WalletService
      * @throws WalletResponseException If the response indicates an error.
      */
     public String createRawTransaction(Set<CreateRawTransactionInput> inputs, Map<String, Long> outputs)
+    {
+        return createRawTransaction(inputs, outputs, false);
+    }
+
+    /**
+     * Creates a new unsigned raw transaction using the
+     * provided inputs and output addresses/amounts,
+     * optionally signaling BIP125 replaceability.
+     * 
+     * @param inputs A set of transaction inputs.
+     * @param outputs A mapping of output address to amount.
+     * @param replaceable Whether the transaction may be replaced by one paying higher fees.
+     * @return An unsigned hex-encoded raw transaction.
+     * @throws WalletRequestException If there was an issue making the RPC request.
+     * @throws WalletResponseException If the response indicates an error.
+     */
+    public String createRawTransaction(Set<CreateRawTransactionInput> inputs, Map<String, Long> outputs, boolean replaceable)
     {
         ArrayNode params = objectMapper.createArrayNode();
         // Add TX Inputs To Parameters
@@ -193,6 +211,9 @@ public class WalletService
             jsonOutputs.add(kvPair);
         }
         params.add(jsonOutputs);
+        // Add Locktime & Replaceability
+        params.add(0);
+        params.add(replaceable);
         // Make Request
         RPCRequest request = new RPCRequest().setMethod("createrawtransaction").setParams(params);
         return makeRequest(request, String.class);
@@ -384,4 +405,35 @@ public class WalletService
         RPCRequest request = new RPCRequest().setMethod("getwalletinfo").setParams(params);
         return makeRequest(request, GetWalletInfoResult.class);
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the number of blocks in the longest chain.
+     * 
+     * @return The current block height.
+     * @throws WalletRequestException If there was an issue making the RPC request.
+     * @throws WalletResponseException If the response indicates an error.
+     */
+    public long getBlockCount()
+    {
+        ArrayNode params = objectMapper.createArrayNode();
+        RPCRequest request = new RPCRequest().setMethod("getblockcount").setParams(params);
+        return makeRequest(request, Long.class);
+    }
+
+    /**
+     * Gets detailed information about a transaction
+     * involving the wallet.
+     * 
+     * @param txid The transaction ID.
+     * @return A result object.
+     * @throws WalletRequestException If there was an issue making the RPC request.
+     * @throws WalletResponseException If the response indicates an error.
+     */
+    public GetTransactionResult getTransaction(String txid)
+    {
+        ArrayNode params = objectMapper.createArrayNode();
+        params.add(txid);
+        RPCRequest request = new RPCRequest().setMethod("gettransaction").setParams(params);
+        return makeRequest(request, GetTransactionResult.class);
+    }
+}
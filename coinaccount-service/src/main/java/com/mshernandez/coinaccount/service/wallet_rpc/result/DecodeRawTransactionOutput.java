@@ -2,6 +2,7 @@ package com.mshernandez.coinaccount.service.wallet_rpc.result;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.mshernandez.coinaccount.service.wallet_rpc.SatAmount;
 
@@ -30,6 +31,27 @@ public class DecodeRawTransactionOutput
      */
     private ScriptPubKey scriptPubKey;
 
+    /**
+     * Get the single address paid by this output,
+     * whether given as address or addresses.
+     * 
+     * @return The address, or null if the output does not pay a single address.
+     */
+    @JsonIgnore
+    public String getRecipientAddress()
+    {
+        if (scriptPubKey == null)
+        {
+            return null;
+        }
+        if (scriptPubKey.getAddress() != null)
+        {
+            return scriptPubKey.getAddress();
+        }
+        List<String> addresses = scriptPubKey.getAddresses();
+        return (addresses != null && addresses.size() == 1) ? addresses.get(0) : null;
+    }
+
     @Getter
     @Setter
     @NoArgsConstructor
@@ -55,6 +77,11 @@ public class DecodeRawTransactionOutput
          */
         private String type;
 
+        /**
+         * The address, given by newer nodes instead of addresses.
+         */
+        private String address;
+
         /**
          * The addresses.
          */
@@ -0,0 +1,32 @@
+package com.mshernandez.coinaccount.service.wallet_rpc.result;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class GetTransactionResult
+{
+    /**
+     * The transaction id.
+     */
+    private String txid;
+
+    /**
+     * The number of confirmations, negative
+     * if the transaction conflicts with one in
+     * the blockchain.
+     */
+    private int confirmations;
+
+    /**
+     * Whether the transaction could be replaced
+     * due to BIP125: "yes", "no", or "unknown".
+     */
+    @JsonProperty("bip125-replaceable")
+    private String replaceable;
+}
@@ -0,0 +1,43 @@
+package com.mshernandez.coinaccount.task;
+
+/**
+ * Connection pool metrics exposed over JMX, counted
+ * since startup.
+ */
+public interface ConnectionPoolMXBean
+{
+    /**
+     * @return The number of connections acquired from the pool.
+     */
+    long getAcquireCount();
+
+    /**
+     * @return The number of connections currently in use.
+     */
+    long getActiveCount();
+
+    /**
+     * @return The most connections in use at once.
+     */
+    long getMaxUsedCount();
+
+    /**
+     * @return The number of requests currently waiting for a connection.
+     */
+    long getAwaitingCount();
+
+    /**
+     * @return The average time spent waiting for a connection, in milliseconds.
+     */
+    long getAverageWaitMillis();
+
+    /**
+     * @return The longest time spent waiting for a connection, in milliseconds.
+     */
+    long getMaxWaitMillis();
+
+    /**
+     * @return The total time spent waiting for connections, in milliseconds.
+     */
+    long getTotalWaitMillis();
+}
@@ -0,0 +1,64 @@
+package com.mshernandez.coinaccount.task;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import com.mshernandez.coinaccount.service.ConsolidationService;
+import com.mshernandez.coinaccount.service.WithdrawService;
+import com.mshernandez.coinaccount.service.exception.FeeEstimationException;
+import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletRequestException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+import io.quarkus.scheduler.Scheduled;
+
+/**
+ * Periodically merges small deposits
+ * while fees are low.
+ */
+@ApplicationScoped
+public class ConsolidationTask
+{
+    @ConfigProperty(name = "coinaccount.consolidate.enabled")
+    boolean consolidationEnabled;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    ConsolidationService consolidationService;
+
+    @Inject
+    WithdrawService withdrawService;
+
+    /**
+     * Creates and broadcasts a consolidation
+     * transaction if one is worthwhile.
+     */
+    @Scheduled(every = "{coinaccount.consolidate.check}")
+    public void consolidateDeposits()
+    {
+        if (!consolidationEnabled)
+        {
+            return;
+        }
+        try
+        {
+            String txid = consolidationService.createConsolidation();
+            if (txid != null)
+            {
+                withdrawService.completeWithdraw(txid);
+            }
+        }
+        catch (FeeEstimationException e)
+        {
+            logger.log(Level.WARN, "Skipped Consolidation: Unable To Estimate Fees");
+        }
+        catch (WalletRequestException e)
+        {
+            logger.log(Level.ERROR, "Failed To Consolidate Deposits: " + e.getMessage());
+        }
+    }
+}
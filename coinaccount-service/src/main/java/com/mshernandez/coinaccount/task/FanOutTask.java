@@ -0,0 +1,64 @@
+package com.mshernandez.coinaccount.task;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import com.mshernandez.coinaccount.service.FanOutService;
+import com.mshernandez.coinaccount.service.WithdrawService;
+import com.mshernandez.coinaccount.service.exception.FeeEstimationException;
+import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletRequestException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+import io.quarkus.scheduler.Scheduled;
+
+/**
+ * Periodically splits large deposits
+ * when too few are ready to spend.
+ */
+@ApplicationScoped
+public class FanOutTask
+{
+    @ConfigProperty(name = "coinaccount.fanout.enabled")
+    boolean fanOutEnabled;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    FanOutService fanOutService;
+
+    @Inject
+    WithdrawService withdrawService;
+
+    /**
+     * Creates and broadcasts a fan-out
+     * transaction if one is needed.
+     */
+    @Scheduled(every = "{coinaccount.fanout.check}")
+    public void fanOutDeposits()
+    {
+        if (!fanOutEnabled)
+        {
+            return;
+        }
+        try
+        {
+            String txid = fanOutService.createFanOut();
+            if (txid != null)
+            {
+                withdrawService.completeWithdraw(txid);
+            }
+        }
+        catch (FeeEstimationException e)
+        {
+            logger.log(Level.WARN, "Skipped Fan-Out: Unable To Estimate Fees");
+        }
+        catch (WalletRequestException e)
+        {
+            logger.log(Level.ERROR, "Failed To Split Deposits: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.mshernandez.coinaccount.task;
+
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import com.mshernandez.coinaccount.service.FeeBumpService;
+import com.mshernandez.coinaccount.service.result.WithdrawSentResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletRequestException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+import io.quarkus.scheduler.Scheduled;
+import io.vertx.core.eventbus.EventBus;
+
+/**
+ * Periodically raises the fees of sent
+ * withdrawals that are confirming late.
+ */
+@ApplicationScoped
+public class FeeBumpTask
+{
+    @ConfigProperty(name = "coinaccount.withdraw.bump.enabled")
+    boolean bumpingEnabled;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    EventBus eventBus;
+
+    @Inject
+    FeeBumpService feeBumpService;
+
+    /**
+     * Replaces stuck withdrawals, publishing events
+     * for every account in a replacement transaction
+     * since the withdrawal now has a different TXID.
+     */
+    @Scheduled(every = "{coinaccount.withdraw.bump.check}")
+    public void bumpStuckWithdrawals()
+    {
+        if (!bumpingEnabled)
+        {
+            return;
+        }
+        try
+        {
+            for (WithdrawSentResult result : feeBumpService.bumpStuckWithdrawals())
+            {
+                for (Map.Entry<UUID, Long> entry : result.getWithdrawAmounts().entrySet())
+                {
+                    eventBus.publish("withdraw-sent", new WithdrawSentEvent(entry.getKey(), entry.getValue(), result.getTxid()));
+                }
+            }
+        }
+        catch (WalletRequestException e)
+        {
+            logger.log(Level.ERROR, "Failed To Raise Withdraw Fees: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.mshernandez.coinaccount.task;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+
+/**
+ * Exposes how long requests waited for a database
+ * connection over JMX and periodically logs it,
+ * showing whether slow wallet calls or long
+ * transactions are draining the pool.
+ * <p>
+ * Requires connection pool metrics to be collected,
+ * which is enabled along with this task.
+ */
+@ApplicationScoped
+public class PoolMetricsTask implements ConnectionPoolMXBean
+{
+    private static final String OBJECT_NAME = "com.mshernandez.coinaccount:type=ConnectionPool";
+
+    @ConfigProperty(name = "coinaccount.metrics.pool.enabled")
+    boolean metricsEnabled;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    /**
+     * Register the connection pool metrics over JMX
+     * on startup if enabled.
+     *
+     * @param event The startup event.
+     */
+    void onStart(@Observes StartupEvent event)
+    {
+        if (!metricsEnabled)
+        {
+            return;
+        }
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        }
+        catch (JMException e)
+        {
+            logger.log(Level.WARN, "Failed To Register Connection Pool Metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Unregister the connection pool metrics on shutdown.
+     *
+     * @param event The shutdown event.
+     */
+    void onStop(@Observes ShutdownEvent event)
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name))
+            {
+                server.unregisterMBean(name);
+            }
+        }
+        catch (JMException e)
+        {
+            logger.log(Level.WARN, "Failed To Unregister Connection Pool Metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Logs connection pool wait times since startup.
+     */
+    @Scheduled(every = "{coinaccount.metrics.pool.interval}")
+    public void logPoolMetrics()
+    {
+        if (!metricsEnabled)
+        {
+            return;
+        }
+        logger.log(Level.INFO, String.format("Connection Pool: Acquired: %d, Active: %d, Max Used: %d, Waiting: %d, "
+            + "Average Wait: %d ms, Max Wait: %d ms, Total Wait: %d ms",
+            getAcquireCount(), getActiveCount(), getMaxUsedCount(), getAwaitingCount(),
+            getAverageWaitMillis(), getMaxWaitMillis(), getTotalWaitMillis()));
+    }
+
+    @Override
+    public long getAcquireCount()
+    {
+        return metrics().acquireCount();
+    }
+
+    @Override
+    public long getActiveCount()
+    {
+        return metrics().activeCount();
+    }
+
+    @Override
+    public long getMaxUsedCount()
+    {
+        return metrics().maxUsedCount();
+    }
+
+    @Override
+    public long getAwaitingCount()
+    {
+        return metrics().awaitingCount();
+    }
+
+    @Override
+    public long getAverageWaitMillis()
+    {
+        return metrics().blockingTimeAverage().toMillis();
+    }
+
+    @Override
+    public long getMaxWaitMillis()
+    {
+        return metrics().blockingTimeMax().toMillis();
+    }
+
+    @Override
+    public long getTotalWaitMillis()
+    {
+        return metrics().blockingTimeTotal().toMillis();
+    }
+
+    private AgroalDataSourceMetrics metrics()
+    {
+        return dataSource.getMetrics();
+    }
+}
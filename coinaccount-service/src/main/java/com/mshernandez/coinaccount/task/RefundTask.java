@@ -0,0 +1,135 @@
+package com.mshernandez.coinaccount.task;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import com.mshernandez.coinaccount.dao.WithdrawBroadcastQueue;
+import com.mshernandez.coinaccount.service.RefundService;
+import com.mshernandez.coinaccount.service.WithdrawService;
+import com.mshernandez.coinaccount.service.exception.RefundUnavailableException;
+import com.mshernandez.coinaccount.service.result.RefundBatchResult;
+import com.mshernandez.coinaccount.service.result.RefundProgress;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+import io.vertx.core.eventbus.EventBus;
+
+/**
+ * Refunds every account with a return address
+ * in batches, one run at a time.
+ */
+@ApplicationScoped
+public class RefundTask
+{
+    @ConfigProperty(name = "coinaccount.refund.enabled")
+    boolean refundsEnabled;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    EventBus eventBus;
+
+    @Inject
+    RefundService refundService;
+
+    @Inject
+    WithdrawService withdrawService;
+
+    @Inject
+    WithdrawBroadcastQueue withdrawBroadcastQueue;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Creates and sends refund batches until every account
+     * has been checked or the max number of batches was sent,
+     * reporting progress after each batch.
+     * <p>
+     * Batches that fail to send are left to be
+     * retried in the background.
+     * <p>
+     * Publishes events for every account in a sent batch.
+     *
+     * @param maxBatches The max number of batches to send, or zero for no limit.
+     * @param progressListener Receives the progress of the run after each batch.
+     * @return The final progress of the run.
+     * @throws RefundUnavailableException If refunds are disabled or already running.
+     */
+    public RefundProgress refundAccounts(int maxBatches, Consumer<RefundProgress> progressListener)
+    {
+        if (!refundsEnabled || !running.compareAndSet(false, true))
+        {
+            throw new RefundUnavailableException();
+        }
+        try
+        {
+            long startTime = System.currentTimeMillis();
+            RefundProgress progress = new RefundProgress();
+            UUID lastAccountId = new UUID(0L, 0L);
+            while (maxBatches == 0 || progress.getBatches() < maxBatches)
+            {
+                RefundBatchResult batch = refundService.createRefundBatch(lastAccountId);
+                if (batch == null)
+                {
+                    progress.setDone(true);
+                    break;
+                }
+                lastAccountId = batch.getLastAccountId();
+                progress.setSkippedAccounts(progress.getSkippedAccounts() + batch.getSkippedAccounts());
+                if (batch.getTxid() != null)
+                {
+                    broadcast(batch);
+                    long refundedAmount = 0L;
+                    for (long amount : batch.getRefundAmounts().values())
+                    {
+                        refundedAmount += amount;
+                    }
+                    progress.setBatches(progress.getBatches() + 1)
+                        .setRefundedAccounts(progress.getRefundedAccounts() + batch.getRefundAmounts().size())
+                        .setRefundedAmount(progress.getRefundedAmount() + refundedAmount)
+                        .setFeeAmount(progress.getFeeAmount() + batch.getFeeAmount())
+                        .setLastTxid(batch.getTxid());
+                }
+                progress.setElapsedMillis(System.currentTimeMillis() - startTime);
+                progressListener.accept(progress);
+            }
+            progress.setElapsedMillis(System.currentTimeMillis() - startTime);
+            logger.log(Level.INFO, String.format("Refunds Finished: Batches: %d, Accounts: %d, Skipped: %d, Amount: %d, Fees: %d, Time: %d ms",
+                progress.getBatches(), progress.getRefundedAccounts(), progress.getSkippedAccounts(),
+                progress.getRefundedAmount(), progress.getFeeAmount(), progress.getElapsedMillis()));
+            return progress;
+        }
+        finally
+        {
+            running.set(false);
+        }
+    }
+
+    private void broadcast(RefundBatchResult batch)
+    {
+        try
+        {
+            withdrawService.broadcastWithdraw(batch.getTxid());
+        }
+        catch (RuntimeException e)
+        {
+            // Batch Is Already Committed, Keep Refunding & Let The Broadcast Task Retry
+            logger.log(Level.WARN, String.format("Failed To Broadcast Refund Batch, Retrying In Background: TXID: %s, %s",
+                batch.getTxid(), e.getMessage()));
+            withdrawBroadcastQueue.add(batch.getTxid());
+            return;
+        }
+        for (Map.Entry<UUID, Long> entry : batch.getRefundAmounts().entrySet())
+        {
+            eventBus.publish("withdraw-sent", new WithdrawSentEvent(entry.getKey(), entry.getValue(), batch.getTxid()));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.mshernandez.coinaccount.task;
+
+import java.util.List;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import com.mshernandez.coinaccount.dao.TransferQueue;
+import com.mshernandez.coinaccount.dao.TransferQueue.PendingTransfer;
+import com.mshernandez.coinaccount.service.TransferService;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Applies queued transfers in groups, committing
+ * each group in a single database transaction.
+ */
+@ApplicationScoped
+public class TransferCommitTask
+{
+    @ConfigProperty(name = "coinaccount.transfer.group.enabled")
+    boolean groupCommit;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    TransferService transferService;
+
+    @Inject
+    TransferQueue transferQueue;
+
+    private Thread commitThread;
+
+    /**
+     * Start applying queued transfers on startup
+     * if group commits are enabled.
+     *
+     * @param event The startup event.
+     */
+    void onStart(@Observes StartupEvent event)
+    {
+        if (!groupCommit)
+        {
+            return;
+        }
+        commitThread = new Thread(this::applyTransfers, "transfer-commit");
+        commitThread.setDaemon(true);
+        commitThread.start();
+    }
+
+    /**
+     * Stop applying queued transfers on shutdown.
+     *
+     * @param event The shutdown event.
+     */
+    void onStop(@Observes ShutdownEvent event)
+    {
+        if (commitThread != null)
+        {
+            commitThread.interrupt();
+        }
+    }
+
+    /**
+     * Applies groups of transfers as they are queued until
+     * interrupted, answering each transfer once committed.
+     */
+    private void applyTransfers()
+    {
+        while (!Thread.currentThread().isInterrupted())
+        {
+            try
+            {
+                // Apply All Transfers Together, One At A Time If Committing Together Fails
+                List<PendingTransfer> group = transferQueue.takeGroup();
+                List<RuntimeException> rejections;
+                try
+                {
+                    rejections = transferService.applyTransfers(group);
+                }
+                catch (RuntimeException e)
+                {
+                    logger.log(Level.DEBUG, String.format("Failed To Commit %d Transfers Together, Applying Separately: %s", group.size(), e.getMessage()));
+                    for (PendingTransfer transfer : group)
+                    {
+                        applyTransfer(transfer);
+                    }
+                    continue;
+                }
+                for (int i = 0; i < group.size(); i++)
+                {
+                    if (rejections.get(i) == null)
+                    {
+                        group.get(i).complete();
+                    }
+                    else
+                    {
+                        group.get(i).reject(rejections.get(i));
+                    }
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void applyTransfer(PendingTransfer transfer)
+    {
+        try
+        {
+            transferService.transferBalance(transfer.getSenderId(), transfer.getReceiverId(), transfer.isTransferAll(), transfer.getAmount());
+            transfer.complete();
+        }
+        catch (RuntimeException e)
+        {
+            transfer.reject(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.mshernandez.coinaccount.task;
+
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import com.mshernandez.coinaccount.service.WithdrawService;
+import com.mshernandez.coinaccount.service.exception.FeeEstimationException;
+import com.mshernandez.coinaccount.service.result.WithdrawSentResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletRequestException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+import io.quarkus.scheduler.Scheduled;
+import io.vertx.core.eventbus.EventBus;
+
+/**
+ * Periodically sends queued withdrawals out
+ * together in a single transaction.
+ */
+@ApplicationScoped
+public class WithdrawBatchTask
+{
+    @ConfigProperty(name = "coinaccount.withdraw.batch.enabled")
+    boolean batchingEnabled;
+
+    @ConfigProperty(name = "coinaccount.withdraw.batch.interval")
+    long batchInterval;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    EventBus eventBus;
+
+    @Inject
+    WithdrawService withdrawService;
+
+    private long lastBatchTime = System.currentTimeMillis();
+
+    /**
+     * Sends a batch once it has the max number of recipients
+     * or the batch interval has passed.
+     * <p>
+     * Publishes events for every account in a sent batch.
+     */
+    @Scheduled(every = "{coinaccount.withdraw.batch.check}")
+    public void sendWithdrawBatch()
+    {
+        // Send Anything Left Queued Right Away If Batching Was Disabled
+        long now = System.currentTimeMillis();
+        boolean intervalPassed = now - lastBatchTime >= batchInterval;
+        try
+        {
+            WithdrawSentResult result = withdrawService.sendWithdrawBatch(intervalPassed || !batchingEnabled);
+            if (result == null)
+            {
+                if (intervalPassed)
+                {
+                    lastBatchTime = now;
+                }
+                return;
+            }
+            lastBatchTime = now;
+            for (Map.Entry<UUID, Long> entry : result.getWithdrawAmounts().entrySet())
+            {
+                eventBus.publish("withdraw-sent", new WithdrawSentEvent(entry.getKey(), entry.getValue(), result.getTxid()));
+            }
+        }
+        catch (FeeEstimationException e)
+        {
+            logger.log(Level.WARN, "Delayed Withdraw Batch: Unable To Estimate Fees");
+        }
+        catch (WalletRequestException e)
+        {
+            logger.log(Level.ERROR, "Failed To Send Withdraw Batch: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.mshernandez.coinaccount.task;
+
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import com.mshernandez.coinaccount.dao.WithdrawBroadcastQueue;
+import com.mshernandez.coinaccount.dao.WithdrawBroadcastQueue.Broadcast;
+import com.mshernandez.coinaccount.service.WithdrawService;
+import com.mshernandez.coinaccount.service.result.WithdrawFailedResult;
+import com.mshernandez.coinaccount.service.result.WithdrawSentResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletResponseError;
+import com.mshernandez.coinaccount.service.wallet_rpc.exception.WalletResponseException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.core.eventbus.EventBus;
+
+/**
+ * Sends completed withdraw transactions out to
+ * the network in the background, retrying failed
+ * attempts with increasing delays.
+ * <p>
+ * Requests whose transactions are rejected or still
+ * fail after every attempt are canceled, or held as
+ * failed if they may have been sent.
+ */
+@ApplicationScoped
+public class WithdrawBroadcastTask
+{
+    @ConfigProperty(name = "coinaccount.withdraw.broadcast.attempts")
+    int maxAttempts;
+
+    @ConfigProperty(name = "coinaccount.withdraw.broadcast.retry")
+    long retryDelay;
+
+    @Inject
+    Logger logger;
+
+    @Inject
+    EventBus eventBus;
+
+    @Inject
+    WithdrawService withdrawService;
+
+    @Inject
+    WithdrawBroadcastQueue withdrawBroadcastQueue;
+
+    private Thread broadcastThread;
+
+    /**
+     * Start sending queued transactions on startup.
+     *
+     * @param event The startup event.
+     */
+    void onStart(@Observes StartupEvent event)
+    {
+        broadcastThread = new Thread(this::broadcastWithdrawals, "withdraw-broadcast");
+        broadcastThread.setDaemon(true);
+        broadcastThread.start();
+    }
+
+    /**
+     * Stop sending queued transactions on shutdown.
+     *
+     * @param event The shutdown event.
+     */
+    void onStop(@Observes ShutdownEvent event)
+    {
+        broadcastThread.interrupt();
+    }
+
+    /**
+     * Sends queued transactions as they become due until interrupted.
+     * <p>
+     * Publishes events for every sent or failed withdrawal.
+     */
+    private void broadcastWithdrawals()
+    {
+        while (!Thread.currentThread().isInterrupted())
+        {
+            try
+            {
+                broadcast(withdrawBroadcastQueue.take());
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void broadcast(Broadcast broadcast)
+    {
+        try
+        {
+            publishSentEvents(withdrawService.broadcastWithdraw(broadcast.getTxid()));
+        }
+        catch (WalletResponseException e)
+        {
+            // Rejected Transactions Will Not Be Accepted On Retry
+            if (isRejection(e.getError()))
+            {
+                logger.log(Level.ERROR, String.format("Withdraw Transaction Rejected, Canceling: TXID: %s, %s", broadcast.getTxid(), e.getMessage()));
+                fail(broadcast, true);
+                return;
+            }
+            retry(broadcast, e);
+        }
+        catch (RuntimeException e)
+        {
+            retry(broadcast, e);
+        }
+    }
+
+    private void retry(Broadcast broadcast, RuntimeException cause)
+    {
+        int attempts = broadcast.getAttempts() + 1;
+        if (attempts >= maxAttempts)
+        {
+            logger.log(Level.ERROR, String.format("Failed To Broadcast Withdraw After %d Attempts, Giving Up: TXID: %s, %s",
+                attempts, broadcast.getTxid(), cause.getMessage()));
+            giveUp(broadcast);
+            return;
+        }
+        // Double The Delay After Every Failed Attempt
+        long delay = retryDelay << Math.min(broadcast.getAttempts(), 16);
+        logger.log(Level.WARN, String.format("Failed To Broadcast Withdraw, Retrying In %d ms: TXID: %s, %s",
+            delay, broadcast.getTxid(), cause.getMessage()));
+        withdrawBroadcastQueue.retry(broadcast, delay);
+    }
+
+    private void giveUp(Broadcast broadcast)
+    {
+        // Transaction May Have Reached The Network Even Though Every Attempt Appeared To Fail
+        boolean unsent;
+        try
+        {
+            if (withdrawService.isKnownTransaction(broadcast.getTxid()))
+            {
+                publishSentEvents(withdrawService.finishBroadcast(broadcast.getTxid()));
+                return;
+            }
+            unsent = true;
+        }
+        catch (RuntimeException e)
+        {
+            // Unknown Whether Sent, Hold Funds Instead Of Restoring Them
+            unsent = false;
+        }
+        fail(broadcast, unsent);
+    }
+
+    private void fail(Broadcast broadcast, boolean unsent)
+    {
+        try
+        {
+            WithdrawFailedResult result = withdrawService.failBroadcast(broadcast.getTxid(), unsent);
+            if (result != null)
+            {
+                for (Map.Entry<UUID, Long> entry : result.getRestoredAmounts().entrySet())
+                {
+                    eventBus.publish("withdraw-failed", new WithdrawFailedEvent(entry.getKey(), entry.getValue(), result.getTxid()));
+                }
+            }
+        }
+        catch (RuntimeException e)
+        {
+            logger.log(Level.ERROR, String.format("Failed To Cancel Unsent Withdraw, Left Pending: TXID: %s, %s", broadcast.getTxid(), e.getMessage()));
+        }
+    }
+
+    private void publishSentEvents(WithdrawSentResult result)
+    {
+        if (result != null)
+        {
+            for (Map.Entry<UUID, Long> entry : result.getWithdrawAmounts().entrySet())
+            {
+                eventBus.publish("withdraw-sent", new WithdrawSentEvent(entry.getKey(), entry.getValue(), result.getTxid()));
+            }
+        }
+    }
+
+    private static boolean isRejection(WalletResponseError error)
+    {
+        return error == WalletResponseError.RPC_VERIFY_ERROR
+            || error == WalletResponseError.RPC_VERIFY_REJECTED
+            || error == WalletResponseError.RPC_DESERIALIZATION_ERROR;
+    }
+}
@@ -0,0 +1,33 @@
+package com.mshernandez.coinaccount.task;
+
+import java.util.UUID;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An event sent out when the transaction of a
+ * confirmed withdrawal could not be sent out
+ * to the network and will not be retried.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class WithdrawFailedEvent
+{
+    /**
+     * The UUID of the account that made the withdrawal.
+     */
+    private UUID accountId;
+
+    /**
+     * The amount returned to the account balance,
+     * zero if the funds are held until resolved.
+     */
+    private long amount;
+
+    /**
+     * The TXID of the transaction that failed to send.
+     */
+    private String txid;
+}
@@ -1,38 +1,117 @@
 package com.mshernandez.coinaccount.task;
 
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 
+import com.mshernandez.coinaccount.dao.WithdrawExpiryQueue;
 import com.mshernandez.coinaccount.service.WithdrawService;
 
-import io.quarkus.scheduler.Scheduled;
+import org.jboss.logging.Logger;
+import org.jboss.logging.Logger.Level;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
 import io.vertx.core.eventbus.EventBus;
 
 /**
- * Periodically checks for and removes
- * expired withdraw requests.
+ * Removes withdraw requests as soon as
+ * they expire.
  */
 @ApplicationScoped
 public class WithdrawRequestTask
 {
+    @Inject
+    Logger logger;
+
     @Inject
     EventBus eventBus;
 
     @Inject
     WithdrawService withdrawService;
 
-    @Scheduled(every = "{coinaccount.withdraw.expire.check}")
-    public void cancelExpiredWithdrawRequests()
+    @Inject
+    WithdrawExpiryQueue withdrawExpiryQueue;
+
+    private Thread expiryThread;
+
+    /**
+     * Start waiting for expirations on startup.
+     *
+     * @param event The startup event.
+     */
+    void onStart(@Observes StartupEvent event)
+    {
+        expiryThread = new Thread(this::cancelExpiredWithdrawRequests, "withdraw-expiry");
+        expiryThread.setDaemon(true);
+        expiryThread.start();
+    }
+
+    /**
+     * Stop waiting for expirations on shutdown.
+     *
+     * @param event The shutdown event.
+     */
+    void onStop(@Observes ShutdownEvent event)
+    {
+        expiryThread.interrupt();
+    }
+
+    /**
+     * Cancels requests as they expire until interrupted,
+     * requests expiring together are canceled together.
+     * <p>
+     * Publishes events for every canceled request.
+     */
+    private void cancelExpiredWithdrawRequests()
+    {
+        while (!Thread.currentThread().isInterrupted())
+        {
+            try
+            {
+                // Cancel All Expired Requests, One At A Time If Canceling Together Fails
+                List<String> expiredTxids = withdrawExpiryQueue.takeExpired();
+                try
+                {
+                    publishExpiredEvents(withdrawService.cancelExpiredRequests(expiredTxids));
+                }
+                catch (RuntimeException e)
+                {
+                    for (String txid : expiredTxids)
+                    {
+                        cancelExpiredWithdrawRequest(txid);
+                    }
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void cancelExpiredWithdrawRequest(String txid)
+    {
+        try
+        {
+            publishExpiredEvents(withdrawService.cancelExpiredRequests(List.of(txid)));
+        }
+        catch (RuntimeException e)
+        {
+            logger.log(Level.ERROR, "Failed To Cancel Expired Withdraw Request: " + e.getMessage());
+        }
+    }
+
+    private void publishExpiredEvents(Set<UUID> affectedAccountIds)
     {
-        // Cancel All Expired Requests
-        Set<UUID> affectedAccountIds = withdrawService.cancelExpiredRequests();
         // Publish Events To Notify Affected Accounts
         for (UUID accountId : affectedAccountIds)
         {
             eventBus.publish("withdraw-request-expired", new WithdrawRequestExpiredEvent(accountId));
         }
     }
-}
\ No newline at end of file
+}
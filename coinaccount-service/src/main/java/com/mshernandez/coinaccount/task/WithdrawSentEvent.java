@@ -0,0 +1,33 @@
+package com.mshernandez.coinaccount.task;
+
+import java.util.UUID;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An event sent out when a confirmed withdrawal
+ * is sent out to the network after the account
+ * was answered, either on its own or as part of
+ * a batch transaction.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class WithdrawSentEvent
+{
+    /**
+     * The UUID of the account that made the withdrawal.
+     */
+    private UUID accountId;
+
+    /**
+     * The amount sent to the withdraw address.
+     */
+    private long amount;
+
+    /**
+     * The TXID of the transaction sending the withdrawal.
+     */
+    private String txid;
+}
@@ -0,0 +1,244 @@
+package com.mshernandez.coinaccount;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import com.mshernandez.coinaccount.grpc.CoinAccountProtos.AccountIdentifier;
+import com.mshernandez.coinaccount.grpc.CoinAccountProtos.ResponseType;
+import com.mshernandez.coinaccount.grpc.TransferProtos.TransferBalanceRequest;
+import com.mshernandez.coinaccount.grpc.TransferProtos.TransferStreamRequest;
+import com.mshernandez.coinaccount.grpc.TransferProtos.TransferStreamResponse;
+import com.mshernandez.coinaccount.grpc.TransferServiceGrpc;
+import com.mshernandez.coinaccount.service.TransferService;
+import com.mshernandez.coinaccount.service.exception.InsufficientFundsException;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Tests designed to ensure transfer streams only accept
+ * as many transfers as the window allows, answer each
+ * transfer as it completes, and complete only once every
+ * accepted transfer has been answered.
+ */
+public class TransferControllerTest
+{
+    private static final int STREAM_WINDOW = 2;
+    private static final long TIMEOUT_MILLIS = 5000L;
+
+    private StubTransferService transferService;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        transferService = new StubTransferService();
+        TransferController controller = new TransferController();
+        controller.streamWindow = STREAM_WINDOW;
+        controller.groupCommit = true;
+        controller.logger = Logger.getLogger(TransferControllerTest.class);
+        controller.transferService = transferService;
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+            .directExecutor()
+            .addService(controller)
+            .build()
+            .start();
+        channel = InProcessChannelBuilder.forName(serverName)
+            .directExecutor()
+            .build();
+    }
+
+    @AfterEach
+    public void teardown() throws Exception
+    {
+        channel.shutdownNow().awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        server.shutdownNow().awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void streamShouldOnlyAcceptTransfersWithinWindow() throws Exception
+    {
+        RecordingObserver responses = new RecordingObserver();
+        StreamObserver<TransferStreamRequest> requests = TransferServiceGrpc.newStub(channel).transferStream(responses);
+        for (long i = 0L; i < 5L; i++)
+        {
+            requests.onNext(request(i));
+        }
+        awaitCondition(() -> transferService.submitted.size() == STREAM_WINDOW);
+        // No More Transfers Accepted Until One Is Answered
+        Thread.sleep(100L);
+        assertEquals(STREAM_WINDOW, transferService.submitted.size());
+        transferService.submitted.get(0).complete(null);
+        awaitCondition(() -> transferService.submitted.size() == STREAM_WINDOW + 1);
+        assertEquals(List.of(0L), responses.correlationIds());
+        // Answer Everything Remaining As It Arrives
+        for (int i = 1; i < 5; i++)
+        {
+            int index = i;
+            awaitCondition(() -> transferService.submitted.size() > index);
+            transferService.submitted.get(index).complete(null);
+        }
+        requests.onCompleted();
+        assertTrue(responses.completed.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), responses.correlationIds());
+    }
+
+    @Test
+    public void streamShouldAnswerTransfersInCompletionOrder() throws Exception
+    {
+        RecordingObserver responses = new RecordingObserver();
+        StreamObserver<TransferStreamRequest> requests = TransferServiceGrpc.newStub(channel).transferStream(responses);
+        requests.onNext(request(7L));
+        requests.onNext(request(3L));
+        awaitCondition(() -> transferService.submitted.size() == 2);
+        transferService.submitted.get(1).completeExceptionally(new InsufficientFundsException());
+        transferService.submitted.get(0).complete(null);
+        requests.onCompleted();
+        assertTrue(responses.completed.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(List.of(3L, 7L), responses.correlationIds());
+        assertEquals(ResponseType.ERROR_INSUFFICIENT_FUNDS, responses.responses.get(0).getResponseType());
+        assertEquals(ResponseType.SUCCESS, responses.responses.get(1).getResponseType());
+    }
+
+    @Test
+    public void halfClosedStreamShouldCompleteOnceTransfersInFlightAreAnswered() throws Exception
+    {
+        RecordingObserver responses = new RecordingObserver();
+        StreamObserver<TransferStreamRequest> requests = TransferServiceGrpc.newStub(channel).transferStream(responses);
+        requests.onNext(request(0L));
+        requests.onNext(request(1L));
+        awaitCondition(() -> transferService.submitted.size() == 2);
+        requests.onCompleted();
+        assertFalse(responses.completed.await(100L, TimeUnit.MILLISECONDS));
+        transferService.submitted.get(0).complete(null);
+        awaitCondition(() -> responses.responses.size() == 1);
+        assertFalse(responses.completed.await(100L, TimeUnit.MILLISECONDS));
+        transferService.submitted.get(1).complete(null);
+        assertTrue(responses.completed.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(List.of(0L, 1L), responses.correlationIds());
+        assertNull(responses.error);
+    }
+
+    @Test
+    public void canceledStreamShouldNotAnswerTransfersInFlight() throws Exception
+    {
+        RecordingObserver responses = new RecordingObserver();
+        StreamObserver<TransferStreamRequest> requests = TransferServiceGrpc.newStub(channel).transferStream(responses);
+        requests.onNext(request(0L));
+        requests.onNext(request(1L));
+        awaitCondition(() -> transferService.submitted.size() == 2);
+        requests.onError(new IllegalStateException("Client Canceled"));
+        assertTrue(responses.completed.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        // Transfers In Flight Still Complete Without Failing The Server
+        transferService.submitted.get(0).complete(null);
+        transferService.submitted.get(1).completeExceptionally(new InsufficientFundsException());
+        Thread.sleep(100L);
+        assertTrue(responses.responses.isEmpty());
+        assertNotNull(responses.error);
+        assertEquals(2, transferService.submitted.size());
+    }
+
+    private static TransferStreamRequest request(long correlationId)
+    {
+        TransferBalanceRequest transfer = TransferBalanceRequest.newBuilder()
+            .setSender(AccountIdentifier.newBuilder().setUuid(UUID.randomUUID().toString()))
+            .setReceiver(AccountIdentifier.newBuilder().setUuid(UUID.randomUUID().toString()))
+            .setAmount(1000L)
+            .build();
+        return TransferStreamRequest.newBuilder()
+            .setCorrelationId(correlationId)
+            .setTransfer(transfer)
+            .build();
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean())
+        {
+            if (System.currentTimeMillis() > deadline)
+            {
+                throw new AssertionError("Condition Not Met Before Timeout");
+            }
+            Thread.sleep(10L);
+        }
+    }
+
+    /**
+     * Leaves every submitted transfer in flight until
+     * the test completes its future.
+     */
+    private static class StubTransferService extends TransferService
+    {
+        private final List<CompletableFuture<Void>> submitted = new CopyOnWriteArrayList<>();
+
+        @Override
+        public CompletableFuture<Void> submitTransfer(UUID senderId, UUID receiverId, boolean transferAll, long amount)
+        {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            submitted.add(result);
+            return result;
+        }
+    }
+
+    /**
+     * Records the responses received by the client.
+     */
+    private static class RecordingObserver implements StreamObserver<TransferStreamResponse>
+    {
+        private final List<TransferStreamResponse> responses = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Throwable error;
+
+        @Override
+        public void onNext(TransferStreamResponse response)
+        {
+            responses.add(response);
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            error = t;
+            completed.countDown();
+        }
+
+        @Override
+        public void onCompleted()
+        {
+            completed.countDown();
+        }
+
+        private List<Long> correlationIds()
+        {
+            List<Long> correlationIds = new ArrayList<>();
+            for (TransferStreamResponse response : responses)
+            {
+                correlationIds.add(response.getCorrelationId());
+            }
+            return correlationIds;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.mshernandez.coinaccount;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.mshernandez.coinaccount.grpc.CoinAccountProtos.AccountIdentifier;
+import com.mshernandez.coinaccount.grpc.CoinAccountProtos.ResponseType;
+import com.mshernandez.coinaccount.grpc.WithdrawProtos.InitiateWithdrawRequest;
+import com.mshernandez.coinaccount.grpc.WithdrawProtos.InitiateWithdrawResponse;
+import com.mshernandez.coinaccount.grpc.WithdrawProtos.WithdrawRecipient;
+import com.mshernandez.coinaccount.service.WithdrawService;
+import com.mshernandez.coinaccount.service.exception.CannotAffordFeesException;
+import com.mshernandez.coinaccount.service.exception.TooManyRecipientsException;
+import com.mshernandez.coinaccount.service.result.WithdrawRequestResult;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Tests designed to ensure withdrawals to several recipients
+ * combine amounts sent to the same address and report
+ * rejected recipients.
+ */
+public class WithdrawControllerTest
+{
+    private static final String ACCOUNT = UUID.randomUUID().toString();
+
+    private StubWithdrawService withdrawService;
+    private WithdrawController withdrawController;
+
+    @BeforeEach
+    public void setup()
+    {
+        withdrawService = new StubWithdrawService();
+        withdrawController = new WithdrawController();
+        withdrawController.logger = Logger.getLogger(WithdrawControllerTest.class);
+        withdrawController.withdrawService = withdrawService;
+    }
+
+    @Test
+    public void amountsToSameAddressShouldBeCombined()
+    {
+        InitiateWithdrawResponse response = initiate(recipient("first", 3000L), recipient("second", 5000L), recipient("first", 4000L));
+        assertEquals(ResponseType.SUCCESS, response.getResponseType());
+        assertEquals(Map.of("first", 7000L, "second", 5000L), withdrawService.recipients);
+        assertEquals(12000L, response.getWithdrawAmount());
+    }
+
+    @Test
+    public void singleAddressRequestsShouldNotUseRecipients()
+    {
+        InitiateWithdrawResponse response = initiate();
+        assertEquals(ResponseType.SUCCESS, response.getResponseType());
+        assertNull(withdrawService.recipients);
+    }
+
+    @Test
+    public void rejectedRecipientsShouldBeReported()
+    {
+        withdrawService.failure = new TooManyRecipientsException();
+        assertEquals(ResponseType.ERROR_TOO_MANY_RECIPIENTS, initiate(recipient("first", 3000L)).getResponseType());
+        withdrawService.failure = new CannotAffordFeesException();
+        InitiateWithdrawResponse response = initiate(recipient("first", 0L), recipient("second", 5000L));
+        assertEquals(ResponseType.ERROR_CANNOT_AFFORD_FEES, response.getResponseType());
+        assertEquals(0L, response.getTotalCost());
+    }
+
+    private InitiateWithdrawResponse initiate(WithdrawRecipient... recipients)
+    {
+        InitiateWithdrawRequest request = InitiateWithdrawRequest.newBuilder()
+            .setAccount(AccountIdentifier.newBuilder().setUuid(ACCOUNT))
+            .setDestAddress("single")
+            .setAmount(1000L)
+            .addAllRecipients(List.of(recipients))
+            .build();
+        RecordingObserver<InitiateWithdrawResponse> observer = new RecordingObserver<>();
+        withdrawController.initiateWithdraw(request, observer);
+        assertEquals(1, observer.responses.size());
+        return observer.responses.get(0);
+    }
+
+    private static WithdrawRecipient recipient(String address, long amount)
+    {
+        return WithdrawRecipient.newBuilder()
+            .setDestAddress(address)
+            .setAmount(amount)
+            .build();
+    }
+
+    /**
+     * Records the recipients of each withdrawal,
+     * failing them with the given exception.
+     */
+    private static class StubWithdrawService extends WithdrawService
+    {
+        private Map<String, Long> recipients;
+        private RuntimeException failure;
+
+        @Override
+        public WithdrawRequestResult initiateWithdrawRequest(UUID initiatorId, String destAddress, boolean withdrawAll, long amount)
+        {
+            return result(amount);
+        }
+
+        @Override
+        public WithdrawRequestResult initiateWithdrawRequest(UUID initiatorId, Map<String, Long> recipients)
+        {
+            this.recipients = recipients;
+            if (failure != null)
+            {
+                throw failure;
+            }
+            return result(recipients.values().stream().mapToLong(Long::longValue).sum());
+        }
+
+        private static WithdrawRequestResult result(long amount)
+        {
+            return new WithdrawRequestResult()
+                .setTxid("txid")
+                .setWithdrawAmount(amount)
+                .setFeeAmount(100L)
+                .setTotalCost(amount + 100L);
+        }
+    }
+
+    /**
+     * Records every response sent.
+     */
+    private static class RecordingObserver<T> implements StreamObserver<T>
+    {
+        private final List<T> responses = new ArrayList<>();
+
+        @Override
+        public void onNext(T value)
+        {
+            responses.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            throw new IllegalStateException(t);
+        }
+
+        @Override
+        public void onCompleted()
+        {
+            // Nothing To Do
+        }
+    }
+}
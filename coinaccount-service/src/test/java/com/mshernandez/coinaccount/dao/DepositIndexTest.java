@@ -0,0 +1,82 @@
+package com.mshernandez.coinaccount.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests designed to ensure the deposit index only
+ * offers available deposits near a target.
+ */
+public class DepositIndexTest
+{
+    private DepositIndex depositIndex;
+
+    @BeforeEach
+    public void setup()
+    {
+        StubDepositDao depositDao = new StubDepositDao();
+        for (int i = 1; i <= 10; i++)
+        {
+            depositDao.persist(new Deposit("segwit", i, DepositType.P2WPKH, i * 100L));
+        }
+        depositDao.persist(new Deposit("legacy", 1, DepositType.P2PKH, 150L));
+        depositDao.persist(new Deposit("legacy", 2, DepositType.P2PKH, 950L));
+        depositIndex = new DepositIndex();
+        depositIndex.depositDao = depositDao;
+        depositIndex.transactionRegistry = new StubTransactionRegistry();
+        depositIndex.rebuild();
+    }
+
+    @Test
+    public void nearestShouldTakeDepositsOnEachSideOfTarget()
+    {
+        Set<Long> expected = new HashSet<>();
+        expected.add(400L);
+        expected.add(500L);
+        expected.add(600L);
+        expected.add(700L);
+        expected.add(150L);
+        expected.add(950L);
+        assertEquals(expected, amounts(depositIndex.nearest(500L, 2)));
+    }
+
+    @Test
+    public void nearestShouldSkipHeldDeposits()
+    {
+        Deposit held = new Deposit("segwit", 6, DepositType.P2WPKH, 600L);
+        assertTrue(depositIndex.hold(Collections.singletonList(held)));
+        Set<Long> amounts = amounts(depositIndex.nearest(500L, 2));
+        assertFalse(amounts.contains(600L));
+        assertTrue(amounts.contains(700L));
+        assertTrue(amounts.contains(800L));
+    }
+
+    @Test
+    public void nearestShouldStopAtEndsOfPool()
+    {
+        assertEquals(5, depositIndex.nearest(50L, 3).size());
+        assertEquals(5, depositIndex.nearest(Long.MAX_VALUE, 3).size());
+        assertEquals(12, depositIndex.nearest(500L, 100).size());
+    }
+
+    private static Set<Long> amounts(Set<Deposit> deposits)
+    {
+        Set<Long> amounts = new HashSet<>();
+        for (Deposit deposit : deposits)
+        {
+            amounts.add(deposit.getAmount());
+        }
+        return amounts;
+    }
+}
@@ -0,0 +1,196 @@
+package com.mshernandez.coinaccount.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.inject.Inject;
+import jakarta.transaction.UserTransaction;
+
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.DepositKey;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+/**
+ * Tests designed to ensure deposits are claimed together
+ * and concurrent withdrawals never claim the same deposit.
+ */
+@QuarkusTest
+public class JPADepositDaoTest
+{
+    private static final int DEPOSITS = 200;
+    private static final int INPUTS = 3;
+    private static final int THREADS = 8;
+
+    @Inject
+    DepositDao depositDao;
+
+    @Inject
+    DepositIndex depositIndex;
+
+    @Inject
+    UserTransaction transaction;
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        transaction.begin();
+        for (Deposit deposit : depositDao.findAll())
+        {
+            depositDao.remove(deposit);
+        }
+        transaction.commit();
+        String txid = UUID.randomUUID().toString();
+        transaction.begin();
+        for (int i = 0; i < DEPOSITS; i++)
+        {
+            depositDao.persist(new Deposit(txid, i, DepositType.P2WPKH, 1000L * (i + 1)));
+        }
+        transaction.commit();
+    }
+
+    @Test
+    public void claimShouldTakeAllDepositsTogether() throws Exception
+    {
+        List<Deposit> selection = depositIndex.smallest(5);
+        transaction.begin();
+        try
+        {
+            assertEquals(5, depositDao.claim(selection).size());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    @Test
+    public void claimShouldLeaveOutMissingDeposits() throws Exception
+    {
+        List<Deposit> selection = new ArrayList<>(depositIndex.smallest(3));
+        selection.add(new Deposit("missing", 0, DepositType.P2WPKH, 1000L));
+        transaction.begin();
+        try
+        {
+            assertEquals(3, depositDao.claim(selection).size());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    @Test
+    public void indexShouldKeepLastChangeInTransaction() throws Exception
+    {
+        transaction.begin();
+        Deposit deposit = new Deposit(UUID.randomUUID().toString(), 0, DepositType.P2WPKH, 1000L);
+        depositDao.persist(deposit);
+        depositDao.remove(deposit);
+        transaction.commit();
+        // Created & Removed Together, Never Indexed
+        assertEquals(DEPOSITS, depositIndex.getAggregates().getWithdrawableCount());
+    }
+
+    @Test
+    public void concurrentClaimsShouldNeverOverlap() throws Exception
+    {
+        Set<DepositKey> spent = ConcurrentHashMap.newKeySet();
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger retries = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try
+        {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++)
+            {
+                Random random = new Random(t);
+                workers.add(executor.submit(() ->
+                {
+                    while (spendInputs(random, spent, attempts, retries))
+                    {
+                        // Keep Spending Until The Pool Is Empty
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers)
+            {
+                worker.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        double retryRate = (double) retries.get() / attempts.get();
+        System.out.println(String.format("Claims: %d Attempts, %d Retries, Retry Rate: %.3f", attempts.get(), retries.get(), retryRate));
+        assertEquals(DEPOSITS, spent.size());
+        assertTrue(retryRate < 0.5, "Retry Rate Too High: " + retryRate);
+    }
+
+    /**
+     * Selects inputs near a random target, reserves them,
+     * claims them, and removes them as a withdrawal would.
+     *
+     * @return False once there is nothing left to spend.
+     */
+    private boolean spendInputs(Random random, Set<DepositKey> spent, AtomicInteger attempts, AtomicInteger retries) throws Exception
+    {
+        Set<Deposit> selection = new HashSet<>();
+        for (Deposit deposit : depositIndex.nearest(1000L * (random.nextInt(DEPOSITS) + 1), 1))
+        {
+            if (selection.size() < INPUTS)
+            {
+                selection.add(deposit);
+            }
+        }
+        if (selection.isEmpty())
+        {
+            return false;
+        }
+        attempts.incrementAndGet();
+        transaction.begin();
+        try
+        {
+            if (!depositIndex.reserve(selection))
+            {
+                retries.incrementAndGet();
+                return true;
+            }
+            List<Deposit> claimed = depositDao.claim(selection);
+            if (claimed.size() != selection.size())
+            {
+                retries.incrementAndGet();
+                return true;
+            }
+            for (Deposit deposit : claimed)
+            {
+                // Each Deposit Must Only Ever Be Spent Once
+                assertTrue(spent.add(new DepositKey(deposit.getTXID(), deposit.getVout())));
+                depositDao.remove(deposit);
+            }
+        }
+        finally
+        {
+            transaction.commit();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,150 @@
+package com.mshernandez.coinaccount.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests designed to ensure pending withdraw requests
+ * hold their inputs and total cost until removed, and
+ * expire like persisted requests.
+ */
+public class PendingWithdrawStoreTest
+{
+    private static final long EXPIRE_TIME = 60000L;
+    private static final long WITHDRAW_AMOUNT = 1000L;
+    private static final long FEE_AMOUNT = 100L;
+
+    private StubTransactionRegistry transactionRegistry;
+    private DepositIndex depositIndex;
+    private WithdrawExpiryQueue expiryQueue;
+    private PendingWithdrawStore pendingWithdrawStore;
+
+    @BeforeEach
+    public void setup()
+    {
+        transactionRegistry = new StubTransactionRegistry();
+        StubDepositDao depositDao = new StubDepositDao();
+        for (int i = 0; i < 5; i++)
+        {
+            depositDao.persist(deposit(i));
+        }
+        depositIndex = new DepositIndex();
+        depositIndex.depositDao = depositDao;
+        depositIndex.transactionRegistry = transactionRegistry;
+        depositIndex.rebuild();
+        expiryQueue = new WithdrawExpiryQueue();
+        expiryQueue.withdrawExpireTime = EXPIRE_TIME;
+        expiryQueue.withdrawRequestDao = new StubWithdrawRequestDao();
+        expiryQueue.transactionRegistry = transactionRegistry;
+        pendingWithdrawStore = new PendingWithdrawStore();
+        pendingWithdrawStore.depositIndex = depositIndex;
+        pendingWithdrawStore.withdrawExpiryQueue = expiryQueue;
+    }
+
+    @Test
+    public void heldAmountShouldCoverEveryPendingRequestOfAccount()
+    {
+        Account account = new Account(UUID.randomUUID());
+        Account other = new Account(UUID.randomUUID());
+        assertTrue(pendingWithdrawStore.add(request("first", account, 0, System.currentTimeMillis())));
+        assertTrue(pendingWithdrawStore.add(request("second", account, 1, System.currentTimeMillis())));
+        assertTrue(pendingWithdrawStore.add(request("other", other, 2, System.currentTimeMillis())));
+        assertEquals(2L * (WITHDRAW_AMOUNT + FEE_AMOUNT), pendingWithdrawStore.getHeldAmount(account.getAccountUUID()));
+        assertEquals(WITHDRAW_AMOUNT + FEE_AMOUNT, pendingWithdrawStore.getHeldAmount(other.getAccountUUID()));
+        assertEquals("first", pendingWithdrawStore.findByAccount(account.getAccountUUID()).getTxid());
+        assertNull(pendingWithdrawStore.remove("missing"));
+        assertEquals("first", pendingWithdrawStore.remove("first").getTxid());
+        assertEquals(WITHDRAW_AMOUNT + FEE_AMOUNT, pendingWithdrawStore.getHeldAmount(account.getAccountUUID()));
+        assertEquals("second", pendingWithdrawStore.findByAccount(account.getAccountUUID()).getTxid());
+        pendingWithdrawStore.remove("second");
+        assertEquals(0L, pendingWithdrawStore.getHeldAmount(account.getAccountUUID()));
+        assertNull(pendingWithdrawStore.findByAccount(account.getAccountUUID()));
+    }
+
+    @Test
+    public void addShouldRejectRequestsSpendingHeldInputs()
+    {
+        Account account = new Account(UUID.randomUUID());
+        assertTrue(pendingWithdrawStore.add(request("first", account, 0, System.currentTimeMillis())));
+        assertFalse(pendingWithdrawStore.add(request("second", account, 0, System.currentTimeMillis())));
+        assertNull(pendingWithdrawStore.find("second"));
+        assertEquals(WITHDRAW_AMOUNT + FEE_AMOUNT, pendingWithdrawStore.getHeldAmount(account.getAccountUUID()));
+    }
+
+    @Test
+    public void removeShouldReleaseInputsOnceTransactionCompletes()
+    {
+        Account account = new Account(UUID.randomUUID());
+        assertTrue(pendingWithdrawStore.add(request("first", account, 0, System.currentTimeMillis())));
+        transactionRegistry.begin();
+        pendingWithdrawStore.remove("first");
+        assertEquals(0L, pendingWithdrawStore.getHeldAmount(account.getAccountUUID()));
+        assertFalse(depositIndex.hold(Collections.singletonList(deposit(0))));
+        transactionRegistry.rollback();
+        assertTrue(depositIndex.hold(Collections.singletonList(deposit(0))));
+    }
+
+    @Test
+    public void replaceShouldKeepHoldsAndOrder()
+    {
+        Account account = new Account(UUID.randomUUID());
+        assertTrue(pendingWithdrawStore.add(request("first", account, 0, System.currentTimeMillis())));
+        assertTrue(pendingWithdrawStore.add(request("second", account, 1, System.currentTimeMillis())));
+        WithdrawRequest signed = request("signed", account, 0, System.currentTimeMillis());
+        assertTrue(pendingWithdrawStore.replace("first", signed));
+        assertFalse(pendingWithdrawStore.replace("first", signed));
+        assertNull(pendingWithdrawStore.find("first"));
+        assertSame(signed, pendingWithdrawStore.findByAccount(account.getAccountUUID()));
+        assertEquals(2L * (WITHDRAW_AMOUNT + FEE_AMOUNT), pendingWithdrawStore.getHeldAmount(account.getAccountUUID()));
+        assertFalse(depositIndex.hold(Collections.singletonList(deposit(0))));
+    }
+
+    @Test
+    public void addedRequestsShouldExpire()
+    {
+        Account account = new Account(UUID.randomUUID());
+        long expired = System.currentTimeMillis() - EXPIRE_TIME - 1000L;
+        assertTrue(pendingWithdrawStore.add(request("pending", account, 0, System.currentTimeMillis())));
+        assertTrue(pendingWithdrawStore.add(request("expired", account, 1, expired)));
+        assertEquals(List.of("expired"), takeExpired());
+        // Replaced Requests Keep Their Timestamp
+        assertTrue(pendingWithdrawStore.add(request("unsigned", account, 2, expired + 1L)));
+        assertTrue(pendingWithdrawStore.replace("unsigned", request("signed", account, 2, expired + 1L)));
+        assertEquals(Set.of("unsigned", "signed"), new HashSet<>(takeExpired()));
+    }
+
+    private List<String> takeExpired()
+    {
+        return assertTimeoutPreemptively(Duration.ofSeconds(5), expiryQueue::takeExpired);
+    }
+
+    private static Deposit deposit(int vout)
+    {
+        return new Deposit("deposit", vout, DepositType.P2WPKH, 10000L);
+    }
+
+    private static WithdrawRequest request(String txid, Account account, int inputVout, long timestamp)
+    {
+        return new WithdrawRequest(txid, account, Collections.singleton(deposit(inputVout)), "address",
+            WITHDRAW_AMOUNT, FEE_AMOUNT, "txhex", timestamp);
+    }
+}
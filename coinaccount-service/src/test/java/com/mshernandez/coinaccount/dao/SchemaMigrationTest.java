@@ -0,0 +1,112 @@
+package com.mshernandez.coinaccount.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+import jakarta.transaction.UserTransaction;
+
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+
+import org.junit.jupiter.api.Test;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+
+/**
+ * Tests designed to ensure withdraw requests saved by
+ * older schemas are moved to reference their accounts.
+ */
+@QuarkusTest
+public class SchemaMigrationTest
+{
+    @Inject
+    SchemaMigration schemaMigration;
+
+    @Inject
+    AccountDao accountDao;
+
+    @Inject
+    WithdrawRequestDao withdrawRequestDao;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    UserTransaction transaction;
+
+    @Test
+    public void migrationShouldMoveAccountReferencesAndDropOldColumn() throws Exception
+    {
+        UUID accountId = UUID.randomUUID();
+        String txid = UUID.randomUUID().toString();
+        transaction.begin();
+        Account account = accountDao.findOrCreate(accountId);
+        WithdrawRequest request = new WithdrawRequest(txid, account, Collections.emptySet(), "address",
+            1000L, 100L, "txhex", System.currentTimeMillis());
+        withdrawRequestDao.persist(request);
+        account.addWithdrawRequest(request);
+        accountDao.update(account);
+        transaction.commit();
+        // Recreate The Old Schema, Account Referencing Its Request
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement())
+        {
+            statement.executeUpdate("ALTER TABLE ACCOUNT ADD COLUMN WITHDRAW_REQUEST VARCHAR(255)");
+            statement.executeUpdate("ALTER TABLE ACCOUNT ADD CONSTRAINT UK_ACCOUNT_WITHDRAW_REQUEST UNIQUE (WITHDRAW_REQUEST)");
+            statement.executeUpdate("ALTER TABLE ACCOUNT ADD CONSTRAINT FK_ACCOUNT_WITHDRAW_REQUEST "
+                + "FOREIGN KEY (WITHDRAW_REQUEST) REFERENCES WITHDRAW_REQUEST (TXID)");
+            try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE ACCOUNT SET WITHDRAW_REQUEST = ? WHERE ID = (SELECT ACCOUNT FROM WITHDRAW_REQUEST WHERE TXID = ?)"))
+            {
+                update.setString(1, txid);
+                update.setString(2, txid);
+                assertEquals(1, update.executeUpdate());
+            }
+            try (PreparedStatement update = connection.prepareStatement("UPDATE WITHDRAW_REQUEST SET ACCOUNT = NULL WHERE TXID = ?"))
+            {
+                update.setString(1, txid);
+                assertEquals(1, update.executeUpdate());
+            }
+        }
+        schemaMigration.migrateWithdrawRequestAccounts();
+        // Migrating Again Does Nothing
+        schemaMigration.migrateWithdrawRequestAccounts();
+        try (Connection connection = dataSource.getConnection();
+            ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), connection.getSchema(), "ACCOUNT", "WITHDRAW_REQUEST"))
+        {
+            assertFalse(columns.next());
+        }
+        transaction.begin();
+        try
+        {
+            WithdrawRequest migrated = withdrawRequestDao.find(txid);
+            assertEquals(accountId, migrated.getAccount().getAccountUUID());
+            assertEquals(txid, accountDao.find(accountId).getWithdrawRequest().getTxid());
+            // Requests Can Be Removed Once No Longer Referenced By Accounts
+            migrated.getAccount().removeWithdrawRequest(migrated);
+            withdrawRequestDao.remove(migrated);
+        }
+        finally
+        {
+            transaction.commit();
+        }
+        transaction.begin();
+        try
+        {
+            assertNull(withdrawRequestDao.find(txid));
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+}
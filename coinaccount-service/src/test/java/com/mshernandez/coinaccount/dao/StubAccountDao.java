@@ -0,0 +1,104 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import com.mshernandez.coinaccount.entity.Account;
+
+/**
+ * Holds accounts in a map so that balance
+ * changes can be tested without a database.
+ * <p>
+ * Conditional balance changes apply directly to the
+ * held accounts, like a committed update would.
+ */
+public class StubAccountDao implements AccountDao
+{
+    private final Map<UUID, Account> accounts = new TreeMap<>();
+
+    @Override
+    public Account find(UUID id)
+    {
+        return accounts.get(id);
+    }
+
+    @Override
+    public Account findForUpdate(UUID id)
+    {
+        return find(id);
+    }
+
+    @Override
+    public List<Account> findAllForUpdate(Collection<UUID> ids)
+    {
+        List<Account> found = new ArrayList<>();
+        for (Account account : accounts.values())
+        {
+            if (ids.contains(account.getAccountUUID()))
+            {
+                found.add(account);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Long findBalance(UUID id)
+    {
+        Account account = accounts.get(id);
+        return account == null ? null : account.getBalance();
+    }
+
+    @Override
+    public boolean changeBalance(UUID id, long delta, long minBalance)
+    {
+        Account account = accounts.get(id);
+        if (account == null || account.getBalance() + delta < minBalance)
+        {
+            return false;
+        }
+        account.changeBalance(delta);
+        return true;
+    }
+
+    @Override
+    public Account findOrCreate(UUID id)
+    {
+        return accounts.computeIfAbsent(id, Account::new);
+    }
+
+    @Override
+    public Collection<Account> findAll()
+    {
+        return new ArrayList<>(accounts.values());
+    }
+
+    @Override
+    public List<Account> findRefundable(UUID after, int limit)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Account update(Account account)
+    {
+        accounts.put(account.getAccountUUID(), account);
+        return account;
+    }
+
+    @Override
+    public void refresh(Account account)
+    {
+        // Nothing To Refresh
+    }
+
+    @Override
+    public void remove(Account account)
+    {
+        accounts.remove(account.getAccountUUID());
+    }
+}
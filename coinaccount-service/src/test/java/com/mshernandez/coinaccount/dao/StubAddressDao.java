@@ -0,0 +1,91 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.Address;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+/**
+ * Holds addresses in a map so that address owners
+ * can be looked up without a database.
+ * <p>
+ * Only addresses created with a given address string
+ * are supported, since new addresses need a wallet.
+ */
+public class StubAddressDao implements AddressDao
+{
+    private final Map<String, Address> addresses = new HashMap<>();
+
+    @Override
+    public Address find(String address)
+    {
+        return addresses.get(address);
+    }
+
+    @Override
+    public Collection<Address> findAll()
+    {
+        return new ArrayList<>(addresses.values());
+    }
+
+    @Override
+    public Address find(Account account, DepositType type, boolean requireUnused)
+    {
+        for (Address address : addresses.values())
+        {
+            if (address.getOwner().equals(account) && address.getType() == type && !(requireUnused && address.isUsed()))
+            {
+                return address;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Address findOrCreate(Account account, DepositType type, boolean requireUnused)
+    {
+        Address address = find(account, type, requireUnused);
+        if (address == null)
+        {
+            throw new UnsupportedOperationException();
+        }
+        return address;
+    }
+
+    @Override
+    public Address create(Account account, DepositType type)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Address create(Account account, DepositType type, String address)
+    {
+        Address created = new Address(address, type, account);
+        addresses.put(address, created);
+        return created;
+    }
+
+    @Override
+    public Address update(Address address)
+    {
+        addresses.put(address.getAddress(), address);
+        return address;
+    }
+
+    @Override
+    public void refresh(Address address)
+    {
+        // Nothing To Do
+    }
+
+    @Override
+    public void remove(Address address)
+    {
+        addresses.remove(address.getAddress());
+    }
+}
@@ -0,0 +1,83 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.mshernandez.coinaccount.entity.Deposit;
+
+/**
+ * Holds deposits in a list so that the deposit
+ * index can be loaded without a database.
+ */
+public class StubDepositDao implements DepositDao
+{
+    private final List<Deposit> deposits = new ArrayList<>();
+
+    @Override
+    public Deposit find(String txid, int vout)
+    {
+        for (Deposit deposit : deposits)
+        {
+            if (deposit.getTXID().equals(txid) && deposit.getVout() == vout)
+            {
+                return deposit;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<Deposit> findAll()
+    {
+        return new ArrayList<>(deposits);
+    }
+
+    @Override
+    public List<Deposit> findAllWithdrawable()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Deposit> claim(Collection<Deposit> deposits)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void persist(Deposit deposit)
+    {
+        deposits.add(deposit);
+    }
+
+    @Override
+    public Deposit update(Deposit deposit)
+    {
+        return deposit;
+    }
+
+    @Override
+    public void refresh(Deposit deposit)
+    {
+        // Nothing To Do
+    }
+
+    @Override
+    public void remove(Deposit deposit)
+    {
+        deposits.remove(deposit);
+    }
+
+    @Override
+    public long getTotalBalance()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getWithdrawableBalance()
+    {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,23 @@
+package com.mshernandez.coinaccount.dao;
+
+import jakarta.enterprise.inject.Vetoed;
+
+/**
+ * A deposit index loaded from the given deposits,
+ * within transactions simulated one at a time, so
+ * that services outside of this package can use
+ * an index without a database.
+ * <p>
+ * Vetoed so that it is never injected in place
+ * of the real index.
+ */
+@Vetoed
+public class StubDepositIndex extends DepositIndex
+{
+    public StubDepositIndex(DepositDao depositDao)
+    {
+        this.depositDao = depositDao;
+        this.transactionRegistry = new StubTransactionRegistry();
+        rebuild();
+    }
+}
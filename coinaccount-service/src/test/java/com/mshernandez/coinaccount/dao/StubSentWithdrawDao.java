@@ -0,0 +1,48 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mshernandez.coinaccount.entity.SentWithdraw;
+
+/**
+ * Holds sent withdrawals in a map so that fee
+ * bumps can be tested without a database.
+ */
+public class StubSentWithdrawDao implements SentWithdrawDao
+{
+    private final Map<String, SentWithdraw> sentWithdrawals = new LinkedHashMap<>();
+
+    @Override
+    public SentWithdraw find(String txid)
+    {
+        return sentWithdrawals.get(txid);
+    }
+
+    @Override
+    public List<SentWithdraw> findAll()
+    {
+        return new ArrayList<>(sentWithdrawals.values());
+    }
+
+    @Override
+    public void persist(SentWithdraw sentWithdraw)
+    {
+        sentWithdrawals.put(sentWithdraw.getTxid(), sentWithdraw);
+    }
+
+    @Override
+    public SentWithdraw update(SentWithdraw sentWithdraw)
+    {
+        sentWithdrawals.put(sentWithdraw.getTxid(), sentWithdraw);
+        return sentWithdraw;
+    }
+
+    @Override
+    public void remove(SentWithdraw sentWithdraw)
+    {
+        sentWithdrawals.remove(sentWithdraw.getTxid());
+    }
+}
@@ -0,0 +1,106 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Simulates a single transaction at a time, running
+ * registered synchronizations once it is committed
+ * or rolled back.
+ */
+public class StubTransactionRegistry implements TransactionSynchronizationRegistry
+{
+    private Object transactionKey;
+    private final Map<Object, Object> resources = new HashMap<>();
+    private final List<Synchronization> synchronizations = new ArrayList<>();
+    private boolean rollbackOnly;
+
+    /**
+     * Start a new transaction.
+     */
+    public void begin()
+    {
+        transactionKey = new Object();
+    }
+
+    /**
+     * Commit the current transaction.
+     */
+    public void commit()
+    {
+        complete(Status.STATUS_COMMITTED);
+    }
+
+    /**
+     * Roll back the current transaction.
+     */
+    public void rollback()
+    {
+        complete(Status.STATUS_ROLLEDBACK);
+    }
+
+    private void complete(int status)
+    {
+        List<Synchronization> completed = new ArrayList<>(synchronizations);
+        transactionKey = null;
+        resources.clear();
+        synchronizations.clear();
+        rollbackOnly = false;
+        for (Synchronization synchronization : completed)
+        {
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    @Override
+    public Object getTransactionKey()
+    {
+        return transactionKey;
+    }
+
+    @Override
+    public void putResource(Object key, Object value)
+    {
+        resources.put(key, value);
+    }
+
+    @Override
+    public Object getResource(Object key)
+    {
+        return resources.get(key);
+    }
+
+    @Override
+    public void registerInterposedSynchronization(Synchronization sync)
+    {
+        if (transactionKey == null)
+        {
+            throw new IllegalStateException("No active transaction!");
+        }
+        synchronizations.add(sync);
+    }
+
+    @Override
+    public int getTransactionStatus()
+    {
+        return transactionKey == null ? Status.STATUS_NO_TRANSACTION : Status.STATUS_ACTIVE;
+    }
+
+    @Override
+    public void setRollbackOnly()
+    {
+        rollbackOnly = true;
+    }
+
+    @Override
+    public boolean getRollbackOnly()
+    {
+        return rollbackOnly;
+    }
+}
@@ -0,0 +1,21 @@
+package com.mshernandez.coinaccount.dao;
+
+/**
+ * A transfer queue with group limits set directly
+ * instead of through configuration, so that queued
+ * transfers can be used outside this package.
+ */
+public class StubTransferQueue extends TransferQueue
+{
+    /**
+     * Create an empty transfer queue.
+     *
+     * @param maxGroupSize The max number of transfers in a group.
+     * @param maxGroupWait The max time to wait for a group to fill, in milliseconds.
+     */
+    public StubTransferQueue(int maxGroupSize, long maxGroupWait)
+    {
+        this.maxGroupSize = maxGroupSize;
+        this.maxGroupWait = maxGroupWait;
+    }
+}
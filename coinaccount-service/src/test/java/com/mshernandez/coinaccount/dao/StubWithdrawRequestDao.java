@@ -0,0 +1,85 @@
+package com.mshernandez.coinaccount.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+
+/**
+ * Holds withdraw requests in a list so that queues
+ * can be loaded without a database.
+ */
+public class StubWithdrawRequestDao implements WithdrawRequestDao
+{
+    private final List<WithdrawRequest> requests = new ArrayList<>();
+
+    @Override
+    public WithdrawRequest find(String txid)
+    {
+        for (WithdrawRequest request : requests)
+        {
+            if (request.getTxid().equals(txid))
+            {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Collection<WithdrawRequest> findAll()
+    {
+        return new ArrayList<>(requests);
+    }
+
+    @Override
+    public Collection<WithdrawRequest> findAllIncomplete()
+    {
+        List<WithdrawRequest> incomplete = new ArrayList<>();
+        for (WithdrawRequest request : requests)
+        {
+            if (!request.isComplete())
+            {
+                incomplete.add(request);
+            }
+        }
+        return incomplete;
+    }
+
+    @Override
+    public List<WithdrawRequest> findBatched(int limit)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<WithdrawRequest> findBroadcastPending()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void persist(WithdrawRequest withdrawRequest)
+    {
+        requests.add(withdrawRequest);
+    }
+
+    @Override
+    public WithdrawRequest update(WithdrawRequest withdrawRequest)
+    {
+        return withdrawRequest;
+    }
+
+    @Override
+    public void refresh(WithdrawRequest withdrawRequest)
+    {
+        // Nothing To Refresh
+    }
+
+    @Override
+    public void remove(WithdrawRequest withdrawRequest)
+    {
+        requests.remove(withdrawRequest);
+    }
+}
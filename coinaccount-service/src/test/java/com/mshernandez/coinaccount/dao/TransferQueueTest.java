@@ -0,0 +1,106 @@
+package com.mshernandez.coinaccount.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import com.mshernandez.coinaccount.dao.TransferQueue.PendingTransfer;
+import com.mshernandez.coinaccount.service.exception.InsufficientFundsException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests designed to ensure queued transfers are taken
+ * in order, in groups limited by size and wait time,
+ * and that their callers are answered.
+ */
+public class TransferQueueTest
+{
+    private static final UUID SENDER = UUID.randomUUID();
+    private static final UUID RECEIVER = UUID.randomUUID();
+
+    @Test
+    public void fullGroupShouldBeTakenWithoutWaiting()
+    {
+        TransferQueue transferQueue = new StubTransferQueue(3, 60000L);
+        for (long amount = 1L; amount <= 5L; amount++)
+        {
+            transferQueue.add(SENDER, RECEIVER, false, amount);
+        }
+        assertEquals(List.of(1L, 2L, 3L), amounts(assertTimeoutPreemptively(Duration.ofSeconds(5), transferQueue::takeGroup)));
+    }
+
+    @Test
+    public void groupShouldBeTakenOnceWaitPasses()
+    {
+        TransferQueue transferQueue = new StubTransferQueue(10, 200L);
+        transferQueue.add(SENDER, RECEIVER, false, 1L);
+        transferQueue.add(SENDER, RECEIVER, false, 2L);
+        long start = System.nanoTime();
+        List<PendingTransfer> group = assertTimeoutPreemptively(Duration.ofSeconds(5), transferQueue::takeGroup);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200L));
+        assertEquals(List.of(1L, 2L), amounts(group));
+    }
+
+    @Test
+    public void takeGroupShouldWaitForFirstTransferThenCollectOthers() throws Exception
+    {
+        TransferQueue transferQueue = new StubTransferQueue(10, 2000L);
+        FutureTask<List<PendingTransfer>> takeGroup = new FutureTask<>(transferQueue::takeGroup);
+        Thread taker = new Thread(takeGroup);
+        taker.setDaemon(true);
+        taker.start();
+        Thread.sleep(100L);
+        assertFalse(takeGroup.isDone());
+        // Transfers Arriving While Waiting Join The Group
+        transferQueue.add(SENDER, RECEIVER, false, 1L);
+        Thread.sleep(100L);
+        transferQueue.add(SENDER, RECEIVER, true, 2L);
+        List<PendingTransfer> group = takeGroup.get(5L, TimeUnit.SECONDS);
+        assertEquals(List.of(1L, 2L), amounts(group));
+        assertFalse(group.get(0).isTransferAll());
+        assertTrue(group.get(1).isTransferAll());
+        assertEquals(SENDER, group.get(0).getSenderId());
+        assertEquals(RECEIVER, group.get(0).getReceiverId());
+    }
+
+    @Test
+    public void takenTransfersShouldAnswerCallers() throws Exception
+    {
+        TransferQueue transferQueue = new StubTransferQueue(10, 0L);
+        CompletableFuture<Void> committed = transferQueue.add(SENDER, RECEIVER, false, 1L);
+        CompletableFuture<Void> rejected = transferQueue.add(SENDER, RECEIVER, false, 2L);
+        List<PendingTransfer> group = assertTimeoutPreemptively(Duration.ofSeconds(5), transferQueue::takeGroup);
+        assertEquals(2, group.size());
+        assertFalse(committed.isDone());
+        assertFalse(rejected.isDone());
+        InsufficientFundsException cause = new InsufficientFundsException();
+        group.get(0).complete();
+        group.get(1).reject(cause);
+        committed.get(5L, TimeUnit.SECONDS);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5L, TimeUnit.SECONDS));
+        assertSame(cause, e.getCause());
+    }
+
+    private static List<Long> amounts(List<PendingTransfer> group)
+    {
+        List<Long> amounts = new ArrayList<>();
+        for (PendingTransfer transfer : group)
+        {
+            amounts.add(transfer.getAmount());
+        }
+        return amounts;
+    }
+}
@@ -0,0 +1,116 @@
+package com.mshernandez.coinaccount.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests designed to ensure the expiry queue returns
+ * requests once expired, only after their transaction
+ * commits, and together when they expire together.
+ */
+public class WithdrawExpiryQueueTest
+{
+    private static final long EXPIRE_TIME = 60000L;
+
+    private StubWithdrawRequestDao withdrawRequestDao;
+    private StubTransactionRegistry transactionRegistry;
+    private WithdrawExpiryQueue expiryQueue;
+
+    @BeforeEach
+    public void setup()
+    {
+        withdrawRequestDao = new StubWithdrawRequestDao();
+        transactionRegistry = new StubTransactionRegistry();
+        expiryQueue = new WithdrawExpiryQueue();
+        expiryQueue.withdrawExpireTime = EXPIRE_TIME;
+        expiryQueue.withdrawRequestDao = withdrawRequestDao;
+        expiryQueue.transactionRegistry = transactionRegistry;
+    }
+
+    @Test
+    public void rebuildShouldLoadIncompleteRequests() throws InterruptedException
+    {
+        withdrawRequestDao.persist(request("expired", expiredTimestamp()));
+        withdrawRequestDao.persist(request("pending", System.currentTimeMillis()));
+        WithdrawRequest completed = request("completed", expiredTimestamp());
+        completed.setComplete(false);
+        withdrawRequestDao.persist(completed);
+        expiryQueue.rebuild();
+        assertEquals(List.of("expired"), takeExpired());
+    }
+
+    @Test
+    public void rebuildShouldReplacePreviousContents() throws InterruptedException
+    {
+        expiryQueue.add("stale", expiredTimestamp());
+        withdrawRequestDao.persist(request("expired", expiredTimestamp()));
+        expiryQueue.rebuild();
+        assertEquals(List.of("expired"), takeExpired());
+    }
+
+    @Test
+    public void persistedRequestsShouldOnlyBeAddedOnceCommitted() throws InterruptedException
+    {
+        transactionRegistry.begin();
+        expiryQueue.recordPersist(request("committed", expiredTimestamp()));
+        expiryQueue.add("memory", expiredTimestamp() + 1L);
+        assertEquals(List.of("memory"), takeExpired());
+        transactionRegistry.commit();
+        assertEquals(List.of("committed"), takeExpired());
+    }
+
+    @Test
+    public void persistedRequestsShouldNotBeAddedIfRolledBack() throws InterruptedException
+    {
+        transactionRegistry.begin();
+        expiryQueue.recordPersist(request("rolledback", expiredTimestamp()));
+        transactionRegistry.rollback();
+        expiryQueue.add("memory", expiredTimestamp());
+        assertEquals(List.of("memory"), takeExpired());
+    }
+
+    @Test
+    public void takeExpiredShouldTakeAllExpiredRequestsTogether() throws InterruptedException
+    {
+        long timestamp = expiredTimestamp();
+        expiryQueue.add("second", timestamp + 2L);
+        expiryQueue.add("pending", System.currentTimeMillis());
+        expiryQueue.add("first", timestamp + 1L);
+        expiryQueue.add("third", timestamp + 3L);
+        assertEquals(List.of("first", "second", "third"), takeExpired());
+    }
+
+    @Test
+    public void takeExpiredShouldWaitForNextExpiration() throws InterruptedException
+    {
+        expiryQueue.add("soon", System.currentTimeMillis() - EXPIRE_TIME + 100L);
+        assertEquals(List.of("soon"), takeExpired());
+    }
+
+    private List<String> takeExpired()
+    {
+        return assertTimeoutPreemptively(Duration.ofSeconds(5), expiryQueue::takeExpired);
+    }
+
+    private static long expiredTimestamp()
+    {
+        return System.currentTimeMillis() - EXPIRE_TIME - 1000L;
+    }
+
+    private static WithdrawRequest request(String txid, long timestamp)
+    {
+        return new WithdrawRequest(txid, new Account(UUID.randomUUID()), Collections.emptySet(),
+            "address", 1000L, 100L, "txhex", timestamp);
+    }
+}
@@ -0,0 +1,145 @@
+package com.mshernandez.coinaccount.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+import jakarta.transaction.UserTransaction;
+
+import com.mshernandez.coinaccount.dao.DepositDao;
+import com.mshernandez.coinaccount.dao.WithdrawRequestDao;
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.service.wallet_rpc.StubWalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.WalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+
+/**
+ * Tests designed to ensure fan-outs give whatever is left
+ * after splitting its own output, unless it is dust, in
+ * which case it is charged to the change account as fees.
+ */
+@QuarkusTest
+@TestProfile(FanOutServiceTest.Profile.class)
+public class FanOutServiceTest
+{
+    private static final long DENOMINATION = 100000L;
+    private static final long FEE_RATE = 1000L;
+
+    @Inject
+    FanOutService fanOutService;
+
+    @Inject
+    WithdrawService withdrawService;
+
+    @Inject
+    PoolFeeService poolFeeService;
+
+    @Inject
+    DepositDao depositDao;
+
+    @Inject
+    WithdrawRequestDao withdrawRequestDao;
+
+    @Inject
+    UserTransaction transaction;
+
+    private StubWalletService walletService;
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        walletService = new StubWalletService();
+        walletService.setFeeRate(FEE_RATE);
+        walletService.addDecodedTransaction("signed:raw1", "fanout", 0, List.of(), List.of());
+        QuarkusMock.installMockForType(walletService, WalletService.class);
+    }
+
+    @Test
+    public void remainderShouldGetItsOwnOutput() throws Exception
+    {
+        long amount = 3L * DENOMINATION + 50000L;
+        long feesPaid = poolFeeService.getFeesPaid();
+        deposit(amount);
+        assertEquals("fanout", fanOutService.createFanOut());
+        List<Long> outputs = outputs();
+        assertEquals(3, outputs.size());
+        assertEquals(List.of(DENOMINATION, DENOMINATION), outputs.subList(0, 2));
+        assertTrue(outputs.get(2) >= DENOMINATION);
+        long fee = amount - outputs.stream().mapToLong(Long::longValue).sum();
+        assertFee(fee, feesPaid);
+    }
+
+    @Test
+    public void dustRemainderShouldBePaidAsFees() throws Exception
+    {
+        // Left Over After Fees Is Well Below The Dust Limit
+        long amount = 2L * DENOMINATION + 300L;
+        long feesPaid = poolFeeService.getFeesPaid();
+        deposit(amount);
+        assertEquals("fanout", fanOutService.createFanOut());
+        assertEquals(List.of(DENOMINATION, DENOMINATION), outputs());
+        assertFee(300L, feesPaid);
+    }
+
+    private void deposit(long amount) throws Exception
+    {
+        transaction.begin();
+        depositDao.persist(new Deposit(UUID.randomUUID().toString(), 0, DepositType.P2WPKH, amount));
+        transaction.commit();
+    }
+
+    /**
+     * Get the amounts paid by the fan-out, smallest first.
+     */
+    private List<Long> outputs()
+    {
+        assertEquals(1, walletService.getCreatedOutputs().size());
+        return walletService.getCreatedOutputs().get(0).values().stream().sorted().toList();
+    }
+
+    /**
+     * Check the fan-out paid and charged the given fee,
+     * then send it so the next fan-out is not blocked.
+     */
+    private void assertFee(long fee, long feesPaidBefore) throws Exception
+    {
+        transaction.begin();
+        try
+        {
+            assertEquals(fee, withdrawRequestDao.find("fanout").getFeeAmount());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+        assertEquals(feesPaidBefore + fee, poolFeeService.getFeesPaid());
+        assertEquals("fanout", withdrawService.completeWithdraw("fanout"));
+    }
+
+    /**
+     * Splits deposits into small denominations
+     * whenever fewer than two are ready.
+     */
+    public static class Profile implements QuarkusTestProfile
+    {
+        @Override
+        public Map<String, String> getConfigOverrides()
+        {
+            return Map.of(
+                "coinaccount.fanout.denomination", Long.toString(DENOMINATION),
+                "coinaccount.fanout.ready.min", "2");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.mshernandez.coinaccount.service;
+
+import static com.mshernandez.coinaccount.service.wallet_rpc.StubWalletService.output;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.mshernandez.coinaccount.dao.DepositIndex;
+import com.mshernandez.coinaccount.dao.StubAccountDao;
+import com.mshernandez.coinaccount.dao.StubAddressDao;
+import com.mshernandez.coinaccount.dao.StubDepositDao;
+import com.mshernandez.coinaccount.dao.StubDepositIndex;
+import com.mshernandez.coinaccount.dao.StubSentWithdrawDao;
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.SentWithdraw;
+import com.mshernandez.coinaccount.service.result.WithdrawSentResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.StubWalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.CreateRawTransactionInput;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.DecodeRawTransactionOutput;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests designed to ensure stuck withdrawals are replaced
+ * paying at least the incremental relay fee more, up to the
+ * max fee rate, only while their change can pay the extra
+ * fees, and that trusted change follows the replacement.
+ */
+public class FeeBumpServiceTest
+{
+    private static final UUID CHANGE_ACCOUNT = UUID.randomUUID();
+    private static final UUID WITHDRAW_ACCOUNT = UUID.randomUUID();
+    private static final int TARGET = 2;
+    private static final int MARGIN = 1;
+    private static final long SENT_HEIGHT = 100L;
+    private static final long MAX_FEE_RATE = 50000L;
+    // At 4000 Weight Units, Fees In Sats Equal Fee Rates In sat/kvB
+    private static final int WEIGHT = 4000;
+    private static final String RECIPIENT = "recipient";
+    private static final String CHANGE = "change";
+    private static final String REPLACEMENT = "replacement";
+
+    private StubWalletService walletService;
+    private StubDepositDao depositDao;
+    private StubSentWithdrawDao sentWithdrawDao;
+    private DepositIndex depositIndex;
+    private PoolFeeService poolFeeService;
+    private FeeBumpService feeBumpService;
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        walletService = new StubWalletService();
+        walletService.setBlockCount(SENT_HEIGHT + TARGET + MARGIN);
+        depositDao = new StubDepositDao();
+        sentWithdrawDao = new StubSentWithdrawDao();
+        depositIndex = new StubDepositIndex(depositDao);
+        StubAddressDao addressDao = new StubAddressDao();
+        addressDao.create(new Account(CHANGE_ACCOUNT), DepositType.P2WPKH, CHANGE);
+        poolFeeService = new PoolFeeService();
+        poolFeeService.changeAccountId = CHANGE_ACCOUNT;
+        poolFeeService.accountDao = new StubAccountDao();
+        feeBumpService = new FeeBumpService();
+        feeBumpService.changeAccountId = CHANGE_ACCOUNT;
+        feeBumpService.defaultAddressType = DepositType.P2WPKH;
+        feeBumpService.blockConfirmationTarget = TARGET;
+        feeBumpService.bumpMargin = MARGIN;
+        feeBumpService.maxFeeRate = MAX_FEE_RATE;
+        feeBumpService.trustUnconfirmedChange = false;
+        feeBumpService.logger = Logger.getLogger(FeeBumpServiceTest.class);
+        feeBumpService.walletService = walletService;
+        feeBumpService.poolFeeService = poolFeeService;
+        feeBumpService.addressDao = addressDao;
+        feeBumpService.depositDao = depositDao;
+        feeBumpService.depositIndex = depositIndex;
+        feeBumpService.sentWithdrawDao = sentWithdrawDao;
+    }
+
+    @Test
+    public void replacementShouldPayAtLeastIncrementalRelayFeeMore()
+    {
+        // Previous Fee 10000, Estimate Lower Than Already Paid
+        track("sent", 200000L, output(0, RECIPIENT, 50000L), output(1, CHANGE, 140000L));
+        walletService.setFeeRate(5000L);
+        expectReplacement(output(0, RECIPIENT, 50000L), output(1, CHANGE, 139000L));
+        List<WithdrawSentResult> replacements = feeBumpService.bumpStuckWithdrawals();
+        assertEquals(1, replacements.size());
+        assertEquals(REPLACEMENT, replacements.get(0).getTxid());
+        assertEquals(11000L, replacements.get(0).getFeeAmount());
+        assertEquals(List.of(Map.of(RECIPIENT, 50000L, CHANGE, 139000L)), walletService.getCreatedOutputs());
+        assertEquals(1000L, poolFeeService.getFeesPaid());
+        // Replacement Tracked In Place Of Replaced Transaction
+        assertNull(sentWithdrawDao.find("sent"));
+        SentWithdraw replacement = sentWithdrawDao.find(REPLACEMENT);
+        assertNotNull(replacement);
+        assertEquals(200000L, replacement.getInputAmount());
+        assertEquals(SENT_HEIGHT + TARGET + MARGIN, replacement.getSentHeight());
+    }
+
+    @Test
+    public void replacementShouldNotPayMoreThanMaxFeeRate()
+    {
+        track("sent", 200000L, output(0, RECIPIENT, 50000L), output(1, CHANGE, 140000L));
+        walletService.setFeeRate(80000L);
+        expectReplacement(output(0, RECIPIENT, 50000L), output(1, CHANGE, 100000L));
+        List<WithdrawSentResult> replacements = feeBumpService.bumpStuckWithdrawals();
+        assertEquals(1, replacements.size());
+        assertEquals(MAX_FEE_RATE, replacements.get(0).getFeeAmount());
+        assertEquals(List.of(Map.of(RECIPIENT, 50000L, CHANGE, 100000L)), walletService.getCreatedOutputs());
+        assertEquals(40000L, poolFeeService.getFeesPaid());
+    }
+
+    @Test
+    public void feesAtMaxFeeRateShouldNotBeRaised()
+    {
+        // Previous Fee Already At Max, Raising By Incremental Relay Fee Would Exceed It
+        track("sent", 240000L, output(0, RECIPIENT, 50000L), output(1, CHANGE, 140000L));
+        walletService.setFeeRate(80000L);
+        assertTrue(feeBumpService.bumpStuckWithdrawals().isEmpty());
+        assertTrue(walletService.getCreatedOutputs().isEmpty());
+        assertNotNull(sentWithdrawDao.find("sent"));
+        assertEquals(0L, poolFeeService.getFeesPaid());
+    }
+
+    @Test
+    public void withdrawalsWithoutEnoughChangeShouldNotBeReplaced()
+    {
+        // Change Left After Extra Fees Would Cost More To Spend Than It Is Worth
+        track("small", 100000L, output(0, RECIPIENT, 79500L), output(1, CHANGE, 10500L));
+        track("none", 100000L, output(0, RECIPIENT, 90000L));
+        walletService.setFeeRate(20000L);
+        assertTrue(feeBumpService.bumpStuckWithdrawals().isEmpty());
+        assertTrue(walletService.getCreatedOutputs().isEmpty());
+        assertTrue(walletService.getSentTransactions().isEmpty());
+        assertNotNull(sentWithdrawDao.find("small"));
+        assertNotNull(sentWithdrawDao.find("none"));
+        assertEquals(0L, poolFeeService.getFeesPaid());
+    }
+
+    @Test
+    public void trustedChangeShouldMoveToReplacement()
+    {
+        feeBumpService.trustUnconfirmedChange = true;
+        track("sent", 200000L, output(0, RECIPIENT, 50000L), output(1, CHANGE, 140000L));
+        Deposit change = new Deposit("sent", 1, DepositType.P2WPKH, 140000L, 1);
+        depositDao.persist(change);
+        depositIndex.rebuild();
+        walletService.setFeeRate(5000L);
+        // Replacement Orders Outputs Differently
+        expectReplacement(output(0, CHANGE, 139000L), output(1, RECIPIENT, 50000L));
+        assertEquals(1, feeBumpService.bumpStuckWithdrawals().size());
+        assertNull(depositDao.find("sent", 1));
+        Deposit moved = depositDao.find(REPLACEMENT, 0);
+        assertNotNull(moved);
+        assertEquals(139000L, moved.getAmount());
+        assertEquals(DepositType.P2WPKH, moved.getType());
+        assertEquals(1, moved.getUnconfirmedDepth());
+        // Change Held While Replacing Is Released
+        assertTrue(depositIndex.hold(Collections.singletonList(change)));
+    }
+
+    /**
+     * Track a sent, unconfirmed, replaceable withdrawal
+     * whose confirmation target was missed.
+     */
+    private void track(String txid, long inputAmount, DecodeRawTransactionOutput... outputs)
+    {
+        sentWithdrawDao.persist(new SentWithdraw(txid, "hex:" + txid, inputAmount, SENT_HEIGHT, Map.of(WITHDRAW_ACCOUNT, 50000L)));
+        walletService.addUnconfirmedTransaction(txid, true);
+        walletService.addDecodedTransaction("hex:" + txid, txid, WEIGHT,
+            List.of(new CreateRawTransactionInput("input:" + txid, 0)), List.of(outputs));
+    }
+
+    /**
+     * Decode the first transaction signed as the replacement.
+     */
+    private void expectReplacement(DecodeRawTransactionOutput... outputs)
+    {
+        walletService.addDecodedTransaction("signed:raw1", REPLACEMENT, WEIGHT,
+            List.of(new CreateRawTransactionInput("input:sent", 0)), List.of(outputs));
+    }
+}
@@ -0,0 +1,252 @@
+package com.mshernandez.coinaccount.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jakarta.inject.Inject;
+import jakarta.transaction.UserTransaction;
+
+import com.mshernandez.coinaccount.dao.AccountDao;
+import com.mshernandez.coinaccount.dao.DepositDao;
+import com.mshernandez.coinaccount.dao.DepositIndex;
+import com.mshernandez.coinaccount.dao.WithdrawRequestDao;
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+import com.mshernandez.coinaccount.service.result.RefundBatchResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.StubWalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.WalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+
+/**
+ * Tests designed to ensure refund batches are only persisted
+ * while their accounts and inputs are unchanged, checked once
+ * locked, and that batches the pool cannot cover are trimmed
+ * until they can be, or until no accounts are left.
+ */
+@QuarkusTest
+@TestProfile(RefundServiceTest.Profile.class)
+public class RefundServiceTest
+{
+    private static final long MIN_REFUND = 10000L;
+    private static final long FEE_RATE = 1000L;
+    private static final long BALANCE = 200000L;
+
+    @Inject
+    RefundService refundService;
+
+    @Inject
+    AccountDao accountDao;
+
+    @Inject
+    DepositDao depositDao;
+
+    @Inject
+    DepositIndex depositIndex;
+
+    @Inject
+    WithdrawRequestDao withdrawRequestDao;
+
+    @Inject
+    UserTransaction transaction;
+
+    private StubWalletService walletService;
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        walletService = new StubWalletService();
+        walletService.setFeeRate(FEE_RATE);
+        QuarkusMock.installMockForType(walletService, WalletService.class);
+    }
+
+    @Test
+    public void balanceChangedBeforeLockShouldNotBeDebited() throws Exception
+    {
+        UUID accountId = account(BALANCE, null);
+        Deposit input = deposit(BALANCE);
+        CountDownLatch locked = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            // Concurrent Deposit Locks The Account First, Committing Once The Batch Waits On It
+            Future<?> deposit = executor.submit(() ->
+            {
+                transaction.begin();
+                Account account = accountDao.findForUpdate(accountId);
+                account.changeBalance(100L);
+                accountDao.update(account);
+                locked.countDown();
+                Thread.sleep(200L);
+                transaction.commit();
+                return null;
+            });
+            locked.await();
+            assertFalse(refundService.persistRefundBatch("refund-changed", "txhex", Collections.singleton(input),
+                Map.of(accountId, BALANCE), BALANCE, 0L, 0L));
+            deposit.get();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        assertEquals(BALANCE + 100L, balance(accountId));
+        assertNull(findRequest("refund-changed"));
+        // Input Left Unclaimed, Removed So Other Batches Cannot Select It
+        transaction.begin();
+        Deposit unclaimed = depositDao.find(input.getTXID(), input.getVout());
+        assertFalse(unclaimed.hasWithdrawLock());
+        depositDao.remove(unclaimed);
+        transaction.commit();
+    }
+
+    @Test
+    public void inputsClaimedByAnotherWithdrawShouldNotBeSpent() throws Exception
+    {
+        UUID accountId = account(BALANCE, null);
+        // Another Account Withdraws The Input First
+        String txid = UUID.randomUUID().toString();
+        Deposit input = new Deposit(txid, 0, DepositType.P2WPKH, BALANCE);
+        transaction.begin();
+        Account other = accountDao.findOrCreate(UUID.randomUUID());
+        depositDao.persist(input);
+        WithdrawRequest request = new WithdrawRequest(txid, other, Set.of(input), "address",
+            BALANCE / 2, BALANCE / 2, "txhex", System.currentTimeMillis());
+        withdrawRequestDao.persist(request);
+        input.setWithdrawLock(request);
+        depositDao.update(input);
+        other.addWithdrawRequest(request);
+        accountDao.update(other);
+        transaction.commit();
+        assertFalse(refundService.persistRefundBatch("refund-claimed", "txhex", Collections.singleton(input),
+            Map.of(accountId, BALANCE), BALANCE, 0L, 0L));
+        assertEquals(BALANCE, balance(accountId));
+        assertNull(findRequest("refund-claimed"));
+        transaction.begin();
+        try
+        {
+            assertEquals(txid, depositDao.find(txid, 0).getWithdrawLock().getTxid());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    @Test
+    public void batchShouldBeTrimmedUntilCoveredOrEmpty() throws Exception
+    {
+        UUID first = account(BALANCE, "return1");
+        UUID second = account(BALANCE, "return2");
+        // Held Deposits Count Toward Withdrawable Balance But Cannot Be Selected
+        Deposit covering = deposit(300000L);
+        Deposit held = deposit(150000L);
+        assertTrue(depositIndex.hold(Collections.singletonList(held)));
+        try
+        {
+            walletService.addDecodedTransaction("signed:raw1", "refund-trimmed", 0, List.of(), List.of());
+            RefundBatchResult result = refundService.createRefundBatch(new UUID(0L, 0L));
+            assertEquals("refund-trimmed", result.getTxid());
+            assertEquals(1, result.getRefundAmounts().size());
+            UUID refunded = result.getLastAccountId();
+            UUID remaining = refunded.equals(first) ? second : first;
+            assertTrue(result.getRefundAmounts().containsKey(refunded));
+            assertEquals(0, result.getSkippedAccounts());
+            assertEquals(0L, balance(refunded));
+            assertEquals(BALANCE, balance(remaining));
+            assertTrue(depositIndex.snapshot().stream().noneMatch(deposit -> deposit.getTXID().equals(covering.getTXID())));
+            // Nothing Left To Cover The Remaining Account, Trimming Stops Once Empty
+            deposit(100000L);
+            result = refundService.createRefundBatch(new UUID(0L, 0L));
+            assertNull(result.getTxid());
+            assertTrue(result.getRefundAmounts().isEmpty());
+            assertEquals(1, result.getSkippedAccounts());
+            assertEquals(remaining, result.getLastAccountId());
+            assertEquals(BALANCE, balance(remaining));
+            assertEquals(1, walletService.getCreatedOutputs().size());
+        }
+        finally
+        {
+            depositIndex.release(Collections.singletonList(held));
+        }
+    }
+
+    private UUID account(long balance, String returnAddress) throws Exception
+    {
+        UUID accountId = UUID.randomUUID();
+        transaction.begin();
+        Account account = accountDao.findOrCreate(accountId);
+        account.changeBalance(balance);
+        account.setReturnAddress(returnAddress);
+        accountDao.update(account);
+        transaction.commit();
+        return accountId;
+    }
+
+    private Deposit deposit(long amount) throws Exception
+    {
+        Deposit deposit = new Deposit(UUID.randomUUID().toString(), 0, DepositType.P2WPKH, amount);
+        transaction.begin();
+        depositDao.persist(deposit);
+        transaction.commit();
+        return deposit;
+    }
+
+    private long balance(UUID accountId) throws Exception
+    {
+        transaction.begin();
+        try
+        {
+            return accountDao.find(accountId).getBalance();
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    private WithdrawRequest findRequest(String txid) throws Exception
+    {
+        transaction.begin();
+        try
+        {
+            return withdrawRequestDao.find(txid);
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    /**
+     * Allows small refunds.
+     */
+    public static class Profile implements QuarkusTestProfile
+    {
+        @Override
+        public Map<String, String> getConfigOverrides()
+        {
+            return Map.of("coinaccount.refund.minimum", Long.toString(MIN_REFUND));
+        }
+    }
+}
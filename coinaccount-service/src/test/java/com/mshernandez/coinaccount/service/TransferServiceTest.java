@@ -0,0 +1,240 @@
+package com.mshernandez.coinaccount.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import com.mshernandez.coinaccount.dao.PendingWithdrawStore;
+import com.mshernandez.coinaccount.dao.StubAccountDao;
+import com.mshernandez.coinaccount.dao.StubTransferQueue;
+import com.mshernandez.coinaccount.dao.TransferQueue;
+import com.mshernandez.coinaccount.dao.TransferQueue.PendingTransfer;
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.service.exception.InsufficientFundsException;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests designed to ensure transfers only change balances
+ * their senders can afford, leaving held balances alone,
+ * and create receiving accounts as needed.
+ */
+public class TransferServiceTest
+{
+    private RecordingAccountDao accountDao;
+    private StubPendingWithdrawStore pendingWithdrawStore;
+    private TransferQueue transferQueue;
+    private TransferService transferService;
+
+    @BeforeEach
+    public void setup()
+    {
+        accountDao = new RecordingAccountDao();
+        pendingWithdrawStore = new StubPendingWithdrawStore();
+        transferQueue = new StubTransferQueue(10, 0L);
+        transferService = new TransferService();
+        transferService.logger = Logger.getLogger(TransferServiceTest.class);
+        transferService.accountDao = accountDao;
+        transferService.pendingWithdrawStore = pendingWithdrawStore;
+        transferService.transferQueue = transferQueue;
+    }
+
+    @Test
+    public void applyTransfersShouldRejectOnlyUnaffordableTransfers() throws Exception
+    {
+        UUID first = account(1000L);
+        UUID second = account(0L);
+        UUID third = UUID.randomUUID();
+        transferQueue.add(first, second, false, 600L);
+        transferQueue.add(first, second, false, 600L);
+        transferQueue.add(second, third, false, 600L);
+        transferQueue.add(third, first, true, 0L);
+        List<RuntimeException> rejections = transferService.applyTransfers(transferQueue.takeGroup());
+        assertEquals(4, rejections.size());
+        assertNull(rejections.get(0));
+        assertTrue(rejections.get(1) instanceof InsufficientFundsException);
+        assertNull(rejections.get(2));
+        assertNull(rejections.get(3));
+        // Each Transfer Sees The Balances Left By Those Before It
+        assertEquals(1000L, accountDao.findBalance(first));
+        assertEquals(0L, accountDao.findBalance(second));
+        assertEquals(0L, accountDao.findBalance(third));
+    }
+
+    @Test
+    public void applyTransfersShouldKeepHeldBalances() throws Exception
+    {
+        UUID sender = account(1000L);
+        UUID receiver = account(0L);
+        pendingWithdrawStore.heldAmounts.put(sender, 700L);
+        transferQueue.add(sender, receiver, false, 400L);
+        transferQueue.add(sender, receiver, false, 300L);
+        List<PendingTransfer> group = transferQueue.takeGroup();
+        List<RuntimeException> rejections = transferService.applyTransfers(group);
+        assertTrue(rejections.get(0) instanceof InsufficientFundsException);
+        assertNull(rejections.get(1));
+        assertEquals(700L, accountDao.findBalance(sender));
+        assertEquals(300L, accountDao.findBalance(receiver));
+    }
+
+    @Test
+    public void transferShouldDebitSenderConditionallyOnHeldBalance()
+    {
+        UUID sender = account(1000L);
+        UUID receiver = account(0L);
+        pendingWithdrawStore.heldAmounts.put(sender, 300L);
+        transferService.transferBalance(sender, receiver, false, 700L);
+        assertEquals(300L, accountDao.findBalance(sender));
+        assertEquals(700L, accountDao.findBalance(receiver));
+        // Sender Must Keep Held Balance, Receiver Credited Unconditionally
+        assertEquals(List.of(
+            new BalanceChange(sender, -700L, 300L),
+            new BalanceChange(receiver, 700L, Long.MIN_VALUE)), accountDao.balanceChanges);
+    }
+
+    @Test
+    public void unaffordableTransferShouldChangeNothing()
+    {
+        UUID sender = account(1000L);
+        UUID receiver = account(0L);
+        pendingWithdrawStore.heldAmounts.put(sender, 300L);
+        assertThrows(InsufficientFundsException.class, () -> transferService.transferBalance(sender, receiver, false, 701L));
+        assertThrows(InsufficientFundsException.class, () -> transferService.transferBalance(sender, receiver, false, 0L));
+        assertThrows(InsufficientFundsException.class, () -> transferService.transferBalance(UUID.randomUUID(), receiver, false, 1L));
+        assertThrows(InsufficientFundsException.class, () -> transferService.transferBalance(UUID.randomUUID(), receiver, true, 0L));
+        assertEquals(1000L, accountDao.findBalance(sender));
+        assertEquals(0L, accountDao.findBalance(receiver));
+        assertTrue(accountDao.balanceChanges.stream().noneMatch(change -> change.accountId.equals(receiver)));
+    }
+
+    @Test
+    public void transferShouldCreateMissingReceiver()
+    {
+        UUID sender = account(1000L);
+        UUID receiver = UUID.randomUUID();
+        assertNull(accountDao.find(receiver));
+        transferService.transferBalance(sender, receiver, false, 400L);
+        assertNotNull(accountDao.find(receiver));
+        assertEquals(600L, accountDao.findBalance(sender));
+        assertEquals(400L, accountDao.findBalance(receiver));
+        assertEquals(List.of(receiver), accountDao.createdAccounts);
+    }
+
+    @Test
+    public void transferAllShouldLeaveHeldBalance()
+    {
+        UUID sender = account(1000L);
+        UUID receiver = account(0L);
+        pendingWithdrawStore.heldAmounts.put(sender, 250L);
+        transferService.transferBalance(sender, receiver, true, 0L);
+        assertEquals(250L, accountDao.findBalance(sender));
+        assertEquals(750L, accountDao.findBalance(receiver));
+        // Nothing Left To Transfer Changes Nothing
+        accountDao.balanceChanges.clear();
+        transferService.transferBalance(sender, receiver, true, 0L);
+        assertEquals(250L, accountDao.findBalance(sender));
+        assertEquals(750L, accountDao.findBalance(receiver));
+        assertTrue(accountDao.balanceChanges.isEmpty());
+    }
+
+    private UUID account(long balance)
+    {
+        Account account = new Account(UUID.randomUUID());
+        account.setBalance(balance);
+        accountDao.update(account);
+        return account.getAccountUUID();
+    }
+
+    /**
+     * Records conditional balance changes and
+     * the accounts created by transfers.
+     */
+    private static class RecordingAccountDao extends StubAccountDao
+    {
+        private final List<BalanceChange> balanceChanges = new ArrayList<>();
+        private final List<UUID> createdAccounts = new ArrayList<>();
+
+        @Override
+        public boolean changeBalance(UUID id, long delta, long minBalance)
+        {
+            balanceChanges.add(new BalanceChange(id, delta, minBalance));
+            return super.changeBalance(id, delta, minBalance);
+        }
+
+        @Override
+        public Account findOrCreate(UUID id)
+        {
+            if (find(id) == null)
+            {
+                createdAccounts.add(id);
+            }
+            return super.findOrCreate(id);
+        }
+    }
+
+    /**
+     * A conditional balance change made through the DAO.
+     */
+    private static final class BalanceChange
+    {
+        private final UUID accountId;
+        private final long delta;
+        private final long minBalance;
+
+        BalanceChange(UUID accountId, long delta, long minBalance)
+        {
+            this.accountId = accountId;
+            this.delta = delta;
+            this.minBalance = minBalance;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof BalanceChange))
+            {
+                return false;
+            }
+            BalanceChange other = (BalanceChange) obj;
+            return accountId.equals(other.accountId) && delta == other.delta && minBalance == other.minBalance;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(accountId, delta, minBalance);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s: %d (Min %d)", accountId, delta, minBalance);
+        }
+    }
+
+    /**
+     * Holds fixed amounts for accounts instead
+     * of tracking pending withdraw requests.
+     */
+    private static class StubPendingWithdrawStore extends PendingWithdrawStore
+    {
+        private final Map<UUID, Long> heldAmounts = new HashMap<>();
+
+        @Override
+        public synchronized long getHeldAmount(UUID accountId)
+        {
+            return heldAmounts.getOrDefault(accountId, 0L);
+        }
+    }
+}
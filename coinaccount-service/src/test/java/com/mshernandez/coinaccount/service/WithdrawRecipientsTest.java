@@ -0,0 +1,191 @@
+package com.mshernandez.coinaccount.service;
+
+import static com.mshernandez.coinaccount.service.util.TXFeeUtilities.getDustLimit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+import jakarta.transaction.UserTransaction;
+
+import com.mshernandez.coinaccount.dao.AccountDao;
+import com.mshernandez.coinaccount.dao.DepositDao;
+import com.mshernandez.coinaccount.dao.WithdrawRequestDao;
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+import com.mshernandez.coinaccount.service.exception.CannotAffordFeesException;
+import com.mshernandez.coinaccount.service.exception.TooManyRecipientsException;
+import com.mshernandez.coinaccount.service.result.WithdrawRequestResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.StubWalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.WalletService;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+
+/**
+ * Tests designed to ensure withdrawals paying several
+ * recipients are limited in size, reject amounts too small
+ * to relay before selecting inputs, and are signed and sent
+ * on their own even while batching and deferred signing
+ * are enabled.
+ */
+@QuarkusTest
+@TestProfile(WithdrawRecipientsTest.Profile.class)
+public class WithdrawRecipientsTest
+{
+    private static final int MAX_RECIPIENTS = 3;
+    private static final long BALANCE = 1000000L;
+    private static final long FEE_RATE = 1000L;
+
+    @Inject
+    WithdrawService withdrawService;
+
+    @Inject
+    AccountDao accountDao;
+
+    @Inject
+    DepositDao depositDao;
+
+    @Inject
+    WithdrawRequestDao withdrawRequestDao;
+
+    @Inject
+    UserTransaction transaction;
+
+    private StubWalletService walletService;
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        walletService = new StubWalletService();
+        walletService.setFeeRate(FEE_RATE);
+        QuarkusMock.installMockForType(walletService, WalletService.class);
+    }
+
+    @Test
+    public void recipientCountShouldBeLimited() throws Exception
+    {
+        UUID accountId = account();
+        assertThrows(TooManyRecipientsException.class, () -> withdrawService.initiateWithdrawRequest(accountId, Map.of()));
+        Map<String, Long> recipients = new HashMap<>();
+        for (int i = 0; i <= MAX_RECIPIENTS; i++)
+        {
+            recipients.put("recipient" + i, 10000L);
+        }
+        assertThrows(TooManyRecipientsException.class, () -> withdrawService.initiateWithdrawRequest(accountId, recipients));
+        assertNothingReserved(accountId);
+    }
+
+    @Test
+    public void zeroAndDustAmountsShouldBeRejectedBeforeSelection() throws Exception
+    {
+        UUID accountId = account();
+        long dustLimit = getDustLimit(DepositType.P2WPKH);
+        assertThrows(CannotAffordFeesException.class,
+            () -> withdrawService.initiateWithdrawRequest(accountId, Map.of("recipient1", 0L, "recipient2", 10000L)));
+        assertThrows(CannotAffordFeesException.class,
+            () -> withdrawService.initiateWithdrawRequest(accountId, Map.of("recipient1", dustLimit, "recipient2", 10000L)));
+        assertNothingReserved(accountId);
+    }
+
+    @Test
+    public void multiRecipientRequestsShouldBeSignedAndSentAlone() throws Exception
+    {
+        UUID accountId = account();
+        long smallest = getDustLimit(DepositType.P2WPKH) + 1L;
+        walletService.addDecodedTransaction("signed:raw1", "multi", 0, List.of(), List.of());
+        WithdrawRequestResult result = withdrawService.initiateWithdrawRequest(accountId,
+            Map.of("recipient1", smallest, "recipient2", 40000L));
+        // Signed When Initiated Despite Deferred Signing
+        assertEquals("multi", result.getTxid());
+        assertEquals(smallest + 40000L, result.getWithdrawAmount());
+        assertEquals(1, walletService.getCreatedOutputs().size());
+        Map<String, Long> outputs = walletService.getCreatedOutputs().get(0);
+        assertEquals(smallest, outputs.get("recipient1"));
+        assertEquals(40000L, outputs.get("recipient2"));
+        transaction.begin();
+        try
+        {
+            WithdrawRequest request = withdrawRequestDao.find("multi");
+            assertNull(request.getDestAddress());
+            assertTrue(request.isSigned());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+        // Sent Right Away Despite Batching, No Longer Tracked As A Request
+        assertEquals("multi", withdrawService.completeWithdraw("multi"));
+        assertEquals(List.of("signed:raw1"), walletService.getSentTransactions());
+        transaction.begin();
+        try
+        {
+            assertNull(withdrawRequestDao.find("multi"));
+            assertEquals(BALANCE - result.getTotalCost(), accountDao.find(accountId).getBalance());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    /**
+     * Create an account with a balance covered by a deposit.
+     */
+    private UUID account() throws Exception
+    {
+        UUID accountId = UUID.randomUUID();
+        transaction.begin();
+        Account account = accountDao.findOrCreate(accountId);
+        account.changeBalance(BALANCE);
+        accountDao.update(account);
+        depositDao.persist(new Deposit(UUID.randomUUID().toString(), 0, DepositType.P2WPKH, BALANCE));
+        transaction.commit();
+        return accountId;
+    }
+
+    private void assertNothingReserved(UUID accountId) throws Exception
+    {
+        assertTrue(walletService.getCreatedOutputs().isEmpty());
+        transaction.begin();
+        try
+        {
+            Account account = accountDao.find(accountId);
+            assertEquals(BALANCE, account.getBalance());
+            assertEquals(0, account.countOpenWithdrawRequests());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    /**
+     * Enables batching and deferred signing, allowing
+     * a few recipients per withdrawal.
+     */
+    public static class Profile implements QuarkusTestProfile
+    {
+        @Override
+        public Map<String, String> getConfigOverrides()
+        {
+            return Map.of(
+                "coinaccount.withdraw.batch.enabled", "true",
+                "coinaccount.withdraw.sign.deferred", "true",
+                "coinaccount.withdraw.recipients.max", Integer.toString(MAX_RECIPIENTS));
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.mshernandez.coinaccount.service;
+
+import static com.mshernandez.coinaccount.service.util.TXFeeUtilities.getOutputWeight;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.inject.Inject;
+import jakarta.transaction.UserTransaction;
+
+import com.mshernandez.coinaccount.dao.AccountDao;
+import com.mshernandez.coinaccount.dao.DepositDao;
+import com.mshernandez.coinaccount.dao.PendingWithdrawStore;
+import com.mshernandez.coinaccount.dao.WithdrawRequestDao;
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+import com.mshernandez.coinaccount.service.exception.WithdrawRequestAlreadyExistsException;
+import com.mshernandez.coinaccount.service.util.DepositShareEvaluator;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+
+/**
+ * Tests designed to ensure concurrent withdraw requests
+ * are limited by the open requests of an account only,
+ * and that every accepted request holds its own inputs
+ * and balance.
+ */
+@QuarkusTest
+@TestProfile(WithdrawRequestLimitTest.Profile.class)
+public class WithdrawRequestLimitTest
+{
+    private static final int MAX_REQUESTS = 3;
+    private static final int THREADS = 8;
+    private static final int DEPOSITS = 12;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long DEPOSIT_AMOUNT = 100000L;
+    private static final long WITHDRAW_AMOUNT = 20000L;
+    private static final long FEE_RATE = 1000L;
+
+    @Inject
+    WithdrawService withdrawService;
+
+    @Inject
+    AccountDao accountDao;
+
+    @Inject
+    DepositDao depositDao;
+
+    @Inject
+    WithdrawRequestDao withdrawRequestDao;
+
+    @Inject
+    PendingWithdrawStore pendingWithdrawStore;
+
+    @Inject
+    UserTransaction transaction;
+
+    @Test
+    public void concurrentRequestsShouldOnlyCountOpenRequests() throws Exception
+    {
+        UUID accountId = UUID.randomUUID();
+        long balance = DEPOSITS * DEPOSIT_AMOUNT;
+        transaction.begin();
+        Account account = accountDao.findOrCreate(accountId);
+        account.changeBalance(balance);
+        accountDao.update(account);
+        String txid = UUID.randomUUID().toString();
+        for (int i = 0; i < DEPOSITS; i++)
+        {
+            depositDao.persist(new Deposit(txid, i, DepositType.P2WPKH, DEPOSIT_AMOUNT));
+        }
+        transaction.commit();
+        // Requests Already Sent Or Failed Do Not Count Toward The Limit
+        attachClosedRequest(accountId, false);
+        attachClosedRequest(accountId, true);
+        List<WithdrawRequest> accepted = new CopyOnWriteArrayList<>();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try
+        {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++)
+            {
+                boolean holdInMemory = i % 2 == 0;
+                results.add(executor.submit(() ->
+                {
+                    start.await();
+                    try
+                    {
+                        WithdrawRequest request = null;
+                        for (int attempt = 0; request == null && attempt < MAX_ATTEMPTS; attempt++)
+                        {
+                            request = withdrawService.reserveWithdraw(accountId, "address", false, WITHDRAW_AMOUNT, 1,
+                                getOutputWeight(DepositType.P2WPKH), getOutputWeight(DepositType.P2WPKH), FEE_RATE,
+                                new DepositShareEvaluator(FEE_RATE), holdInMemory);
+                        }
+                        assertNotNull(request);
+                        accepted.add(request);
+                    }
+                    catch (WithdrawRequestAlreadyExistsException e)
+                    {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results)
+            {
+                result.get();
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        assertEquals(MAX_REQUESTS, accepted.size());
+        assertEquals(THREADS - MAX_REQUESTS, rejected.get());
+        // Each Accepted Request Holds Different Inputs
+        Set<String> inputs = new HashSet<>();
+        long totalCost = 0L;
+        for (WithdrawRequest request : accepted)
+        {
+            for (Deposit input : request.getInputs())
+            {
+                assertTrue(inputs.add(input.getTXID() + ":" + input.getVout()));
+            }
+            totalCost += request.getTotalCost();
+        }
+        // Persisted & In-Memory Holds Together Cover Exactly The Accepted Requests
+        transaction.begin();
+        try
+        {
+            Account updated = accountDao.find(accountId);
+            int persisted = updated.countOpenWithdrawRequests();
+            int inMemory = pendingWithdrawStore.findAllByAccount(accountId).size();
+            assertEquals(MAX_REQUESTS, persisted + inMemory);
+            assertEquals(balance - totalCost, updated.getBalance() - pendingWithdrawStore.getHeldAmount(accountId));
+            for (WithdrawRequest request : accepted)
+            {
+                if (pendingWithdrawStore.find(request.getTxid()) == null)
+                {
+                    for (Deposit input : request.getInputs())
+                    {
+                        assertTrue(depositDao.find(input.getTXID(), input.getVout()).hasWithdrawLock());
+                    }
+                }
+            }
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    /**
+     * Attach a request to the account which was already
+     * sent, or which failed, spending its own deposit.
+     */
+    private void attachClosedRequest(UUID accountId, boolean failed) throws Exception
+    {
+        String txid = UUID.randomUUID().toString();
+        transaction.begin();
+        Account account = accountDao.findOrCreate(accountId);
+        Deposit deposit = new Deposit(txid, 0, DepositType.P2WPKH, DEPOSIT_AMOUNT);
+        depositDao.persist(deposit);
+        WithdrawRequest request = new WithdrawRequest(txid, account, Set.of(deposit), "address",
+            DEPOSIT_AMOUNT / 2, DEPOSIT_AMOUNT / 2, "txhex", System.currentTimeMillis());
+        request.setComplete(false);
+        if (failed)
+        {
+            request.setFailed();
+        }
+        withdrawRequestDao.persist(request);
+        deposit.setWithdrawLock(request);
+        depositDao.update(deposit);
+        account.addWithdrawRequest(request);
+        accountDao.update(account);
+        transaction.commit();
+    }
+
+    /**
+     * Allows several open requests per account.
+     */
+    public static class Profile implements QuarkusTestProfile
+    {
+        @Override
+        public Map<String, String> getConfigOverrides()
+        {
+            return Map.of("coinaccount.withdraw.requests.max", Integer.toString(MAX_REQUESTS));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.mshernandez.coinaccount.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+import jakarta.transaction.UserTransaction;
+
+import com.mshernandez.coinaccount.dao.AccountDao;
+import com.mshernandez.coinaccount.dao.DepositDao;
+import com.mshernandez.coinaccount.dao.WithdrawRequestDao;
+import com.mshernandez.coinaccount.entity.Account;
+import com.mshernandez.coinaccount.entity.Deposit;
+import com.mshernandez.coinaccount.entity.WithdrawRequest;
+import com.mshernandez.coinaccount.service.result.WithdrawFailedResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+/**
+ * Tests designed to ensure withdraw requests are canceled
+ * or held correctly without a wallet connection.
+ */
+@QuarkusTest
+public class WithdrawServiceTest
+{
+    private static final long DEPOSIT_AMOUNT = 100000L;
+    private static final long WITHDRAW_AMOUNT = 90000L;
+    private static final long FEE_AMOUNT = 1000L;
+
+    @ConfigProperty(name = "coinaccount.account.change")
+    UUID changeAccountId;
+
+    @Inject
+    WithdrawService withdrawService;
+
+    @Inject
+    AccountDao accountDao;
+
+    @Inject
+    DepositDao depositDao;
+
+    @Inject
+    WithdrawRequestDao withdrawRequestDao;
+
+    @Inject
+    UserTransaction transaction;
+
+    @Test
+    public void cancelExpiredRequestsShouldIgnoreCompletedAndCanceledRequests() throws Exception
+    {
+        UUID pendingAccountId = UUID.randomUUID();
+        UUID completedAccountId = UUID.randomUUID();
+        String pendingTxid = createRequest(pendingAccountId, false);
+        String completedTxid = createRequest(completedAccountId, true);
+        String canceledTxid = UUID.randomUUID().toString();
+        Set<UUID> expiredAccounts = withdrawService.cancelExpiredRequests(List.of(completedTxid, canceledTxid, pendingTxid));
+        assertEquals(Set.of(pendingAccountId), expiredAccounts);
+        transaction.begin();
+        try
+        {
+            // Pending Request Canceled, Inputs & Balance Restored
+            assertNull(withdrawRequestDao.find(pendingTxid));
+            assertFalse(depositDao.find(pendingTxid, 0).hasWithdrawLock());
+            assertEquals(DEPOSIT_AMOUNT, accountDao.find(pendingAccountId).getBalance());
+            // Completed Request Left Alone
+            WithdrawRequest completed = withdrawRequestDao.find(completedTxid);
+            assertNotNull(completed);
+            assertTrue(completed.isComplete());
+            assertTrue(depositDao.find(completedTxid, 0).hasWithdrawLock());
+            assertEquals(DEPOSIT_AMOUNT - WITHDRAW_AMOUNT - FEE_AMOUNT, accountDao.find(completedAccountId).getBalance());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    @Test
+    public void cancelExpiredRequestsShouldIgnoreRequestsCanceledTwice() throws Exception
+    {
+        UUID accountId = UUID.randomUUID();
+        String txid = createRequest(accountId, false);
+        assertEquals(Set.of(accountId), withdrawService.cancelExpiredRequests(List.of(txid)));
+        assertTrue(withdrawService.cancelExpiredRequests(List.of(txid)).isEmpty());
+        transaction.begin();
+        try
+        {
+            assertEquals(DEPOSIT_AMOUNT, accountDao.find(accountId).getBalance());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    @Test
+    public void failBroadcastShouldCancelUnsentRequests() throws Exception
+    {
+        UUID accountId = UUID.randomUUID();
+        String txid = createRequest(accountId, true);
+        WithdrawFailedResult result = withdrawService.failBroadcast(txid, true);
+        assertEquals(Map.of(accountId, WITHDRAW_AMOUNT + FEE_AMOUNT), result.getRestoredAmounts());
+        transaction.begin();
+        try
+        {
+            assertNull(withdrawRequestDao.find(txid));
+            assertFalse(depositDao.find(txid, 0).hasWithdrawLock());
+            assertEquals(DEPOSIT_AMOUNT, accountDao.find(accountId).getBalance());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+        assertNull(withdrawService.failBroadcast(txid, true));
+    }
+
+    @Test
+    public void failBroadcastShouldHoldRequestsThatMayHaveBeenSent() throws Exception
+    {
+        UUID accountId = UUID.randomUUID();
+        String txid = createRequest(accountId, true);
+        WithdrawFailedResult result = withdrawService.failBroadcast(txid, false);
+        assertEquals(Map.of(accountId, 0L), result.getRestoredAmounts());
+        assertHeldAsFailed(accountId, txid);
+        // Failed Requests Are Not Broadcast Or Failed Again
+        assertNull(withdrawService.broadcastWithdraw(txid));
+        assertNull(withdrawService.failBroadcast(txid, true));
+        assertHeldAsFailed(accountId, txid);
+    }
+
+    @Test
+    public void failBroadcastShouldHoldChangeAccountRequests() throws Exception
+    {
+        String txid = createRequest(changeAccountId, true);
+        long balance;
+        transaction.begin();
+        try
+        {
+            balance = accountDao.find(changeAccountId).getBalance();
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+        WithdrawFailedResult result = withdrawService.failBroadcast(txid, true);
+        assertTrue(result.getRestoredAmounts().isEmpty());
+        transaction.begin();
+        try
+        {
+            assertTrue(withdrawRequestDao.find(txid).isFailed());
+            assertTrue(depositDao.find(txid, 0).hasWithdrawLock());
+            assertEquals(balance, accountDao.find(changeAccountId).getBalance());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    @Test
+    public void accountRequestsShouldSkipFailedRequests() throws Exception
+    {
+        UUID accountId = UUID.randomUUID();
+        String failedTxid = createRequest(accountId, true);
+        withdrawService.failBroadcast(failedTxid, false);
+        // Cancel Picks The Open Request Rather Than The Older Failed One
+        String canceledTxid = createRequest(accountId, false);
+        withdrawService.cancelWithdraw(accountId);
+        // Complete Picks The Open Request Rather Than The Older Failed One
+        String completedTxid = createRequest(accountId, false);
+        assertEquals(completedTxid, withdrawService.completeWithdraw(accountId));
+        transaction.begin();
+        try
+        {
+            assertNull(withdrawRequestDao.find(canceledTxid));
+            assertFalse(depositDao.find(canceledTxid, 0).hasWithdrawLock());
+            assertTrue(withdrawRequestDao.find(completedTxid).isComplete());
+            assertTrue(withdrawRequestDao.find(failedTxid).isFailed());
+            assertTrue(depositDao.find(failedTxid, 0).hasWithdrawLock());
+            // Nothing Left To Cancel Once Only The Failed & Sent Requests Remain
+            assertNull(accountDao.find(accountId).getWithdrawRequest());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    private void assertHeldAsFailed(UUID accountId, String txid) throws Exception
+    {
+        transaction.begin();
+        try
+        {
+            assertTrue(withdrawRequestDao.find(txid).isFailed());
+            assertTrue(depositDao.find(txid, 0).hasWithdrawLock());
+            assertEquals(DEPOSIT_AMOUNT - WITHDRAW_AMOUNT - FEE_AMOUNT, accountDao.find(accountId).getBalance());
+        }
+        finally
+        {
+            transaction.rollback();
+        }
+    }
+
+    /**
+     * Create an account holding a withdraw request which
+     * spends a deposit named after the request.
+     *
+     * @return The TXID of the request.
+     */
+    private String createRequest(UUID accountId, boolean complete) throws Exception
+    {
+        String txid = UUID.randomUUID().toString();
+        transaction.begin();
+        Account account = accountDao.findOrCreate(accountId);
+        account.changeBalance(DEPOSIT_AMOUNT - WITHDRAW_AMOUNT - FEE_AMOUNT);
+        Deposit deposit = new Deposit(txid, 0, DepositType.P2WPKH, DEPOSIT_AMOUNT);
+        depositDao.persist(deposit);
+        WithdrawRequest request = new WithdrawRequest(txid, account, Set.of(deposit), "address",
+            WITHDRAW_AMOUNT, FEE_AMOUNT, "txhex", System.currentTimeMillis());
+        if (complete)
+        {
+            request.setComplete(false);
+        }
+        withdrawRequestDao.persist(request);
+        deposit.setWithdrawLock(request);
+        depositDao.update(deposit);
+        account.addWithdrawRequest(request);
+        accountDao.update(account);
+        transaction.commit();
+        return txid;
+    }
+}
@@ -4,9 +4,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
@@ -214,4 +217,106 @@ public class BinarySearchCoinSelectorTest
         }
         assert(!selectedIterator.hasNext());
     }
+
+    @Test
+    public void randomInputsShouldMatchReferenceSelector()
+    {
+        Random random = new Random(5L);
+        int[] maxRewindSettings = { -2, -1, 0, 1, 3 };
+        List<CoinEvaluator<Long>> evaluators = List.of(new LongEvaluator(), new LongEvaluator(3L), new VaryingCostEvaluator());
+        for (int run = 0; run < 5000; run++)
+        {
+            // Mix Of Uniform, Skewed, & Many Duplicate-Sized Inputs
+            Set<Long> inputs = new HashSet<>();
+            int numInputs = random.nextInt(80);
+            int distribution = random.nextInt(3);
+            for (int i = 0; i < numInputs; i++)
+            {
+                switch (distribution)
+                {
+                    case 0:
+                        inputs.add(random.nextInt(200) - 5L);
+                        break;
+                    case 1:
+                        inputs.add((long) (Math.pow(random.nextDouble(), 3.0) * 1000000.0));
+                        break;
+                    default:
+                        inputs.add(random.nextInt(20) + 1L);
+                }
+            }
+            long sum = inputs.stream().mapToLong(l -> Math.max(l, 0L)).sum();
+            long target = (long) (random.nextDouble() * 1.1 * sum);
+            int maxRewind = maxRewindSettings[random.nextInt(maxRewindSettings.length)];
+            boolean coverFees = random.nextBoolean();
+            CoinEvaluator<Long> evaluator = evaluators.get(random.nextInt(evaluators.size()));
+            CoinSelectionState<Long> expected = new CoinSelectionBuilder<Long>()
+                .step(new ReferenceBinarySearchCoinSelector<>(maxRewind, coverFees), inputs)
+                .evaluator(evaluator)
+                .target(target)
+                .select();
+            CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+                .step(new BinarySearchCoinSelector<>(maxRewind, coverFees), inputs)
+                .evaluator(evaluator)
+                .target(target)
+                .select();
+            assertEquals(expected.isComplete(), result.isComplete());
+            assertEquals(new ArrayList<>(expected.getSelection()), new ArrayList<>(result.getSelection()));
+            assertEquals(expected.getValue(), result.getValue());
+            assertEquals(expected.getCost(), result.getCost());
+        }
+    }
+
+    @Test
+    public void largeRandomInputsShouldMatchReferenceSelector()
+    {
+        Random random = new Random(11L);
+        Set<Long> inputs = new HashSet<>();
+        while (inputs.size() < 5000)
+        {
+            inputs.add(1L + random.nextInt(10000000));
+        }
+        long sum = inputs.stream().mapToLong(l -> l).sum();
+        for (long target : new long[] { 1L, 9999999L, sum / 3L, sum - 1L, sum })
+        {
+            CoinSelectionState<Long> expected = new CoinSelectionBuilder<Long>()
+                .step(new ReferenceBinarySearchCoinSelector<>(), inputs)
+                .evaluator(new LongEvaluator(2L))
+                .target(target)
+                .select();
+            CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+                .step(coinSelector, inputs)
+                .evaluator(new LongEvaluator(2L))
+                .target(target)
+                .select();
+            assertEquals(expected.isComplete(), result.isComplete());
+            assertEquals(new ArrayList<>(expected.getSelection()), new ArrayList<>(result.getSelection()));
+        }
+    }
+
+    /**
+     * Assigns costs varying by input value and extra
+     * costs for some input counts so that effective
+     * value ordering and fee coverage are exercised.
+     */
+    private static class VaryingCostEvaluator extends LongEvaluator
+    {
+        @Override
+        public long cost(Long l)
+        {
+            return 6L + (l % 7L);
+        }
+
+        @Override
+        public long nthInputCost(long index)
+        {
+            return (index == 0L || index == 3L) ? 4L : 0L;
+        }
+
+        @Override
+        public long costImpactOnTarget(long cost)
+        {
+            // Rounds Up Like Fees On Weight
+            return (cost * 3L + 3L) / 4L;
+        }
+    }
 }
\ No newline at end of file
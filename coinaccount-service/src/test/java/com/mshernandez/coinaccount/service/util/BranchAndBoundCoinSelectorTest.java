@@ -0,0 +1,174 @@
+package com.mshernandez.coinaccount.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests designed to ensure the branch and bound
+ * coin selector finds changeless selections.
+ */
+public class BranchAndBoundCoinSelectorTest
+{
+    private CoinEvaluator<Long> evaluator = new LongEvaluator();
+
+    @Test
+    public void emptyInputsShouldReturnInvalidResult()
+    {
+        Set<Long> inputs = new HashSet<>();
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BranchAndBoundCoinSelector<>(0L), inputs)
+            .evaluator(evaluator)
+            .target(5L)
+            .select();
+        assertFalse(result.isComplete());
+    }
+
+    @Test
+    public void exactMatchShouldBeFoundWhereBinarySearchCreatesChange()
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(2L);
+        inputs.add(3L);
+        inputs.add(6L);
+        Set<Long> expected = new HashSet<>();
+        expected.add(2L);
+        expected.add(3L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BranchAndBoundCoinSelector<>(0L), inputs)
+            .evaluator(evaluator)
+            .target(5L)
+            .select();
+        assertTrue(result.isComplete());
+        assertEquals(expected, new HashSet<>(result.getSelection()));
+        assertEquals(5L, result.getValue());
+    }
+
+    @Test
+    public void excessWithinCostOfChangeShouldReturnValidSet()
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(4L);
+        inputs.add(7L);
+        Set<Long> expected = new HashSet<>();
+        expected.add(7L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BranchAndBoundCoinSelector<>(2L), inputs)
+            .evaluator(evaluator)
+            .target(5L)
+            .select();
+        assertTrue(result.isComplete());
+        assertEquals(expected, result.getSelection());
+    }
+
+    @Test
+    public void excessBeyondCostOfChangeShouldReturnInvalidResult()
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(4L);
+        inputs.add(7L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BranchAndBoundCoinSelector<>(1L), inputs)
+            .evaluator(evaluator)
+            .target(5L)
+            .select();
+        assertFalse(result.isComplete());
+    }
+
+    @Test
+    public void leastExcessSelectionShouldBeChosen()
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(12L);
+        inputs.add(10L);
+        inputs.add(7L);
+        inputs.add(4L);
+        Set<Long> expected = new HashSet<>();
+        expected.add(7L);
+        expected.add(4L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BranchAndBoundCoinSelector<>(5L), inputs)
+            .evaluator(evaluator)
+            .target(11L)
+            .select();
+        assertTrue(result.isComplete());
+        assertEquals(expected, new HashSet<>(result.getSelection()));
+    }
+
+    @Test
+    public void inputFeesShouldBeCovered()
+    {
+        // Each Input Costs 1, Effective Values 2 & 3
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(3L);
+        inputs.add(4L);
+        inputs.add(5L);
+        Set<Long> expected = new HashSet<>();
+        expected.add(3L);
+        expected.add(4L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BranchAndBoundCoinSelector<>(0L), inputs)
+            .evaluator(new LongEvaluator(1L))
+            .target(5L)
+            .select();
+        assertTrue(result.isComplete());
+        assertEquals(expected, new HashSet<>(result.getSelection()));
+        assertEquals(2L, result.getCost());
+    }
+
+    @Test
+    public void exhaustedIterationBudgetShouldReturnInvalidResult()
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(2L);
+        inputs.add(3L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BranchAndBoundCoinSelector<>(0L, 0, 100L), inputs)
+            .evaluator(evaluator)
+            .target(5L)
+            .select();
+        assertFalse(result.isComplete());
+    }
+
+    @Test
+    public void largeNumInputsShouldFindExactMatch()
+    {
+        Set<Long> inputs = new HashSet<>();
+        for (long l = 1000L; l < 1250000L; l += 997L)
+        {
+            inputs.add(l);
+        }
+        // Sum Of Inputs 2994, 7979, & 25925
+        long target = 36898L;
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BranchAndBoundCoinSelector<>(0L), inputs)
+            .evaluator(evaluator)
+            .target(target)
+            .select();
+        assertTrue(result.isComplete());
+        assertEquals(target, result.getSelection().stream().mapToLong(l -> l).sum());
+    }
+
+    @Test
+    public void failedSearchShouldFallBackToNextStep()
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(4L);
+        inputs.add(7L);
+        Set<Long> expected = new HashSet<>();
+        expected.add(7L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BranchAndBoundCoinSelector<>(1L), inputs)
+            .step(new BinarySearchCoinSelector<>(), inputs)
+            .evaluator(evaluator)
+            .target(5L)
+            .select();
+        assertTrue(result.isComplete());
+        assertEquals(expected, result.getSelection());
+    }
+}
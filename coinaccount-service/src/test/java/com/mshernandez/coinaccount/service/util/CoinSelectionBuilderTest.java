@@ -0,0 +1,233 @@
+package com.mshernandez.coinaccount.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests designed to ensure racing selection steps
+ * returns the lowest waste result.
+ */
+public class CoinSelectionBuilderTest
+{
+    private CoinEvaluator<Long> evaluator = new LongEvaluator();
+
+    @Test
+    public void wasteShouldCountExcessWithinCostOfChange()
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(6L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BinarySearchCoinSelector<>(), inputs)
+            .evaluator(evaluator)
+            .target(5L)
+            .select();
+        assertEquals(1L, evaluator.waste(result, 3L));
+        assertEquals(0L, evaluator.waste(result, 0L));
+    }
+
+    @Test
+    public void wasteShouldIncludeTimingCost()
+    {
+        // Spending Now Costs Twice As Much As Spending Later
+        CoinEvaluator<Long> timedEvaluator = new LongEvaluator(2L)
+        {
+            @Override
+            public long longTermCostImpactOnTarget(long cost)
+            {
+                return cost / 2L;
+            }
+        };
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(7L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new LargestFirstCoinSelector<>(), inputs)
+            .evaluator(timedEvaluator)
+            .target(5L)
+            .select();
+        assertTrue(result.isComplete());
+        assertEquals(1L, timedEvaluator.waste(result, 0L));
+    }
+
+    @Test
+    public void racingShouldPreferChangelessSelection()
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(2L);
+        inputs.add(3L);
+        inputs.add(6L);
+        Set<Long> expected = new HashSet<>();
+        expected.add(2L);
+        expected.add(3L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new LargestFirstCoinSelector<>(), inputs)
+            .step(new BinarySearchCoinSelector<>(), inputs)
+            .step(new BranchAndBoundCoinSelector<>(3L), inputs)
+            .evaluator(evaluator)
+            .target(5L)
+            .selectLowestWaste(ForkJoinPool.commonPool(), 3L, 1000L);
+        assertTrue(result.isComplete());
+        assertEquals(expected, result.getSelection());
+    }
+
+    @Test
+    public void racingShouldChargeFeesOnceForEverySelector()
+    {
+        // Each Input Costs 2, Binary Search Covers Fees Using Effective Values
+        CoinEvaluator<Long> feeEvaluator = new LongEvaluator(2L);
+        Set<Long> searchInputs = new HashSet<>();
+        searchInputs.add(14L);
+        Set<Long> largestInputs = new HashSet<>();
+        largestInputs.add(13L);
+        Set<Long> expected = new HashSet<>();
+        expected.add(13L);
+        CoinSelectionState<Long> searchResult = new CoinSelectionBuilder<Long>()
+            .step(new BinarySearchCoinSelector<>(), searchInputs)
+            .evaluator(feeEvaluator)
+            .target(10L)
+            .select();
+        assertEquals(2L, feeEvaluator.waste(searchResult, 100L));
+        // Excess Of 2 Loses To Excess Of 1 Even When Searching First
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BinarySearchCoinSelector<>(), searchInputs)
+            .step(new LargestFirstCoinSelector<>(), largestInputs)
+            .evaluator(feeEvaluator)
+            .target(10L)
+            .selectLowestWaste(ForkJoinPool.commonPool(), 100L, 1000L);
+        assertTrue(result.isComplete());
+        assertEquals(expected, result.getSelection());
+        assertEquals(1L, feeEvaluator.waste(result, 100L));
+    }
+
+    @Test
+    public void racingShouldIgnoreIncompleteSteps()
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(4L);
+        inputs.add(7L);
+        Set<Long> expected = new HashSet<>();
+        expected.add(7L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BranchAndBoundCoinSelector<>(0L), inputs)
+            .step(new SingleRandomDrawCoinSelector<>(new Random(1L), true), new HashSet<>())
+            .step(new LargestFirstCoinSelector<>(), inputs)
+            .evaluator(evaluator)
+            .target(5L)
+            .selectLowestWaste(ForkJoinPool.commonPool(), 0L, 1000L);
+        assertTrue(result.isComplete());
+        assertEquals(expected, result.getSelection());
+    }
+
+    @Test
+    public void racingShouldWaitForResultsPastDeadline()
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(4L);
+        inputs.add(7L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new LargestFirstCoinSelector<>(), inputs)
+            .evaluator(evaluator)
+            .target(5L)
+            .selectLowestWaste(ForkJoinPool.commonPool(), 0L, 0L);
+        assertTrue(result.isComplete());
+    }
+
+    @Test
+    public void racingWithoutSolutionShouldReturnInvalidResult()
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(1L);
+        inputs.add(2L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new BranchAndBoundCoinSelector<>(0L), inputs)
+            .step(new LargestFirstCoinSelector<>(), inputs)
+            .step(new BinarySearchCoinSelector<>(), inputs)
+            .evaluator(evaluator)
+            .target(5L)
+            .selectLowestWaste(ForkJoinPool.commonPool(), 0L, 1000L);
+        assertFalse(result.isComplete());
+    }
+
+    @Test
+    public void racingShouldStopWaitingAfterMaxWait() throws InterruptedException
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(7L);
+        CountDownLatch stopped = new CountDownLatch(1);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try
+        {
+            long startTime = System.nanoTime();
+            CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+                .step(new StalledCoinSelector(stopped), inputs)
+                .evaluator(evaluator)
+                .target(5L)
+                .selectLowestWaste(pool, 0L, 0L, 100L);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            assertFalse(result.isComplete());
+            assertTrue(elapsedMillis < 5000L);
+            assertTrue(stopped.await(5L, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void racingShouldStopLosingSteps() throws InterruptedException
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(7L);
+        CountDownLatch stopped = new CountDownLatch(1);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try
+        {
+            CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+                .step(new StalledCoinSelector(stopped), inputs)
+                .step(new LargestFirstCoinSelector<>(), inputs)
+                .evaluator(evaluator)
+                .target(5L)
+                .selectLowestWaste(pool, 0L, 100L, 100L);
+            assertTrue(result.isComplete());
+            assertFalse(result.isCanceled());
+            assertTrue(stopped.await(5L, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * A selector that never finishes unless canceled.
+     */
+    private static class StalledCoinSelector implements CoinSelector<Long>
+    {
+        private final CountDownLatch stopped;
+
+        StalledCoinSelector(CountDownLatch stopped)
+        {
+            this.stopped = stopped;
+        }
+
+        @Override
+        public void selectInputs(CoinSelectionState<Long> state, Set<Long> inputs, CoinEvaluator<Long> evaluator)
+        {
+            while (!state.isCanceled())
+            {
+                Thread.onSpinWait();
+            }
+            stopped.countDown();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.mshernandez.coinaccount.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests designed to ensure the largest first
+ * coin selector returns valid results.
+ */
+public class LargestFirstCoinSelectorTest
+{
+    @Test
+    public void largestInputsShouldBeSelectedFirst()
+    {
+        Set<Long> inputs = new HashSet<>(Arrays.asList(1L, 2L, 5L, 8L));
+        Set<Long> expected = new LinkedHashSet<>(Arrays.asList(8L, 5L));
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new LargestFirstCoinSelector<>(), inputs)
+            .evaluator(new LongEvaluator())
+            .target(10L)
+            .select();
+        assertTrue(result.isComplete());
+        assertEquals(expected, result.getSelection());
+        assertEquals(13L, result.getValue());
+    }
+
+    @Test
+    public void inputFeesShouldBeCovered()
+    {
+        Set<Long> inputs = new HashSet<>(Arrays.asList(1L, 4L, 5L, 8L));
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new LargestFirstCoinSelector<>(), inputs)
+            .evaluator(new LongEvaluator(1L))
+            .target(12L)
+            .select();
+        assertTrue(result.isComplete());
+        assertEquals(new HashSet<>(Arrays.asList(8L, 5L, 4L)), result.getSelection());
+        assertEquals(3L, result.getCost());
+    }
+
+    @Test
+    public void insufficientInputsShouldReturnInvalidResult()
+    {
+        Set<Long> inputs = new HashSet<>(Arrays.asList(1L, 2L));
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new LargestFirstCoinSelector<>(), inputs)
+            .evaluator(new LongEvaluator())
+            .target(4L)
+            .select();
+        assertFalse(result.isComplete());
+    }
+}
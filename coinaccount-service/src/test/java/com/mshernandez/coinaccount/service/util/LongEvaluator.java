@@ -44,20 +44,20 @@ public class LongEvaluator implements CoinEvaluator<Long>
     }
 
     @Override
-    public double cost(Long obj)
+    public long cost(Long obj)
     {
         return fee;
     }
 
     @Override
-    public double nthInputCost(long index)
+    public long nthInputCost(long index)
     {
-        return 0.0;
+        return 0L;
     }
 
     @Override
-    public long costImpactOnTarget(double cost)
+    public long costImpactOnTarget(long cost)
     {
-        return (long) cost;
+        return cost;
     }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.mshernandez.coinaccount.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests designed to ensure the single random draw
+ * coin selector returns valid results.
+ */
+public class SingleRandomDrawCoinSelectorTest
+{
+    @Test
+    public void randomSelectionsShouldMeetTarget()
+    {
+        Random random = new Random(3L);
+        CoinEvaluator<Long> evaluator = new LongEvaluator(2L);
+        for (int run = 0; run < 1000; run++)
+        {
+            Set<Long> inputs = new HashSet<>();
+            for (int i = 0; i < 20; i++)
+            {
+                inputs.add(1L + random.nextInt(100));
+            }
+            long target = random.nextInt(500);
+            CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+                .step(new SingleRandomDrawCoinSelector<>(random, true), inputs)
+                .evaluator(evaluator)
+                .target(target)
+                .select();
+            if (result.isComplete())
+            {
+                assertTrue(result.getValue() >= target + evaluator.costImpactOnTarget(result.getCost()));
+                assertTrue(inputs.containsAll(result.getSelection()));
+            }
+        }
+    }
+
+    @Test
+    public void insufficientInputsShouldReturnInvalidResult()
+    {
+        Set<Long> inputs = new HashSet<>();
+        inputs.add(3L);
+        inputs.add(4L);
+        CoinSelectionState<Long> result = new CoinSelectionBuilder<Long>()
+            .step(new SingleRandomDrawCoinSelector<>(new Random(1L), true), inputs)
+            .evaluator(new LongEvaluator(1L))
+            .target(6L)
+            .select();
+        assertFalse(result.isComplete());
+    }
+}
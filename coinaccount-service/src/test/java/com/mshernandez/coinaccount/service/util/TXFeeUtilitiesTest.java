@@ -0,0 +1,92 @@
+package com.mshernandez.coinaccount.service.util;
+
+import static com.mshernandez.coinaccount.service.util.TXFeeUtilities.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests designed to ensure weights and fees
+ * match known transaction sizes.
+ */
+public class TXFeeUtilitiesTest
+{
+    // P2WPKH Locking Script: OP_0 + 20 Byte Key Hash
+    private static final String P2WPKH_SCRIPT = "0014" + "00".repeat(20);
+
+    @Test
+    public void feeShouldRoundUpToWholeSat()
+    {
+        assertEquals(0L, getFee(0L, 1000L));
+        assertEquals(1L, getFee(1L, 1000L));
+        assertEquals(1000L, getFee(4000L, 1000L));
+        assertEquals(1001L, getFee(4001L, 1000L));
+        assertEquals(141L, getFee(562L, 1000L));
+        assertEquals(0L, getFee(562L, 0L));
+    }
+
+    @Test
+    public void vsizeShouldRoundUpToWholeVbyte()
+    {
+        assertEquals(0L, getVsize(0L));
+        assertEquals(1L, getVsize(1L));
+        assertEquals(1L, getVsize(4L));
+        assertEquals(2L, getVsize(5L));
+        assertEquals(141L, getVsize(562L));
+    }
+
+    @Test
+    public void counterShouldGrowAtVarIntBoundaries()
+    {
+        assertEquals(4L, getCounterWeight(1));
+        assertEquals(4L, getCounterWeight(252));
+        assertEquals(12L, getCounterWeight(253));
+        assertEquals(12L, getCounterWeight(65535));
+        assertEquals(20L, getCounterWeight(65536));
+    }
+
+    @Test
+    public void inputWeightsShouldMatchKnownSizes()
+    {
+        // 148 vB, 91 vB, 68 vB, & 57.5 vB
+        assertEquals(592L, getInputWeight(DepositType.P2PKH));
+        assertEquals(364L, getInputWeight(DepositType.P2SH_P2WPKH));
+        assertEquals(272L, getInputWeight(DepositType.P2WPKH));
+        assertEquals(230L, getInputWeight(DepositType.P2TR));
+    }
+
+    @Test
+    public void outputWeightsShouldMatchKnownSizes()
+    {
+        // 34 B, 32 B, 31 B, & 43 B
+        assertEquals(136L, getOutputWeight(DepositType.P2PKH));
+        assertEquals(128L, getOutputWeight(DepositType.P2SH_P2WPKH));
+        assertEquals(124L, getOutputWeight(DepositType.P2WPKH));
+        assertEquals(172L, getOutputWeight(DepositType.P2TR));
+        assertEquals(getOutputWeight(DepositType.P2WPKH), getOutputWeight(P2WPKH_SCRIPT));
+    }
+
+    @Test
+    public void dustLimitsShouldMatchNodeLimits()
+    {
+        // Nodes Use 546 sats For P2PKH & 540 sats For P2SH, 294 sats For P2WPKH With Witness Size Rounded Down
+        assertEquals(546L, getDustLimit(DepositType.P2PKH));
+        assertEquals(540L, getDustLimit(DepositType.P2SH_P2WPKH));
+        assertEquals(298L, getDustLimit(DepositType.P2WPKH));
+        assertEquals(getDustLimit(DepositType.P2WPKH), getDustLimit(getOutputWeight(P2WPKH_SCRIPT), true));
+    }
+
+    @Test
+    public void transactionWeightShouldMatchKnownSize()
+    {
+        // 1 P2WPKH Input & 2 P2WPKH Outputs: At Most 141 vB
+        long weight = TX_VERSION_WEIGHT + TX_LOCKTIME_WEIGHT + TX_SEGWIT_MARKER_WEIGHT
+            + getCounterWeight(1) + getInputWeight(DepositType.P2WPKH) + TX_INPUT_WITNESS_ITEM_COUNTER_WEIGHT
+            + getCounterWeight(2) + 2L * getOutputWeight(DepositType.P2WPKH);
+        assertEquals(141L, getVsize(weight));
+        // Fee Is Rounded Once From Weight, Not From The Rounded vsize
+        assertEquals(1408L, getFee(weight, 10000L));
+    }
+}
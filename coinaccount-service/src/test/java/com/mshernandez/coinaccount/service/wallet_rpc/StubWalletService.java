@@ -0,0 +1,241 @@
+package com.mshernandez.coinaccount.service.wallet_rpc;
+
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import jakarta.enterprise.inject.Vetoed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.CreateRawTransactionInput;
+import com.mshernandez.coinaccount.service.wallet_rpc.parameter.DepositType;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.DecodeRawTransactionInput;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.DecodeRawTransactionOutput;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.DecodeRawTransactionResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.EstimateSmartFeeResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.GetAddressInfoResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.GetTransactionResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.SignRawTransactionWithWalletResult;
+import com.mshernandez.coinaccount.service.wallet_rpc.result.ValidateAddressResult;
+
+/**
+ * Answers wallet requests from fixed results so that
+ * services can be tested without a wallet.
+ * <p>
+ * Created transactions are recorded and hex-encoded as
+ * <code>raw1</code>, <code>raw2</code>, and so on, which are
+ * signed by prefixing <code>signed:</code>. Sent transactions
+ * are recorded and identified by the TXID their signed hex
+ * decodes to. Every address is a valid P2WPKH address.
+ * <p>
+ * Vetoed so that it is never injected in place
+ * of the real wallet service.
+ */
+@Vetoed
+public class StubWalletService extends WalletService
+{
+    // P2WPKH Locking Script: OP_0 + 20 Byte Key Hash
+    private static final String P2WPKH_SCRIPT = "0014" + "00".repeat(20);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, GetTransactionResult> transactions = new HashMap<>();
+    private final Map<String, DecodeRawTransactionResult> decodedTransactions = new HashMap<>();
+    private final List<Map<String, Long>> createdOutputs = new ArrayList<>();
+    private final List<String> sentTransactions = new ArrayList<>();
+    private long blockCount;
+    private long feeRate;
+
+    public StubWalletService() throws URISyntaxException
+    {
+        super("http://127.0.0.1:5888", "user", "pass", new ObjectMapper());
+    }
+
+    public void setBlockCount(long blockCount)
+    {
+        this.blockCount = blockCount;
+    }
+
+    /**
+     * Set the fee rate answered by every fee estimate.
+     *
+     * @param feeRate The fee rate, in sat/kvB.
+     */
+    public void setFeeRate(long feeRate)
+    {
+        this.feeRate = feeRate;
+    }
+
+    /**
+     * Answer requests for an unconfirmed transaction.
+     *
+     * @param txid The transaction ID.
+     * @param replaceable Whether the transaction signals BIP125 replaceability.
+     */
+    public void addUnconfirmedTransaction(String txid, boolean replaceable)
+    {
+        GetTransactionResult transaction = new GetTransactionResult();
+        transaction.setTxid(txid);
+        transaction.setConfirmations(0);
+        transaction.setReplaceable(replaceable ? "yes" : "no");
+        transactions.put(txid, transaction);
+    }
+
+    /**
+     * Answer requests to decode the given hex-encoded transaction.
+     *
+     * @param txHex The hex-encoded transaction.
+     * @param txid The transaction ID.
+     * @param weight The transaction weight.
+     * @param inputs The spent outputs, as TXID and vout pairs.
+     * @param outputs The transaction outputs.
+     */
+    public void addDecodedTransaction(String txHex, String txid, int weight,
+        List<CreateRawTransactionInput> inputs, List<DecodeRawTransactionOutput> outputs)
+    {
+        DecodeRawTransactionResult decoded = new DecodeRawTransactionResult();
+        decoded.setTxid(txid);
+        decoded.setWeight(weight);
+        List<DecodeRawTransactionInput> decodedInputs = new ArrayList<>();
+        for (CreateRawTransactionInput input : inputs)
+        {
+            DecodeRawTransactionInput decodedInput = new DecodeRawTransactionInput();
+            decodedInput.setTxid(input.getTxid());
+            decodedInput.setVout(input.getVout());
+            decodedInputs.add(decodedInput);
+        }
+        decoded.setInputs(decodedInputs);
+        decoded.setOutputs(outputs);
+        decodedTransactions.put(txHex, decoded);
+    }
+
+    /**
+     * Create a decoded transaction output.
+     *
+     * @param index The vout index of the output.
+     * @param address The address paid.
+     * @param amount The amount paid, in sats.
+     * @return The decoded output.
+     */
+    public static DecodeRawTransactionOutput output(int index, String address, long amount)
+    {
+        DecodeRawTransactionOutput output = new DecodeRawTransactionOutput();
+        output.setIndex(index);
+        output.setValue(new SatAmount(amount));
+        DecodeRawTransactionOutput.ScriptPubKey scriptPubKey = output.new ScriptPubKey();
+        scriptPubKey.setAddress(address);
+        output.setScriptPubKey(scriptPubKey);
+        return output;
+    }
+
+    /**
+     * Get the outputs of every created transaction,
+     * in the order they were created.
+     *
+     * @return The outputs of each created transaction.
+     */
+    public List<Map<String, Long>> getCreatedOutputs()
+    {
+        return createdOutputs;
+    }
+
+    /**
+     * Get every sent transaction, in the order they were sent.
+     *
+     * @return The signed, hex-encoded transactions.
+     */
+    public List<String> getSentTransactions()
+    {
+        return sentTransactions;
+    }
+
+    @Override
+    public String createRawTransaction(Set<CreateRawTransactionInput> inputs, Map<String, Long> outputs, boolean replaceable)
+    {
+        createdOutputs.add(new HashMap<>(outputs));
+        return "raw" + createdOutputs.size();
+    }
+
+    @Override
+    public SignRawTransactionWithWalletResult signRawTransactionWithWallet(String txHex)
+    {
+        Map<String, Object> result = new HashMap<>();
+        result.put("hex", "signed:" + txHex);
+        result.put("complete", true);
+        return objectMapper.convertValue(result, SignRawTransactionWithWalletResult.class);
+    }
+
+    @Override
+    public DecodeRawTransactionResult decodeRawTransaction(String txHex)
+    {
+        DecodeRawTransactionResult decoded = decodedTransactions.get(txHex);
+        if (decoded == null)
+        {
+            throw new IllegalStateException("Unknown Transaction: " + txHex);
+        }
+        return decoded;
+    }
+
+    @Override
+    public String sendRawTransaction(String signedTxHex)
+    {
+        String txid = decodeRawTransaction(signedTxHex).getTxid();
+        sentTransactions.add(signedTxHex);
+        return txid;
+    }
+
+    @Override
+    public String getNewAddress(String label, DepositType type)
+    {
+        // Unique Across Instances, Addresses Outlive Each Test
+        return "address:" + UUID.randomUUID();
+    }
+
+    @Override
+    public GetAddressInfoResult getAddressInfo(String address)
+    {
+        GetAddressInfoResult result = new GetAddressInfoResult();
+        result.setAddress(address);
+        result.setScriptPubKey(P2WPKH_SCRIPT);
+        return result;
+    }
+
+    @Override
+    public ValidateAddressResult validateAddress(String address)
+    {
+        ValidateAddressResult result = new ValidateAddressResult();
+        result.setValid(true);
+        result.setAddress(address);
+        result.setScriptPubKey(P2WPKH_SCRIPT);
+        result.setWitness(true);
+        return result;
+    }
+
+    @Override
+    public EstimateSmartFeeResult estimateSmartFee(int confirmationTarget)
+    {
+        EstimateSmartFeeResult result = new EstimateSmartFeeResult();
+        result.setFeeRate(new SatAmount(feeRate));
+        return result;
+    }
+
+    @Override
+    public long getBlockCount()
+    {
+        return blockCount;
+    }
+
+    @Override
+    public GetTransactionResult getTransaction(String txid)
+    {
+        GetTransactionResult transaction = transactions.get(txid);
+        if (transaction == null)
+        {
+            throw new IllegalStateException("Unknown Transaction: " + txid);
+        }
+        return transaction;
+    }
+}
@@ -0,0 +1,135 @@
+package com.mshernandez.coinaccount.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.mshernandez.coinaccount.dao.StubTransferQueue;
+import com.mshernandez.coinaccount.dao.TransferQueue;
+import com.mshernandez.coinaccount.dao.TransferQueue.PendingTransfer;
+import com.mshernandez.coinaccount.service.TransferService;
+import com.mshernandez.coinaccount.service.exception.InsufficientFundsException;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests designed to ensure queued transfers are answered
+ * once their group commits, and applied one at a time
+ * if the group cannot commit together.
+ */
+public class TransferCommitTaskTest
+{
+    private static final UUID SENDER = UUID.randomUUID();
+    private static final UUID RECEIVER = UUID.randomUUID();
+
+    private StubTransferService transferService;
+    private TransferQueue transferQueue;
+    private TransferCommitTask transferCommitTask;
+
+    @BeforeEach
+    public void setup()
+    {
+        transferService = new StubTransferService();
+        transferQueue = new StubTransferQueue(3, 60000L);
+        transferCommitTask = new TransferCommitTask();
+        transferCommitTask.groupCommit = true;
+        transferCommitTask.logger = Logger.getLogger(TransferCommitTaskTest.class);
+        transferCommitTask.transferService = transferService;
+        transferCommitTask.transferQueue = transferQueue;
+    }
+
+    @AfterEach
+    public void teardown()
+    {
+        transferCommitTask.onStop(null);
+    }
+
+    @Test
+    public void groupShouldAnswerEachTransferOnceCommitted() throws Exception
+    {
+        InsufficientFundsException rejection = new InsufficientFundsException();
+        transferService.rejections = Arrays.asList(null, rejection, null);
+        List<CompletableFuture<Void>> results = addTransfers(3);
+        transferCommitTask.onStart(null);
+        results.get(0).get(5L, TimeUnit.SECONDS);
+        assertSame(rejection, failure(results.get(1)));
+        results.get(2).get(5L, TimeUnit.SECONDS);
+        assertEquals(List.of(3), transferService.groupSizes);
+        assertEquals(List.of(), transferService.separateAmounts);
+    }
+
+    @Test
+    public void failedGroupShouldApplyEachTransferSeparately() throws Exception
+    {
+        transferService.groupFailure = new IllegalStateException("Deadlock");
+        transferService.rejectedAmount = 2L;
+        List<CompletableFuture<Void>> results = addTransfers(3);
+        transferCommitTask.onStart(null);
+        results.get(0).get(5L, TimeUnit.SECONDS);
+        assertEquals(InsufficientFundsException.class, failure(results.get(1)).getClass());
+        results.get(2).get(5L, TimeUnit.SECONDS);
+        assertEquals(List.of(3), transferService.groupSizes);
+        assertEquals(List.of(1L, 2L, 3L), transferService.separateAmounts);
+    }
+
+    private List<CompletableFuture<Void>> addTransfers(int count)
+    {
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (long amount = 1L; amount <= count; amount++)
+        {
+            results.add(transferQueue.add(SENDER, RECEIVER, false, amount));
+        }
+        return results;
+    }
+
+    private static Throwable failure(CompletableFuture<Void> result)
+    {
+        return assertThrows(ExecutionException.class, () -> result.get(5L, TimeUnit.SECONDS)).getCause();
+    }
+
+    /**
+     * Commits groups with the given rejections or fails them
+     * with the given exception, recording every call.
+     */
+    private static class StubTransferService extends TransferService
+    {
+        private final List<Integer> groupSizes = new CopyOnWriteArrayList<>();
+        private final List<Long> separateAmounts = new CopyOnWriteArrayList<>();
+        private volatile List<RuntimeException> rejections;
+        private volatile RuntimeException groupFailure;
+        private volatile long rejectedAmount;
+
+        @Override
+        public List<RuntimeException> applyTransfers(List<PendingTransfer> transfers)
+        {
+            groupSizes.add(transfers.size());
+            if (groupFailure != null)
+            {
+                throw groupFailure;
+            }
+            return rejections;
+        }
+
+        @Override
+        public void transferBalance(UUID senderId, UUID receiverId, boolean transferAll, long amount)
+        {
+            separateAmounts.add(amount);
+            if (amount == rejectedAmount)
+            {
+                throw new InsufficientFundsException();
+            }
+        }
+    }
+}